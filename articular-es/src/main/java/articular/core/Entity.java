@@ -53,6 +53,9 @@ public final class Entity implements Component {
 
     private final String name;
 
+    // the identifier is hashed once, and shared by the lookups
+    private Id id;
+
     /**
      * Instantiates a new identifier provider to map
      * some components in their respective systems.
@@ -67,7 +70,12 @@ public final class Entity implements Component {
 
     @Override
     public Id getId() {
-        return new Entity.Id((name.hashCode() >>> 16) /* spreads MSBs to the lower 16-bits */
-                ^ name.hashCode()) /* composes the MSBs with the LSBs by XORing them */;
+        Id current = id;
+        if (current == null) {
+            // the identifier is immutable, so a racing thread may only hash it again
+            id = current = new Entity.Id((name.hashCode() >>> 16) /* spreads MSBs to the lower 16-bits */
+                    ^ name.hashCode()) /* composes the MSBs with the LSBs by XORing them */;
+        }
+        return current;
     }
 }
\ No newline at end of file
@@ -35,7 +35,23 @@ import articular.core.component.Component;
 import articular.core.system.data.DataPipe;
 import articular.core.system.manager.EntityComponentManager;
 import articular.util.Validatable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * Defines aliases for types. A {@link SystemMap} encloses the
@@ -59,8 +75,966 @@ public interface MemoryMap extends Validatable {
     /**
      * Defines a group of components mapped by their IDs which can be derived
      * from the {@link Entity} class.
+     *
+     * <p>
+     * A memory-map can be frozen ({@link #freeze()}) to capture its entries at a point in time
+     * without copying them; while frozen, each mutation of the map preserves the previous component
+     * of its entry first (a copy-on-write of the modified entries only), so the frozen state is isolated
+     * from all the writes of the map, including the direct writes of the system updaters, and the removals
+     * and the entry updates of the iterators opened after the freezing. A frozen state can be overlaid
+     * ({@link Frozen#overlay()}) by a new memory-map that keeps its own writes, and reads the remaining
+     * entries from the frozen state (e.g. the systems of a forked world).
+     * </p>
+     *
+     * <p>
+     * Note: the components are preserved by reference; the in-place modifications of the component
+     * objects are not isolated, so register new component objects instead.
+     * </p>
      */
-    final class EntityComponentMap extends ConcurrentHashMap<Number, Component> implements MemoryMap {
+    final class EntityComponentMap extends AbstractMap<Number, Component>
+            implements ConcurrentMap<Number, Component>, MemoryMap {
+
+        private static final Frozen[] NOT_FROZEN = new Frozen[0];
+
+        private final ConcurrentHashMap<Number, Component> entries;
+        private final EntrySet entrySet = new EntrySet();
+        private final KeySet keySet = new KeySet();
+        private final Values values = new Values();
+        // the frozen states of this map, preserving the entries before their modification
+        private volatile Frozen[] frozenStates = NOT_FROZEN;
+        // the frozen state overlaid by this map, null if this map is not an overlay
+        private volatile Frozen base;
+        // the entries of the overlaid state removed by this map
+        private volatile Set<Number> removed;
+        // the number of the local entries absent from the overlaid state
+        private volatile int added;
+        private final int overlaidSize;
+
+        /**
+         * Instantiates an empty map with the default capacity.
+         */
+        public EntityComponentMap() {
+            this.entries = new ConcurrentHashMap<>();
+            this.removed = Collections.emptySet();
+            this.overlaidSize = 0;
+        }
+
+        /**
+         * Instantiates an empty map presized for a number of components; avoids
+         * the incremental resizing of the bulk insertions.
+         *
+         * @param expectedSize the expected number of components.
+         */
+        public EntityComponentMap(int expectedSize) {
+            this.entries = new ConcurrentHashMap<>(expectedSize);
+            this.removed = Collections.emptySet();
+            this.overlaidSize = 0;
+        }
+
+        private EntityComponentMap(Frozen base) {
+            this.entries = new ConcurrentHashMap<>();
+            this.base = base;
+            this.removed = ConcurrentHashMap.newKeySet();
+            this.overlaidSize = base.size;
+        }
+
+        /**
+         * Freezes the current entries of this map; the map preserves the previous component of each
+         * entry on its first modification until the frozen state is released. Freeze the map on a
+         * tick boundary; a mutation concurrent with the freezing may be partially captured.
+         *
+         * @return a new frozen state holding a reference, release it when done.
+         */
+        public synchronized Frozen freeze() {
+            final Frozen frozen = new Frozen(this);
+            final Frozen[] states = Arrays.copyOf(frozenStates, frozenStates.length + 1);
+            states[states.length - 1] = frozen;
+            frozenStates = states;
+            return frozen;
+        }
+
+        /**
+         * Tests whether this map is an overlay of a frozen state, that is, it reads the entries
+         * it didn't modify from the frozen state.
+         *
+         * @return true if this map overlays a frozen state, false otherwise.
+         */
+        public boolean isOverlay() {
+            return base != null;
+        }
+
+        /**
+         * Compacts an overlay map; the overlay copies the remaining entries of its frozen state and
+         * detaches from it once its own entries reach half of the frozen state, as the lookups fall
+         * through to the frozen state less often than they hit the own entries.
+         *
+         * @return true if this map is still an overlay, false otherwise.
+         */
+        public boolean compact() {
+            if (base != null && entries.size() >= overlaidSize / 2) {
+                materialize();
+            }
+            return base != null;
+        }
+
+        /**
+         * Detaches an overlay map from its frozen state without copying the remaining entries;
+         * the map retains its own entries only.
+         *
+         * @return true if this map was an overlay, false otherwise.
+         */
+        public synchronized boolean detach() {
+            final Frozen frozen = base;
+            if (frozen == null) {
+                return false;
+            }
+            base = null;
+            removed = Collections.emptySet();
+            added = 0;
+            frozen.release();
+            return true;
+        }
+
+        /**
+         * Retrieves the number of the components of this map.
+         *
+         * @return the number of the components.
+         */
+        public long mappingCount() {
+            return size();
+        }
+
+        @Override
+        public Component get(Object key) {
+            final Component component = entries.get(key);
+            if (component != null || base == null) {
+                return component;
+            }
+            return getOverlaid(key);
+        }
+
+        @Override
+        public Component getOrDefault(Object key, Component defaultValue) {
+            final Component component = get(key);
+            return component == null ? defaultValue : component;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            if (base == null) {
+                return entries.containsValue(value);
+            }
+            return super.containsValue(value);
+        }
+
+        @Override
+        public int size() {
+            if (base == null) {
+                return entries.size();
+            }
+            return Math.max(0, overlaidSize + added - removed.size());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public Component put(Number key, Component value) {
+            Objects.requireNonNull(value);
+            if (base != null) {
+                return update(key, value);
+            }
+            preserve(key);
+            return entries.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends Number, ? extends Component> map) {
+            for (Map.Entry<? extends Number, ? extends Component> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public Component remove(Object key) {
+            if (!(key instanceof Number)) {
+                return null;
+            }
+            if (base != null) {
+                return update(key, null);
+            }
+            preserve(key);
+            return entries.remove(key);
+        }
+
+        @Override
+        public Component putIfAbsent(Number key, Component value) {
+            Objects.requireNonNull(value);
+            if (base == null) {
+                preserve(key);
+                return entries.putIfAbsent(key, value);
+            }
+            synchronized (this) {
+                final Component component = get(key);
+                return component == null ? update(key, value) : component;
+            }
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            if (!(key instanceof Number) || value == null) {
+                return false;
+            }
+            if (base == null) {
+                preserve(key);
+                return entries.remove(key, value);
+            }
+            synchronized (this) {
+                if (!value.equals(get(key))) {
+                    return false;
+                }
+                update(key, null);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean replace(Number key, Component oldValue, Component newValue) {
+            Objects.requireNonNull(oldValue);
+            Objects.requireNonNull(newValue);
+            if (base == null) {
+                preserve(key);
+                return entries.replace(key, oldValue, newValue);
+            }
+            synchronized (this) {
+                if (!oldValue.equals(get(key))) {
+                    return false;
+                }
+                update(key, newValue);
+                return true;
+            }
+        }
+
+        @Override
+        public Component replace(Number key, Component value) {
+            Objects.requireNonNull(value);
+            if (base == null) {
+                preserve(key);
+                return entries.replace(key, value);
+            }
+            synchronized (this) {
+                return get(key) == null ? null : update(key, value);
+            }
+        }
+
+        @Override
+        public Component computeIfAbsent(Number key, Function<? super Number, ? extends Component> function) {
+            if (base == null) {
+                preserve(key);
+                return entries.computeIfAbsent(key, function);
+            }
+            synchronized (this) {
+                final Component component = get(key);
+                if (component != null) {
+                    return component;
+                }
+                final Component value = function.apply(key);
+                if (value != null) {
+                    update(key, value);
+                }
+                return value;
+            }
+        }
+
+        @Override
+        public Component computeIfPresent(Number key,
+                                          BiFunction<? super Number, ? super Component, ? extends Component> function) {
+            if (base == null) {
+                preserve(key);
+                return entries.computeIfPresent(key, function);
+            }
+            synchronized (this) {
+                final Component component = get(key);
+                if (component == null) {
+                    return null;
+                }
+                final Component value = function.apply(key, component);
+                update(key, value);
+                return value;
+            }
+        }
+
+        @Override
+        public Component compute(Number key,
+                                 BiFunction<? super Number, ? super Component, ? extends Component> function) {
+            if (base == null) {
+                preserve(key);
+                return entries.compute(key, function);
+            }
+            synchronized (this) {
+                final Component component = get(key);
+                final Component value = function.apply(key, component);
+                if (value != null || component != null) {
+                    update(key, value);
+                }
+                return value;
+            }
+        }
+
+        @Override
+        public Component merge(Number key, Component value,
+                               BiFunction<? super Component, ? super Component, ? extends Component> function) {
+            Objects.requireNonNull(value);
+            if (base == null) {
+                preserve(key);
+                return entries.merge(key, value, function);
+            }
+            synchronized (this) {
+                final Component component = get(key);
+                final Component merged = component == null ? value : function.apply(component, value);
+                if (merged != null || component != null) {
+                    update(key, merged);
+                }
+                return merged;
+            }
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super Number, ? super Component, ? extends Component> function) {
+            if (base == null) {
+                if (frozenStates.length == 0) {
+                    entries.replaceAll(function);
+                } else {
+                    entries.replaceAll((key, value) -> {
+                        preserve(key, value);
+                        return function.apply(key, value);
+                    });
+                }
+                return;
+            }
+            synchronized (this) {
+                // visits the own entries first, so the overlaid entries copied by the updates aren't revisited
+                final Entries iterator = new Entries();
+                while (iterator.hasNext()) {
+                    final Map.Entry<Number, Component> entry = iterator.next();
+                    update(entry.getKey(), Objects.requireNonNull(function.apply(entry.getKey(), entry.getValue())));
+                }
+            }
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super Number, ? super Component> action) {
+            if (base == null) {
+                entries.forEach(action);
+                return;
+            }
+            super.forEach(action);
+        }
+
+        /**
+         * Performs an action for each entry of this map, in parallel if the map is larger than
+         * a threshold; an overlay map performs the action sequentially.
+         *
+         * @param parallelismThreshold the estimated number of entries to perform in parallel.
+         * @param action               the action to perform (not null).
+         * @see ConcurrentHashMap#forEach(long, BiConsumer)
+         */
+        public void forEach(long parallelismThreshold, BiConsumer<? super Number, ? super Component> action) {
+            if (base == null) {
+                entries.forEach(parallelismThreshold, action);
+                return;
+            }
+            forEach(action);
+        }
+
+        @Override
+        public void clear() {
+            if (base == null && frozenStates.length == 0) {
+                entries.clear();
+                return;
+            }
+            synchronized (this) {
+                if (frozenStates.length != 0) {
+                    for (Map.Entry<Number, Component> entry : entrySet) {
+                        preserve(entry.getKey(), entry.getValue());
+                    }
+                }
+                entries.clear();
+                detach();
+            }
+        }
+
+        @Override
+        public Set<Map.Entry<Number, Component>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public Set<Number> keySet() {
+            return keySet;
+        }
+
+        @Override
+        public Collection<Component> values() {
+            return values;
+        }
+
+        private Component getOverlaid(Object key) {
+            final Frozen frozen = base;
+            if (frozen == null || !(key instanceof Number)) {
+                // detached meanwhile, the remaining entries are local
+                return entries.get(key);
+            }
+            final Component component = removed.contains(key) ? null : frozen.get(((Number) key).longValue());
+            return base == null ? entries.get(key) : component;
+        }
+
+        /**
+         * Writes an entry of an overlay map; a null value removes the entry.
+         */
+        private synchronized Component update(Object key, Component value) {
+            final Frozen frozen = base;
+            if (frozen == null) {
+                preserve(key);
+                return value == null ? entries.remove(key) : entries.put(boxed(key), value);
+            }
+            final Component local = entries.get(key);
+            final boolean tombstone = removed.contains(key);
+            final Component overlaid = frozen.get(((Number) key).longValue());
+            final Component previous = local != null ? local : tombstone ? null : overlaid;
+            preserve(key, previous);
+            if (value != null) {
+                entries.put(boxed(key), value);
+                if (local == null) {
+                    if (tombstone) {
+                        removed.remove(key);
+                    } else if (overlaid == null) {
+                        added++;
+                    }
+                }
+            } else if (previous != null) {
+                if (local != null) {
+                    entries.remove(key);
+                }
+                if (overlaid != null) {
+                    removed.add(boxed(key));
+                } else {
+                    added--;
+                }
+            }
+            return previous;
+        }
+
+        private void preserve(Object key) {
+            if (frozenStates.length != 0 && key instanceof Number) {
+                preserve(key, get(key));
+            }
+        }
+
+        private void preserve(Object key, Component component) {
+            for (Frozen frozen : frozenStates) {
+                frozen.preserve((Number) key, component);
+            }
+        }
+
+        private synchronized void materialize() {
+            final Frozen frozen = base;
+            if (frozen == null) {
+                return;
+            }
+            // copies the frozen state rather than iterating it, the copy is exact under concurrent writes
+            for (Map.Entry<Number, Component> entry : frozen.copy().entries.entrySet()) {
+                if (!removed.contains(entry.getKey())) {
+                    entries.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+            detach();
+        }
+
+        private synchronized void unfreeze(Frozen frozen) {
+            final Frozen[] states = frozenStates;
+            for (int index = 0; index < states.length; index++) {
+                if (states[index] != frozen) {
+                    continue;
+                }
+                final Frozen[] remaining = new Frozen[states.length - 1];
+                System.arraycopy(states, 0, remaining, 0, index);
+                System.arraycopy(states, index + 1, remaining, index, remaining.length - index);
+                frozenStates = remaining.length == 0 ? NOT_FROZEN : remaining;
+                return;
+            }
+        }
+
+        private static Number boxed(Object key) {
+            // never inserts a reusable lookup key
+            return key instanceof LookupKey ? Long.valueOf(((LookupKey) key).longValue()) : (Number) key;
+        }
+
+        /**
+         * Represents the entries of a memory-map frozen at a point in time; the frozen state shares
+         * the live map, and resolves an entry from the components preserved by the live map before
+         * their modification first, and from the live map otherwise.
+         *
+         * <p>
+         * A frozen state is reference counted; its creator holds a reference, and each overlay
+         * holds another until it detaches. The live map stops preserving the entries when all
+         * the references are released.
+         * </p>
+         */
+        public static final class Frozen {
+
+            // the preserved value of an entry absent at the freezing
+            private static final Object ABSENT = new Object();
+
+            private final EntityComponentMap live;
+            private final ConcurrentHashMap<Number, Object> preserved = new ConcurrentHashMap<>();
+            private final int size;
+            private int references = 1;
+            private volatile boolean released;
+
+            private Frozen(EntityComponentMap live) {
+                this.live = live;
+                this.size = live.size();
+            }
+
+            /**
+             * Retrieves the component of an entity as it was at the freezing.
+             *
+             * @param entityId the entity identifier.
+             * @return the frozen component, or null if the entity had no component.
+             */
+            public Component get(long entityId) {
+                // reads the live value first; a value modified after this read is preserved before its modification
+                final Component component = live.get(LookupKey.of(entityId));
+                final Object value = preserved.get(LookupKey.of(entityId));
+                if (value == null) {
+                    return component;
+                }
+                return value == ABSENT ? null : (Component) value;
+            }
+
+            /**
+             * Retrieves the number of the entries at the freezing.
+             *
+             * @return the number of the frozen entries.
+             */
+            public int size() {
+                return size;
+            }
+
+            /**
+             * Copies the frozen entries into a new memory-map; the copy is exact even if the live
+             * map is being modified concurrently.
+             *
+             * @return a new memory-map of the frozen entries.
+             */
+            public EntityComponentMap copy() {
+                final EntityComponentMap components = new EntityComponentMap(size);
+                // copies the live entries first, then overlays the preserved ones; an entry modified
+                // after being copied is preserved before its modification, so it is overlaid
+                live.forEach(components.entries::put);
+                for (Map.Entry<Number, Object> entry : preserved.entrySet()) {
+                    if (entry.getValue() == ABSENT) {
+                        components.entries.remove(entry.getKey());
+                    } else {
+                        components.entries.put(entry.getKey(), (Component) entry.getValue());
+                    }
+                }
+                return components;
+            }
+
+            /**
+             * Instantiates a memory-map overlaying this frozen state; the overlay keeps its own writes,
+             * and reads the remaining entries from this state without copying them. The overlay holds
+             * a reference of this state until it detaches.
+             *
+             * @return a new overlay memory-map.
+             * @throws IllegalStateException if this state has been released.
+             */
+            public EntityComponentMap overlay() {
+                retain();
+                return new EntityComponentMap(this);
+            }
+
+            /**
+             * Releases a reference of this state; the live map stops preserving the entries
+             * when all the references are released.
+             */
+            public void release() {
+                synchronized (this) {
+                    if (released || --references > 0) {
+                        return;
+                    }
+                    released = true;
+                }
+                live.unfreeze(this);
+                preserved.clear();
+            }
+
+            /**
+             * Tests whether this state has been released.
+             *
+             * @return true if released, false otherwise.
+             */
+            public boolean isReleased() {
+                return released;
+            }
+
+            /**
+             * Retrieves the identifiers of the entries modified in the live map since the freezing,
+             * that is, the entries preserved so far; the set is empty once this state is released.
+             *
+             * @return an unmodifiable live set of the modified entity identifiers.
+             */
+            public Set<Number> getModified() {
+                return Collections.unmodifiableSet(preserved.keySet());
+            }
+
+            /**
+             * Retrieves the number of the entries preserved so far (copied on write).
+             *
+             * @return the number of the preserved entries.
+             */
+            public int getPreservedCount() {
+                return preserved.size();
+            }
+
+            private synchronized void retain() {
+                if (released) {
+                    throw new IllegalStateException("The frozen state has been released");
+                }
+                references++;
+            }
+
+            private void preserve(Number key, Component component) {
+                if (!released) {
+                    preserved.putIfAbsent(boxed(key), component == null ? ABSENT : component);
+                }
+            }
+
+            private Cursor cursor() {
+                return new Cursor();
+            }
+
+            /**
+             * Iterates the frozen entries; the entries removed from the live map before the iteration
+             * are visited from the preserved entries first, then the live entries are visited with
+             * their frozen values.
+             *
+             * <p>
+             * Note: the iteration is weakly consistent; an entry removed from the live map while it is
+             * iterated may be missed, use {@link #copy()} for an exact copy.
+             * </p>
+             */
+            private final class Cursor {
+                private final Iterator<Map.Entry<Number, Component>> liveEntries = live.entrySet().iterator();
+                private Iterator<Map.Entry<Number, Object>> preservedEntries = preserved.entrySet().iterator();
+                // the preserved entries visited before the live ones, not to be revisited
+                private Set<Number> visited;
+                private Number key;
+                private Component value;
+
+                private boolean next() {
+                    if (preservedEntries != null) {
+                        while (preservedEntries.hasNext()) {
+                            final Map.Entry<Number, Object> entry = preservedEntries.next();
+                            if (entry.getValue() != ABSENT && !live.containsKey(entry.getKey())) {
+                                if (visited == null) {
+                                    visited = new HashSet<>();
+                                }
+                                visited.add(entry.getKey());
+                                return set(entry.getKey(), (Component) entry.getValue());
+                            }
+                        }
+                        preservedEntries = null;
+                    }
+                    while (liveEntries.hasNext()) {
+                        final Map.Entry<Number, Component> entry = liveEntries.next();
+                        // reads the live value first; a value modified after this read is preserved before its modification
+                        final Component component = entry.getValue();
+                        final Object value = preserved.get(entry.getKey());
+                        if (value == null) {
+                            return set(entry.getKey(), component);
+                        }
+                        if (value != ABSENT && (visited == null || !visited.contains(entry.getKey()))) {
+                            return set(entry.getKey(), (Component) value);
+                        }
+                    }
+                    key = null;
+                    value = null;
+                    return false;
+                }
+
+                private boolean set(Number key, Component value) {
+                    this.key = key;
+                    this.value = value;
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Iterates the entries of a frozen map that is not an overlay; the iterator removals
+         * and the entry updates are preserved through the map.
+         */
+        private final class LocalEntries implements Iterator<Map.Entry<Number, Component>> {
+            private final Iterator<Map.Entry<Number, Component>> local = entries.entrySet().iterator();
+            private Number lastKey;
+
+            @Override
+            public boolean hasNext() {
+                return local.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Number, Component> next() {
+                final Map.Entry<Number, Component> entry = local.next();
+                lastKey = entry.getKey();
+                return new Entry(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public void remove() {
+                if (lastKey == null) {
+                    throw new IllegalStateException();
+                }
+                EntityComponentMap.this.remove(lastKey);
+                lastKey = null;
+            }
+        }
+
+        /**
+         * Iterates the own entries of this map first, then the entries of its overlaid state
+         * that this map didn't modify.
+         */
+        private final class Entries implements Iterator<Map.Entry<Number, Component>> {
+            private final Iterator<Map.Entry<Number, Component>> local = entries.entrySet().iterator();
+            private final Frozen.Cursor overlaid;
+            private final Set<Number> tombstones;
+            private Number nextKey;
+            private Component nextValue;
+            private Number lastKey;
+
+            private Entries() {
+                final Frozen frozen = base;
+                this.overlaid = frozen == null ? null : frozen.cursor();
+                this.tombstones = removed;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (nextKey != null) {
+                    return true;
+                }
+                if (local.hasNext()) {
+                    final Map.Entry<Number, Component> entry = local.next();
+                    nextKey = entry.getKey();
+                    nextValue = entry.getValue();
+                    return true;
+                }
+                return overlaid != null && nextOverlaid();
+            }
+
+            private boolean nextOverlaid() {
+                while (overlaid.next()) {
+                    if (!entries.containsKey(overlaid.key) && !tombstones.contains(overlaid.key)) {
+                        nextKey = overlaid.key;
+                        nextValue = overlaid.value;
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Map.Entry<Number, Component> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Entry entry = new Entry(nextKey, nextValue);
+                lastKey = nextKey;
+                nextKey = null;
+                nextValue = null;
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+                if (lastKey == null) {
+                    throw new IllegalStateException();
+                }
+                EntityComponentMap.this.remove(lastKey);
+                lastKey = null;
+            }
+        }
+
+        /**
+         * An entry of this map; updating its value writes through the map.
+         */
+        private final class Entry implements Map.Entry<Number, Component> {
+            private final Number key;
+            private Component value;
+
+            private Entry(Number key, Component value) {
+                this.key = key;
+                this.value = value;
+            }
+
+            @Override
+            public Number getKey() {
+                return key;
+            }
+
+            @Override
+            public Component getValue() {
+                return value;
+            }
+
+            @Override
+            public Component setValue(Component value) {
+                final Component previous = this.value;
+                put(key, value);
+                this.value = value;
+                return previous;
+            }
+
+            @Override
+            public boolean equals(Object object) {
+                return object instanceof Map.Entry<?, ?> entry
+                        && key.equals(entry.getKey()) && value.equals(entry.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return key.hashCode() ^ value.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return key + "=" + value;
+            }
+        }
+
+        private final class EntrySet extends AbstractSet<Map.Entry<Number, Component>> {
+            @Override
+            public Iterator<Map.Entry<Number, Component>> iterator() {
+                if (base != null) {
+                    return new Entries();
+                }
+                // the iterators of a map that is not frozen need no preservation, and stay allocation-free
+                return frozenStates.length == 0 ? entries.entrySet().iterator() : new LocalEntries();
+            }
+
+            @Override
+            public int size() {
+                return EntityComponentMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                return object instanceof Map.Entry<?, ?> entry && entry.getValue() != null
+                        && entry.getValue().equals(get(entry.getKey()));
+            }
+
+            @Override
+            public boolean remove(Object object) {
+                return object instanceof Map.Entry<?, ?> entry
+                        && EntityComponentMap.this.remove(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public void clear() {
+                EntityComponentMap.this.clear();
+            }
+        }
+
+        private final class KeySet extends AbstractSet<Number> {
+            @Override
+            public Iterator<Number> iterator() {
+                final Entries iterator = new Entries();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Number next() {
+                        return iterator.next().getKey();
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return EntityComponentMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                return containsKey(object);
+            }
+
+            @Override
+            public boolean remove(Object object) {
+                return EntityComponentMap.this.remove(object) != null;
+            }
+
+            @Override
+            public void clear() {
+                EntityComponentMap.this.clear();
+            }
+        }
+
+        private final class Values extends AbstractCollection<Component> {
+            @Override
+            public Iterator<Component> iterator() {
+                final Entries iterator = new Entries();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Component next() {
+                        return iterator.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return EntityComponentMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                return containsValue(object);
+            }
+
+            @Override
+            public void clear() {
+                EntityComponentMap.this.clear();
+            }
+        }
     }
 
     /**
@@ -80,6 +1054,75 @@ public interface MemoryMap extends Validatable {
      */
     final class DataPipeMap extends ConcurrentHashMap<Number, DataPipe<?, ?>> implements MemoryMap {
     }
+
+    /**
+     * Provides a reusable key to look up the memory-maps keyed by the boxed identifiers
+     * without boxing them; each thread reuses its own key object.
+     *
+     * <p>
+     * Note: a lookup key equals the boxed longs of its value, but not vice versa; so use it
+     * only as the argument of a lookup or a removal (e.g. get, containsKey, remove and replace),
+     * never as the key of an insertion. The key is reset by the next {@link LookupKey#of(long)}
+     * on the same thread, so don't retain it.
+     * </p>
+     */
+    final class LookupKey extends Number {
+
+        private static final ThreadLocal<LookupKey> KEYS = ThreadLocal.withInitial(LookupKey::new);
+
+        private long value;
+
+        private LookupKey() {
+        }
+
+        /**
+         * Retrieves the lookup key of the calling thread set to a value.
+         *
+         * @param value the identifier to look up.
+         * @return the reusable key of the calling thread.
+         */
+        public static LookupKey of(long value) {
+            final LookupKey key = KEYS.get();
+            key.value = value;
+            return key;
+        }
+
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+
+        @Override
+        public long longValue() {
+            return value;
+        }
+
+        @Override
+        public float floatValue() {
+            return value;
+        }
+
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(value);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Long boxed ? boxed == value
+                    : object instanceof LookupKey key && key.value == value;
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(value);
+        }
+    }
 }
 
 
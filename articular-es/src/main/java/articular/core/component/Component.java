@@ -64,17 +64,22 @@ public interface Component extends Identifiable<Component.Id> {
     /**
      * Retrieves a data field by its name from a data-field pointer.
      *
+     * <p>
+     * The field is resolved once per component class and field name into a cached
+     * {@link ComponentAccessor}; hold the accessor directly for the hot loops, and read the primitive
+     * fields through its typed getters to avoid boxing. A static field is read as well.
+     * </p>
+     *
      * @param <T>       the type of the component object data in memory.
      * @param fieldName the field name in the component class.
      * @return a reference object to the required field (nullable).
      * @throws NoSuchFieldException   if the submitted field is not found in this component.
      * @throws IllegalAccessException if the field is inaccessible by means of private access modifiers
      *                                (internally suppressed).
+     * @see ComponentAccessor#of(Class, String)
      */
     default <T> T getData(String fieldName) throws NoSuchFieldException, IllegalAccessException {
-        final Field data = getClass().getDeclaredField(fieldName);
-        data.setAccessible(true);
-        return (T) data.get(this);
+        return ComponentAccessor.<T>of(getClass(), fieldName).get(this);
     }
 
     @Override
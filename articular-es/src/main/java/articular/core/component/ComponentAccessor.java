@@ -0,0 +1,307 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a typed accessor to a component data field; the field is resolved
+ * once into method handles, and the accessors are cached by the component class and the
+ * field name, so {@link Component#getData(String)} doesn't repeat the reflective lookup
+ * and the access checks on every invocation.
+ *
+ * <p>
+ * Systems accessing the data in loops (or listeners) should resolve the accessor once
+ * and hold it; the accessor is a record, so the JIT trusts its handles as constants when
+ * the accessor itself is a constant (e.g. a {@code static final} field), and inlines the
+ * field access into the caller.
+ * </p>
+ *
+ * <p>
+ * Memory retention: the accessors are never evicted, a component class keeps its resolved accessors
+ * for its lifetime (one small map per class, bounded by the accessed fields). The cache is a {@link ClassValue},
+ * so the accessors of a class are stored in that class itself, and an accessor references only the class it is
+ * keyed by (and its handles of the fields declared by that class); thus the cache alone doesn't keep a component class
+ * or its class loader reachable, and the classes of an unloaded loader (e.g. a plugin) are collected with their accessors.
+ * However, a held accessor pins its component class and class loader; so systems that outlive a loader should not
+ * keep its accessors (e.g. in {@code static final} fields of classes of a parent loader).
+ * </p>
+ *
+ * <p>
+ * The primitive fields are boxed by {@link ComponentAccessor#get(Component)}; the typed getters
+ * (e.g. {@link ComponentAccessor#getFloat(Component)}) read them without boxing. A static field is
+ * read and written regardless of the component instance, as {@link Component#getData(String)} always did.
+ * </p>
+ *
+ * @param componentClass the class declaring the data field.
+ * @param fieldName      the name of the data field.
+ * @param getter         a handle of type {@code (Object)Object} reading the field.
+ * @param setter         a handle of type {@code (Object,Object)void} writing the field (null if final).
+ * @param typedGetter    a handle of type {@code (Object)F} reading the field, where {@code F} is the field type.
+ * @param <T>            the type of the data field.
+ * @author pavl_g
+ * @see Component#getData(String)
+ */
+public record ComponentAccessor<T>(Class<?> componentClass, String fieldName,
+                                   MethodHandle getter, MethodHandle setter, MethodHandle typedGetter) {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    // keyed by the declaring class of the fields; a value must not reference other classes, or it would pin their loaders
+    private static final ClassValue<ConcurrentHashMap<String, ComponentAccessor<?>>> CACHE = new ClassValue<>() {
+        @Override
+        protected ConcurrentHashMap<String, ComponentAccessor<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Instantiates an accessor; use {@link ComponentAccessor#of(Class, String)}
+     * to resolve and cache the accessors.
+     *
+     * @param componentClass the class declaring the data field (not null).
+     * @param fieldName      the name of the data field (not null).
+     * @param getter         a handle of type {@code (Object)Object} reading the field (not null).
+     * @param setter         a handle of type {@code (Object,Object)void} writing the field (nullable).
+     * @param typedGetter    a handle of type {@code (Object)F} reading the field, where {@code F}
+     *                       is the field type (not null).
+     */
+    public ComponentAccessor {
+        Objects.requireNonNull(componentClass);
+        Objects.requireNonNull(fieldName);
+        if (!getter.type().equals(GETTER_TYPE) || (setter != null && !setter.type().equals(SETTER_TYPE))
+                || !typedGetter.type().equals(MethodType.methodType(typedGetter.type().returnType(), Object.class))) {
+            throw new IllegalArgumentException("Accessor handles have invalid types!");
+        }
+    }
+
+    /**
+     * Instantiates an accessor without the typed getters; the getter is used as
+     * the typed getter of a field of type {@code Object}.
+     *
+     * @param componentClass the class declaring the data field (not null).
+     * @param fieldName      the name of the data field (not null).
+     * @param getter         a handle of type {@code (Object)Object} reading the field (not null).
+     * @param setter         a handle of type {@code (Object,Object)void} writing the field (nullable).
+     */
+    public ComponentAccessor(Class<?> componentClass, String fieldName, MethodHandle getter, MethodHandle setter) {
+        this(componentClass, fieldName, getter, setter, getter);
+    }
+
+    /**
+     * Retrieves the cached accessor of a component data field, resolving it on the first use.
+     *
+     * @param componentClass the class declaring the data field (not null).
+     * @param fieldName      the field name in the component class (not null).
+     * @param <T>            the type of the data field.
+     * @return the cached accessor (not null).
+     * @throws NoSuchFieldException   if the field is not declared by the component class.
+     * @throws IllegalAccessException if the field cannot be made accessible.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ComponentAccessor<T> of(Class<?> componentClass, String fieldName)
+            throws NoSuchFieldException, IllegalAccessException {
+        final ConcurrentHashMap<String, ComponentAccessor<?>> accessors = CACHE.get(componentClass);
+        ComponentAccessor<?> accessor = accessors.get(fieldName);
+        if (accessor == null) {
+            accessor = resolve(componentClass, fieldName);
+            final ComponentAccessor<?> previous = accessors.putIfAbsent(fieldName, accessor);
+            if (previous != null) {
+                accessor = previous;
+            }
+        }
+        return (ComponentAccessor<T>) accessor;
+    }
+
+    /**
+     * Reads the data field of a component.
+     *
+     * @param component the component instance of the accessor class (not null).
+     * @return the field value (nullable).
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Component component) {
+        try {
+            return (T) (Object) getter.invokeExact((Object) component);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the {@code int} data field of a component without boxing.
+     *
+     * @param component the component instance of the accessor class (not null).
+     * @return the field value.
+     * @throws ClassCastException if the field is not of type {@code int}.
+     */
+    public int getInt(Component component) {
+        checkType(int.class);
+        try {
+            return (int) typedGetter.invokeExact((Object) component);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the {@code long} data field of a component without boxing.
+     *
+     * @param component the component instance of the accessor class (not null).
+     * @return the field value.
+     * @throws ClassCastException if the field is not of type {@code long}.
+     */
+    public long getLong(Component component) {
+        checkType(long.class);
+        try {
+            return (long) typedGetter.invokeExact((Object) component);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the {@code float} data field of a component without boxing.
+     *
+     * @param component the component instance of the accessor class (not null).
+     * @return the field value.
+     * @throws ClassCastException if the field is not of type {@code float}.
+     */
+    public float getFloat(Component component) {
+        checkType(float.class);
+        try {
+            return (float) typedGetter.invokeExact((Object) component);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the {@code double} data field of a component without boxing.
+     *
+     * @param component the component instance of the accessor class (not null).
+     * @return the field value.
+     * @throws ClassCastException if the field is not of type {@code double}.
+     */
+    public double getDouble(Component component) {
+        checkType(double.class);
+        try {
+            return (double) typedGetter.invokeExact((Object) component);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the data field of a component.
+     *
+     * @param component the component instance of the accessor class (not null).
+     * @param value     the new field value (nullable).
+     * @throws UnsupportedOperationException if the field is final.
+     */
+    public void set(Component component, T value) {
+        if (setter == null) {
+            throw new UnsupportedOperationException("Field \"" + fieldName + "\" is final!");
+        }
+        try {
+            setter.invokeExact((Object) component, (Object) value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Tests whether the data field is writable.
+     *
+     * @return true if the field is not final, false otherwise.
+     */
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * Retrieves the declared type of the data field.
+     *
+     * @return the field type (e.g. {@code float.class} for a primitive float field).
+     */
+    public Class<?> getType() {
+        return typedGetter.type().returnType();
+    }
+
+    private void checkType(Class<?> type) {
+        if (typedGetter.type().returnType() != type) {
+            throw new ClassCastException("Field \"" + fieldName + "\" is of type " + getType().getName()
+                    + ", not " + type.getName() + "!");
+        }
+    }
+
+    private static ComponentAccessor<?> resolve(Class<?> componentClass, String fieldName)
+            throws NoSuchFieldException, IllegalAccessException {
+        final Field field = componentClass.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        // the unreflected handles honor the accessible flag of the field
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle typedGetter = lookup.unreflectGetter(field);
+        MethodHandle setter = null;
+        if (!Modifier.isFinal(field.getModifiers())) {
+            setter = lookup.unreflectSetter(field);
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            // the static handles take no instance; the component argument is ignored
+            typedGetter = MethodHandles.dropArguments(typedGetter, 0, Object.class);
+            if (setter != null) {
+                setter = MethodHandles.dropArguments(setter, 0, Object.class);
+            }
+        }
+        typedGetter = typedGetter.asType(MethodType.methodType(field.getType(), Object.class));
+        return new ComponentAccessor<>(componentClass, fieldName, typedGetter.asType(GETTER_TYPE),
+                setter == null ? null : setter.asType(SETTER_TYPE), typedGetter);
+    }
+}
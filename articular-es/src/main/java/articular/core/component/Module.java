@@ -131,7 +131,7 @@ public interface Module extends Component {
      */
     default void unregister(Component.Id id) {
         Validator.validate(id, Validator.Message.INVALID_ID);
-        getComponents().remove(id.longValue());
+        getComponents().remove(MemoryMap.LookupKey.of(id.longValue()));
     }
 
     /**
@@ -178,7 +178,7 @@ public interface Module extends Component {
      */
     default <T extends Component>
     T getComponent(Component.Id id) {
-        return (T) getComponents().get(id.longValue());
+        return (T) getComponents().get(MemoryMap.LookupKey.of(id.longValue()));
     }
 
     /**
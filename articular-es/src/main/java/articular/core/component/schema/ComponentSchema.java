@@ -0,0 +1,130 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.component.schema;
+
+import articular.core.component.Component;
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the dense binary layout of a schema component; implementations are
+ * generated at compile-time for the components annotated by {@link Schema}.
+ *
+ * <p>
+ * The fields are laid out in a fixed-size record ordered by their sizes, so each
+ * field is naturally aligned when the records are stored at multiples of
+ * {@link ComponentSchema#getSize()}. The routines use the absolute operations of
+ * the buffer, and the byte order of the buffer.
+ * </p>
+ *
+ * @param <C> the type of the schema component.
+ * @author pavl_g
+ */
+public interface ComponentSchema<C extends Component> {
+
+    /**
+     * Retrieves the schema component class.
+     *
+     * @return the component class.
+     */
+    Class<C> getComponentClass();
+
+    /**
+     * Retrieves the size of a component record in bytes (including the alignment padding).
+     *
+     * @return the record size in bytes.
+     */
+    int getSize();
+
+    /**
+     * Retrieves the names of the component fields in their layout order.
+     *
+     * @return a new array of the field names.
+     */
+    String[] getFieldNames();
+
+    /**
+     * Retrieves the offsets of the component fields within a record in their layout order.
+     *
+     * @return a new array of the field offsets in bytes.
+     */
+    int[] getFieldOffsets();
+
+    /**
+     * Retrieves the sizes of the component fields in their layout order.
+     *
+     * @return a new array of the field sizes in bytes.
+     */
+    int[] getFieldSizes();
+
+    /**
+     * Serializes a component into a record of a buffer.
+     *
+     * @param component the component to serialize (not null).
+     * @param buffer    the destination buffer (not null).
+     * @param offset    the absolute offset of the record in the buffer.
+     */
+    void write(C component, ByteBuffer buffer, int offset);
+
+    /**
+     * Deserializes a component from a record of a buffer.
+     *
+     * @param buffer the source buffer (not null).
+     * @param offset the absolute offset of the record in the buffer.
+     * @return a new component instance.
+     */
+    C read(ByteBuffer buffer, int offset);
+
+    /**
+     * Copies a record between two buffers without materializing the component.
+     *
+     * @param source            the source buffer (not null).
+     * @param sourceOffset      the absolute offset of the source record.
+     * @param destination       the destination buffer (not null).
+     * @param destinationOffset the absolute offset of the destination record.
+     */
+    default void copy(ByteBuffer source, int sourceOffset, ByteBuffer destination, int destinationOffset) {
+        destination.put(destinationOffset, source, sourceOffset, getSize());
+    }
+
+    /**
+     * Retrieves the generated schema of a component class.
+     *
+     * @param componentClass the schema component class (not null).
+     * @param <C>            the type of the schema component.
+     * @return the generated schema instance.
+     * @throws IllegalArgumentException if no schema is generated for the component class.
+     */
+    @SuppressWarnings("unchecked")
+    static <C extends Component> ComponentSchema<C> of(Class<C> componentClass) {
+        return (ComponentSchema<C>) Schemas.SCHEMAS.get(componentClass);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.component.schema;
+
+/**
+ * Locates and caches the generated schemas by their component classes.
+ *
+ * @author pavl_g
+ */
+final class Schemas {
+
+    /**
+     * The suffix of the generated schema classes.
+     */
+    static final String SUFFIX = "Schema";
+
+    /**
+     * The name of the static field holding the generated schema instance.
+     */
+    static final String INSTANCE = "INSTANCE";
+
+    static final ClassValue<ComponentSchema<?>> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected ComponentSchema<?> computeValue(Class<?> componentClass) {
+            final String packageName = componentClass.getPackageName();
+            final String binaryName = componentClass.getName().substring(
+                    packageName.isEmpty() ? 0 : packageName.length() + 1);
+            final String schemaName = (packageName.isEmpty() ? "" : packageName + ".")
+                    + binaryName.replace('$', '_') + SUFFIX;
+            try {
+                final Class<?> schemaClass = Class.forName(schemaName, true, componentClass.getClassLoader());
+                return (ComponentSchema<?>) schemaClass.getField(INSTANCE).get(null);
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalArgumentException("No schema is generated for " + componentClass.getName(), e);
+            }
+        }
+    };
+
+    private Schemas() {
+    }
+}
@@ -0,0 +1,739 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.Validator;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads the components of a system from a large binary or text source (e.g. a CSV export) in bulk.
+ *
+ * <p>
+ * The source is read in large chunks into pooled direct buffers by the calling thread, and each chunk
+ * (cut at its last complete row) is decoded by a pool of worker threads; each worker appends its decoded
+ * components in batches to its own partition, so the workers share no map while decoding. The partitions
+ * are merged once by the calling thread into a memory-map sized by the exact number of the components, and
+ * the loaded memory-map is registered to the ecs-manager once at the end, so the per-component registration
+ * overhead (validation, journaling, caching) is paid once per system rather than once per row.
+ * </p>
+ *
+ * <p>
+ * The loading is bound by the decoding and the allocation of the components rather than by the disk reads,
+ * so it does not saturate the read bandwidth; e.g. on a single core with the default heap, a million rows are
+ * loaded at about 1.9M rows/s from a CSV file and 2.7-3.1M rows/s from a binary file (50-70MB/s), against
+ * a read bandwidth of 1-3GB/s from the page cache (see the {@code BulkLoadBenchmark}). The decoding scales
+ * with the workers on multi-core machines, and a larger young generation reduces the collection pauses.
+ * </p>
+ *
+ * <p>
+ * Note: the row decoders are called concurrently by the workers, and must be thread-safe; the rows
+ * are decoded out of their source order, so the entity identifiers are expected to be unique in a source.
+ * The components loaded into an already registered system replace the existing ones of the same entities.
+ * </p>
+ *
+ * @author pavl_g
+ * @see RowFormat
+ */
+public final class BulkLoader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+    private static final int DEFAULT_BATCH_SIZE = 1 << 10;
+    // the chunk handed to the workers to stop
+    private static final Chunk END = new Chunk(null);
+
+    private final EntityComponentManager<?> entityComponentManager;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private Progress progress;
+
+    /**
+     * Instantiates a bulk loader into an ecs-manager.
+     *
+     * @param entityComponentManager the ecs-manager to load into (not null).
+     */
+    public BulkLoader(EntityComponentManager<?> entityComponentManager) {
+        this.entityComponentManager = entityComponentManager;
+    }
+
+    /**
+     * Adjusts the size of the read chunks; a chunk must hold at least a complete row.
+     *
+     * @param chunkSize the chunk size in bytes (default 4MB).
+     * @return this loader for chaining.
+     */
+    public BulkLoader setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Adjusts the number of the decoding workers.
+     *
+     * @param parallelism the number of the worker threads (default the available processors).
+     * @return this loader for chaining.
+     */
+    public BulkLoader setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Adjusts the number of the decoded components per batch of a worker partition.
+     *
+     * @param batchSize the batch size in components (default 1024).
+     * @return this loader for chaining.
+     */
+    public BulkLoader setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets a progress listener called by the loading thread after each read chunk.
+     *
+     * @param progress the progress listener, or null to disable.
+     * @return this loader for chaining.
+     */
+    public BulkLoader setProgress(Progress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Loads the components of a system from a source file.
+     *
+     * @param path             the source file path (not null).
+     * @param systemController the system to load into (not null).
+     * @param format           the row format of the source (not null).
+     * @param decoder          the thread-safe row decoder (not null).
+     * @return the number of the decoded rows.
+     * @throws IOException if the source cannot be read, or a row cannot be decoded.
+     */
+    public long load(Path path, SystemController systemController, RowFormat format, RowDecoder decoder) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return load(channel, channel.size(), systemController, format, decoder);
+        }
+    }
+
+    /**
+     * Loads the components of a system from a source channel (e.g. a socket or a pipe).
+     *
+     * @param channel          the source channel, read to its end (not null).
+     * @param size             the source size in bytes reported to the progress, or -1 if unknown.
+     * @param systemController the system to load into (not null).
+     * @param format           the row format of the source (not null).
+     * @param decoder          the thread-safe row decoder (not null).
+     * @return the number of the decoded rows.
+     * @throws IOException if the source cannot be read, or a row cannot be decoded.
+     */
+    public long load(ReadableByteChannel channel, long size, SystemController systemController,
+                     RowFormat format, RowDecoder decoder) throws IOException {
+        Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        final Loading loading = new Loading(format, decoder, parallelism * 2, chunkSize);
+        final MemoryMap.EntityComponentMap existing = entityComponentManager.getMemoryMap(systemController);
+        final Worker[] partitions = new Worker[parallelism];
+        final Thread[] workers = new Thread[parallelism];
+        ByteBuffer carry = ByteBuffer.allocate(0);
+        // the source offset of the carried incomplete row
+        long offset = 0;
+        long bytesRead = 0;
+        boolean first = true;
+        boolean last = false;
+        try {
+            while (!last && loading.failure.get() == null) {
+                final Chunk chunk = loading.free.take();
+                final ByteBuffer buffer = chunk.buffer;
+                buffer.clear();
+                buffer.put(carry.flip());
+                while (buffer.hasRemaining()) {
+                    final int read = channel.read(buffer);
+                    if (read < 0) {
+                        last = true;
+                        break;
+                    }
+                    bytesRead += read;
+                }
+                buffer.flip();
+                if (first && format.hasHeader()) {
+                    skipLine(buffer);
+                }
+                final int end = format.complete(buffer, last);
+                if (end == buffer.position() && !last) {
+                    throw new IOException("Row exceeds the chunk size at offset " + (offset + end));
+                }
+                if (last && end < buffer.limit()) {
+                    throw new IOException("Truncated row at offset " + (offset + end));
+                }
+                carry = copy(buffer, end, carry);
+                buffer.limit(end);
+                chunk.offset = offset;
+                offset += end;
+                if (first) {
+                    for (int i = 0; i < workers.length; i++) {
+                        partitions[i] = new Worker(loading, batchSize);
+                        workers[i] = new Thread(partitions[i], "articular-loader-" + i);
+                        workers[i].setDaemon(true);
+                        workers[i].start();
+                    }
+                    first = false;
+                }
+                loading.filled.put(chunk);
+                if (progress != null) {
+                    progress.onProgress(bytesRead, size, loading.rows.sum());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            loading.failure.compareAndSet(null, new InterruptedIOException("Loading is interrupted"));
+        } catch (IOException | RuntimeException e) {
+            loading.failure.compareAndSet(null, e);
+        } finally {
+            join(loading, workers);
+        }
+        final Throwable failure = loading.failure.get();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw (Error) failure;
+        }
+        final long rows = loading.rows.sum();
+        if (first) {
+            return rows;
+        }
+        // merges the partitions once, over the existing components they replace
+        long count = existing == null ? 0 : existing.size();
+        for (Worker partition : partitions) {
+            count += partition.count;
+        }
+        final MemoryMap.EntityComponentMap components =
+                new MemoryMap.EntityComponentMap((int) Math.max(16, Math.min(Integer.MAX_VALUE, count)));
+        if (existing != null) {
+            for (Map.Entry<Number, Component> entry : existing.entrySet()) {
+                components.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Worker partition : partitions) {
+            partition.merge(components);
+        }
+        entityComponentManager.register(systemController, components);
+        if (progress != null) {
+            progress.onProgress(bytesRead, size, rows);
+        }
+        return rows;
+    }
+
+    private static void join(Loading loading, Thread[] workers) {
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            if (worker == null) {
+                continue;
+            }
+            while (true) {
+                try {
+                    loading.filled.put(END);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (Thread worker : workers) {
+            while (worker != null) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void skipLine(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            if (buffer.get() == '\n') {
+                return;
+            }
+        }
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer, int from, ByteBuffer carry) {
+        final int length = buffer.limit() - from;
+        if (carry.capacity() < length) {
+            carry = ByteBuffer.allocate(length);
+        }
+        carry.clear();
+        carry.put(buffer.duplicate().position(from));
+        return carry;
+    }
+
+    /**
+     * Decodes the rows of a source into components; called concurrently by the loading workers.
+     */
+    @FunctionalInterface
+    public interface RowDecoder {
+
+        /**
+         * Decodes a row into any number of entity components.
+         *
+         * @param row  the row to decode, valid only through this call.
+         * @param sink the sink to accept the decoded entity components.
+         */
+        void decode(Row row, RowSink sink);
+    }
+
+    /**
+     * Accepts the decoded entity components of a row.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+
+        /**
+         * Accepts a decoded entity component.
+         *
+         * @param entityId  the entity identifier.
+         * @param component the component (not null).
+         */
+        void accept(long entityId, Component component);
+    }
+
+    /**
+     * Listens to the progress of a loading.
+     */
+    @FunctionalInterface
+    public interface Progress {
+
+        /**
+         * Called after each read chunk, and once after the memory-map is registered.
+         *
+         * @param bytesRead  the number of the read bytes.
+         * @param totalBytes the source size in bytes, or -1 if unknown.
+         * @param rows       the number of the decoded rows so far.
+         */
+        void onProgress(long bytesRead, long totalBytes, long rows);
+    }
+
+    /**
+     * Represents a row of a source chunk; a binary row is read from its buffer, and the fields of a
+     * text row are parsed in-place without decoding the whole line into a string.
+     */
+    public static final class Row {
+
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final RowFormat format;
+        private ByteBuffer buffer;
+        private int start;
+        private int end;
+        private long offset;
+        // the field starts, and the end of the last field plus its separator
+        private int[] fields = new int[16];
+        private int fieldCount = -1;
+        private byte[] text = new byte[64];
+
+        private Row(RowFormat format) {
+            this.format = format;
+        }
+
+        private void bind(ByteBuffer buffer, int start, int end, long offset) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+            this.fieldCount = -1;
+        }
+
+        /**
+         * Retrieves the row content as a buffer between its position and limit; binary rows are read
+         * by the relative or the absolute gets (big-endian by default). Each call rewinds the buffer to the row start.
+         *
+         * @return the row buffer.
+         */
+        public ByteBuffer getBuffer() {
+            buffer.limit(end);
+            buffer.position(start);
+            return buffer;
+        }
+
+        /**
+         * Retrieves the byte offset of this row in the source.
+         *
+         * @return the row offset.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Retrieves the number of the fields of a text row.
+         *
+         * @return the number of the fields.
+         */
+        public int getFieldCount() {
+            split();
+            return fieldCount;
+        }
+
+        /**
+         * Parses a decimal integral field of a text row.
+         *
+         * @param field the field index.
+         * @return the field value.
+         * @throws NumberFormatException if the field is not a valid integral number.
+         */
+        public long getLong(int field) {
+            split();
+            int index = fieldStart(field);
+            final int fieldEnd = fieldEnd(field);
+            final boolean negative = index < fieldEnd && buffer.get(index) == '-';
+            if (index < fieldEnd && (negative || buffer.get(index) == '+')) {
+                index++;
+            }
+            if (index == fieldEnd) {
+                throw new NumberFormatException("Empty integral field " + field + " at offset " + offset);
+            }
+            long value = 0;
+            for (; index < fieldEnd; index++) {
+                final int digit = buffer.get(index) - '0';
+                if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                    throw new NumberFormatException("Invalid integral field " + field + " at offset " + offset);
+                }
+                // accumulates negatively, so Long.MIN_VALUE is parsed
+                value = value * 10 - digit;
+            }
+            if (!negative) {
+                if (value == Long.MIN_VALUE) {
+                    throw new NumberFormatException("Invalid integral field " + field + " at offset " + offset);
+                }
+                return -value;
+            }
+            return value;
+        }
+
+        /**
+         * Parses a decimal integral field of a text row.
+         *
+         * @param field the field index.
+         * @return the field value.
+         * @throws NumberFormatException if the field is not a valid int.
+         */
+        public int getInt(int field) {
+            final long value = getLong(field);
+            if (value != (int) value) {
+                throw new NumberFormatException("Integral field " + field + " overflows an int at offset " + offset);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Parses a floating-point field of a text row; the plain decimals of up to 15 digits are parsed in-place,
+         * and the others (e.g. with exponents) by {@link Double#parseDouble(String)}.
+         *
+         * @param field the field index.
+         * @return the field value.
+         * @throws NumberFormatException if the field is not a valid number.
+         */
+        public double getDouble(int field) {
+            split();
+            int index = fieldStart(field);
+            final int fieldEnd = fieldEnd(field);
+            final boolean negative = index < fieldEnd && buffer.get(index) == '-';
+            if (index < fieldEnd && (negative || buffer.get(index) == '+')) {
+                index++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            for (; index < fieldEnd; index++) {
+                final byte current = buffer.get(index);
+                if (current == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                    continue;
+                }
+                final int digit = current - '0';
+                if (digit < 0 || digit > 9 || digits == 15) {
+                    // exponents, special values or long mantissas
+                    return Double.parseDouble(getString(field));
+                }
+                mantissa = mantissa * 10 + digit;
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+            if (index == fieldStart(field) || fractionDigits > 22) {
+                return Double.parseDouble(getString(field));
+            }
+            // exact, the mantissa and the power of ten are exact doubles (and a division is correctly rounded)
+            final double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a floating-point field of a text row as a double.
+         *
+         * @param field the field index.
+         * @return the field value.
+         * @throws NumberFormatException if the field is not a valid number.
+         */
+        public float getFloat(int field) {
+            return (float) getDouble(field);
+        }
+
+        /**
+         * Parses a boolean field of a text row; "true" and "1" are true.
+         *
+         * @param field the field index.
+         * @return the field value.
+         */
+        public boolean getBoolean(int field) {
+            split();
+            final int fieldStart = fieldStart(field);
+            final int length = fieldEnd(field) - fieldStart;
+            if (length == 1) {
+                return buffer.get(fieldStart) == '1';
+            }
+            return length == 4 && (buffer.get(fieldStart) | 0x20) == 't' && (buffer.get(fieldStart + 1) | 0x20) == 'r'
+                    && (buffer.get(fieldStart + 2) | 0x20) == 'u' && (buffer.get(fieldStart + 3) | 0x20) == 'e';
+        }
+
+        /**
+         * Decodes a field of a text row as a UTF-8 string.
+         *
+         * @param field the field index.
+         * @return a new string of the field.
+         */
+        public String getString(int field) {
+            split();
+            final int fieldStart = fieldStart(field);
+            final int length = fieldEnd(field) - fieldStart;
+            if (text.length < length) {
+                text = new byte[Math.max(length, text.length << 1)];
+            }
+            buffer.get(fieldStart, text, 0, length);
+            return new String(text, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void split() {
+            if (fieldCount >= 0) {
+                return;
+            }
+            final byte separator = format.getSeparator();
+            int count = 0;
+            fields[count++] = start;
+            for (int index = start; index < end; index++) {
+                if (buffer.get(index) == separator) {
+                    if (count == fields.length - 1) {
+                        fields = Arrays.copyOf(fields, fields.length << 1);
+                    }
+                    fields[count++] = index + 1;
+                }
+            }
+            fields[count] = end + 1;
+            fieldCount = count;
+        }
+
+        private int fieldStart(int field) {
+            if (field < 0 || field >= fieldCount) {
+                throw new IndexOutOfBoundsException("No field " + field + " in the row at offset " + offset);
+            }
+            return fields[field];
+        }
+
+        private int fieldEnd(int field) {
+            return fields[field + 1] - 1;
+        }
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer buffer;
+        // the source offset of the buffer index 0
+        private long offset;
+
+        private Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class Loading {
+        private final RowFormat format;
+        private final RowDecoder decoder;
+        private final BlockingQueue<Chunk> free;
+        private final BlockingQueue<Chunk> filled;
+        private final LongAdder rows = new LongAdder();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Loading(RowFormat format, RowDecoder decoder, int chunks, int chunkSize) {
+            this.format = format;
+            this.decoder = decoder;
+            this.free = new ArrayBlockingQueue<>(chunks);
+            // holds all the chunks and the end markers, so the loading thread never blocks on it
+            this.filled = new ArrayBlockingQueue<>(chunks * 2);
+            for (int i = 0; i < chunks; i++) {
+                free.add(new Chunk(ByteBuffer.allocateDirect(chunkSize)));
+            }
+        }
+    }
+
+    private static final class Worker implements Runnable, RowSink {
+        private final Loading loading;
+        private final Row row;
+        private final int batchSize;
+        // the full batches of the partition of this worker
+        private final ArrayList<Batch> batches = new ArrayList<>();
+        private Batch batch;
+        // the number of the components in the partition, read after the worker is joined
+        private long count;
+
+        private Worker(Loading loading, int batchSize) {
+            this.loading = loading;
+            this.row = new Row(loading.format);
+            this.batchSize = batchSize;
+            this.batch = new Batch(batchSize);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Chunk chunk = loading.filled.take();
+                    if (chunk == END) {
+                        return;
+                    }
+                    if (loading.failure.get() == null) {
+                        decode(chunk);
+                    }
+                    loading.free.put(chunk);
+                }
+            } catch (InterruptedException e) {
+                loading.failure.compareAndSet(null, new InterruptedIOException("Loading worker is interrupted"));
+            }
+        }
+
+        private void decode(Chunk chunk) {
+            final RowFormat format = loading.format;
+            // the row buffer is repositioned by the decoder, so the rows are scanned on another view
+            final ByteBuffer buffer = chunk.buffer.duplicate();
+            final ByteBuffer rowBuffer = chunk.buffer.duplicate();
+            final int limit = chunk.buffer.limit();
+            int position = chunk.buffer.position();
+            long rows = 0;
+            try {
+                while (position < limit) {
+                    final int rowEnd = format.next(buffer, position);
+                    final int contentStart = format.contentStart(position);
+                    row.bind(rowBuffer, contentStart, format.contentEnd(buffer, contentStart, rowEnd),
+                            chunk.offset + position);
+                    loading.decoder.decode(row, this);
+                    position = rowEnd;
+                    rows++;
+                }
+            } catch (RuntimeException e) {
+                loading.failure.compareAndSet(null, new IOException("Malformed row at offset " + row.getOffset(), e));
+            } catch (Error e) {
+                loading.failure.compareAndSet(null, e);
+            }
+            loading.rows.add(rows);
+        }
+
+        @Override
+        public void accept(long entityId, Component component) {
+            if (batch.size == batchSize) {
+                batches.add(batch);
+                batch = new Batch(batchSize);
+            }
+            batch.entityIds[batch.size] = entityId;
+            batch.components[batch.size++] = component;
+            count++;
+        }
+
+        private void merge(MemoryMap.EntityComponentMap target) {
+            batches.add(batch);
+            for (Batch full : batches) {
+                for (int i = 0; i < full.size; i++) {
+                    target.put(full.entityIds[i], full.components[i]);
+                }
+            }
+            batches.clear();
+            batch = null;
+        }
+    }
+
+    private static final class Batch {
+        private final long[] entityIds;
+        private final Component[] components;
+        private int size;
+
+        private Batch(int batchSize) {
+            this.entityIds = new long[batchSize];
+            this.components = new Component[batchSize];
+        }
+    }
+}
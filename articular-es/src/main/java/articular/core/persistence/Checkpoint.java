@@ -0,0 +1,154 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.MemoryMap;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.manager.SystemMapView;
+import articular.util.VirtualThreads;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents a background checkpoint of the memory-maps of an ecs-manager.
+ *
+ * <p>
+ * On start, the checkpoint takes a {@link SystemMapView} that freezes the system memory-maps
+ * without copying them; while the checkpoint is in progress, each memory-map preserves the previous
+ * component of an entry on its first modification (a copy-on-write of the modified entries only),
+ * whether it is modified through the ecs-manager or directly by the system updaters, and a background
+ * thread serializes the frozen view. Thus the updaters keep running and mutating the world, and the
+ * checkpoint reflects the world as it was at its start; start it on a tick boundary.
+ * </p>
+ *
+ * <p>
+ * Note: the components are preserved by reference, so the in-place modifications of the component
+ * objects are not isolated from a running checkpoint (register a new component object instead).
+ * </p>
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#checkpoint(Path, ComponentCodecs)
+ */
+public final class Checkpoint {
+
+    private final SystemMapView view;
+    private final CompletableFuture<Path> future = new CompletableFuture<>();
+    private final Path path;
+    private volatile boolean done;
+
+    /**
+     * Instantiates a checkpoint of a frozen view; the checkpoint reflects the
+     * memory-maps at the view creation.
+     *
+     * @param view the frozen view of the ecs-manager, released on completion (not null).
+     * @param path the destination snapshot file (not null).
+     */
+    public Checkpoint(SystemMapView view, Path path) {
+        this.view = view;
+        this.path = path;
+    }
+
+    /**
+     * Starts writing this checkpoint on the default worker executor; the view
+     * is released when the checkpoint is completed.
+     *
+     * @param codecs the codecs registry of the components (not null).
+     * @return this checkpoint for chaining.
+     */
+    public Checkpoint start(ComponentCodecs codecs) {
+        VirtualThreads.getDefaultExecutor().execute(() -> write(codecs));
+        return this;
+    }
+
+    /**
+     * Tests whether this checkpoint is completed (successfully or not).
+     *
+     * @return true if completed, false otherwise.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Retrieves the completion of this checkpoint.
+     *
+     * @return a future completed with the snapshot path, or exceptionally if writing fails.
+     */
+    public CompletableFuture<Path> getFuture() {
+        return future;
+    }
+
+    /**
+     * Retrieves the destination snapshot file.
+     *
+     * @return the snapshot path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Retrieves the frozen view of this checkpoint.
+     *
+     * @return the checkpoint view.
+     */
+    public SystemMapView getView() {
+        return view;
+    }
+
+    private void write(ComponentCodecs codecs) {
+        try {
+            final MemoryMap.SystemMap systemMap = new MemoryMap.SystemMap();
+            for (String system : view.getSystems()) {
+                systemMap.put(system, view.copy(system));
+            }
+            WorldSnapshot.write(systemMap, codecs, path);
+            complete(path, null);
+        } catch (IOException e) {
+            complete(null, new UncheckedIOException(e));
+        } catch (RuntimeException | Error e) {
+            complete(null, e);
+        }
+    }
+
+    private void complete(Path result, Throwable failure) {
+        view.release();
+        done = true;
+        if (failure == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(failure);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.component.Component;
+
+/**
+ * Encodes and decodes a component type to and from the binary persistence formats.
+ *
+ * <p>
+ * Codecs may encode nested components (e.g. the components of a {@link articular.core.component.Module})
+ * through {@link SnapshotOutput#writeComponent(Component)}, and decode them back through
+ * {@link SnapshotInput#readComponent()}; see {@link ModuleCodec}.
+ * </p>
+ *
+ * @param <C> the type of the component.
+ * @author pavl_g
+ * @see ComponentCodecs
+ */
+public interface ComponentCodec<C extends Component> {
+
+    /**
+     * Retrieves the component class handled by this codec.
+     *
+     * @return the component class.
+     */
+    Class<C> getComponentClass();
+
+    /**
+     * Encodes a component.
+     *
+     * @param component the component to encode (not null).
+     * @param output    the destination output (not null).
+     */
+    void encode(C component, SnapshotOutput output);
+
+    /**
+     * Decodes a component encoded by {@link ComponentCodec#encode(Component, SnapshotOutput)}.
+     *
+     * @param input the source input positioned at the component data (not null).
+     * @return a new component instance.
+     */
+    C decode(SnapshotInput input);
+}
@@ -0,0 +1,114 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.component.Component;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a registry of the component codecs by their component classes.
+ *
+ * @author pavl_g
+ * @see ComponentCodec
+ */
+@SuppressWarnings("unchecked")
+public class ComponentCodecs {
+
+    /**
+     * Provides a map of the registered codecs by the component class names.
+     */
+    protected final ConcurrentHashMap<String, ComponentCodec<?>> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates an empty codecs registry.
+     */
+    public ComponentCodecs() {
+    }
+
+    /**
+     * Registers a component codec.
+     *
+     * @param codec the codec to register (not null).
+     * @return this registry for chaining.
+     */
+    public ComponentCodecs register(ComponentCodec<?> codec) {
+        codecs.put(codec.getComponentClass().getName(), codec);
+        return this;
+    }
+
+    /**
+     * Unregisters the codec of a component class.
+     *
+     * @param componentClass the component class (not null).
+     */
+    public void unregister(Class<? extends Component> componentClass) {
+        codecs.remove(componentClass.getName());
+    }
+
+    /**
+     * Retrieves the codec of a component class.
+     *
+     * @param componentClass the component class (not null).
+     * @param <C>            the type of the component.
+     * @return the registered codec (not null).
+     * @throws IllegalArgumentException if no codec is registered for the component class.
+     */
+    public <C extends Component> ComponentCodec<C> get(Class<?> componentClass) {
+        return get(componentClass.getName());
+    }
+
+    /**
+     * Retrieves the codec of a component class by its name.
+     *
+     * @param componentClassName the component class name (not null).
+     * @param <C>                the type of the component.
+     * @return the registered codec (not null).
+     * @throws IllegalArgumentException if no codec is registered for the component class.
+     */
+    public <C extends Component> ComponentCodec<C> get(String componentClassName) {
+        final ComponentCodec<?> codec = codecs.get(componentClassName);
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec is registered for " + componentClassName);
+        }
+        return (ComponentCodec<C>) codec;
+    }
+
+    /**
+     * Tests whether a codec is registered for a component class.
+     *
+     * @param componentClass the component class (not null).
+     * @return true if a codec is registered, false otherwise.
+     */
+    public boolean hasCodec(Class<?> componentClass) {
+        return codecs.containsKey(componentClass.getName());
+    }
+}
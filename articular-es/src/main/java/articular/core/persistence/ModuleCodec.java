@@ -0,0 +1,89 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.component.Component;
+import articular.core.component.Module;
+import java.util.Map;
+
+/**
+ * A template codec for the ecs modules; encodes the module's own data through
+ * the subclass, followed by all the nested components of the module.
+ *
+ * @param <M> the type of the module.
+ * @author pavl_g
+ */
+public abstract class ModuleCodec<M extends Module> implements ComponentCodec<M> {
+
+    /**
+     * Instantiates a module codec.
+     */
+    protected ModuleCodec() {
+    }
+
+    @Override
+    public void encode(M module, SnapshotOutput output) {
+        encodeModule(module, output);
+        output.writeInt(module.getComponents().size());
+        for (Map.Entry<Number, Component> entry : module.getComponents().entrySet()) {
+            output.writeLong(entry.getKey().longValue());
+            output.writeComponent(entry.getValue());
+        }
+    }
+
+    @Override
+    public M decode(SnapshotInput input) {
+        final M module = decodeModule(input);
+        final int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            final long id = input.readLong();
+            module.getComponents().put(id, input.readComponent());
+        }
+        return module;
+    }
+
+    /**
+     * Encodes the data of the module object excluding its nested components.
+     *
+     * @param module the module to encode (not null).
+     * @param output the destination output (not null).
+     */
+    protected abstract void encodeModule(M module, SnapshotOutput output);
+
+    /**
+     * Decodes a new empty module object encoded by {@link ModuleCodec#encodeModule(Module, SnapshotOutput)}.
+     *
+     * @param input the source input (not null).
+     * @return a new module object to populate with the nested components.
+     */
+    protected abstract M decodeModule(SnapshotInput input);
+}
@@ -0,0 +1,220 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the row layout of a bulk-loaded source; the rows are delimited text lines
+ * (e.g. CSV), fixed-length binary records, or length-prefixed binary records.
+ *
+ * @author pavl_g
+ * @see BulkLoader
+ */
+public final class RowFormat {
+
+    private static final int LINES = 0;
+    private static final int FIXED = 1;
+    private static final int LENGTH_PREFIXED = 2;
+
+    private final int kind;
+    private final int length;
+    private final byte separator;
+    private final boolean header;
+
+    private RowFormat(int kind, int length, byte separator, boolean header) {
+        this.kind = kind;
+        this.length = length;
+        this.separator = separator;
+        this.header = header;
+    }
+
+    /**
+     * Describes the delimited text lines (e.g. CSV); the lines are terminated by '\n' or "\r\n",
+     * and the fields are split by a single-byte separator (the quoted fields are not supported).
+     *
+     * @param separator the ASCII field separator (e.g. ',').
+     * @param header    true to skip the first line of the source.
+     * @return a new text row format.
+     */
+    public static RowFormat csv(char separator, boolean header) {
+        if (separator > 0x7F || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("Invalid field separator: " + (int) separator);
+        }
+        return new RowFormat(LINES, 0, (byte) separator, header);
+    }
+
+    /**
+     * Describes the fixed-length binary records.
+     *
+     * @param length the record length in bytes.
+     * @return a new binary row format.
+     */
+    public static RowFormat fixed(int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Invalid record length: " + length);
+        }
+        return new RowFormat(FIXED, length, (byte) 0, false);
+    }
+
+    /**
+     * Describes the binary records prefixed by their big-endian int lengths.
+     *
+     * @return a new binary row format.
+     */
+    public static RowFormat lengthPrefixed() {
+        return new RowFormat(LENGTH_PREFIXED, 0, (byte) 0, false);
+    }
+
+    /**
+     * Tests whether the rows are delimited text lines.
+     *
+     * @return true for the text lines, false for the binary records.
+     */
+    public boolean isText() {
+        return kind == LINES;
+    }
+
+    /**
+     * Retrieves the field separator of the text lines.
+     *
+     * @return the separator byte.
+     */
+    public byte getSeparator() {
+        return separator;
+    }
+
+    /**
+     * Tests whether the first line of the source is skipped.
+     *
+     * @return true if the source has a header line.
+     */
+    public boolean hasHeader() {
+        return header;
+    }
+
+    /**
+     * Finds the end of the last complete row of a chunk.
+     *
+     * @param chunk the chunk rows between the position and the limit.
+     * @param last  true if the chunk is the end of the source.
+     * @return the absolute end of the complete rows.
+     * @throws IOException if a row length is corrupted.
+     */
+    int complete(ByteBuffer chunk, boolean last) throws IOException {
+        final int start = chunk.position();
+        final int limit = chunk.limit();
+        switch (kind) {
+            case LINES:
+                if (last) {
+                    return limit;
+                }
+                for (int position = limit - 1; position >= start; position--) {
+                    if (chunk.get(position) == '\n') {
+                        return position + 1;
+                    }
+                }
+                return start;
+            case FIXED:
+                return start + (limit - start) / length * length;
+            default:
+                int position = start;
+                while (limit - position >= Integer.BYTES) {
+                    final int rowLength = chunk.getInt(position);
+                    if (rowLength < 0) {
+                        throw new IOException("Corrupted record length: " + rowLength);
+                    }
+                    if (limit - position - Integer.BYTES < rowLength) {
+                        break;
+                    }
+                    position += Integer.BYTES + rowLength;
+                }
+                return position;
+        }
+    }
+
+    /**
+     * Finds the end of a row, including its delimiter.
+     *
+     * @param chunk    the chunk of complete rows.
+     * @param position the absolute start of the row.
+     * @return the absolute end of the row.
+     */
+    int next(ByteBuffer chunk, int position) {
+        switch (kind) {
+            case LINES:
+                final int limit = chunk.limit();
+                for (int index = position; index < limit; index++) {
+                    if (chunk.get(index) == '\n') {
+                        return index + 1;
+                    }
+                }
+                return limit;
+            case FIXED:
+                return position + length;
+            default:
+                return position + Integer.BYTES + chunk.getInt(position);
+        }
+    }
+
+    /**
+     * Retrieves the start of the row content.
+     *
+     * @param start the absolute start of the row.
+     * @return the absolute start of the content.
+     */
+    int contentStart(int start) {
+        return kind == LENGTH_PREFIXED ? start + Integer.BYTES : start;
+    }
+
+    /**
+     * Retrieves the end of the row content, excluding the line terminator.
+     *
+     * @param chunk the chunk of the row.
+     * @param start the absolute start of the content.
+     * @param end   the absolute end of the row.
+     * @return the absolute end of the content.
+     */
+    int contentEnd(ByteBuffer chunk, int start, int end) {
+        if (kind != LINES) {
+            return end;
+        }
+        if (end > start && chunk.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > start && chunk.get(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+}
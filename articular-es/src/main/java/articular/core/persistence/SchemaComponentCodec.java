@@ -0,0 +1,81 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.component.Component;
+import articular.core.component.schema.ComponentSchema;
+
+/**
+ * A component codec delegating to a compile-time generated {@link ComponentSchema};
+ * components are persisted as their fixed-size schema records.
+ *
+ * @param <C> the type of the schema component.
+ * @author pavl_g
+ */
+public class SchemaComponentCodec<C extends Component> implements ComponentCodec<C> {
+
+    protected final ComponentSchema<C> schema;
+
+    /**
+     * Instantiates a codec of a schema component.
+     *
+     * @param componentClass the schema component class (not null).
+     */
+    public SchemaComponentCodec(Class<C> componentClass) {
+        this(ComponentSchema.of(componentClass));
+    }
+
+    /**
+     * Instantiates a codec of a component schema.
+     *
+     * @param schema the component schema (not null).
+     */
+    public SchemaComponentCodec(ComponentSchema<C> schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public Class<C> getComponentClass() {
+        return schema.getComponentClass();
+    }
+
+    @Override
+    public void encode(C component, SnapshotOutput output) {
+        final int offset = output.reserve(schema.getSize());
+        schema.write(component, output.getBuffer(), offset);
+    }
+
+    @Override
+    public C decode(SnapshotInput input) {
+        return schema.read(input.getBuffer(), input.skip(schema.getSize()));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.component.Component;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides a binary input over a (memory-mapped) buffer for the component
+ * codecs; nested components are read by their type tags from a type table.
+ *
+ * @author pavl_g
+ * @see SnapshotOutput
+ */
+public final class SnapshotInput {
+
+    private final ByteBuffer buffer;
+    private final ComponentCodec<?>[] types;
+
+    /**
+     * Instantiates a new input.
+     *
+     * @param buffer the source buffer positioned at the data (not null).
+     * @param types  the codecs of the type table by their type identifiers (not null).
+     */
+    public SnapshotInput(ByteBuffer buffer, ComponentCodec<?>[] types) {
+        this.buffer = buffer;
+        this.types = types;
+    }
+
+    /**
+     * Reads a type-tagged component using its registered codec.
+     *
+     * @param <T> the type of the component.
+     * @return a new component instance.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T readComponent() {
+        final int typeId = readInt();
+        if (typeId == SnapshotOutput.ID_COMPONENT) {
+            final Component.Id id = new Component.Id(readLong());
+            final Component component = () -> id;
+            return (T) component;
+        }
+        if (typeId < 0 || typeId >= types.length) {
+            throw new IllegalStateException("Corrupted component type: " + typeId);
+        }
+        return (T) types[typeId].decode(this);
+    }
+
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public short readShort() {
+        return buffer.getShort();
+    }
+
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    public float readFloat() {
+        return buffer.getFloat();
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads an unsigned variable-length long written by {@link SnapshotOutput#writeVarLong(long)}.
+     *
+     * @return the value.
+     */
+    public long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer.get();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return value;
+    }
+
+    /**
+     * Reads a signed variable-length long written by {@link SnapshotOutput#writeZigZagLong(long)}.
+     *
+     * @return the signed value.
+     */
+    public long readZigZagLong() {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @return the string (nullable).
+     */
+    public String readString() {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void readBytes(byte[] bytes, int offset, int length) {
+        buffer.get(bytes, offset, length);
+    }
+
+    /**
+     * Skips a fixed-size region, and retrieves its absolute offset in the backing
+     * buffer to read the region using the absolute operations.
+     *
+     * @param length the size of the region in bytes.
+     * @return the absolute offset of the region in {@link SnapshotInput#getBuffer()}.
+     */
+    public int skip(int length) {
+        final int offset = buffer.position();
+        buffer.position(offset + length);
+        return offset;
+    }
+
+    /**
+     * Retrieves the backing buffer.
+     *
+     * @return the backing buffer positioned at the next data.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.component.Component;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Provides a growable binary output for the component codecs; nested components
+ * are written with a type tag resolved from a type table shared by the whole output.
+ *
+ * @author pavl_g
+ * @see SnapshotInput
+ */
+public final class SnapshotOutput {
+
+    /**
+     * The reserved type identifier of the identifier-only components.
+     */
+    static final int ID_COMPONENT = -1;
+
+    private final ComponentCodecs codecs;
+    private final HashMap<String, Integer> typeIds = new HashMap<>();
+    // resolves the type and the codec once per component class
+    private final IdentityHashMap<Class<?>, Type> classTypes = new IdentityHashMap<>();
+    private final List<String> types = new ArrayList<>();
+    private ByteBuffer buffer;
+
+    /**
+     * Instantiates a new output.
+     *
+     * @param codecs          the codecs registry to encode the components (not null).
+     * @param initialCapacity the initial capacity in bytes.
+     */
+    public SnapshotOutput(ComponentCodecs codecs, int initialCapacity) {
+        this.codecs = codecs;
+        this.buffer = ByteBuffer.allocate(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * Writes a type-tagged component using its registered codec; the anonymous
+     * components without codecs (e.g. the ones allocated by the ecs-manager as lambdas)
+     * are written as identifier-only components.
+     *
+     * @param component the component to write (not null).
+     * @throws IllegalArgumentException if no codec is registered for a named component class.
+     */
+    public void writeComponent(Component component) {
+        final Class<?> componentClass = component.getClass();
+        Type type = classTypes.get(componentClass);
+        if (type == null) {
+            type = resolve(componentClass);
+            classTypes.put(componentClass, type);
+        }
+        writeInt(type.id);
+        if (type.codec == null) {
+            writeLong(component.getId().longValue());
+            return;
+        }
+        type.codec.encode(component, this);
+    }
+
+    public void writeByte(byte value) {
+        ensure(Byte.BYTES).put(value);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte((byte) (value ? 1 : 0));
+    }
+
+    public void writeShort(short value) {
+        ensure(Short.BYTES).putShort(value);
+    }
+
+    public void writeInt(int value) {
+        ensure(Integer.BYTES).putInt(value);
+    }
+
+    public void writeLong(long value) {
+        ensure(Long.BYTES).putLong(value);
+    }
+
+    public void writeFloat(float value) {
+        ensure(Float.BYTES).putFloat(value);
+    }
+
+    public void writeDouble(double value) {
+        ensure(Double.BYTES).putDouble(value);
+    }
+
+    /**
+     * Writes an unsigned variable-length long (LEB128); 7 bits per byte, so the small
+     * values (e.g. the gaps between sorted entity identifiers) take a single byte.
+     *
+     * @param value the value, treated as unsigned.
+     */
+    public void writeVarLong(long value) {
+        final ByteBuffer out = ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Writes a signed variable-length long using the zig-zag encoding;
+     * so the small negative values take a few bytes as well.
+     *
+     * @param value the signed value.
+     */
+    public void writeZigZagLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a string as a length-prefixed UTF-8 sequence.
+     *
+     * @param value the string to write (nullable).
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length).put(bytes, offset, length);
+    }
+
+    /**
+     * Reserves a fixed-size region, and retrieves the backing buffer to write
+     * the region using the absolute operations (e.g. a component schema record).
+     *
+     * @param length the size of the region in bytes.
+     * @return the absolute offset of the reserved region in {@link SnapshotOutput#getBuffer()}.
+     */
+    public int reserve(int length) {
+        final int offset = ensure(length).position();
+        buffer.position(offset + length);
+        return offset;
+    }
+
+    /**
+     * Retrieves the backing buffer; valid until the next write.
+     *
+     * @return the backing buffer positioned at the end of the written data.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Retrieves the number of the written bytes.
+     *
+     * @return the size of the written data.
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Discards the written data; the type table is retained.
+     */
+    public void reset() {
+        buffer.clear();
+    }
+
+    /**
+     * Retrieves the component class names of the type table by their type identifiers.
+     *
+     * @return the type table.
+     */
+    public List<String> getTypes() {
+        return types;
+    }
+
+    int getTypeId(String type) {
+        Integer id = typeIds.get(type);
+        if (id == null) {
+            id = types.size();
+            typeIds.put(type, id);
+            types.add(type);
+        }
+        return id;
+    }
+
+    private Type resolve(Class<?> componentClass) {
+        if (componentClass.isHidden() && !codecs.hasCodec(componentClass)) {
+            return new Type(ID_COMPONENT, null);
+        }
+        final ComponentCodec<Component> codec = codecs.get(componentClass);
+        return new Type(getTypeId(componentClass.getName()), codec);
+    }
+
+    private record Type(int id, ComponentCodec<Component> codec) {
+    }
+
+    private ByteBuffer ensure(int length) {
+        if (buffer.remaining() < length) {
+            final long required = (long) buffer.position() + length;
+            final int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(required, (long) buffer.capacity() << 1));
+            if (capacity < required) {
+                throw new IllegalStateException("Output exceeds the maximum buffer capacity");
+            }
+            final ByteBuffer grown = ByteBuffer.allocate(capacity);
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.SystemController;
+import articular.core.system.manager.ChangeTracker;
+import articular.core.system.manager.EntityComponentManager;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a bounded ring of per-tick delta snapshots of the component state of an ecs-manager
+ * to roll back a number of ticks (e.g. to re-simulate on a late input).
+ *
+ * <p>
+ * The history keeps a baseline of the encoded component of each entity; on each capture (a tick end),
+ * only the entities whose component has changed since the previous capture are recorded in the ring,
+ * as their previous encoded state (an undo delta). The ring slots are pooled buffers reused by the next ticks.
+ * </p>
+ *
+ * <p>
+ * By default, the history freezes the memory-maps of the tracked systems ({@link MemoryMap.EntityComponentMap#freeze()})
+ * on each capture, and the next capture examines the entries modified in the memory-maps meanwhile only, whether
+ * through the ecs-manager or directly by the system updaters, so a capture costs the number of the modified entities.
+ * A component modified in-place is not a modification of its memory-map; mark it explicitly with
+ * {@link TickHistory#markDirty(String, long)}, or enable the full scan ({@link TickHistory#setFullScan(boolean)})
+ * that compares all the entities on each capture. The immutable record components are compared by identity
+ * without encoding, and the other components by their encoded bytes.
+ * </p>
+ *
+ * <p>
+ * {@link TickHistory#rewind(int)} applies the undo deltas of the latest ticks in the reverse order,
+ * so restoring a few ticks costs the number of the changed entities only. The restored components
+ * are decoded as new objects, and registered without being journaled; the restored entities match
+ * their baseline, so the next capture doesn't record them again.
+ * </p>
+ *
+ * <p>
+ * Note: the history tracks the entity components of the existing systems; the registrations
+ * of systems are not rewound. The history is not thread-safe; capture and rewind from the update thread.
+ * </p>
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#setHistory(TickHistory)
+ */
+public final class TickHistory {
+
+    // the encoded length of an entity absent at the previous capture
+    private static final int ABSENT = -1;
+
+    private final EntityComponentManager<?> entityComponentManager;
+    private final ComponentCodecs codecs;
+    private final SnapshotOutput encoder;
+    private final SnapshotOutput[] ring;
+    private final Set<String> tracked = ConcurrentHashMap.newKeySet();
+    private final HashMap<String, HashMap<Number, Baseline>> baselines = new HashMap<>();
+    private final HashMap<String, Modifications> modifications = new HashMap<>();
+    private final ChangeTracker changeTracker = new ChangeTracker();
+    private boolean fullScan;
+    private ComponentCodec<?>[] types = new ComponentCodec<?>[0];
+    private int head;
+    private int size;
+    private long epoch;
+    private boolean initialized;
+
+    /**
+     * Instantiates a tick history of an ecs-manager.
+     *
+     * @param entityComponentManager the ecs-manager to capture (not null).
+     * @param codecs                 the codecs registry of the components (not null).
+     * @param capacity               the maximum number of ticks to rewind.
+     */
+    public TickHistory(EntityComponentManager<?> entityComponentManager, ComponentCodecs codecs, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid history capacity: " + capacity);
+        }
+        this.entityComponentManager = entityComponentManager;
+        this.codecs = codecs;
+        this.encoder = new SnapshotOutput(codecs, 1 << 8);
+        this.ring = new SnapshotOutput[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new SnapshotOutput(codecs, 1 << 12);
+        }
+    }
+
+    /**
+     * Tracks a system only; all the systems of the ecs-manager are tracked if no system
+     * is explicitly tracked. Track the systems before the first capture.
+     *
+     * @param systemController the system controller (not null).
+     * @return this history for chaining.
+     */
+    public TickHistory track(SystemController systemController) {
+        tracked.add(systemController.getId().getId());
+        return this;
+    }
+
+    /**
+     * Enables/disables the full scan; if enabled, a capture compares all the entities of the tracked
+     * systems with their baseline rather than examining the modified entries of the memory-maps only, so
+     * the in-place modifications of the components are captured without marking them, at the cost
+     * of the size of the world per capture.
+     *
+     * @param fullScan true to compare all the entities on each capture.
+     * @return this history for chaining.
+     */
+    public TickHistory setFullScan(boolean fullScan) {
+        this.fullScan = fullScan;
+        if (fullScan) {
+            releaseModifications();
+        }
+        return this;
+    }
+
+    /**
+     * Tests whether the full scan is enabled.
+     *
+     * @return true if a capture compares all the entities.
+     */
+    public boolean isFullScan() {
+        return fullScan;
+    }
+
+    /**
+     * Marks an entity component modified in-place, so the next capture examines it; the modifications
+     * of the memory-maps (registrations, replacements and removals) need no mark.
+     *
+     * @param system   the system name (not null).
+     * @param entityId the entity identifier.
+     */
+    public void markDirty(String system, long entityId) {
+        changeTracker.markDirty(system, entityId);
+    }
+
+    /**
+     * Retrieves the change tracker of the explicitly marked entities of this history.
+     *
+     * @return the change tracker.
+     * @see TickHistory#markDirty(String, long)
+     */
+    public ChangeTracker getChangeTracker() {
+        return changeTracker;
+    }
+
+    /**
+     * Captures the changes since the previous capture as a new tick of the ring; the oldest
+     * tick is dropped if the ring is full. The first capture establishes the baseline only.
+     */
+    public void capture() {
+        final boolean record = initialized;
+        final SnapshotOutput slot = ring[head];
+        slot.reset();
+        epoch++;
+        for (String system : getSystems()) {
+            final MemoryMap.EntityComponentMap components =
+                    entityComponentManager.getMemoryMap(WorldSnapshot.controllerOf(system));
+            final HashMap<Number, Baseline> baseline = baselines.computeIfAbsent(system, key -> new HashMap<>());
+            final int blockStart = slot.size();
+            slot.writeString(system);
+            final int countOffset = slot.reserve(Integer.BYTES);
+            final Modifications modified = fullScan ? null : modifications.get(system);
+            final int count;
+            if (modified != null && modified.components == components) {
+                count = captureModified(system, modified, baseline, slot);
+            } else {
+                if (!fullScan) {
+                    // freezes the memory-map first, so the modifications during the scan are examined next time
+                    track(system, components);
+                }
+                count = scan(components, baseline, record ? slot : null);
+            }
+            if (count == 0) {
+                // drops the empty block
+                slot.getBuffer().position(blockStart);
+            } else {
+                slot.getBuffer().putInt(countOffset, count);
+            }
+        }
+        changeTracker.clear();
+        if (!record) {
+            initialized = true;
+            return;
+        }
+        head = (head + 1) % ring.length;
+        size = Math.min(size + 1, ring.length);
+    }
+
+    /**
+     * Rewinds the ecs-manager a number of captured ticks; restores the state
+     * of the captured tick preceding them.
+     *
+     * @param ticks the number of ticks to rewind.
+     * @throws IllegalArgumentException if the ticks exceed the captured ticks.
+     */
+    public void rewind(int ticks) {
+        if (ticks < 0 || ticks > size) {
+            throw new IllegalArgumentException("Cannot rewind " + ticks + " ticks of " + size + " captured ticks");
+        }
+        resolveTypes();
+        for (int i = 0; i < ticks; i++) {
+            head = (head - 1 + ring.length) % ring.length;
+            size--;
+            undo(ring[head].getBuffer());
+        }
+    }
+
+    /**
+     * Retrieves the number of the captured ticks available to rewind.
+     *
+     * @return the number of ticks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the maximum number of ticks to rewind.
+     *
+     * @return the ring capacity.
+     */
+    public int capacity() {
+        return ring.length;
+    }
+
+    /**
+     * Retrieves the size of the delta of a captured tick.
+     *
+     * @param ticksAgo the captured tick index, 0 for the latest one.
+     * @return the size of the delta in bytes.
+     */
+    public int getDeltaSize(int ticksAgo) {
+        if (ticksAgo < 0 || ticksAgo >= size) {
+            throw new IllegalArgumentException("No captured tick " + ticksAgo);
+        }
+        return ring[(head - 1 - ticksAgo + 2 * ring.length) % ring.length].size();
+    }
+
+    /**
+     * Drops all the captured ticks and the baseline; the next capture establishes a new baseline.
+     */
+    public void clear() {
+        baselines.clear();
+        changeTracker.clear();
+        releaseModifications();
+        head = 0;
+        size = 0;
+        initialized = false;
+    }
+
+    private int scan(MemoryMap.EntityComponentMap components, HashMap<Number, Baseline> baseline, SnapshotOutput slot) {
+        int count = 0;
+        int live = 0;
+        if (components != null) {
+            for (Map.Entry<Number, Component> entry : components.entrySet()) {
+                live++;
+                if (capture(baseline, entry.getKey(), entry.getValue(), slot)) {
+                    count++;
+                }
+            }
+        }
+        if (baseline.size() != live) {
+            // records the removed entities
+            final Iterator<Map.Entry<Number, Baseline>> iterator = baseline.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Number, Baseline> entry = iterator.next();
+                if (entry.getValue().epoch == epoch) {
+                    continue;
+                }
+                if (slot != null) {
+                    writeRecord(slot, entry.getKey().longValue(), entry.getValue().bytes, entry.getValue().length);
+                    count++;
+                }
+                iterator.remove();
+            }
+        }
+        return count;
+    }
+
+    private int captureModified(String system, Modifications modified, HashMap<Number, Baseline> baseline,
+                                SnapshotOutput slot) {
+        final MemoryMap.EntityComponentMap.Frozen previous = modified.frozen;
+        // freezes the memory-map again first, so the modifications from now on are examined next time
+        modified.frozen = modified.components.freeze();
+        final Set<Number> entities = previous.getModified();
+        int count = 0;
+        for (Number entityId : entities) {
+            count += captureEntity(modified.components, baseline, entityId, slot);
+        }
+        final Set<Long> marked = changeTracker.getDirty().get(system);
+        if (marked != null) {
+            for (Long entityId : marked) {
+                if (!entities.contains(entityId)) {
+                    count += captureEntity(modified.components, baseline, entityId, slot);
+                }
+            }
+        }
+        previous.release();
+        return count;
+    }
+
+    private int captureEntity(MemoryMap.EntityComponentMap components, HashMap<Number, Baseline> baseline,
+                              Number entityId, SnapshotOutput slot) {
+        final Component component = components.get(entityId);
+        if (component != null) {
+            return capture(baseline, entityId, component, slot) ? 1 : 0;
+        }
+        final Baseline previous = baseline.remove(entityId);
+        if (previous == null) {
+            return 0;
+        }
+        writeRecord(slot, entityId.longValue(), previous.bytes, previous.length);
+        return 1;
+    }
+
+    private void track(String system, MemoryMap.EntityComponentMap components) {
+        final Modifications previous = components == null ? modifications.remove(system)
+                : modifications.put(system, new Modifications(components));
+        if (previous != null) {
+            previous.frozen.release();
+        }
+    }
+
+    private void releaseModifications() {
+        for (Modifications modified : modifications.values()) {
+            modified.frozen.release();
+        }
+        modifications.clear();
+    }
+
+    private Iterable<String> getSystems() {
+        return tracked.isEmpty() ? entityComponentManager.getMemoryMap().keySet() : tracked;
+    }
+
+    private boolean capture(HashMap<Number, Baseline> baseline, Number entityId, Component component, SnapshotOutput slot) {
+        Baseline previous = baseline.get(entityId);
+        if (previous != null && previous.component == component && component instanceof Record) {
+            // an immutable record, unchanged by identity
+            previous.epoch = epoch;
+            return false;
+        }
+        encoder.reset();
+        encoder.writeComponent(component);
+        final byte[] bytes = encoder.getBuffer().array();
+        final int length = encoder.size();
+        if (previous == null) {
+            baseline.put(entityId, previous = new Baseline());
+            previous.length = ABSENT;
+        } else if (Arrays.equals(previous.bytes, 0, previous.length, bytes, 0, length)) {
+            previous.component = component;
+            previous.epoch = epoch;
+            return false;
+        }
+        if (slot != null) {
+            writeRecord(slot, entityId.longValue(), previous.bytes, previous.length);
+        }
+        previous.update(component, bytes, length);
+        previous.epoch = epoch;
+        return slot != null;
+    }
+
+    private void writeRecord(SnapshotOutput slot, long entityId, byte[] bytes, int length) {
+        slot.writeLong(entityId);
+        slot.writeInt(length);
+        if (length != ABSENT) {
+            slot.writeBytes(bytes, 0, length);
+        }
+    }
+
+    private void undo(ByteBuffer delta) {
+        final ByteBuffer buffer = delta.duplicate().flip();
+        final SnapshotInput input = new SnapshotInput(buffer, types);
+        while (buffer.hasRemaining()) {
+            final String system = input.readString();
+            final HashMap<Number, Baseline> baseline = baselines.computeIfAbsent(system, key -> new HashMap<>());
+            final int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                final long entityId = input.readLong();
+                final int length = input.readInt();
+                if (length == ABSENT) {
+                    baseline.remove(entityId);
+                    entityComponentManager.restoreComponent(system, entityId, null, false);
+                    continue;
+                }
+                final int offset = buffer.position();
+                final Component component = input.readComponent();
+                buffer.position(offset + length);
+                Baseline previous = baseline.get(entityId);
+                if (previous == null) {
+                    baseline.put(entityId, previous = new Baseline());
+                }
+                previous.update(component, buffer.array(), offset, length);
+                entityComponentManager.restoreComponent(system, entityId, component, false);
+            }
+        }
+    }
+
+    private void resolveTypes() {
+        final List<String> names = encoder.getTypes();
+        if (types.length == names.size()) {
+            return;
+        }
+        final ComponentCodec<?>[] resolved = Arrays.copyOf(types, names.size());
+        for (int i = types.length; i < resolved.length; i++) {
+            resolved[i] = codecs.get(names.get(i));
+        }
+        types = resolved;
+    }
+
+    /**
+     * Keeps the frozen state of the memory-map of a tracked system since the previous capture.
+     */
+    private static final class Modifications {
+        private final MemoryMap.EntityComponentMap components;
+        private MemoryMap.EntityComponentMap.Frozen frozen;
+
+        private Modifications(MemoryMap.EntityComponentMap components) {
+            this.components = components;
+            this.frozen = components.freeze();
+        }
+    }
+
+    /**
+     * Keeps the encoded state of an entity at the previous capture.
+     */
+    private static final class Baseline {
+        private Component component;
+        private byte[] bytes = new byte[0];
+        private int length;
+        private long epoch;
+
+        private void update(Component component, byte[] source, int length) {
+            update(component, source, 0, length);
+        }
+
+        private void update(Component component, byte[] source, int offset, int length) {
+            this.component = component;
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            System.arraycopy(source, offset, bytes, 0, length);
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,618 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Provides an append-only memory-mapped journal of the mutations of an ecs-manager
+ * for crash recovery and incremental persistence.
+ *
+ * <p>
+ * The mutations (the registrations of systems and entity components and their removals)
+ * are encoded into an in-memory batch on the mutating thread, and the batch is appended
+ * to the mapped journal file once per tick on {@link WorldJournal#commit()} (a group commit),
+ * which is called by {@link EntityComponentManager#endTick()}; thus the file is touched once
+ * per tick regardless of the number of mutations.
+ * </p>
+ *
+ * <p>
+ * A journal directory holds the journal file and a base snapshot of the same generation;
+ * a compaction writes the current state to a snapshot of the next generation and then
+ * resets the journal to that generation, so the state is recovered by mapping the snapshot
+ * of the journal generation and replaying the journal tail:
+ * </p>
+ * <pre>
+ *     final WorldJournal journal = WorldJournal.open(directory, codecs);
+ *     journal.recover(entityComponentManager); // attaches the journal
+ *     ...
+ *     entityComponentManager.endTick(); // commits the mutations of the tick
+ * </pre>
+ *
+ * <p>
+ * Note: the data-pipes are not journaled, they are algorithms rather than a state;
+ * and the in-place modifications of the component objects are persisted only by the compactions.
+ * </p>
+ *
+ * @author pavl_g
+ * @see WorldSnapshot
+ */
+public final class WorldJournal implements AutoCloseable {
+
+    /**
+     * The magic number of the journal files ("ARTJ").
+     */
+    public static final int MAGIC = 0x4152544A;
+
+    /**
+     * The version of the journal file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The default size of the mapped journal regions in bytes.
+     */
+    public static final int DEFAULT_REGION_SIZE = 4 << 20;
+
+    /**
+     * The default journal size in bytes that triggers a compaction on a tick end.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    private static final String JOURNAL_FILE = "journal.bin";
+    private static final int HEADER_SIZE = 16;
+    // the record header: length, generation and crc of the payload
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private static final byte TYPE = 1;
+    private static final byte REGISTER_SYSTEM = 2;
+    private static final byte UNREGISTER_SYSTEM = 3;
+    private static final byte REGISTER = 4;
+    private static final byte UNREGISTER = 5;
+
+    private final Path directory;
+    private final ComponentCodecs codecs;
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    // caches the encoded system names, the same few names prefix every record
+    private final HashMap<String, byte[]> systemNames = new HashMap<>();
+    private final int regionSize;
+    private SnapshotOutput payload;
+    private SnapshotOutput batch;
+    private int knownTypes;
+    private long generation;
+    private long position;
+    private MappedByteBuffer region;
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private boolean sync = true;
+    private EntityComponentManager<?> attached;
+
+    private WorldJournal(Path directory, ComponentCodecs codecs, FileChannel channel, int regionSize) {
+        this.directory = directory;
+        this.codecs = codecs;
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.payload = new SnapshotOutput(codecs, 1 << 10);
+        this.batch = new SnapshotOutput(codecs, 1 << 16);
+    }
+
+    /**
+     * Opens a journal directory using the default region size; a new journal
+     * is created if the directory has no journal file.
+     *
+     * @param directory the journal directory (not null).
+     * @param codecs    the codecs registry of the components (not null).
+     * @return a new journal object positioned at the end of its valid records.
+     * @throws IOException if the journal cannot be opened, or is not a valid journal.
+     */
+    public static WorldJournal open(Path directory, ComponentCodecs codecs) throws IOException {
+        return open(directory, codecs, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Opens a journal directory; a new journal is created if the directory has no journal file.
+     *
+     * @param directory  the journal directory (not null).
+     * @param codecs     the codecs registry of the components (not null).
+     * @param regionSize the size of the mapped journal regions in bytes.
+     * @return a new journal object positioned at the end of its valid records.
+     * @throws IOException if the journal cannot be opened, or is not a valid journal.
+     */
+    public static WorldJournal open(Path directory, ComponentCodecs codecs, int regionSize) throws IOException {
+        Files.createDirectories(directory);
+        final FileChannel channel = FileChannel.open(directory.resolve(JOURNAL_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final WorldJournal journal = new WorldJournal(directory, codecs, channel, Math.max(regionSize, 1 << 12));
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                journal.reset(0);
+            } else {
+                journal.position = journal.scan(null);
+                journal.map(journal.position, 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Recovers the state of an ecs-manager from the base snapshot and the journal tail,
+     * and attaches this journal to the ecs-manager to journal its next mutations.
+     *
+     * @param entityComponentManager the ecs-manager to recover (not null).
+     * @return the number of the replayed journal records.
+     * @throws IOException if the base snapshot cannot be mapped.
+     */
+    public synchronized int recover(EntityComponentManager<?> entityComponentManager) throws IOException {
+        final Path snapshot = getSnapshotPath(generation);
+        if (Files.exists(snapshot)) {
+            entityComponentManager.loadSnapshot(snapshot, codecs);
+        }
+        final int[] replayed = new int[1];
+        final Replay replay = new Replay(entityComponentManager, replayed);
+        scan(replay);
+        replay.finish();
+        entityComponentManager.setJournal(this);
+        attached = entityComponentManager;
+        return replayed[0];
+    }
+
+    /**
+     * Journals the registration of a system memory-map, with its current components.
+     *
+     * @param system     the system name (not null).
+     * @param components the memory-map of the system (not null).
+     */
+    public synchronized void registerSystem(String system, MemoryMap.EntityComponentMap components) {
+        payload.reset();
+        payload.writeByte(REGISTER_SYSTEM);
+        payload.writeString(system);
+        final int count = payload.reserve(Integer.BYTES);
+        int written = 0;
+        for (Map.Entry<Number, Component> entry : components.entrySet()) {
+            payload.writeLong(entry.getKey().longValue());
+            payload.writeComponent(entry.getValue());
+            written++;
+        }
+        payload.getBuffer().putInt(count, written);
+        append();
+    }
+
+    /**
+     * Journals the removal of a system memory-map.
+     *
+     * @param system the system name (not null).
+     */
+    public synchronized void unregisterSystem(String system) {
+        payload.reset();
+        payload.writeByte(UNREGISTER_SYSTEM);
+        payload.writeString(system);
+        append();
+        systemNames.remove(system);
+    }
+
+    /**
+     * Journals the registration of an entity component.
+     *
+     * @param system    the system name (not null).
+     * @param entityId  the entity identifier.
+     * @param component the component (not null).
+     */
+    public synchronized void register(String system, long entityId, Component component) {
+        payload.reset();
+        payload.writeByte(REGISTER);
+        writeSystemName(system);
+        payload.writeLong(entityId);
+        payload.writeComponent(component);
+        append();
+    }
+
+    /**
+     * Journals the removal of an entity component.
+     *
+     * @param system   the system name (not null).
+     * @param entityId the entity identifier.
+     */
+    public synchronized void unregister(String system, long entityId) {
+        payload.reset();
+        payload.writeByte(UNREGISTER);
+        writeSystemName(system);
+        payload.writeLong(entityId);
+        append();
+    }
+
+    /**
+     * Appends the batched records to the mapped journal (a group commit); the appended
+     * range is forced to the storage device if the synchronous mode is enabled.
+     *
+     * @throws IOException if mapping the journal fails.
+     */
+    public synchronized void commit() throws IOException {
+        final int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+        if (region.remaining() < size + Integer.BYTES) {
+            map(position, size + Integer.BYTES);
+        }
+        final int start = region.position();
+        region.put(batch.getBuffer().flip());
+        // terminates the valid records, the terminator is overwritten by the next commit
+        region.putInt(region.position(), 0);
+        if (sync) {
+            region.force(start, size + Integer.BYTES);
+        }
+        position += size;
+        batch.reset();
+    }
+
+    /**
+     * Ends a tick; commits the batched records, and compacts the journal if it
+     * exceeds the compaction threshold.
+     *
+     * @param entityComponentManager the journaled ecs-manager (not null).
+     * @throws IOException if committing or compacting fails.
+     */
+    public synchronized void endTick(EntityComponentManager<?> entityComponentManager) throws IOException {
+        commit();
+        if (position - HEADER_SIZE >= compactionThreshold) {
+            compact(entityComponentManager);
+        }
+    }
+
+    /**
+     * Compacts the journal; writes the state of the ecs-manager to a snapshot of the
+     * next generation, and resets the journal to that generation. Call on a tick boundary;
+     * the ecs-manager should not be mutated concurrently. The new snapshot is mapped
+     * back and verified before the previous generation is dropped.
+     *
+     * @param entityComponentManager the journaled ecs-manager (not null).
+     * @throws IOException if writing, or verifying the snapshot fails (the previous
+     *                     generation is kept), or if writing the journal fails.
+     */
+    public synchronized void compact(EntityComponentManager<?> entityComponentManager) throws IOException {
+        commit();
+        final long next = generation + 1;
+        final Path snapshot = getSnapshotPath(next);
+        WorldSnapshot.write(entityComponentManager, codecs, snapshot);
+        try {
+            verify(WorldSnapshot.map(snapshot, codecs), entityComponentManager.getMemoryMap());
+        } catch (IOException | IllegalArgumentException e) {
+            Files.deleteIfExists(snapshot);
+            throw e;
+        }
+        final long previous = generation;
+        reset(next);
+        Files.deleteIfExists(getSnapshotPath(previous));
+    }
+
+    /**
+     * Retrieves the path of the base snapshot of a journal generation.
+     *
+     * @param generation the journal generation.
+     * @return the snapshot path in the journal directory.
+     */
+    public Path getSnapshotPath(long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    /**
+     * Retrieves the current journal generation; incremented by each compaction.
+     *
+     * @return the journal generation.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Retrieves the size of the committed journal records.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized long getSize() {
+        return position - HEADER_SIZE;
+    }
+
+    /**
+     * Retrieves the size of the batched records pending the next commit.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized int getPendingSize() {
+        return batch.size();
+    }
+
+    /**
+     * Adjusts the journal size that triggers a compaction on a tick end.
+     *
+     * @param compactionThreshold the size in bytes, or {@link Long#MAX_VALUE} to disable.
+     */
+    public synchronized void setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Enables/disables forcing the committed records to the storage device; if disabled,
+     * the records survive a process crash, but not an operating system crash.
+     *
+     * @param sync true to force each commit (default).
+     */
+    public synchronized void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Commits the batched records, detaches the journal from its ecs-manager and closes the journal file.
+     *
+     * @throws IOException if committing or closing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            if (attached != null && attached.getJournal() == this) {
+                attached.setJournal(null);
+            }
+            attached = null;
+            channel.close();
+        }
+    }
+
+    private static void verify(WorldSnapshot snapshot, MemoryMap.SystemMap systemMap) throws IOException {
+        if (snapshot.getSystems().size() != systemMap.size()) {
+            throw new IOException("Incomplete snapshot file: " + snapshot.getPath());
+        }
+        for (Map.Entry<String, MemoryMap.EntityComponentMap> system : systemMap.entrySet()) {
+            if (snapshot.getEntityCount(system.getKey()) != system.getValue().size()) {
+                throw new IOException("Incomplete snapshot file: " + snapshot.getPath());
+            }
+        }
+    }
+
+    private void writeSystemName(String system) {
+        // the same layout as SnapshotOutput#writeString(String)
+        final byte[] name = systemNames.computeIfAbsent(system, key -> key.getBytes(StandardCharsets.UTF_8));
+        payload.writeInt(name.length);
+        payload.writeBytes(name, 0, name.length);
+    }
+
+    private void append() {
+        // defines the newly encountered component types first
+        final List<String> types = payload.getTypes();
+        for (; knownTypes < types.size(); knownTypes++) {
+            final int start = beginRecord();
+            batch.writeByte(TYPE);
+            batch.writeString(types.get(knownTypes));
+            endRecord(start);
+        }
+        final int start = beginRecord();
+        batch.writeBytes(payload.getBuffer().array(), 0, payload.size());
+        endRecord(start);
+    }
+
+    private int beginRecord() {
+        return batch.reserve(RECORD_HEADER_SIZE);
+    }
+
+    private void endRecord(int start) {
+        final ByteBuffer buffer = batch.getBuffer();
+        final int payloadStart = start + RECORD_HEADER_SIZE;
+        final int length = buffer.position() - payloadStart;
+        crc.reset();
+        crc.update(buffer.array(), payloadStart, length);
+        buffer.putInt(start, length);
+        buffer.putInt(start + Integer.BYTES, (int) generation);
+        buffer.putInt(start + 2 * Integer.BYTES, (int) crc.getValue());
+    }
+
+    private void reset(long generation) throws IOException {
+        this.generation = generation;
+        this.payload = new SnapshotOutput(codecs, 1 << 10);
+        this.batch = new SnapshotOutput(codecs, 1 << 16);
+        this.knownTypes = 0;
+        map(0, HEADER_SIZE + Integer.BYTES);
+        region.putInt(MAGIC).putInt(VERSION).putLong(generation);
+        region.putInt(HEADER_SIZE, 0);
+        region.force(0, HEADER_SIZE + Integer.BYTES);
+        position = HEADER_SIZE;
+    }
+
+    private void map(long start, int minimumSize) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.max(regionSize, minimumSize));
+    }
+
+    /**
+     * Scans the valid records of the journal file; stops at the terminator,
+     * a torn record or a record of a previous generation.
+     *
+     * @return the position after the last valid record.
+     */
+    private long scan(Replay replay) throws IOException {
+        final long size = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a journal file: " + directory.resolve(JOURNAL_FILE));
+        }
+        final int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        generation = header.getLong();
+        long offset = HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= size) {
+            final MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                    Math.min(size - offset, Integer.MAX_VALUE));
+            final int consumed = replay(records, replay);
+            if (consumed == 0) {
+                break;
+            }
+            offset += consumed;
+            if (records.hasRemaining()) {
+                break; // stopped before the end of the mapped range
+            }
+        }
+        return offset;
+    }
+
+    private int replay(ByteBuffer records, Replay replay) {
+        final ByteBuffer record = records.duplicate();
+        int consumed = 0;
+        while (records.remaining() >= RECORD_HEADER_SIZE) {
+            final int start = records.position();
+            final int length = records.getInt();
+            final int recordGeneration = records.getInt();
+            final int checksum = records.getInt();
+            if (length <= 0 || length > records.remaining() || recordGeneration != (int) generation) {
+                records.position(start);
+                break;
+            }
+            record.limit(records.position() + length).position(records.position());
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                records.position(start);
+                break;
+            }
+            record.position(records.position());
+            if (record.get(record.position()) == TYPE) {
+                // continues the type table of this generation on the next appends
+                record.get();
+                payload.getTypeId(new SnapshotInput(record, new ComponentCodec<?>[0]).readString());
+                knownTypes = payload.getTypes().size();
+                record.position(records.position());
+            }
+            if (replay != null) {
+                replay.apply(record);
+            }
+            records.position(records.position() + length);
+            consumed += RECORD_HEADER_SIZE + length;
+        }
+        return consumed;
+    }
+
+    /**
+     * Applies the journal records to an ecs-manager.
+     */
+    private final class Replay {
+        private final EntityComponentManager<?> entityComponentManager;
+        private final int[] replayed;
+        private final LinkedHashMap<String, MemoryMap.EntityComponentMap> touched = new LinkedHashMap<>();
+        private ComponentCodec<?>[] types = new ComponentCodec<?>[0];
+
+        private Replay(EntityComponentManager<?> entityComponentManager, int[] replayed) {
+            this.entityComponentManager = entityComponentManager;
+            this.replayed = replayed;
+        }
+
+        private void apply(ByteBuffer record) {
+            final SnapshotInput input = new SnapshotInput(record, types);
+            final byte op = input.readByte();
+            switch (op) {
+                case TYPE:
+                    types = Arrays.copyOf(types, types.length + 1);
+                    types[types.length - 1] = codecs.get(input.readString());
+                    break;
+                case REGISTER_SYSTEM:
+                    final String system = input.readString();
+                    final MemoryMap.EntityComponentMap components = new MemoryMap.EntityComponentMap();
+                    final int count = input.readInt();
+                    for (int i = 0; i < count; i++) {
+                        final long id = input.readLong();
+                        components.put(id, input.readComponent());
+                    }
+                    touched.put(system, components);
+                    break;
+                case UNREGISTER_SYSTEM:
+                    final String unregistered = input.readString();
+                    touched.remove(unregistered);
+                    entityComponentManager.unregister(WorldSnapshot.controllerOf(unregistered));
+                    break;
+                case REGISTER:
+                    final MemoryMap.EntityComponentMap registered = getSystemComponents(input.readString());
+                    final long entityId = input.readLong();
+                    registered.put(entityId, input.readComponent());
+                    break;
+                case UNREGISTER:
+                    getSystemComponents(input.readString()).remove(input.readLong());
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupted journal record: " + op);
+            }
+            replayed[0]++;
+        }
+
+        private MemoryMap.EntityComponentMap getSystemComponents(String system) {
+            MemoryMap.EntityComponentMap components = touched.get(system);
+            if (components != null) {
+                return components;
+            }
+            final SystemController systemController = WorldSnapshot.controllerOf(system);
+            components = entityComponentManager.getMemoryMap(systemController);
+            if (components == null) {
+                components = new MemoryMap.EntityComponentMap();
+            }
+            touched.put(system, components);
+            return components;
+        }
+
+        private void finish() {
+            // registers each modified system once, so the sub-classes can layout their caches
+            for (Map.Entry<String, MemoryMap.EntityComponentMap> system : touched.entrySet()) {
+                entityComponentManager.register(WorldSnapshot.controllerOf(system.getKey()), system.getValue());
+            }
+            touched.clear();
+        }
+    }
+}
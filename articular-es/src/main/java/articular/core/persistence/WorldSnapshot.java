@@ -0,0 +1,460 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.persistence;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.manager.MemoryMapSource;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents a binary snapshot of the memory-maps of an ecs-manager mapped from a file.
+ *
+ * <p>
+ * The snapshot file is composed of a header (a type table of the component classes and
+ * an index of the entities of each system by their sorted identifiers, with the offsets of
+ * their encoded components) followed by the data section. Mapping a snapshot reads the
+ * header only; the components are decoded on demand directly from the mapped pages, either
+ * individually via {@link WorldSnapshot#getComponent(String, long)} or per system via
+ * {@link WorldSnapshot#materialize(String)}, so a large world is available immediately
+ * at startup and the untouched systems are never decoded. An entity component is decoded once;
+ * the later reads and the materialized system return the same component object, so the in-place
+ * modifications of a component read before its system is materialized are kept.
+ * </p>
+ *
+ * <p>
+ * Note: a snapshot file is mapped in a single buffer; thus it is limited to 2GB.
+ * </p>
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#writeSnapshot(Path, ComponentCodecs)
+ * @see EntityComponentManager#loadSnapshot(Path, ComponentCodecs)
+ */
+public final class WorldSnapshot implements MemoryMapSource {
+
+    /**
+     * The magic number of the snapshot files ("ARTS").
+     */
+    public static final int MAGIC = 0x41525453;
+
+    /**
+     * The version of the snapshot file format.
+     */
+    public static final int VERSION = 1;
+
+    private final Path path;
+    private final ByteBuffer data;
+    private final ComponentCodec<?>[] types;
+    private final LinkedHashMap<String, SystemIndex> systems;
+    private final Set<String> materialized = new HashSet<>();
+    // the components decoded individually, by system; dropped once their system is materialized
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Number, Component>> decoded = new ConcurrentHashMap<>();
+
+    private WorldSnapshot(Path path, ByteBuffer data, ComponentCodec<?>[] types,
+                          LinkedHashMap<String, SystemIndex> systems) {
+        this.path = path;
+        this.data = data;
+        this.types = types;
+        this.systems = systems;
+    }
+
+    /**
+     * Writes a snapshot of all the systems of an ecs-manager to a file; the file
+     * is written to a sibling temporary file first and then moved atomically in place.
+     *
+     * @param entityComponentManager the ecs-manager to snapshot (not null).
+     * @param codecs                 the codecs registry of the components (not null).
+     * @param path                   the destination file (not null).
+     * @throws IOException              if writing the file fails.
+     * @throws IllegalArgumentException if a component has no registered codec.
+     */
+    public static void write(EntityComponentManager<?> entityComponentManager, ComponentCodecs codecs, Path path)
+            throws IOException {
+        write(entityComponentManager.getMemoryMap(), codecs, path);
+    }
+
+    /**
+     * Writes a snapshot of a systems memory-map to a file; the file is written
+     * to a sibling temporary file first and then moved atomically in place.
+     *
+     * @param systemMap the systems memory-map to snapshot (not null).
+     * @param codecs    the codecs registry of the components (not null).
+     * @param path      the destination file (not null).
+     * @throws IOException              if writing the file fails.
+     * @throws IllegalArgumentException if a component has no registered codec.
+     */
+    public static void write(MemoryMap.SystemMap systemMap, ComponentCodecs codecs, Path path) throws IOException {
+        final SnapshotOutput dataOutput = new SnapshotOutput(codecs, 1 << 16);
+        final SnapshotOutput header = new SnapshotOutput(codecs, 1 << 12);
+        final LinkedHashMap<String, SystemIndex> index = new LinkedHashMap<>();
+
+        for (Map.Entry<String, MemoryMap.EntityComponentMap> system : systemMap.entrySet()) {
+            final MemoryMap.EntityComponentMap components = system.getValue();
+            final long[] ids = new long[components.size()];
+            int count = 0;
+            for (Map.Entry<Number, Component> entry : components.entrySet()) {
+                if (count == ids.length) {
+                    break; // concurrently grown map
+                }
+                ids[count++] = entry.getKey().longValue();
+            }
+            Arrays.sort(ids, 0, count);
+            final SystemIndex systemIndex = new SystemIndex(count);
+            for (int i = 0; i < count; i++) {
+                final Component component = components.get(ids[i]);
+                if (component == null) {
+                    continue; // concurrently removed entity
+                }
+                final int offset = dataOutput.size();
+                dataOutput.writeComponent(component);
+                systemIndex.add(ids[i], offset, dataOutput.size() - offset);
+            }
+            index.put(system.getKey(), systemIndex);
+        }
+
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        final List<String> typeNames = dataOutput.getTypes();
+        header.writeInt(typeNames.size());
+        for (String type : typeNames) {
+            header.writeString(type);
+        }
+        header.writeInt(index.size());
+        for (Map.Entry<String, SystemIndex> system : index.entrySet()) {
+            final SystemIndex systemIndex = system.getValue();
+            header.writeString(system.getKey());
+            header.writeInt(systemIndex.count);
+            for (int i = 0; i < systemIndex.count; i++) {
+                header.writeLong(systemIndex.ids[i]);
+                header.writeInt(systemIndex.offsets[i]);
+                header.writeInt(systemIndex.lengths[i]);
+            }
+        }
+        header.writeLong(dataOutput.size());
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer[] buffers = {header.getBuffer().flip(), dataOutput.getBuffer().flip()};
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file; reads its header only.
+     *
+     * @param path   the snapshot file (not null).
+     * @param codecs the codecs registry of the components (not null).
+     * @return a new snapshot object mapping the file.
+     * @throws IOException              if the file cannot be mapped, or is not a valid snapshot.
+     * @throws IllegalArgumentException if a component type of the snapshot has no registered codec.
+     */
+    public static WorldSnapshot map(Path path, ComponentCodecs codecs) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds the 2GB mapping limit: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final String[] typeNames;
+        final LinkedHashMap<String, SystemIndex> systems = new LinkedHashMap<>();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            final SnapshotInput header = new SnapshotInput(buffer, new ComponentCodec<?>[0]);
+            typeNames = new String[header.readInt()];
+            for (int i = 0; i < typeNames.length; i++) {
+                typeNames[i] = header.readString();
+            }
+            final int systemCount = header.readInt();
+            for (int i = 0; i < systemCount; i++) {
+                final String name = header.readString();
+                final SystemIndex systemIndex = new SystemIndex(header.readInt());
+                for (int j = 0; j < systemIndex.ids.length; j++) {
+                    systemIndex.add(header.readLong(), header.readInt(), header.readInt());
+                }
+                systems.put(name, systemIndex);
+            }
+            final long dataLength = header.readLong();
+            if (dataLength != buffer.remaining()) {
+                throw new IOException("Truncated snapshot file: " + path);
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Corrupted snapshot file: " + path, e);
+        }
+        final ComponentCodec<?>[] types = new ComponentCodec<?>[typeNames.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = codecs.get(typeNames[i]);
+        }
+        return new WorldSnapshot(path, buffer.slice(), types, systems);
+    }
+
+    /**
+     * Retrieves the names of the systems of this snapshot.
+     *
+     * @return an unmodifiable set of the system names in their snapshot order.
+     */
+    @Override
+    public Set<String> getSystems() {
+        return Collections.unmodifiableSet(systems.keySet());
+    }
+
+    /**
+     * Retrieves the number of entities of a system.
+     *
+     * @param system the system name (not null).
+     * @return the number of entities, or -1 if the system is not in this snapshot.
+     */
+    public int getEntityCount(String system) {
+        final SystemIndex systemIndex = systems.get(system);
+        return systemIndex == null ? -1 : systemIndex.count;
+    }
+
+    /**
+     * Decodes a single entity component directly from the mapped file on its first read;
+     * the later reads return the same component object.
+     *
+     * @param system   the system name (not null).
+     * @param entityId the entity identifier.
+     * @param <T>      the type of the component.
+     * @return the decoded component, or null if not in this snapshot.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T getComponent(String system, long entityId) {
+        final SystemIndex systemIndex = systems.get(system);
+        if (systemIndex == null) {
+            return null;
+        }
+        final ConcurrentHashMap<Number, Component> components =
+                decoded.computeIfAbsent(system, key -> new ConcurrentHashMap<>());
+        final Component component = components.get(MemoryMap.LookupKey.of(entityId));
+        if (component != null) {
+            return (T) component;
+        }
+        final int index = Arrays.binarySearch(systemIndex.ids, 0, systemIndex.count, entityId);
+        if (index < 0) {
+            return null;
+        }
+        final Component decodedComponent = decode(systemIndex, index);
+        final Component previous = components.putIfAbsent(entityId, decodedComponent);
+        return (T) (previous == null ? decodedComponent : previous);
+    }
+
+    /**
+     * Decodes all the entity components of a system into a new memory-map; each
+     * system is materialized once, and takes over the components decoded individually.
+     *
+     * @param system the system name (not null).
+     * @return a new memory-map of the decoded components, or null if the system is not
+     * in this snapshot or has been already materialized.
+     */
+    @Override
+    public synchronized MemoryMap.EntityComponentMap materialize(String system) {
+        if (!systems.containsKey(system) || !materialized.add(system)) {
+            return null;
+        }
+        final MemoryMap.EntityComponentMap components = copy(system);
+        decoded.remove(system);
+        return components;
+    }
+
+    /**
+     * Decodes all the entity components of a system into a new memory-map; the components
+     * already decoded individually are reused rather than decoded again.
+     *
+     * @param system the system name (not null).
+     * @return a new memory-map of the decoded components, or null if the system is not in this snapshot.
+     */
+    @Override
+    public MemoryMap.EntityComponentMap copy(String system) {
+        final SystemIndex systemIndex = systems.get(system);
+        if (systemIndex == null) {
+            return null;
+        }
+        final ConcurrentHashMap<Number, Component> decodedComponents = decoded.get(system);
+        final MemoryMap.EntityComponentMap components = new MemoryMap.EntityComponentMap();
+        for (int i = 0; i < systemIndex.count; i++) {
+            final Component component = decodedComponents == null ? null
+                    : decodedComponents.get(MemoryMap.LookupKey.of(systemIndex.ids[i]));
+            components.put(systemIndex.ids[i], component != null ? component : decode(systemIndex, i));
+        }
+        return components;
+    }
+
+    /**
+     * Discards a system without decoding it; the system is
+     * considered materialized afterwards.
+     *
+     * @param system the system name (not null).
+     */
+    @Override
+    public synchronized void discard(String system) {
+        if (systems.containsKey(system)) {
+            materialized.add(system);
+            decoded.remove(system);
+        }
+    }
+
+    /**
+     * Tests whether a system has been materialized.
+     *
+     * @param system the system name (not null).
+     * @return true if the system has been materialized, false otherwise.
+     */
+    @Override
+    public synchronized boolean isMaterialized(String system) {
+        return materialized.contains(system);
+    }
+
+    /**
+     * Tests whether all the systems of this snapshot have been materialized.
+     *
+     * @return true if no system is left to be materialized.
+     */
+    @Override
+    public synchronized boolean isMaterialized() {
+        return materialized.size() == systems.size();
+    }
+
+    /**
+     * Materializes the remaining systems of this snapshot, and registers
+     * them to an ecs-manager.
+     *
+     * @param entityComponentManager the ecs-manager to restore to (not null).
+     */
+    public void restore(EntityComponentManager<?> entityComponentManager) {
+        for (String system : systems.keySet()) {
+            final MemoryMap.EntityComponentMap components = materialize(system);
+            if (components != null) {
+                entityComponentManager.register(controllerOf(system), components);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the mapped snapshot file.
+     *
+     * @return the snapshot file path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Creates a system-controller associated with a system name, to register
+     * the materialized systems.
+     *
+     * @param system the system name (not null).
+     * @return a new system-controller.
+     */
+    public static SystemController controllerOf(String system) {
+        return new RestoredSystem(system);
+    }
+
+    private <T extends Component> T decode(SystemIndex systemIndex, int index) {
+        // duplicates the mapped buffer per decode, so concurrent decodes are independent
+        final ByteBuffer buffer = data.duplicate();
+        final int offset = systemIndex.offsets[index];
+        buffer.limit(offset + systemIndex.lengths[index]).position(offset);
+        return new SnapshotInput(buffer, types).readComponent();
+    }
+
+    /**
+     * A system-controller of a system restored from a persisted state; the
+     * journals skip the registrations of the restored systems.
+     */
+    public static final class RestoredSystem implements SystemController {
+        private final ArticularSystem system;
+
+        private RestoredSystem(String name) {
+            this.system = () -> name;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+
+    /**
+     * Keeps the index of the entities of a system sorted by their identifiers.
+     */
+    private static final class SystemIndex {
+        private final long[] ids;
+        private final int[] offsets;
+        private final int[] lengths;
+        private int count;
+
+        private SystemIndex(int capacity) {
+            ids = new long[capacity];
+            offsets = new int[capacity];
+            lengths = new int[capacity];
+        }
+
+        private void add(long id, int offset, int length) {
+            ids[count] = id;
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+    }
+}
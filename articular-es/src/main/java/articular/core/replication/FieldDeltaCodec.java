@@ -0,0 +1,397 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.replication;
+
+import articular.core.component.Component;
+import articular.core.persistence.SnapshotInput;
+import articular.core.persistence.SnapshotOutput;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides a field-wise codec of a component type for the replication; the primitive fields
+ * (and the {@link Component.Id} fields) of a component are read into a state vector, so only the
+ * changed fields are sent, and the numeric fields are sent as variable-length deltas.
+ *
+ * <p>
+ * The record components are replicated by their components and rebuilt by their canonical constructors;
+ * the other component classes are replicated by their non-static non-transient fields, instantiated by
+ * their no-arg constructors and updated in-place. The floating-point fields are sent as their raw bits,
+ * unless quantized by {@link FieldDeltaCodec#quantize(String, double)} into integral steps.
+ * </p>
+ *
+ * @param <C> the type of the replicated component.
+ * @author pavl_g
+ * @see Replicator#register(FieldDeltaCodec)
+ */
+public final class FieldDeltaCodec<C extends Component> {
+
+    /**
+     * The maximum number of the replicated fields of a component (the bits of a field mask).
+     */
+    public static final int MAX_FIELDS = Long.SIZE;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<C> componentClass;
+    private final FieldAccess[] fields;
+    // a spreading canonical constructor of the records, or a no-arg constructor of the classes
+    private final MethodHandle constructor;
+    private final boolean record;
+
+    private FieldDeltaCodec(Class<C> componentClass, FieldAccess[] fields, MethodHandle constructor, boolean record) {
+        this.componentClass = componentClass;
+        this.fields = fields;
+        this.constructor = constructor;
+        this.record = record;
+    }
+
+    /**
+     * Instantiates a codec of a component type.
+     *
+     * @param componentClass the component class (not null).
+     * @param <C>            the type of the component.
+     * @return a new codec of the component fields.
+     * @throws IllegalArgumentException if the component has an unsupported field, too many fields
+     *                                  or no suitable constructor.
+     */
+    public static <C extends Component> FieldDeltaCodec<C> of(Class<C> componentClass) {
+        try {
+            if (componentClass.isRecord()) {
+                final RecordComponent[] components = componentClass.getRecordComponents();
+                final List<FieldAccess> fields = new ArrayList<>();
+                final Class<?>[] types = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    final Method accessor = components[i].getAccessor();
+                    accessor.setAccessible(true);
+                    types[i] = components[i].getType();
+                    fields.add(new FieldAccess(components[i].getName(), Kind.of(componentClass, components[i].getName(), types[i]),
+                            LOOKUP.unreflect(accessor), null));
+                }
+                final Constructor<C> canonical = componentClass.getDeclaredConstructor(types);
+                canonical.setAccessible(true);
+                final MethodHandle constructor = LOOKUP.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, types.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                return new FieldDeltaCodec<>(componentClass, toArray(componentClass, fields), constructor, true);
+            }
+            final List<FieldAccess> fields = new ArrayList<>();
+            for (Class<?> type = componentClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0 || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.add(new FieldAccess(field.getName(), Kind.of(componentClass, field.getName(), field.getType()),
+                            LOOKUP.unreflectGetter(field), LOOKUP.unreflectSetter(field)));
+                }
+            }
+            final Constructor<C> noArg = componentClass.getDeclaredConstructor();
+            noArg.setAccessible(true);
+            final MethodHandle constructor = LOOKUP.unreflectConstructor(noArg)
+                    .asType(MethodType.methodType(Object.class));
+            return new FieldDeltaCodec<>(componentClass, toArray(componentClass, fields), constructor, false);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Replicated component requires a " +
+                    (componentClass.isRecord() ? "canonical" : "no-arg") + " constructor: " + componentClass.getName(), e);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Replicated component is not accessible: " + componentClass.getName(), e);
+        }
+    }
+
+    /**
+     * Quantizes a floating-point field into integral steps of a precision; the quantized
+     * field is sent as a small variable-length delta of steps rather than its raw bits.
+     *
+     * @param field     the field name (not null).
+     * @param precision the step of the quantization (e.g. 0.01 for centimeters), or 0 to send the raw bits.
+     * @return this codec for chained calls.
+     * @throws IllegalArgumentException if the field doesn't exist or is not a floating-point field.
+     */
+    public FieldDeltaCodec<C> quantize(String field, double precision) {
+        final FieldAccess access = fields[indexOf(field)];
+        if (access.kind != Kind.FLOAT && access.kind != Kind.DOUBLE) {
+            throw new IllegalArgumentException("Quantized field is not a floating-point field: " + field);
+        }
+        if (!(precision >= 0) || Double.isInfinite(precision)) {
+            throw new IllegalArgumentException("Invalid quantization precision: " + precision);
+        }
+        access.precision = precision;
+        return this;
+    }
+
+    /**
+     * Retrieves the replicated component class.
+     *
+     * @return the component class.
+     */
+    public Class<C> getComponentClass() {
+        return componentClass;
+    }
+
+    /**
+     * Retrieves the number of the replicated fields.
+     *
+     * @return the number of the fields.
+     */
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+    /**
+     * Retrieves the name of a replicated field.
+     *
+     * @param index the field index in the state vector.
+     * @return the field name.
+     */
+    public String getFieldName(int index) {
+        return fields[index].name;
+    }
+
+    /**
+     * Retrieves the quantization precision of a replicated field.
+     *
+     * @param index the field index in the state vector.
+     * @return the precision, or 0 if the field is sent as is.
+     */
+    public double getPrecision(int index) {
+        return fields[index].precision;
+    }
+
+    /**
+     * Reads the state vector of a component; the floating-point fields are
+     * read as their quantized steps or their raw bits.
+     *
+     * @param component the component (not null).
+     * @param values    the state vector of the field count length.
+     */
+    void read(C component, long[] values) {
+        final Object target = component;
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                final FieldAccess field = fields[i];
+                final MethodHandle getter = field.getter;
+                switch (field.kind) {
+                    case BOOLEAN -> values[i] = (boolean) getter.invokeExact(target) ? 1 : 0;
+                    case BYTE -> values[i] = (byte) getter.invokeExact(target);
+                    case SHORT -> values[i] = (short) getter.invokeExact(target);
+                    case CHAR -> values[i] = (char) getter.invokeExact(target);
+                    case INT -> values[i] = (int) getter.invokeExact(target);
+                    case LONG -> values[i] = (long) getter.invokeExact(target);
+                    case FLOAT -> {
+                        final float value = (float) getter.invokeExact(target);
+                        values[i] = field.precision > 0 ? Math.round(value / field.precision) : Float.floatToRawIntBits(value);
+                    }
+                    case DOUBLE -> {
+                        final double value = (double) getter.invokeExact(target);
+                        values[i] = field.precision > 0 ? Math.round(value / field.precision) : Double.doubleToRawLongBits(value);
+                    }
+                    default -> values[i] = ((Component.Id) getter.invokeExact(target)).longValue();
+                }
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot read the replicated component: " + componentClass.getName(), e);
+        }
+    }
+
+    /**
+     * Writes a state vector into a component; the records are rebuilt, and the other
+     * components are updated in-place (or instantiated if no component is given).
+     *
+     * @param component the component to update, or null to instantiate a new one.
+     * @param values    the state vector.
+     * @return the written component.
+     */
+    @SuppressWarnings("unchecked")
+    C write(C component, long[] values) {
+        try {
+            if (record) {
+                final Object[] arguments = new Object[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    arguments[i] = box(fields[i], values[i]);
+                }
+                return (C) (Object) constructor.invokeExact(arguments);
+            }
+            final Object target = component != null ? component : (Object) constructor.invokeExact();
+            for (int i = 0; i < fields.length; i++) {
+                final FieldAccess field = fields[i];
+                final MethodHandle setter = field.setter;
+                final long value = values[i];
+                switch (field.kind) {
+                    case BOOLEAN -> setter.invokeExact(target, value != 0);
+                    case BYTE -> setter.invokeExact(target, (byte) value);
+                    case SHORT -> setter.invokeExact(target, (short) value);
+                    case CHAR -> setter.invokeExact(target, (char) value);
+                    case INT -> setter.invokeExact(target, (int) value);
+                    case LONG -> setter.invokeExact(target, value);
+                    case FLOAT -> setter.invokeExact(target, toFloat(field, value));
+                    case DOUBLE -> setter.invokeExact(target, toDouble(field, value));
+                    default -> setter.invokeExact(target, new Component.Id(value));
+                }
+            }
+            return (C) target;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot write the replicated component: " + componentClass.getName(), e);
+        }
+    }
+
+    /**
+     * Writes a field value against its previous value; the integral and the quantized
+     * fields are written as zig-zag variable-length deltas, and the raw floating-point fields as their bits.
+     *
+     * @param output   the output (not null).
+     * @param index    the field index.
+     * @param value    the field value of the state vector.
+     * @param previous the previous value known by the replicas (0 for a new component).
+     */
+    void writeValue(SnapshotOutput output, int index, long value, long previous) {
+        final FieldAccess field = fields[index];
+        if (field.precision > 0 || field.kind.integral) {
+            output.writeZigZagLong(value - previous);
+        } else if (field.kind == Kind.FLOAT) {
+            output.writeInt((int) value);
+        } else {
+            output.writeLong(value);
+        }
+    }
+
+    /**
+     * Reads a field value written by {@link FieldDeltaCodec#writeValue(SnapshotOutput, int, long, long)}.
+     *
+     * @param input    the input (not null).
+     * @param index    the field index.
+     * @param previous the previous value of the state vector.
+     * @return the field value of the state vector.
+     */
+    long readValue(SnapshotInput input, int index, long previous) {
+        final FieldAccess field = fields[index];
+        if (field.precision > 0 || field.kind.integral) {
+            return previous + input.readZigZagLong();
+        } else if (field.kind == Kind.FLOAT) {
+            return input.readInt();
+        }
+        return input.readLong();
+    }
+
+    private int indexOf(String field) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].name.equals(field)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No replicated field " + field + " in " + componentClass.getName());
+    }
+
+    private static Object box(FieldAccess field, long value) {
+        return switch (field.kind) {
+            case BOOLEAN -> value != 0;
+            case BYTE -> (byte) value;
+            case SHORT -> (short) value;
+            case CHAR -> (char) value;
+            case INT -> (int) value;
+            case LONG -> value;
+            case FLOAT -> toFloat(field, value);
+            case DOUBLE -> toDouble(field, value);
+            default -> new Component.Id(value);
+        };
+    }
+
+    private static float toFloat(FieldAccess field, long value) {
+        return field.precision > 0 ? (float) (value * field.precision) : Float.intBitsToFloat((int) value);
+    }
+
+    private static double toDouble(FieldAccess field, long value) {
+        return field.precision > 0 ? value * field.precision : Double.longBitsToDouble(value);
+    }
+
+    private static FieldAccess[] toArray(Class<?> componentClass, List<FieldAccess> fields) {
+        if (fields.size() > MAX_FIELDS) {
+            throw new IllegalArgumentException("Replicated component has more than " + MAX_FIELDS +
+                    " fields: " + componentClass.getName());
+        }
+        return fields.toArray(new FieldAccess[0]);
+    }
+
+    private enum Kind {
+        BOOLEAN(true, boolean.class),
+        BYTE(true, byte.class),
+        SHORT(true, short.class),
+        CHAR(true, char.class),
+        INT(true, int.class),
+        LONG(true, long.class),
+        FLOAT(false, float.class),
+        DOUBLE(false, double.class),
+        ID(true, Component.Id.class);
+
+        private final boolean integral;
+        private final Class<?> type;
+
+        Kind(boolean integral, Class<?> type) {
+            this.integral = integral;
+            this.type = type;
+        }
+
+        private static Kind of(Class<?> componentClass, String name, Class<?> type) {
+            for (Kind kind : values()) {
+                if (kind.type == type) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported replicated field " + name + " of type " +
+                    type.getName() + " in " + componentClass.getName());
+        }
+    }
+
+    private static final class FieldAccess {
+        private final String name;
+        private final Kind kind;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private double precision;
+
+        private FieldAccess(String name, Kind kind, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.kind = kind;
+            // adapts the receiver to an object, so the call sites don't depend on the component class
+            this.getter = getter.asType(MethodType.methodType(kind.type, Object.class));
+            this.setter = setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, kind.type));
+        }
+    }
+}
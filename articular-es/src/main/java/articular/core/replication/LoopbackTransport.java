@@ -0,0 +1,85 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.replication;
+
+import articular.core.system.data.stream.StreamPipe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An in-process replication transport; the messages are copied into a stream pipe,
+ * so a replicator and a replica can run on different threads of the same process
+ * (e.g. an editor viewport or a test mirroring the simulation world).
+ *
+ * @author pavl_g
+ */
+public final class LoopbackTransport implements ReplicationTransport {
+
+    private final StreamPipe<ByteBuffer> pipe;
+
+    /**
+     * Instantiates a new loopback transport.
+     *
+     * @param pipe the stream pipe carrying the messages; a single-producer single-consumer
+     *             pipe for a replicator thread and a replica thread (not null).
+     */
+    public LoopbackTransport(StreamPipe<ByteBuffer> pipe) {
+        this.pipe = Objects.requireNonNull(pipe);
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        final ByteBuffer copy = ByteBuffer.allocate(message.remaining()).put(message).flip();
+        if (!pipe.offer(copy)) {
+            throw new IOException("Loopback transport is full, the replica doesn't keep up");
+        }
+    }
+
+    @Override
+    public int receive(StreamPipe.Sink<ByteBuffer> sink) {
+        return pipe.drain(sink);
+    }
+
+    /**
+     * Retrieves the stream pipe of this transport.
+     *
+     * @return the stream pipe carrying the messages.
+     */
+    public StreamPipe<ByteBuffer> getPipe() {
+        return pipe;
+    }
+
+    @Override
+    public void close() {
+    }
+}
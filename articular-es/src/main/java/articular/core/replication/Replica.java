@@ -0,0 +1,311 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.replication;
+
+import articular.core.component.Component;
+import articular.core.persistence.ComponentCodec;
+import articular.core.persistence.SnapshotInput;
+import articular.core.persistence.WorldSnapshot;
+import articular.core.system.SystemController;
+import articular.core.system.data.stream.StreamPipe;
+import articular.core.system.manager.EntityComponentManager;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mirrors the world of a {@link Replicator} into a viewer ecs-manager by applying the received messages;
+ * the components are registered through {@link EntityComponentManager#restoreComponent(String, long, Component)},
+ * so the sub-classes' caches (and the attached journals or histories) of the viewer are kept in sync.
+ *
+ * <p>
+ * The replica keeps the state vector of each mirrored entity to apply the field deltas; the records are rebuilt
+ * on each change, and the other components are updated in-place. The deltas received before the first full
+ * message are ignored.
+ * </p>
+ *
+ * <p>
+ * Note: the replica must register the same codecs (and quantizations) of the replicator. The replica
+ * is not thread-safe; poll from the viewer update thread.
+ * </p>
+ *
+ * @author pavl_g
+ * @see Replicator
+ */
+public final class Replica {
+
+    private static final ComponentCodec<?>[] NO_TYPES = new ComponentCodec<?>[0];
+
+    private final EntityComponentManager<?> entityComponentManager;
+    private final HashMap<String, FieldDeltaCodec<?>> codecs = new HashMap<>();
+    // the codecs by the type identifiers of the replicator, the identifier-only type is null
+    private final List<FieldDeltaCodec<Component>> types = new ArrayList<>();
+    private final HashMap<String, SystemState> systems = new HashMap<>();
+    private final List<SystemState> systemIndex = new ArrayList<>();
+    private final StreamPipe.Sink<ByteBuffer> sink = this::apply;
+    private boolean synchronizedState;
+    private long tick;
+
+    /**
+     * Instantiates a replica into a viewer ecs-manager.
+     *
+     * @param entityComponentManager the viewer ecs-manager (not null).
+     */
+    public Replica(EntityComponentManager<?> entityComponentManager) {
+        this.entityComponentManager = entityComponentManager;
+    }
+
+    /**
+     * Registers the codec of a replicated component type.
+     *
+     * @param codec the codec configured as the one of the replicator (not null).
+     * @return this replica for chaining.
+     */
+    public Replica register(FieldDeltaCodec<?> codec) {
+        codecs.put(codec.getComponentClass().getName(), codec);
+        return this;
+    }
+
+    /**
+     * Receives and applies the available messages of a transport without blocking.
+     *
+     * @param transport the transport to the replicator (not null).
+     * @return the number of the applied messages.
+     * @throws IOException if the transport fails.
+     */
+    public int poll(ReplicationTransport transport) throws IOException {
+        return transport.receive(sink);
+    }
+
+    /**
+     * Applies a replication message.
+     *
+     * @param message the message buffer (not null).
+     * @throws IllegalStateException if the message is corrupted, or out of sync with this replica.
+     */
+    public void apply(ByteBuffer message) {
+        final SnapshotInput input = new SnapshotInput(message, NO_TYPES);
+        try {
+            final byte kind = input.readByte();
+            if (kind == Replicator.FULL) {
+                reset();
+            } else if (kind != Replicator.DELTA) {
+                throw new IllegalStateException("Corrupted replication message kind: " + kind);
+            } else if (!synchronizedState) {
+                return;
+            }
+            tick = input.readVarLong();
+            readDefinitions(input);
+            final long blockCount = input.readVarLong();
+            for (long block = 0; block < blockCount; block++) {
+                final SystemState state = getSystem(input.readVarLong());
+                final long count = input.readVarLong();
+                long entityId = 0;
+                for (long i = 0; i < count; i++) {
+                    entityId += input.readVarLong();
+                    applyEntity(input, state, entityId);
+                }
+            }
+            if (kind == Replicator.FULL) {
+                removeStale();
+                synchronizedState = true;
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Corrupted replication message", e);
+        }
+    }
+
+    /**
+     * Tests whether this replica has received a full message.
+     *
+     * @return true if the replica mirrors the replicator world.
+     */
+    public boolean isSynchronized() {
+        return synchronizedState;
+    }
+
+    /**
+     * Retrieves the replicator tick of the last applied message.
+     *
+     * @return the tick of the mirrored state.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    private void applyEntity(SnapshotInput input, SystemState state, long entityId) {
+        final byte op = input.readByte();
+        switch (op) {
+            case Replicator.REMOVE -> {
+                if (state.entities.remove(entityId) != null) {
+                    entityComponentManager.restoreComponent(state.name, entityId, null);
+                }
+            }
+            case Replicator.CREATE -> {
+                final int typeId = (int) input.readVarLong();
+                if (typeId < 0 || typeId >= types.size()) {
+                    throw new IllegalStateException("Corrupted replicated component type: " + typeId);
+                }
+                final FieldDeltaCodec<Component> codec = types.get(typeId);
+                Entry previous = state.entities.get(entityId);
+                if (previous == null && state.stale != null) {
+                    previous = state.stale.remove(entityId);
+                }
+                final Component component;
+                final long[] values;
+                if (codec == null) {
+                    final Component.Id id = new Component.Id(input.readZigZagLong());
+                    component = () -> id;
+                    values = null;
+                } else {
+                    values = new long[codec.getFieldCount()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = codec.readValue(input, i, 0);
+                    }
+                    // updates the previous component in-place if it is of the same type
+                    final Component reuse = previous != null && previous.codec == codec ? previous.component : null;
+                    component = codec.write(reuse, values);
+                }
+                state.entities.put(entityId, new Entry(codec, values, component));
+                entityComponentManager.restoreComponent(state.name, entityId, component);
+            }
+            case Replicator.UPDATE -> {
+                final Entry entry = state.entities.get(entityId);
+                if (entry == null || entry.codec == null) {
+                    throw new IllegalStateException("Replica is out of sync with the entity " + entityId +
+                            " of the system " + state.name);
+                }
+                final long mask = input.readVarLong();
+                for (int i = 0; i < entry.values.length; i++) {
+                    if ((mask & (1L << i)) != 0) {
+                        entry.values[i] = entry.codec.readValue(input, i, entry.values[i]);
+                    }
+                }
+                entry.component = entry.codec.write(entry.component, entry.values);
+                entityComponentManager.restoreComponent(state.name, entityId, entry.component);
+            }
+            default -> throw new IllegalStateException("Corrupted replication op: " + op);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readDefinitions(SnapshotInput input) {
+        final long typeCount = input.readVarLong();
+        for (long i = 0; i < typeCount; i++) {
+            final String type = input.readString();
+            final FieldDeltaCodec<Component> codec = (FieldDeltaCodec<Component>) codecs.get(type);
+            if (codec == null) {
+                throw new IllegalArgumentException("No codec is registered for " + type);
+            }
+            final long fieldCount = input.readVarLong();
+            boolean matches = fieldCount == codec.getFieldCount();
+            for (int field = 0; field < fieldCount; field++) {
+                final double precision = input.readDouble();
+                if (matches && precision != codec.getPrecision(field)) {
+                    matches = false;
+                }
+            }
+            if (!matches) {
+                throw new IllegalStateException("Mismatched replicated codec of " + type);
+            }
+            types.add(codec);
+        }
+        final long systemCount = input.readVarLong();
+        for (long i = 0; i < systemCount; i++) {
+            final String system = input.readString();
+            final SystemState state = systems.computeIfAbsent(system, SystemState::new);
+            final SystemController systemController = WorldSnapshot.controllerOf(system);
+            if (entityComponentManager.getMemoryMap(systemController) == null) {
+                entityComponentManager.allocateMemoryMap(systemController);
+            }
+            systemIndex.add(state);
+        }
+    }
+
+    private void reset() {
+        types.clear();
+        // the identifier-only type
+        types.add(null);
+        systemIndex.clear();
+        for (SystemState state : systems.values()) {
+            state.stale = state.entities;
+            state.entities = new HashMap<>();
+        }
+    }
+
+    private void removeStale() {
+        for (SystemState state : systems.values()) {
+            if (state.stale == null) {
+                continue;
+            }
+            for (Long entityId : state.stale.keySet()) {
+                entityComponentManager.restoreComponent(state.name, entityId, null);
+            }
+            state.stale = null;
+        }
+    }
+
+    private SystemState getSystem(long index) {
+        if (index < 0 || index >= systemIndex.size()) {
+            throw new IllegalStateException("Corrupted replicated system index: " + index);
+        }
+        return systemIndex.get((int) index);
+    }
+
+    private static final class Entry {
+        private final FieldDeltaCodec<Component> codec;
+        private final long[] values;
+        private Component component;
+
+        private Entry(FieldDeltaCodec<Component> codec, long[] values, Component component) {
+            this.codec = codec;
+            this.values = values;
+            this.component = component;
+        }
+    }
+
+    private static final class SystemState {
+        private final String name;
+        // the mirrored state by the entity identifiers
+        private Map<Long, Entry> entities = new HashMap<>();
+        // the entities before a full message, removed if not in the full message
+        private Map<Long, Entry> stale;
+
+        private SystemState(String name) {
+            this.name = name;
+        }
+    }
+}
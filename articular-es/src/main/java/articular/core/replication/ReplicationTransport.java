@@ -0,0 +1,69 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.replication;
+
+import articular.core.system.data.stream.StreamPipe;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a message transport between a {@link Replicator} and its {@link Replica}s;
+ * a transport preserves the message boundaries and their order.
+ *
+ * @author pavl_g
+ * @see LoopbackTransport
+ * @see SocketTransport
+ */
+public interface ReplicationTransport extends AutoCloseable {
+
+    /**
+     * Sends a message; the transport consumes the remaining bytes of the message
+     * buffer and doesn't retain the buffer after returning.
+     *
+     * @param message the message buffer (not null).
+     * @throws IOException if the message cannot be sent.
+     */
+    void send(ByteBuffer message) throws IOException;
+
+    /**
+     * Receives the available messages without blocking; each message is valid
+     * only through its sink call.
+     *
+     * @param sink the sink to accept the received messages (not null).
+     * @return the number of the received messages.
+     * @throws IOException if the transport fails or the peer is closed.
+     */
+    int receive(StreamPipe.Sink<ByteBuffer> sink) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,643 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.replication;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.persistence.ComponentCodecs;
+import articular.core.persistence.SnapshotOutput;
+import articular.core.persistence.WorldSnapshot;
+import articular.core.system.SystemController;
+import articular.core.system.manager.ChangeTracker;
+import articular.core.system.manager.EntityComponentManager;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replicates the component state of an ecs-manager to {@link Replica}s as compact per-tick deltas
+ * over pluggable {@link ReplicationTransport}s.
+ *
+ * <p>
+ * The replicator keeps the last replicated state vector of each entity component (see {@link FieldDeltaCodec});
+ * on each {@link Replicator#replicate()} (e.g. after a tick end), only the changed entities are encoded: the
+ * entity identifiers are sorted and sent as variable-length gaps, the removals as a single op, the new components
+ * as their full state, and the changed components as a bit-mask of their changed fields followed by the
+ * changed field deltas. The component types and the system names are sent once as indexed definitions.
+ * </p>
+ *
+ * <p>
+ * A transport added to the replicator receives a full message of the replicated state on the next
+ * replication, and the following deltas afterwards; so the late-joining viewers are synchronized
+ * without resending the full state to the other viewers.
+ * </p>
+ *
+ * <p>
+ * Note: the changed entities are found by scanning and comparing the state vectors of all the entities,
+ * or by examining the entities modified through the ecs-manager only if the incremental mode is enabled.
+ * The replicator is not thread-safe; replicate from the update thread.
+ * </p>
+ *
+ * @author pavl_g
+ * @see Replica
+ */
+public final class Replicator implements AutoCloseable {
+
+    /**
+     * The message kind of a full state (resets the replica tables).
+     */
+    static final byte FULL = 1;
+
+    /**
+     * The message kind of a delta since the previous message.
+     */
+    static final byte DELTA = 2;
+
+    /**
+     * The entity ops.
+     */
+    static final byte REMOVE = 0;
+    static final byte CREATE = 1;
+    static final byte UPDATE = 2;
+
+    /**
+     * The reserved type identifier of the identifier-only components (e.g. the ones
+     * allocated by the ecs-manager as lambdas).
+     */
+    static final int ID_COMPONENT = 0;
+
+    private final EntityComponentManager<?> entityComponentManager;
+    private final ChangeTracker changeTracker = new ChangeTracker();
+    private final Set<String> tracked = new LinkedHashSet<>();
+    private final HashMap<Class<?>, FieldDeltaCodec<?>> codecs = new HashMap<>();
+    private final IdentityHashMap<Class<?>, Type> classTypes = new IdentityHashMap<>();
+    private final List<Type> types = new ArrayList<>();
+    private final Type idType = new Type(ID_COMPONENT, null);
+    private final LinkedHashMap<String, SystemState> systems = new LinkedHashMap<>();
+    private final List<ReplicationTransport> transports = new ArrayList<>();
+    private final List<ReplicationTransport> pending = new ArrayList<>();
+    private final SnapshotOutput message;
+    private final SnapshotOutput blocks;
+    private final SnapshotOutput entities;
+    private long[] candidates = new long[1 << 8];
+    private int announcedTypes;
+    private int announcedSystems;
+    private boolean incremental;
+    private boolean initialized;
+    private long tick;
+    private int lastMessageSize;
+    private int lastChangeCount;
+    private long lastEncodeNanos;
+
+    /**
+     * Instantiates a replicator of an ecs-manager.
+     *
+     * @param entityComponentManager the ecs-manager to replicate (not null).
+     */
+    public Replicator(EntityComponentManager<?> entityComponentManager) {
+        this.entityComponentManager = entityComponentManager;
+        final ComponentCodecs noCodecs = new ComponentCodecs();
+        this.message = new SnapshotOutput(noCodecs, 1 << 12);
+        this.blocks = new SnapshotOutput(noCodecs, 1 << 12);
+        this.entities = new SnapshotOutput(noCodecs, 1 << 12);
+    }
+
+    /**
+     * Registers the codec of a replicated component type.
+     *
+     * @param codec the codec (not null).
+     * @return this replicator for chaining.
+     */
+    public Replicator register(FieldDeltaCodec<?> codec) {
+        codecs.put(codec.getComponentClass(), codec);
+        return this;
+    }
+
+    /**
+     * Replicates a system only; all the systems of the ecs-manager are replicated if no system
+     * is explicitly tracked. Track the systems before the first replication.
+     *
+     * @param systemController the system controller (not null).
+     * @return this replicator for chaining.
+     */
+    public Replicator track(SystemController systemController) {
+        tracked.add(systemController.getId().getId());
+        return this;
+    }
+
+    /**
+     * Enables/disables the incremental mode; if enabled, a replication examines only the entities
+     * registered or removed through the ecs-manager since the previous replication, rather than
+     * scanning all the entities. Enable if the components are not modified in-place (e.g. records),
+     * and are not put directly to the memory-maps.
+     *
+     * @param incremental true to examine the modified entities only.
+     * @return this replicator for chaining.
+     * @see EntityComponentManager#restoreComponent(String, long, Component)
+     */
+    public Replicator setIncremental(boolean incremental) {
+        if (incremental && !this.incremental) {
+            entityComponentManager.attachChangeTracker(changeTracker);
+            initialized = false;
+        } else if (!incremental && this.incremental) {
+            entityComponentManager.detachChangeTracker(changeTracker);
+            changeTracker.clear();
+        }
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Tests whether the incremental mode is enabled.
+     *
+     * @return true if a replication examines the modified entities only.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Adds a transport; the transport receives a full message on the next replication.
+     *
+     * @param transport the transport to a replica (not null).
+     */
+    public void addTransport(ReplicationTransport transport) {
+        pending.add(transport);
+    }
+
+    /**
+     * Removes a transport without closing it.
+     *
+     * @param transport the transport to remove.
+     */
+    public void removeTransport(ReplicationTransport transport) {
+        transports.remove(transport);
+        pending.remove(transport);
+    }
+
+    /**
+     * Replicates the changes since the previous replication to the transports, and the full
+     * state to the newly added transports; call once per tick (e.g. after {@link EntityComponentManager#endTick()}).
+     *
+     * <p>
+     * A transport failing to send is removed and closed; the failure is thrown after
+     * sending to the other transports.
+     * </p>
+     *
+     * @throws IOException if a transport fails to send.
+     */
+    public void replicate() throws IOException {
+        final long start = System.nanoTime();
+        final boolean scan = !incremental || !initialized;
+        if (scan) {
+            changeTracker.clear();
+        }
+        for (String system : getSystems()) {
+            getState(system);
+        }
+        blocks.reset();
+        int blockCount = 0;
+        int changeCount = 0;
+        for (SystemState state : systems.values()) {
+            final MemoryMap.EntityComponentMap components =
+                    entityComponentManager.getMemoryMap(WorldSnapshot.controllerOf(state.name));
+            // a new system is scanned to establish its baseline, and an unregistered one to remove its entities
+            final int count = encodeSystem(state, components, scan || !state.scanned || components == null);
+            state.scanned = true;
+            if (count > 0) {
+                blocks.writeVarLong(state.index);
+                blocks.writeVarLong(count);
+                blocks.writeBytes(entities.getBuffer().array(), 0, entities.size());
+                blockCount++;
+                changeCount += count;
+            }
+        }
+        tick++;
+        message.reset();
+        message.writeByte(DELTA);
+        message.writeVarLong(tick);
+        writeDefinitions(announcedTypes, announcedSystems);
+        message.writeVarLong(blockCount);
+        message.writeBytes(blocks.getBuffer().array(), 0, blocks.size());
+        if (incremental) {
+            // drops the modifications of the systems not replicated
+            changeTracker.getDirty().keySet().retainAll(systems.keySet());
+        }
+        announcedTypes = types.size();
+        announcedSystems = systems.size();
+        initialized = true;
+        lastMessageSize = message.size();
+        lastChangeCount = changeCount;
+        lastEncodeNanos = System.nanoTime() - start;
+
+        IOException failure = send(transports, null);
+        if (!pending.isEmpty()) {
+            writeFull();
+            failure = send(pending, failure);
+            transports.addAll(pending);
+            pending.clear();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Retrieves the number of the replications.
+     *
+     * @return the current replication tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Retrieves the size of the last delta message.
+     *
+     * @return the message size in bytes.
+     */
+    public int getLastMessageSize() {
+        return lastMessageSize;
+    }
+
+    /**
+     * Retrieves the number of the entities changed in the last delta message.
+     *
+     * @return the number of the changed entities.
+     */
+    public int getLastChangeCount() {
+        return lastChangeCount;
+    }
+
+    /**
+     * Retrieves the time of encoding the last delta message, excluding the sends.
+     *
+     * @return the encoding time in nanoseconds.
+     */
+    public long getLastEncodeNanos() {
+        return lastEncodeNanos;
+    }
+
+    /**
+     * Detaches this replicator from the ecs-manager and closes its transports.
+     *
+     * @throws IOException if a transport fails to close.
+     */
+    @Override
+    public void close() throws IOException {
+        setIncremental(false);
+        IOException failure = null;
+        for (ReplicationTransport transport : transports) {
+            failure = close(transport, failure);
+        }
+        for (ReplicationTransport transport : pending) {
+            failure = close(transport, failure);
+        }
+        transports.clear();
+        pending.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private int encodeSystem(SystemState state, MemoryMap.EntityComponentMap components, boolean scan) {
+        int candidateCount = 0;
+        if (scan) {
+            int matched = 0;
+            if (components != null) {
+                for (Map.Entry<Number, Component> entry : components.entrySet()) {
+                    final long entityId = entry.getKey().longValue();
+                    final Component component = entry.getValue();
+                    final Entry previous = state.baseline.get(entityId);
+                    if (previous != null) {
+                        matched++;
+                        // the records are immutable, the same record is not changed
+                        if (previous.component == component && component instanceof Record) {
+                            continue;
+                        }
+                    }
+                    if (isChanged(previous, component)) {
+                        candidateCount = addCandidate(candidateCount, entityId);
+                    }
+                }
+            }
+            if (state.baseline.size() > matched) {
+                for (Long entityId : state.baseline.keySet()) {
+                    if (components == null || !components.containsKey(entityId)) {
+                        candidateCount = addCandidate(candidateCount, entityId);
+                    }
+                }
+            }
+        } else {
+            final Set<Long> dirty = changeTracker.getDirty().get(state.name);
+            if (dirty != null) {
+                final Iterator<Long> iterator = dirty.iterator();
+                while (iterator.hasNext()) {
+                    candidateCount = addCandidate(candidateCount, iterator.next());
+                    iterator.remove();
+                }
+            }
+        }
+        // sorts as unsigned, so the gaps are non-negative
+        for (int i = 0; i < candidateCount; i++) {
+            candidates[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+        entities.reset();
+        long previousId = 0;
+        int count = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            final long entityId = candidates[i] ^ Long.MIN_VALUE;
+            final Component component = components == null ? null : components.get(entityId);
+            if (encodeEntity(state, entityId, component, previousId)) {
+                previousId = entityId;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isChanged(Entry previous, Component component) {
+        if (previous == null) {
+            return true;
+        }
+        final Type type = getType(component);
+        if (previous.type != type) {
+            return true;
+        }
+        readState(type, component, type.scratch);
+        return !Arrays.equals(type.scratch, previous.values);
+    }
+
+    private boolean encodeEntity(SystemState state, long entityId, Component component, long previousId) {
+        final Entry previous = state.baseline.get(entityId);
+        if (component == null) {
+            if (previous == null) {
+                return false;
+            }
+            state.baseline.remove(entityId);
+            entities.writeVarLong(entityId - previousId);
+            entities.writeByte(REMOVE);
+            return true;
+        }
+        final Type type = getType(component);
+        if (previous == null || previous.type != type) {
+            final Entry entry = new Entry(type, component);
+            readState(type, component, entry.values);
+            state.baseline.put(entityId, entry);
+            entities.writeVarLong(entityId - previousId);
+            writeCreate(entities, entry);
+            return true;
+        }
+        previous.component = component;
+        final long[] values = type.scratch;
+        readState(type, component, values);
+        long mask = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != previous.values[i]) {
+                mask |= 1L << i;
+            }
+        }
+        if (mask == 0) {
+            return false;
+        }
+        entities.writeVarLong(entityId - previousId);
+        if (type.codec == null) {
+            previous.values[0] = values[0];
+            writeCreate(entities, previous);
+            return true;
+        }
+        entities.writeByte(UPDATE);
+        entities.writeVarLong(mask);
+        for (int i = 0; i < values.length; i++) {
+            if ((mask & (1L << i)) != 0) {
+                type.codec.writeValue(entities, i, values[i], previous.values[i]);
+                previous.values[i] = values[i];
+            }
+        }
+        return true;
+    }
+
+    private void writeCreate(SnapshotOutput output, Entry entry) {
+        output.writeByte(CREATE);
+        output.writeVarLong(entry.type.id);
+        if (entry.type.codec == null) {
+            output.writeZigZagLong(entry.values[0]);
+            return;
+        }
+        for (int i = 0; i < entry.values.length; i++) {
+            entry.type.codec.writeValue(output, i, entry.values[i], 0);
+        }
+    }
+
+    private void writeFull() {
+        message.reset();
+        message.writeByte(FULL);
+        message.writeVarLong(tick);
+        writeDefinitions(0, 0);
+        int blockCount = 0;
+        for (SystemState state : systems.values()) {
+            if (!state.baseline.isEmpty()) {
+                blockCount++;
+            }
+        }
+        message.writeVarLong(blockCount);
+        for (SystemState state : systems.values()) {
+            if (state.baseline.isEmpty()) {
+                continue;
+            }
+            message.writeVarLong(state.index);
+            message.writeVarLong(state.baseline.size());
+            int candidateCount = 0;
+            for (Long entityId : state.baseline.keySet()) {
+                candidateCount = addCandidate(candidateCount, entityId ^ Long.MIN_VALUE);
+            }
+            Arrays.sort(candidates, 0, candidateCount);
+            long previousId = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                final long entityId = candidates[i] ^ Long.MIN_VALUE;
+                message.writeVarLong(entityId - previousId);
+                writeCreate(message, state.baseline.get(entityId));
+                previousId = entityId;
+            }
+        }
+    }
+
+    private void writeDefinitions(int fromType, int fromSystem) {
+        message.writeVarLong(types.size() - fromType);
+        for (int i = fromType; i < types.size(); i++) {
+            final FieldDeltaCodec<Component> codec = types.get(i).codec;
+            message.writeString(codec.getComponentClass().getName());
+            message.writeVarLong(codec.getFieldCount());
+            for (int field = 0; field < codec.getFieldCount(); field++) {
+                message.writeDouble(codec.getPrecision(field));
+            }
+        }
+        message.writeVarLong(systems.size() - fromSystem);
+        int index = 0;
+        for (SystemState state : systems.values()) {
+            if (index++ >= fromSystem) {
+                message.writeString(state.name);
+            }
+        }
+    }
+
+    private IOException send(List<ReplicationTransport> targets, IOException failure) {
+        final ByteBuffer buffer = message.getBuffer();
+        final Iterator<ReplicationTransport> iterator = targets.iterator();
+        while (iterator.hasNext()) {
+            final ReplicationTransport transport = iterator.next();
+            try {
+                transport.send(buffer.duplicate().flip());
+            } catch (IOException e) {
+                iterator.remove();
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+                failure = close(transport, failure);
+            }
+        }
+        return failure;
+    }
+
+    private static IOException close(ReplicationTransport transport, IOException failure) {
+        try {
+            transport.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Type getType(Component component) {
+        final Class<?> componentClass = component.getClass();
+        Type type = classTypes.get(componentClass);
+        if (type != null) {
+            return type;
+        }
+        final FieldDeltaCodec<?> codec = codecs.get(componentClass);
+        if (codec == null) {
+            if (!componentClass.isHidden()) {
+                throw new IllegalArgumentException("No codec is registered for " + componentClass.getName());
+            }
+            type = idType;
+        } else {
+            type = new Type(types.size() + 1, (FieldDeltaCodec<Component>) codec);
+            types.add(type);
+        }
+        classTypes.put(componentClass, type);
+        return type;
+    }
+
+    private static void readState(Type type, Component component, long[] values) {
+        if (type.codec == null) {
+            values[0] = component.getId().longValue();
+        } else {
+            type.codec.read(component, values);
+        }
+    }
+
+    private SystemState getState(String system) {
+        SystemState state = systems.get(system);
+        if (state == null) {
+            state = new SystemState(system, systems.size());
+            systems.put(system, state);
+        }
+        return state;
+    }
+
+    private Collection<String> getSystems() {
+        return tracked.isEmpty() ? entityComponentManager.getMemoryMap().keySet() : tracked;
+    }
+
+    private int addCandidate(int count, long entityId) {
+        if (count == candidates.length) {
+            candidates = Arrays.copyOf(candidates, count << 1);
+        }
+        candidates[count] = entityId;
+        return count + 1;
+    }
+
+    private static final class Type {
+        private final int id;
+        private final FieldDeltaCodec<Component> codec;
+        // the state vector of the examined component
+        private final long[] scratch;
+
+        private Type(int id, FieldDeltaCodec<Component> codec) {
+            this.id = id;
+            this.codec = codec;
+            this.scratch = new long[codec == null ? 1 : codec.getFieldCount()];
+        }
+    }
+
+    private static final class Entry {
+        private final Type type;
+        private final long[] values;
+        private Component component;
+
+        private Entry(Type type, Component component) {
+            this.type = type;
+            this.values = new long[type.scratch.length];
+            this.component = component;
+        }
+    }
+
+    private static final class SystemState {
+        private final String name;
+        private final int index;
+        // the last replicated state by the entity identifiers
+        private final HashMap<Long, Entry> baseline = new HashMap<>();
+        private boolean scanned;
+
+        private SystemState(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+}
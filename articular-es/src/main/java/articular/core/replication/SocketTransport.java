@@ -0,0 +1,175 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.replication;
+
+import articular.core.system.data.stream.StreamPipe;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * A socket replication transport; the messages are framed by their lengths over a
+ * non-blocking stream socket channel (e.g. a local unix-domain socket to a viewer process,
+ * or a TCP socket).
+ *
+ * <p>
+ * The sends write the whole frame before returning; the receives parse the complete
+ * frames available without blocking and keep a partial frame for the next receive.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class SocketTransport implements ReplicationTransport {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    private final ByteBuffer[] frame = new ByteBuffer[2];
+    private ByteBuffer receiveBuffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * Instantiates a new socket transport over a connected channel; the channel
+     * is switched to the non-blocking mode.
+     *
+     * @param channel the connected socket channel (not null).
+     * @throws IOException if the channel cannot be configured.
+     */
+    public SocketTransport(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Binds a server channel to a local unix-domain socket file.
+     *
+     * @param path the socket file path; must not exist (not null).
+     * @return a blocking server channel to accept the transports.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public static ServerSocketChannel bind(Path path) throws IOException {
+        final ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(path));
+        return server;
+    }
+
+    /**
+     * Accepts a transport from a blocking server channel.
+     *
+     * @param server the bound server channel (not null).
+     * @return a new transport over the accepted connection.
+     * @throws IOException if the connection cannot be accepted.
+     */
+    public static SocketTransport accept(ServerSocketChannel server) throws IOException {
+        return new SocketTransport(server.accept());
+    }
+
+    /**
+     * Connects a transport to a local unix-domain socket file.
+     *
+     * @param path the socket file path of a bound server (not null).
+     * @return a new transport over the connection.
+     * @throws IOException if the connection cannot be established.
+     */
+    public static SocketTransport connect(Path path) throws IOException {
+        return new SocketTransport(SocketChannel.open(UnixDomainSocketAddress.of(path)));
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        header.clear();
+        header.putInt(message.remaining()).flip();
+        frame[0] = header;
+        frame[1] = message;
+        while (message.hasRemaining() || header.hasRemaining()) {
+            if (channel.write(frame) == 0) {
+                // the socket buffer is full, yields to the peer draining it
+                Thread.yield();
+            }
+        }
+        frame[1] = null;
+    }
+
+    @Override
+    public int receive(StreamPipe.Sink<ByteBuffer> sink) throws IOException {
+        int count = 0;
+        int read;
+        do {
+            read = channel.read(receiveBuffer);
+            receiveBuffer.flip();
+            while (receiveBuffer.remaining() >= Integer.BYTES) {
+                final int length = receiveBuffer.getInt(receiveBuffer.position());
+                if (length < 0) {
+                    throw new IOException("Corrupted replication frame length: " + length);
+                }
+                if (receiveBuffer.remaining() - Integer.BYTES < length) {
+                    break;
+                }
+                final int start = receiveBuffer.position() + Integer.BYTES;
+                sink.accept(receiveBuffer.slice(start, length));
+                receiveBuffer.position(start + length);
+                count++;
+            }
+            final int required = receiveBuffer.remaining() >= Integer.BYTES
+                    ? Integer.BYTES + receiveBuffer.getInt(receiveBuffer.position()) : Integer.BYTES;
+            if (required > receiveBuffer.capacity()) {
+                receiveBuffer = ByteBuffer.allocate(Math.max(required, receiveBuffer.capacity() << 1))
+                        .put(receiveBuffer);
+            } else {
+                receiveBuffer.compact();
+            }
+        } while (read > 0);
+        if (read < 0 && count == 0) {
+            throw new EOFException("Replication peer has closed the connection");
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the socket channel of this transport.
+     *
+     * @return the connected socket channel.
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.core.system;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.data.stream.MpscStreamPipe;
+import articular.core.system.data.stream.StreamPipe;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.Validator;
+import articular.util.VirtualThreads;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a {@link BlockingUpdater} on a thread per entity of its system, and hands the read results
+ * over to the update thread through a lock-free multi-producer stream pipe ({@link MpscStreamPipe}).
+ *
+ * <p>
+ * The dispatcher is an entity-entity updater of the system of its blocking updater; each of its
+ * dispatches is a sync point, e.g. registered in the input stage of a {@link WorldRuntime}:
+ * </p>
+ * <ol>
+ * <li>starts a reader for each new entity of the system, and stops the readers of the removed
+ * entities (by interruption); the failed readers are restarted after an exponential backoff per entity,
+ * and are given up after a limit of consecutive failures (see {@link BlockingDispatcher#setBackoff(long, long)}
+ * and {@link BlockingDispatcher#setMaxFailures(int)}).</li>
+ * <li>drains the results handed off since the last sync point, and applies them to the world
+ * using {@link BlockingUpdater#apply(long, Object, EntityComponentManager, Object)}.</li>
+ * </ol>
+ *
+ * <p>
+ * The readers run on virtual threads when the JVM provides them (see {@link VirtualThreads}), so a process
+ * can block on thousands of devices; otherwise they fall back to platform threads. The hand-off is bounded;
+ * the results offered to a full pipe are dropped and counted, so a stalled world never blocks its readers.
+ * </p>
+ *
+ * <p>
+ * Note: the dispatcher is driven by a single update thread; the readers only read their entity components.
+ * </p>
+ *
+ * @param <I> the type of the game loop input
+ * @param <E> the type of the read results
+ * @author pavl_g
+ */
+public class BlockingDispatcher<I, E> implements SystemEntitiesUpdater<I>, AutoCloseable {
+
+    /**
+     * The default capacity of the hand-off pipe.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The default delay of restarting a failed reader in nanoseconds; doubled on each consecutive failure.
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF_NANOS = 50_000_000L;
+
+    /**
+     * The default maximum delay of restarting a failed reader in nanoseconds.
+     */
+    public static final long DEFAULT_MAX_BACKOFF_NANOS = 10_000_000_000L;
+
+    protected final BlockingUpdater<I, E> updater;
+    protected final ExecutorService executor;
+    protected final boolean ownsExecutor;
+    protected final MpscStreamPipe<Handoff<E>> handoff;
+
+    /**
+     * The running readers by their entities; accessed by the update thread.
+     */
+    protected final HashMap<Long, Reader> readers = new HashMap<>();
+
+    /**
+     * The consecutive failures of the failing entities; accessed by the update thread.
+     */
+    protected final HashMap<Long, Backoff> backoffs = new HashMap<>();
+
+    /**
+     * The components read by the running readers.
+     */
+    protected MemoryMap.EntityComponentMap components;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final StreamPipe.Sink<Handoff<E>> sink = this::apply;
+    private volatile Throwable lastFailure;
+    private volatile boolean closed;
+    private long initialBackoffNanos = DEFAULT_INITIAL_BACKOFF_NANOS;
+    private long maxBackoffNanos = DEFAULT_MAX_BACKOFF_NANOS;
+    private int maxFailures = Integer.MAX_VALUE;
+    private EntityComponentManager<I> syncManager;
+    private I syncInput;
+
+    /**
+     * Instantiates a dispatcher running its readers on a new virtual-thread executor.
+     *
+     * @param updater the blocking updater (not null).
+     */
+    public BlockingDispatcher(BlockingUpdater<I, E> updater) {
+        this(updater, VirtualThreads.newExecutor("articular-blocking"), DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     * Instantiates a dispatcher running its readers on an executor; the executor
+     * is not shut down by this dispatcher.
+     *
+     * @param updater  the blocking updater (not null).
+     * @param executor the executor of the readers (not null).
+     * @param capacity the capacity of the hand-off pipe.
+     */
+    public BlockingDispatcher(BlockingUpdater<I, E> updater, ExecutorService executor, int capacity) {
+        this(updater, executor, capacity, false);
+    }
+
+    private BlockingDispatcher(BlockingUpdater<I, E> updater, ExecutorService executor, int capacity,
+                               boolean ownsExecutor) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        this.updater = updater;
+        this.executor = Objects.requireNonNull(executor);
+        this.handoff = new MpscStreamPipe<>(new Component.Id(0), capacity);
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    @Override
+    public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<I> entityComponentManager, I input) {
+        if (closed) {
+            throw new IllegalStateException("Dispatcher is closed: " + updater.getId().getId());
+        }
+        reconcile(entityMap);
+        syncManager = entityComponentManager;
+        syncInput = input;
+        try {
+            handoff.drain(sink);
+        } finally {
+            syncManager = null;
+            syncInput = null;
+        }
+    }
+
+    @Override
+    public ArticularSystem getId() {
+        return updater.getId();
+    }
+
+    /**
+     * Stops all the readers, and discards the results not yet applied; the owned executor is shut down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        stopAll();
+        handoff.drain(result -> {
+        });
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Retrieves the number of the running readers; call on the update thread.
+     *
+     * @return the number of the readers.
+     */
+    public int getReaders() {
+        return readers.size();
+    }
+
+    /**
+     * Retrieves the number of the results handed off but not yet applied.
+     *
+     * @return an estimate of the pending results.
+     */
+    public int getPending() {
+        return handoff.size();
+    }
+
+    /**
+     * Retrieves the number of the results dropped on a full hand-off pipe.
+     *
+     * @return the number of the dropped results.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Retrieves the number of the failed reads.
+     *
+     * @return the number of the failed reads.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Retrieves the number of the consecutive failed reads of an entity; reset once a restarted
+     * reader of the entity reads successfully. Call on the update thread.
+     *
+     * @param entityId the entity identifier.
+     * @return the number of the consecutive failures, or 0 if the entity is not failing.
+     */
+    public int getFailures(long entityId) {
+        final Backoff backoff = backoffs.get(entityId);
+        return backoff == null ? 0 : backoff.failures;
+    }
+
+    /**
+     * Retrieves the number of the entities without a running reader, as their readers are
+     * waiting for a restart after a failure or have been given up. Call on the update thread.
+     *
+     * @return the number of the suspended entities.
+     */
+    public int getSuspended() {
+        int suspended = 0;
+        for (Long id : backoffs.keySet()) {
+            if (!readers.containsKey(id)) {
+                suspended++;
+            }
+        }
+        return suspended;
+    }
+
+    /**
+     * Adjusts the delay of restarting the failed readers; the delay of an entity starts at the
+     * initial delay and is doubled on each consecutive failure up to the maximum delay.
+     *
+     * @param initialNanos the delay after the first failure in nanoseconds (not negative).
+     * @param maxNanos     the maximum delay in nanoseconds (not less than the initial delay).
+     */
+    public void setBackoff(long initialNanos, long maxNanos) {
+        if (initialNanos < 0 || maxNanos < initialNanos) {
+            throw new IllegalArgumentException("Invalid backoff: " + initialNanos + " to " + maxNanos + " ns");
+        }
+        this.initialBackoffNanos = initialNanos;
+        this.maxBackoffNanos = maxNanos;
+    }
+
+    /**
+     * Adjusts the number of the consecutive failures of an entity after which its reader is given up;
+     * a given-up entity is read again once it is removed and registered again.
+     *
+     * @param maxFailures the limit of the consecutive failures (positive), or
+     *                    {@link Integer#MAX_VALUE} to restart the readers indefinitely (default).
+     */
+    public void setMaxFailures(int maxFailures) {
+        if (maxFailures <= 0) {
+            throw new IllegalArgumentException("Invalid failures limit: " + maxFailures);
+        }
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Retrieves the failure of the last failed read.
+     *
+     * @return the last failure, or null if no read has failed.
+     */
+    public Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Starts and stops the readers to match the entities of the system.
+     *
+     * @param entityMap the components of the system.
+     */
+    protected void reconcile(MemoryMap.EntityComponentMap entityMap) {
+        if (entityMap != components) {
+            stopAll();
+            backoffs.clear();
+            components = entityMap;
+        }
+        final long now = System.nanoTime();
+        for (Iterator<Reader> iterator = readers.values().iterator(); iterator.hasNext(); ) {
+            final Reader reader = iterator.next();
+            if (reader.done || !entityMap.containsKey(reader.key)) {
+                reader.stop();
+                iterator.remove();
+                if (reader.failed) {
+                    backOff(reader, now);
+                }
+            } else if (reader.succeeded && !backoffs.isEmpty()) {
+                // the restarted reader has recovered
+                backoffs.remove(reader.key);
+            }
+        }
+        // forgets the failures of the removed entities
+        backoffs.keySet().removeIf(id -> !entityMap.containsKey(id));
+        if (readers.size() == entityMap.size()) {
+            // the readers are a subset of the entities
+            return;
+        }
+        for (Map.Entry<Number, Component> entry : entityMap.entrySet()) {
+            final Long id = entry.getKey().longValue();
+            final Backoff backoff = backoffs.get(id);
+            if (backoff != null && (backoff.failures >= maxFailures || now - backoff.retryAt < 0)) {
+                // the reader is given up, or waits for its restart
+                continue;
+            }
+            if (!readers.containsKey(id)) {
+                final Reader reader = new Reader(id, entityMap);
+                readers.put(id, reader);
+                reader.future = executor.submit(reader);
+            }
+        }
+    }
+
+    private void backOff(Reader reader, long now) {
+        Backoff backoff = backoffs.get(reader.key);
+        if (backoff == null || reader.succeeded) {
+            backoff = new Backoff();
+            backoffs.put(reader.key, backoff);
+        }
+        backoff.failures++;
+        final int doublings = Math.min(backoff.failures - 1, 62);
+        final long delay = initialBackoffNanos > (maxBackoffNanos >> doublings) ? maxBackoffNanos
+                                                                                : initialBackoffNanos << doublings;
+        backoff.retryAt = now + delay;
+    }
+
+    private void stopAll() {
+        for (Reader reader : readers.values()) {
+            reader.stop();
+        }
+        readers.clear();
+    }
+
+    private void apply(Handoff<E> handoff) {
+        updater.apply(handoff.id(), handoff.result(), syncManager, syncInput);
+    }
+
+    /**
+     * Represents a result handed off by a reader.
+     *
+     * @param id     the entity identifier.
+     * @param result the read result.
+     * @param <E>    the type of the read results.
+     */
+    protected record Handoff<E>(long id, E result) {
+    }
+
+    /**
+     * Keeps the consecutive failures of an entity and the time of restarting its reader.
+     */
+    protected static final class Backoff {
+        private int failures;
+        private long retryAt;
+    }
+
+    /**
+     * Reads an entity in a loop until stopped, its entity is removed or a read fails.
+     */
+    protected final class Reader implements Runnable {
+        private final Long key;
+        private final MemoryMap.EntityComponentMap entityMap;
+        private volatile boolean running = true;
+        private volatile boolean done;
+        private volatile boolean failed;
+        private volatile boolean succeeded;
+        private Future<?> future;
+
+        private Reader(Long key, MemoryMap.EntityComponentMap entityMap) {
+            this.key = key;
+            this.entityMap = entityMap;
+        }
+
+        @Override
+        public void run() {
+            final long id = key;
+            try {
+                while (running) {
+                    final Component component = entityMap.get(key);
+                    if (component == null) {
+                        break;
+                    }
+                    final E result = updater.read(id, component);
+                    succeeded = true;
+                    if (result != null && running && !handoff.offer(new Handoff<>(id, result))) {
+                        dropped.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stopped
+            } catch (Throwable e) {
+                if (running) {
+                    failures.increment();
+                    lastFailure = e;
+                    failed = true;
+                }
+            } finally {
+                done = true;
+            }
+        }
+
+        private void stop() {
+            running = false;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+}
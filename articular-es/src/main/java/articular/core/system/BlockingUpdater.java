@@ -0,0 +1,71 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.core.system;
+
+import articular.core.component.Component;
+import articular.core.system.manager.EntityComponentManager;
+
+/**
+ * Specialized System providing blocking per-entity reads (e.g. a device per entity); each
+ * entity of the system is read in a loop on its own thread, and the results are applied to the
+ * world on the update thread at the next sync point of a {@link BlockingDispatcher}.
+ *
+ * @param <I> the type of the game loop input
+ * @param <E> the type of the read results
+ * @author pavl_g
+ * @see BlockingDispatcher
+ */
+public interface BlockingUpdater<I, E> extends SystemController {
+
+    /**
+     * Dispatched repeatedly on the reader thread of an entity; blocks until a result is available.
+     *
+     * @param id        the entity identifier in long format
+     * @param component the current entity component in this system
+     * @return the read result, or null if nothing is read.
+     * @throws InterruptedException if the reader is interrupted (e.g. the entity is removed).
+     * @throws Exception            if the read fails; the reader is restarted at a later sync point after a backoff.
+     */
+    E read(long id, Component component) throws Exception;
+
+    /**
+     * Dispatched on the update thread at a sync point for each result read since the last sync point,
+     * in the order of their hand-off.
+     *
+     * @param id                     the entity identifier in long format
+     * @param result                 the read result
+     * @param entityComponentManager the associated entity-component manager
+     * @param input                  the input from the game loop
+     */
+    void apply(long id, E result, EntityComponentManager<I> entityComponentManager, I input);
+}
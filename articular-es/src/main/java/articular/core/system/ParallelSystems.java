@@ -0,0 +1,284 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.core.system;
+
+import articular.core.MemoryMap;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.Validator;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Groups independent systems into a single {@link SystemsUpdater} that dispatches them
+ * concurrently; e.g. registered in a stage of a {@link WorldRuntime}, the stage waits for the
+ * whole group before running its next system.
+ *
+ * <p>
+ * The members are dispatched through the update methods of the manager on the executor of the group,
+ * while the dispatching thread runs the first member and then claims the members not yet started by
+ * the executor, so the group completes even on a saturated executor (or when it is dispatched from
+ * a thread of the same executor). The first failure of a member is rethrown after the whole group
+ * completes. The dispatch of a group allocates no objects besides those of the executor.
+ * </p>
+ *
+ * <p>
+ * Note: the members must be independent; a member must not write the components of the systems
+ * read or written by the other members, and must not register or unregister systems.
+ * </p>
+ *
+ * @param <I> the type of the game loop input.
+ * @author pavl_g
+ */
+public class ParallelSystems<I> implements SystemsUpdater<I> {
+
+    /**
+     * The identifier of this group.
+     */
+    protected final ArticularSystem system;
+
+    /**
+     * The executor of the members.
+     */
+    protected final Executor executor;
+
+    /**
+     * The members of this group; the array is replaced on registration.
+     */
+    protected volatile Member<I>[] members;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile Thread waiter;
+
+    /**
+     * Instantiates an empty group dispatching its members on the common fork-join pool.
+     *
+     * @param system the identifier of this group (not null).
+     */
+    public ParallelSystems(ArticularSystem system) {
+        this(system, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates an empty group dispatching its members on an executor.
+     *
+     * @param system   the identifier of this group (not null).
+     * @param executor the executor of the members (not null).
+     */
+    @SuppressWarnings("unchecked")
+    public ParallelSystems(ArticularSystem system, Executor executor) {
+        this.system = Objects.requireNonNull(system);
+        this.executor = Objects.requireNonNull(executor);
+        this.members = (Member<I>[]) new Member<?>[0];
+    }
+
+    /**
+     * Adds a system-system updater to this group.
+     *
+     * @param updater the updater (not null).
+     * @return this group for chaining.
+     */
+    public ParallelSystems<I> addSystems(SystemsUpdater<I> updater) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        return add(new Member<>(this) {
+            @Override
+            protected void dispatch(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateSystems(updater, input);
+            }
+        });
+    }
+
+    /**
+     * Adds an entity-entity updater of a single system to this group.
+     *
+     * @param updater the updater (not null).
+     * @return this group for chaining.
+     */
+    public ParallelSystems<I> addSystemComponents(SystemEntitiesUpdater<I> updater) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        return add(new Member<>(this) {
+            @Override
+            protected void dispatch(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateSystemComponents(updater, input);
+            }
+        });
+    }
+
+    /**
+     * Adds a per-entity updater of a single system to this group.
+     *
+     * @param updater the updater (not null).
+     * @return this group for chaining.
+     */
+    public ParallelSystems<I> addEntities(EntityUpdater<I> updater) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        return add(new Member<>(this) {
+            @Override
+            protected void dispatch(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateEntities(updater, input);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the number of the members of this group.
+     *
+     * @return the number of the members.
+     */
+    public int size() {
+        return members.length;
+    }
+
+    @Override
+    public void update(MemoryMap.SystemMap systemMap, EntityComponentManager<I> entityComponentManager, I input) {
+        final Member<I>[] current = members;
+        if (current.length == 0) {
+            return;
+        }
+        failure.set(null);
+        waiter = Thread.currentThread();
+        pending.set(current.length);
+        for (Member<I> member : current) {
+            member.prepare(entityComponentManager, input);
+        }
+        for (int i = 1; i < current.length; i++) {
+            try {
+                executor.execute(current[i]);
+            } catch (RejectedExecutionException e) {
+                // claimed and run by the dispatching thread below
+                break;
+            }
+        }
+        // runs the members not yet started by the executor
+        for (Member<I> member : current) {
+            member.run();
+        }
+        while (pending.get() != 0) {
+            LockSupport.park(this);
+        }
+        waiter = null;
+        final Throwable throwable = failure.getAndSet(null);
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable != null) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    @Override
+    public ArticularSystem getId() {
+        return system;
+    }
+
+    /**
+     * Appends a member to this group.
+     *
+     * @param member the member to append.
+     * @return this group for chaining.
+     */
+    protected synchronized ParallelSystems<I> add(Member<I> member) {
+        final Member<I>[] current = members;
+        final Member<I>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = member;
+        members = updated;
+        return this;
+    }
+
+    private void complete() {
+        if (pending.decrementAndGet() == 0) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * Represents a member of a group; a task claimed once per dispatch of the group,
+     * either by the executor or by the dispatching thread.
+     *
+     * @param <I> the type of the game loop input.
+     */
+    protected abstract static class Member<I> implements Runnable {
+        private final ParallelSystems<I> group;
+        private final AtomicBoolean claimed = new AtomicBoolean(true);
+        private EntityComponentManager<I> entityComponentManager;
+        private I input;
+
+        /**
+         * Instantiates a member of a group.
+         *
+         * @param group the owner group.
+         */
+        protected Member(ParallelSystems<I> group) {
+            this.group = group;
+        }
+
+        @Override
+        public final void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                dispatch(entityComponentManager, input);
+            } catch (Throwable e) {
+                group.failure.compareAndSet(null, e);
+            } finally {
+                entityComponentManager = null;
+                input = null;
+                group.complete();
+            }
+        }
+
+        /**
+         * Dispatches the updater of this member.
+         *
+         * @param entityComponentManager the dispatching manager.
+         * @param input                  the input from the game loop.
+         */
+        protected abstract void dispatch(EntityComponentManager<I> entityComponentManager, I input);
+
+        private void prepare(EntityComponentManager<I> entityComponentManager, I input) {
+            this.entityComponentManager = entityComponentManager;
+            this.input = input;
+            // publishes the arguments to the executor threads
+            claimed.set(false);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.core.system;
+
+/**
+ * Decides whether a system registered in a {@link WorldRuntime} runs on a run of its stage;
+ * so the systems that need not run on every tick amortize their cost over several ticks.
+ *
+ * <p>
+ * The policies are evaluated against the clock of the runtime rather than the wall-clock;
+ * a fixed stage passes the tick number and the simulated time of the tick, and a per-frame
+ * stage passes the frame number and the accumulated frame time, so the schedules are
+ * reproducible across replays of the same ticks.
+ * </p>
+ *
+ * @author pavl_g
+ * @see WorldRuntime
+ */
+@FunctionalInterface
+public interface SchedulingPolicy {
+
+    /**
+     * Tests whether the system is due on a run of its stage; called once per run of the stage.
+     *
+     * @param run       the run number of the stage (the tick or the frame number).
+     * @param timeNanos the runtime clock of the run in nanoseconds.
+     * @return true to dispatch the system on this run, false to skip it.
+     */
+    boolean isDue(long run, long timeNanos);
+
+    /**
+     * Retrieves a policy that runs a system on every run of its stage.
+     *
+     * @return a stateless policy.
+     */
+    static SchedulingPolicy always() {
+        return (run, timeNanos) -> true;
+    }
+
+    /**
+     * Retrieves a policy that runs a system once every number of runs of its stage
+     * (e.g. every 4 ticks); the phase is aligned to the run numbers.
+     *
+     * @param interval the number of runs between two dispatches (positive).
+     * @return a stateless policy.
+     * @throws IllegalArgumentException if the interval is not positive.
+     */
+    static SchedulingPolicy everyRuns(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        return (run, timeNanos) -> run % interval == 0;
+    }
+
+    /**
+     * Retrieves a policy that runs a system at a fixed rate of the runtime clock; the rate
+     * is bounded by the rate of its stage.
+     *
+     * @param hertz the number of dispatches per second (positive).
+     * @return a new stateful policy; create a policy per registered system.
+     * @throws IllegalArgumentException if the rate is not positive.
+     */
+    static SchedulingPolicy atRate(double hertz) {
+        return new Rate(hertz);
+    }
+
+    /**
+     * A fixed-rate policy; the dispatches are due once a period of the runtime clock
+     * elapses since the last due, and the periods missed (e.g. by a slower stage)
+     * are skipped rather than run in a burst.
+     */
+    final class Rate implements SchedulingPolicy {
+        private final long periodNanos;
+        private long nextNanos = Long.MIN_VALUE;
+
+        /**
+         * Instantiates a fixed-rate policy.
+         *
+         * @param hertz the number of dispatches per second (positive).
+         * @throws IllegalArgumentException if the rate is not positive.
+         */
+        public Rate(double hertz) {
+            if (!(hertz > 0)) {
+                throw new IllegalArgumentException("Rate must be positive: " + hertz);
+            }
+            this.periodNanos = Math.max(1, Math.round(1_000_000_000d / hertz));
+        }
+
+        @Override
+        public boolean isDue(long run, long timeNanos) {
+            if (nextNanos != Long.MIN_VALUE && timeNanos < nextNanos) {
+                return false;
+            }
+            nextNanos = nextNanos == Long.MIN_VALUE || timeNanos - nextNanos >= periodNanos
+                        ? timeNanos + periodNanos : nextNanos + periodNanos;
+            return true;
+        }
+
+        /**
+         * Retrieves the period of this policy.
+         *
+         * @return the period between two dispatches in nanoseconds.
+         */
+        public long getPeriodNanos() {
+            return periodNanos;
+        }
+    }
+}
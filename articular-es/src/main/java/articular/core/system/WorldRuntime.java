@@ -0,0 +1,726 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.core.system;
+
+import articular.core.Entity;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.manager.EntityCursor;
+import articular.core.system.metrics.LatencyHistogram;
+import articular.util.Validator;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Objects;
+
+/**
+ * Drives an {@link EntityComponentManager} through an ordered pipeline of {@link Stage}s
+ * in a fixed-timestep loop, so the applications register their systems once instead of
+ * hand-sequencing the update calls of the manager each frame.
+ *
+ * <p>
+ * Each frame passed to {@link WorldRuntime#update(double, Object)} adds its duration to an
+ * accumulator, then the runtime:
+ * </p>
+ * <ol>
+ * <li>runs the {@link Stage#INPUT} systems once.</li>
+ * <li>runs a fixed tick for each whole timestep in the accumulator; a tick runs the {@link Stage#SIMULATE}
+ * then the {@link Stage#POST_PROCESS} systems, then ends the tick of the manager
+ * ({@link EntityComponentManager#endTick()}).</li>
+ * <li>runs the {@link Stage#OUTPUT} systems once; these can interpolate between the last two ticks
+ * using {@link WorldRuntime#getAlpha()}.</li>
+ * </ol>
+ *
+ * <p>
+ * The per-frame stages receive the input of the frame, while the fixed stages receive the input of the tick
+ * passed to {@link WorldRuntime#update(double, Object, Object)}; e.g. a frame passes its time per frame to the
+ * per-frame stages and the timestep to the fixed stages, since each tick advances the simulation by a timestep
+ * whatever the duration of the frame. The overloads without a tick input pass the frame input to all the stages.
+ * </p>
+ *
+ * <p>
+ * A frame runs at most {@link WorldRuntime#getMaxTicksPerFrame()} ticks, and its duration is clamped
+ * to {@link WorldRuntime#getMaxFrameSeconds()}; the time left over after the catch-up limit is dropped,
+ * so a stalled frame slows the simulation down rather than spiraling into longer frames.
+ * </p>
+ *
+ * <p>
+ * The systems are dispatched through the update methods of the manager, in their stage in the order of
+ * their registration, so the attached instrumentation and flight recorder events apply; the latency of
+ * each stage run is recorded in a histogram of the stage. The dispatch of a frame allocates no objects.
+ * </p>
+ *
+ * <p>
+ * A system can be registered with a {@link SchedulingPolicy} to skip some runs of its stage
+ * (e.g. every N ticks or at a fixed rate), and an {@link EntityUpdater} can be registered
+ * as an incremental system that visits its entities within a time budget per run, resuming
+ * its pass on the next run; so the expensive systems amortize their cost over several ticks.
+ * </p>
+ *
+ * <p>
+ * Note: the runtime is not thread-safe; the frames should be updated from a single thread (or their halves
+ * handed over between threads with a happens-before edge, e.g. a joined future), while the
+ * systems can be added or removed from any thread and take effect on the next stage run.
+ * </p>
+ *
+ * @param <I> the type of the game loop input.
+ * @author pavl_g
+ */
+public class WorldRuntime<I> {
+
+    /**
+     * The stages of the pipeline in their running order.
+     */
+    public enum Stage {
+        /**
+         * Runs once per frame before the ticks; e.g. polls the devices.
+         */
+        INPUT(false),
+        /**
+         * Runs once per fixed tick; advances the simulation by a timestep.
+         */
+        SIMULATE(true),
+        /**
+         * Runs once per fixed tick after the simulation; e.g. resolves its constraints.
+         */
+        POST_PROCESS(true),
+        /**
+         * Runs once per frame after the ticks; e.g. marshals the state to a renderer.
+         */
+        OUTPUT(false);
+
+        private final boolean fixed;
+
+        Stage(boolean fixed) {
+            this.fixed = fixed;
+        }
+
+        /**
+         * Tests whether this stage runs once per fixed tick, rather than once per frame.
+         *
+         * @return true if this stage runs in the fixed ticks, false otherwise.
+         */
+        public boolean isFixed() {
+            return fixed;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * The driven ecs-manager.
+     */
+    protected final EntityComponentManager<I> entityComponentManager;
+
+    /**
+     * The systems of each stage in their running order, indexed by the stage ordinal;
+     * the arrays are replaced on registration.
+     */
+    protected volatile Task<I>[][] tasks;
+
+    /**
+     * The latencies of the stage runs in nanoseconds.
+     */
+    protected final EnumMap<Stage, LatencyHistogram> latencies = new EnumMap<>(Stage.class);
+
+    /**
+     * The fixed duration of a tick in nanoseconds.
+     */
+    protected final long timestepNanos;
+
+    /**
+     * The maximum number of ticks run by a frame.
+     */
+    protected int maxTicksPerFrame = 5;
+
+    /**
+     * The maximum duration of a frame in nanoseconds.
+     */
+    protected long maxFrameNanos = NANOS_PER_SECOND / 4;
+
+    /**
+     * The frame time not yet consumed by the ticks in nanoseconds.
+     */
+    protected long accumulatorNanos;
+
+    /**
+     * The sum of the clamped frame durations in nanoseconds; the clock of the per-frame stages.
+     */
+    protected long clockNanos;
+
+    /**
+     * The number of ticks run by this runtime.
+     */
+    protected long ticks;
+
+    /**
+     * The number of frames run by this runtime.
+     */
+    protected long frames;
+
+    /**
+     * The number of ticks dropped by the catch-up limits.
+     */
+    protected long droppedTicks;
+
+    /**
+     * Instantiates a runtime that drives an ecs-manager with a fixed timestep.
+     *
+     * @param entityComponentManager the ecs-manager to drive (not null).
+     * @param timestepSeconds        the fixed duration of a tick in seconds (positive).
+     * @throws IllegalArgumentException if the timestep is not positive.
+     */
+    @SuppressWarnings("unchecked")
+    public WorldRuntime(EntityComponentManager<I> entityComponentManager, double timestepSeconds) {
+        this.entityComponentManager = Objects.requireNonNull(entityComponentManager);
+        this.timestepNanos = toNanos(timestepSeconds);
+        if (timestepNanos <= 0) {
+            throw new IllegalArgumentException("Timestep must be positive: " + timestepSeconds);
+        }
+        this.tasks = (Task<I>[][]) new Task<?>[STAGES.length][0];
+        for (Stage stage : STAGES) {
+            latencies.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Adds a system-system updater to the end of a stage.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateSystems(SystemsUpdater, Object)
+     */
+    public WorldRuntime<I> addSystems(Stage stage, SystemsUpdater<I> updater) {
+        return addSystems(stage, updater, SchedulingPolicy.always());
+    }
+
+    /**
+     * Adds a system-system updater to the end of a stage with a scheduling policy.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @param policy  the policy deciding the runs of the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateSystems(SystemsUpdater, Object)
+     */
+    public WorldRuntime<I> addSystems(Stage stage, SystemsUpdater<I> updater, SchedulingPolicy policy) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        return add(stage, new Task<>(updater, policy) {
+            @Override
+            protected void run(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateSystems(updater, input);
+            }
+        });
+    }
+
+    /**
+     * Adds an entity-entity updater of a single system to the end of a stage.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateSystemComponents(SystemEntitiesUpdater, Object)
+     */
+    public WorldRuntime<I> addSystemComponents(Stage stage, SystemEntitiesUpdater<I> updater) {
+        return addSystemComponents(stage, updater, SchedulingPolicy.always());
+    }
+
+    /**
+     * Adds an entity-entity updater of a single system to the end of a stage with a scheduling policy.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @param policy  the policy deciding the runs of the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateSystemComponents(SystemEntitiesUpdater, Object)
+     */
+    public WorldRuntime<I> addSystemComponents(Stage stage, SystemEntitiesUpdater<I> updater, SchedulingPolicy policy) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        return add(stage, new Task<>(updater, policy) {
+            @Override
+            protected void run(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateSystemComponents(updater, input);
+            }
+        });
+    }
+
+    /**
+     * Adds a per-entity updater of a single system to the end of a stage.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateEntities(EntityUpdater, Object)
+     */
+    public WorldRuntime<I> addEntities(Stage stage, EntityUpdater<I> updater) {
+        return addEntities(stage, updater, SchedulingPolicy.always());
+    }
+
+    /**
+     * Adds a per-entity updater of a single system to the end of a stage with a scheduling policy.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @param policy  the policy deciding the runs of the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateEntities(EntityUpdater, Object)
+     */
+    public WorldRuntime<I> addEntities(Stage stage, EntityUpdater<I> updater, SchedulingPolicy policy) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        return add(stage, new Task<>(updater, policy) {
+            @Override
+            protected void run(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateEntities(updater, input);
+            }
+        });
+    }
+
+    /**
+     * Adds a per-entity updater of a single system to the end of a stage as an incremental system;
+     * each run visits the entities of the system within a time budget, resuming the pass of the previous
+     * run, so a pass over a large system is spread over several runs.
+     *
+     * @param stage         the stage to run the updater in (not null).
+     * @param updater       the updater (not null).
+     * @param budgetSeconds the time budget of a run in seconds; at least one entity is visited per run.
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateEntities(EntityUpdater, EntityCursor, long, Object)
+     */
+    public WorldRuntime<I> addIncremental(Stage stage, EntityUpdater<I> updater, double budgetSeconds) {
+        return addIncremental(stage, updater, budgetSeconds, SchedulingPolicy.always());
+    }
+
+    /**
+     * Adds a per-entity updater of a single system to the end of a stage as an incremental system
+     * with a scheduling policy.
+     *
+     * @param stage         the stage to run the updater in (not null).
+     * @param updater       the updater (not null).
+     * @param budgetSeconds the time budget of a run in seconds; at least one entity is visited per run.
+     * @param policy        the policy deciding the runs of the updater (not null).
+     * @return this runtime for chaining.
+     * @see WorldRuntime#addIncremental(Stage, EntityUpdater, double)
+     */
+    public WorldRuntime<I> addIncremental(Stage stage, EntityUpdater<I> updater, double budgetSeconds,
+                                          SchedulingPolicy policy) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        final long budgetNanos = toNanos(budgetSeconds);
+        final EntityCursor cursor = new EntityCursor();
+        return add(stage, new Task<>(updater, policy) {
+            @Override
+            protected void run(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateEntities(updater, cursor, budgetNanos, input);
+            }
+        });
+    }
+
+    /**
+     * Adds a component-component updater of an entity to the end of a stage.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @param entity  the entity to update its components (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateEntityComponents(ComponentUpdater, Entity, Object)
+     */
+    public WorldRuntime<I> addEntityComponents(Stage stage, ComponentUpdater<I> updater, Entity entity) {
+        return addEntityComponents(stage, updater, entity, SchedulingPolicy.always());
+    }
+
+    /**
+     * Adds a component-component updater of an entity to the end of a stage with a scheduling policy.
+     *
+     * @param stage   the stage to run the updater in (not null).
+     * @param updater the updater (not null).
+     * @param entity  the entity to update its components (not null).
+     * @param policy  the policy deciding the runs of the updater (not null).
+     * @return this runtime for chaining.
+     * @see EntityComponentManager#updateEntityComponents(ComponentUpdater, Entity, Object)
+     */
+    public WorldRuntime<I> addEntityComponents(Stage stage, ComponentUpdater<I> updater, Entity entity,
+                                               SchedulingPolicy policy) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        Validator.validate(entity, Validator.Message.INVALID_ENTITY);
+        return add(stage, new Task<>(updater, policy) {
+            @Override
+            protected void run(EntityComponentManager<I> entityComponentManager, I input) {
+                entityComponentManager.updateEntityComponents(updater, entity, input);
+            }
+        });
+    }
+
+    /**
+     * Removes all the registrations of an updater from the stages.
+     *
+     * @param updater the updater to remove.
+     * @return true if the updater has been registered, false otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean remove(SystemController updater) {
+        final Task<I>[][] current = tasks;
+        final Task<I>[][] pruned = (Task<I>[][]) new Task<?>[current.length][];
+        boolean removed = false;
+        for (int stage = 0; stage < current.length; stage++) {
+            int count = 0;
+            pruned[stage] = Arrays.copyOf(current[stage], current[stage].length);
+            for (Task<I> task : current[stage]) {
+                if (task.controller != updater) {
+                    pruned[stage][count++] = task;
+                }
+            }
+            removed |= count != current[stage].length;
+            pruned[stage] = Arrays.copyOf(pruned[stage], count);
+        }
+        tasks = pruned;
+        return removed;
+    }
+
+    /**
+     * Updates this runtime by a frame; runs the per-frame stages once and the fixed
+     * stages for each whole timestep accumulated, up to the catch-up limits.
+     *
+     * <p>
+     * Note: all the stages receive the frame input, so the fixed stages should not advance
+     * the simulation by it (e.g. a time per frame); see {@link WorldRuntime#update(double, Object, Object)}.
+     * </p>
+     *
+     * @param frameSeconds the duration of the frame in seconds (e.g. the time per frame of the engine).
+     * @param input        the input from the game loop passed to the systems.
+     * @return the number of the ticks run by this frame.
+     * @throws IllegalArgumentException if the frame duration is negative.
+     */
+    public int update(double frameSeconds, I input) {
+        return update(frameSeconds, input, input);
+    }
+
+    /**
+     * Updates this runtime by a frame; runs the per-frame stages once with the frame input, and the fixed
+     * stages with the tick input for each whole timestep accumulated, up to the catch-up limits.
+     *
+     * @param frameSeconds the duration of the frame in seconds (e.g. the time per frame of the engine).
+     * @param input        the input from the game loop passed to the per-frame systems.
+     * @param tickInput    the input passed to the fixed systems on each tick (e.g. the timestep).
+     * @return the number of the ticks run by this frame.
+     * @throws IllegalArgumentException if the frame duration is negative.
+     */
+    public int update(double frameSeconds, I input, I tickInput) {
+        final int frameTicks = advance(frameSeconds, input, tickInput);
+        present(input);
+        return frameTicks;
+    }
+
+    /**
+     * Runs the first half of a frame; the {@link Stage#INPUT} systems and the fixed ticks
+     * accumulated, up to the catch-up limits. The frame is completed by {@link WorldRuntime#present(Object)};
+     * so an engine can advance the world off its render thread and present it on the render thread.
+     *
+     * @param frameSeconds the duration of the frame in seconds (e.g. the time per frame of the engine).
+     * @param input        the input from the game loop passed to the systems.
+     * @return the number of the ticks run by this frame.
+     * @throws IllegalArgumentException if the frame duration is negative.
+     */
+    public int advance(double frameSeconds, I input) {
+        return advance(frameSeconds, input, input);
+    }
+
+    /**
+     * Runs the first half of a frame; the {@link Stage#INPUT} systems with the frame input and the fixed
+     * ticks accumulated with the tick input, up to the catch-up limits.
+     *
+     * @param frameSeconds the duration of the frame in seconds (e.g. the time per frame of the engine).
+     * @param input        the input from the game loop passed to the per-frame systems.
+     * @param tickInput    the input passed to the fixed systems on each tick (e.g. the timestep).
+     * @return the number of the ticks run by this frame.
+     * @throws IllegalArgumentException if the frame duration is negative.
+     * @see WorldRuntime#advance(double, Object)
+     */
+    public int advance(double frameSeconds, I input, I tickInput) {
+        final long frameNanos = toNanos(frameSeconds);
+        if (frameNanos < 0) {
+            throw new IllegalArgumentException("Frame duration must not be negative: " + frameSeconds);
+        }
+        final Task<I>[][] stages = tasks;
+        final long clampedNanos = Math.min(frameNanos, maxFrameNanos);
+        clockNanos += clampedNanos;
+        run(Stage.INPUT, stages, input);
+        accumulatorNanos += clampedNanos;
+        int frameTicks = 0;
+        while (accumulatorNanos >= timestepNanos && frameTicks < maxTicksPerFrame) {
+            accumulatorNanos -= timestepNanos;
+            tick(stages, tickInput);
+            frameTicks++;
+        }
+        if (accumulatorNanos >= timestepNanos) {
+            // drops the time that cannot be caught up, keeping the phase of the last tick
+            droppedTicks += accumulatorNanos / timestepNanos;
+            accumulatorNanos %= timestepNanos;
+        }
+        return frameTicks;
+    }
+
+    /**
+     * Runs the second half of a frame; the {@link Stage#OUTPUT} systems, then completes the frame.
+     *
+     * @param input the input from the game loop passed to the systems.
+     * @see WorldRuntime#advance(double, Object)
+     */
+    public void present(I input) {
+        run(Stage.OUTPUT, tasks, input);
+        frames++;
+    }
+
+    /**
+     * Runs a single fixed tick regardless of the accumulated time; the per-frame
+     * stages are not run.
+     *
+     * @param input the input passed to the fixed systems (e.g. the timestep).
+     */
+    public void tick(I input) {
+        tick(tasks, input);
+    }
+
+    /**
+     * Retrieves the driven ecs-manager.
+     *
+     * @return the ecs-manager object.
+     */
+    public EntityComponentManager<I> getEntityComponentManager() {
+        return entityComponentManager;
+    }
+
+    /**
+     * Retrieves the latency histogram of the runs of a stage in nanoseconds.
+     *
+     * @param stage the stage (not null).
+     * @return the latency histogram of the stage.
+     */
+    public LatencyHistogram getLatency(Stage stage) {
+        return latencies.get(Objects.requireNonNull(stage));
+    }
+
+    /**
+     * Retrieves the fixed duration of a tick in seconds.
+     *
+     * @return the timestep in seconds.
+     */
+    public double getTimestep() {
+        return (double) timestepNanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Retrieves the fraction of a timestep accumulated but not yet run; the output
+     * systems can blend the states of the last two ticks by this fraction.
+     *
+     * @return the interpolation factor in [0, 1).
+     */
+    public double getAlpha() {
+        return (double) accumulatorNanos / timestepNanos;
+    }
+
+    /**
+     * Retrieves the maximum number of ticks run by a frame.
+     *
+     * @return the catch-up limit of a frame.
+     */
+    public int getMaxTicksPerFrame() {
+        return maxTicksPerFrame;
+    }
+
+    /**
+     * Adjusts the maximum number of ticks run by a frame; the accumulated time
+     * beyond this limit is dropped.
+     *
+     * @param maxTicksPerFrame the catch-up limit of a frame (positive).
+     * @return this runtime for chaining.
+     * @throws IllegalArgumentException if the limit is not positive.
+     */
+    public WorldRuntime<I> setMaxTicksPerFrame(int maxTicksPerFrame) {
+        if (maxTicksPerFrame <= 0) {
+            throw new IllegalArgumentException("Ticks per frame must be positive: " + maxTicksPerFrame);
+        }
+        this.maxTicksPerFrame = maxTicksPerFrame;
+        return this;
+    }
+
+    /**
+     * Retrieves the maximum duration of a frame in seconds.
+     *
+     * @return the clamp of the frame durations.
+     */
+    public double getMaxFrameSeconds() {
+        return (double) maxFrameNanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Adjusts the maximum duration of a frame; the longer frames (e.g. after a debugger
+     * pause or a loading screen) are clamped to this duration. Defaults to 0.25 seconds.
+     *
+     * @param maxFrameSeconds the clamp of the frame durations in seconds (positive).
+     * @return this runtime for chaining.
+     * @throws IllegalArgumentException if the duration is not positive.
+     */
+    public WorldRuntime<I> setMaxFrameSeconds(double maxFrameSeconds) {
+        final long nanos = toNanos(maxFrameSeconds);
+        if (nanos <= 0) {
+            throw new IllegalArgumentException("Frame duration must be positive: " + maxFrameSeconds);
+        }
+        this.maxFrameNanos = nanos;
+        return this;
+    }
+
+    /**
+     * Retrieves the number of ticks run by this runtime.
+     *
+     * @return the current tick number.
+     */
+    public long getTick() {
+        return ticks;
+    }
+
+    /**
+     * Retrieves the number of frames run by this runtime.
+     *
+     * @return the current frame number.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Retrieves the number of ticks dropped by the catch-up limits.
+     *
+     * @return the number of the dropped ticks.
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Runs a fixed tick; the fixed stages in their order, then ends the tick of the manager.
+     *
+     * @param stages the systems of each stage.
+     * @param input  the input from the game loop.
+     */
+    protected void tick(Task<I>[][] stages, I input) {
+        for (Stage stage : STAGES) {
+            if (stage.isFixed()) {
+                run(stage, stages, input);
+            }
+        }
+        entityComponentManager.endTick();
+        ticks++;
+    }
+
+    /**
+     * Runs the due systems of a stage in their order and records the stage latency.
+     *
+     * @param stage  the stage to run.
+     * @param stages the systems of each stage.
+     * @param input  the input from the game loop.
+     */
+    protected void run(Stage stage, Task<I>[][] stages, I input) {
+        final Task<I>[] stageTasks = stages[stage.ordinal()];
+        if (stageTasks.length == 0) {
+            return;
+        }
+        // the fixed stages are scheduled by the simulated time of the tick
+        final long run = stage.isFixed() ? ticks : frames;
+        final long timeNanos = stage.isFixed() ? ticks * timestepNanos : clockNanos;
+        final long start = System.nanoTime();
+        for (Task<I> task : stageTasks) {
+            if (task.policy.isDue(run, timeNanos)) {
+                task.run(entityComponentManager, input);
+            }
+        }
+        latencies.get(stage).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Appends a task to a stage.
+     *
+     * @param stage the stage (not null).
+     * @param task  the task to append.
+     * @return this runtime for chaining.
+     */
+    protected synchronized WorldRuntime<I> add(Stage stage, Task<I> task) {
+        final Task<I>[][] current = tasks;
+        final Task<I>[][] updated = current.clone();
+        final Task<I>[] stageTasks = current[Objects.requireNonNull(stage).ordinal()];
+        updated[stage.ordinal()] = Arrays.copyOf(stageTasks, stageTasks.length + 1);
+        updated[stage.ordinal()][stageTasks.length] = task;
+        tasks = updated;
+        return this;
+    }
+
+    private static long toNanos(double seconds) {
+        return Math.round(seconds * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Represents a registered updater; dispatches it through the matching
+     * update method of the manager.
+     *
+     * @param <I> the type of the game loop input.
+     */
+    protected abstract static class Task<I> {
+
+        /**
+         * The registered updater.
+         */
+        protected final SystemController controller;
+
+        /**
+         * The policy deciding the runs of the updater.
+         */
+        protected final SchedulingPolicy policy;
+
+        /**
+         * Instantiates a task of an updater.
+         *
+         * @param controller the registered updater.
+         * @param policy     the policy deciding the runs of the updater (not null).
+         */
+        protected Task(SystemController controller, SchedulingPolicy policy) {
+            this.controller = controller;
+            this.policy = Objects.requireNonNull(policy);
+        }
+
+        /**
+         * Dispatches the updater.
+         *
+         * @param entityComponentManager the driven ecs-manager.
+         * @param input                  the input from the game loop.
+         */
+        protected abstract void run(EntityComponentManager<I> entityComponentManager, I input);
+    }
+}
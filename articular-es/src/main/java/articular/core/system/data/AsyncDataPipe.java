@@ -0,0 +1,224 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data;
+
+import articular.core.component.Component;
+import articular.util.Validator;
+import articular.util.VirtualThreads;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides an asynchronous data-pipe wrapping a slow user algorithm (e.g. model inference,
+ * file-backed tables); the algorithm is executed on an executor, and the system
+ * retrieving the data receives a {@link CompletableFuture} instead of blocking its update.
+ *
+ * <p>
+ * The number of in-flight evaluations is bounded; when the bound is reached, the evaluation
+ * is rejected immediately by a future failed with a {@link RejectedExecutionException}, so a
+ * slow pipe can neither stall nor flood the update loop. The results can also be streamed
+ * to subscribers through {@link AsyncDataPipe#getPublisher()}, where each subscriber
+ * buffers a bounded number of results, and results are dropped for lagging subscribers.
+ * </p>
+ *
+ * <p>
+ * The default executor runs the evaluations on virtual threads when available
+ * (see {@link VirtualThreads}).
+ * </p>
+ *
+ * @param <T> the type of the algorithm return value
+ * @param <A> the type of the argument value
+ * @author pavl_g
+ */
+public class AsyncDataPipe<T, A> implements DataPipe<CompletableFuture<T>, A>, AutoCloseable {
+
+    /**
+     * The default maximum number of in-flight evaluations.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    protected final DataPipe<T, A> dataPipe;
+    protected final Executor executor;
+    protected final int maxInFlight;
+    protected final AtomicInteger inFlight = new AtomicInteger();
+    protected volatile SubmissionPublisher<T> publisher;
+
+    /**
+     * Instantiates an asynchronous data-pipe using the default executor
+     * and the default in-flight bound.
+     *
+     * @param dataPipe the user algorithm to wrap (not null).
+     */
+    public AsyncDataPipe(DataPipe<T, A> dataPipe) {
+        this(dataPipe, VirtualThreads.getDefaultExecutor(), DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Instantiates an asynchronous data-pipe.
+     *
+     * @param dataPipe    the user algorithm to wrap (not null).
+     * @param executor    the executor to evaluate the algorithm on (not null).
+     * @param maxInFlight the maximum number of in-flight evaluations (positive).
+     */
+    public AsyncDataPipe(DataPipe<T, A> dataPipe, Executor executor, int maxInFlight) {
+        Validator.validate(dataPipe, Validator.Message.INVALID_DATA_PIPE);
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("In-flight bound must be positive: " + maxInFlight);
+        }
+        this.dataPipe = dataPipe;
+        this.executor = Objects.requireNonNull(executor);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Submits an evaluation of the user algorithm without blocking.
+     *
+     * @param argument a parameter prerequisite (nullable)
+     * @return a future of the user algorithm value, or a failed future if the
+     * in-flight bound is reached.
+     */
+    @Override
+    public CompletableFuture<T> getData(A argument) {
+        if (!acquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("In-flight bound is reached: " + maxInFlight));
+        }
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> evaluate(argument, future));
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Retrieves a publisher of the successful results of this pipe; subscribers
+     * control the flow using {@link Flow.Subscription#request(long)}.
+     *
+     * @return a publisher of the algorithm results (not null).
+     */
+    public Flow.Publisher<T> getPublisher() {
+        SubmissionPublisher<T> publisher = this.publisher;
+        if (publisher == null) {
+            synchronized (this) {
+                if ((publisher = this.publisher) == null) {
+                    this.publisher = publisher = new SubmissionPublisher<>(executor, maxInFlight);
+                }
+            }
+        }
+        return publisher;
+    }
+
+    /**
+     * Retrieves the number of the in-flight evaluations.
+     *
+     * @return the number of the evaluations in progress.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Retrieves the maximum number of the in-flight evaluations.
+     *
+     * @return the in-flight bound.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public Component.Id getId() {
+        return dataPipe.getId();
+    }
+
+    /**
+     * An async pipe holds its in-flight evaluations and executor, so it is not shared by the forked worlds.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean isShareable() {
+        return false;
+    }
+
+    /**
+     * Completes the subscribers of the publisher; the executor is not
+     * owned by this pipe and is not shut down.
+     */
+    @Override
+    public void close() {
+        final SubmissionPublisher<T> publisher = this.publisher;
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    private boolean acquire() {
+        int current;
+        do {
+            if ((current = inFlight.get()) >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void evaluate(A argument, CompletableFuture<T> future) {
+        final T result;
+        try {
+            result = dataPipe.getData(argument);
+        } catch (Throwable e) {
+            inFlight.decrementAndGet();
+            future.completeExceptionally(e);
+            return;
+        }
+        inFlight.decrementAndGet();
+        final SubmissionPublisher<T> publisher = this.publisher;
+        if (publisher != null && result != null) {
+            try {
+                // drop the result for the lagging subscribers instead of blocking
+                publisher.offer(result, (subscriber, item) -> false);
+            } catch (IllegalStateException ignored) {
+                // the publisher is closed
+            }
+        }
+        future.complete(result);
+    }
+}
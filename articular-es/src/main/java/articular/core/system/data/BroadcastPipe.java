@@ -0,0 +1,255 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data;
+
+import articular.core.component.Component;
+import articular.util.Validator;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Provides a fan-out data-pipe; a single producer system publishes a value
+ * (e.g. once per tick) and any number of consumer systems read it by reference,
+ * without copies and without unregistering the pipe.
+ *
+ * <p>
+ * Each consumer holds its own {@link BroadcastPipe.Cursor} that tracks the last
+ * value it has read; {@link BroadcastPipe#getData(Cursor)} retrieves the latest value,
+ * while {@link BroadcastPipe#poll(Cursor)} walks the retained history in publishing order.
+ * The read path is lock-free; a reader that lags behind the retained history skips the
+ * overwritten values and counts them in its cursor.
+ * </p>
+ *
+ * @param <T> the type of the broadcast values.
+ * @author pavl_g
+ */
+@SuppressWarnings("unchecked")
+public class BroadcastPipe<T> implements DataPipe<T, BroadcastPipe.Cursor> {
+
+    private static final VarHandle SEQUENCE;
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle STAMPS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(BroadcastPipe.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Object STALE = new Object();
+
+    protected final Component.Id id;
+    private final Object[] history;
+    private final long[] stamps;
+    private final int mask;
+    private long sequence;
+
+    /**
+     * Instantiates a broadcast pipe retaining only the latest value.
+     *
+     * @param id the pipe identifier (not null).
+     */
+    public BroadcastPipe(Component.Id id) {
+        this(id, 1);
+    }
+
+    /**
+     * Instantiates a broadcast pipe retaining a history of values for
+     * the consumers that poll every published value.
+     *
+     * @param id          the pipe identifier (not null).
+     * @param historySize the number of the retained values, rounded up to the next power of two.
+     */
+    public BroadcastPipe(Component.Id id, int historySize) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        if (historySize <= 0 || historySize > (1 << 30)) {
+            throw new IllegalArgumentException("History size is out of range: " + historySize);
+        }
+        this.id = id;
+        this.history = new Object[1 << -Integer.numberOfLeadingZeros(historySize - 1)];
+        this.stamps = new long[history.length];
+        this.mask = history.length - 1;
+        Arrays.fill(stamps, -1);
+    }
+
+    /**
+     * Publishes a new value to all the subscribers (single producer).
+     *
+     * @param value the value to broadcast by reference (nullable).
+     */
+    public void publish(T value) {
+        final long next = sequence;
+        final int slot = (int) next & mask;
+        // invalidate the slot stamp first; so readers can detect the overwrite
+        STAMPS.setVolatile(stamps, slot, -1L);
+        VALUES.setRelease(history, slot, value);
+        STAMPS.setRelease(stamps, slot, next);
+        SEQUENCE.setRelease(this, next + 1);
+    }
+
+    /**
+     * Subscribes a new consumer starting after the latest published value.
+     *
+     * @return a new cursor for the subscriber.
+     */
+    public Cursor subscribe() {
+        return new Cursor((long) SEQUENCE.getAcquire(this));
+    }
+
+    /**
+     * Retrieves the latest published value, and marks all the published
+     * values as read by this cursor.
+     *
+     * @param cursor the subscriber cursor (nullable, to peek the latest value).
+     * @return the latest published value, or null if nothing is published.
+     */
+    @Override
+    public T getData(Cursor cursor) {
+        while (true) {
+            final long published = (long) SEQUENCE.getAcquire(this);
+            if (published == 0) {
+                return null;
+            }
+            final Object value = read(published - 1);
+            if (value != STALE) {
+                if (cursor != null) {
+                    cursor.sequence = published;
+                }
+                return (T) value;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the next unread value for a cursor in the publishing order.
+     *
+     * @param cursor the subscriber cursor (not null).
+     * @return the next unread value, or null if the cursor has read all the published values.
+     */
+    public T poll(Cursor cursor) {
+        while (true) {
+            final long published = (long) SEQUENCE.getAcquire(this);
+            if (cursor.sequence >= published) {
+                return null;
+            }
+            final long oldest = published - history.length;
+            if (cursor.sequence < oldest) {
+                cursor.missed += oldest - cursor.sequence;
+                cursor.sequence = oldest;
+            }
+            final Object value = read(cursor.sequence);
+            if (value != STALE) {
+                cursor.sequence++;
+                return (T) value;
+            }
+        }
+    }
+
+    /**
+     * Tests whether a cursor has unread values.
+     *
+     * @param cursor the subscriber cursor (not null).
+     * @return true if values are published after the last read of this cursor.
+     */
+    public boolean hasUpdate(Cursor cursor) {
+        return cursor.sequence < (long) SEQUENCE.getAcquire(this);
+    }
+
+    /**
+     * Retrieves the number of the published values.
+     *
+     * @return the publishing sequence.
+     */
+    public long getSequence() {
+        return (long) SEQUENCE.getAcquire(this);
+    }
+
+    @Override
+    public Component.Id getId() {
+        return id;
+    }
+
+    /**
+     * A broadcast pipe holds its published values, so it is not shared by the forked worlds.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean isShareable() {
+        return false;
+    }
+
+    private Object read(long index) {
+        final int slot = (int) index & mask;
+        final long stamp = (long) STAMPS.getAcquire(stamps, slot);
+        final Object value = VALUES.getAcquire(history, slot);
+        // validate the slot is not overwritten while reading
+        if (stamp != index || (long) STAMPS.getAcquire(stamps, slot) != index) {
+            return STALE;
+        }
+        return value;
+    }
+
+    /**
+     * Represents the read position of a single subscriber; a cursor
+     * should be confined to its subscriber thread.
+     */
+    public static final class Cursor {
+        private long sequence;
+        private long missed;
+
+        private Cursor(long sequence) {
+            this.sequence = sequence;
+        }
+
+        /**
+         * Retrieves the number of values read (or skipped) by this cursor.
+         *
+         * @return the read sequence of this cursor.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Retrieves the number of values overwritten before this cursor has polled them.
+         *
+         * @return the number of the missed values.
+         */
+        public long getMissed() {
+            return missed;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.metrics.DataPipeEvaluationEvent;
+import articular.util.Validator;
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * Provides a lazy pull-based data-flow graph of chained {@link DataPipe}s.
+ *
+ * <p>
+ * Each node of the graph wraps a user data-pipe and declares its upstream nodes;
+ * a node is evaluated only when it is pulled (e.g. by a system retrieving it from the
+ * {@link EntityComponentManager#getDataPipe(Component.Id)}), and its result is memoized
+ * until the next {@link DataFlowGraph#advance()} (a tick), so the shared upstream stages
+ * are computed once per tick regardless of the number of their consumers.
+ * </p>
+ *
+ * <p>
+ * Adjacent stateless stages with a single consumer can be fused into one call
+ * using {@link DataFlowGraph#fuse()}; this removes the intermediate memoization
+ * and dispatch overhead of long linear pipelines.
+ * </p>
+ *
+ * <p>
+ * Note: the graph is not thread-safe; nodes should be declared and pulled from
+ * the same update thread.
+ * </p>
+ *
+ * @param <A> the type of the graph argument (the argument passed to the source nodes).
+ * @author pavl_g
+ * @see DataPipe
+ */
+@SuppressWarnings("unchecked")
+public class DataFlowGraph<A> {
+
+    /**
+     * Provides a memory-map for the graph nodes by their identifiers.
+     */
+    protected final MemoryMap.DataPipeMap nodes = new MemoryMap.DataPipeMap();
+
+    /**
+     * Keeps the nodes in their declaration order; which is a topological
+     * order, since the upstream nodes must be declared first.
+     */
+    protected final ArrayList<Node<?, A>> order = new ArrayList<>();
+
+    /**
+     * The current tick of the graph, the memoized results are valid only
+     * through the same tick.
+     */
+    protected long tick;
+
+    /**
+     * Instantiates a new empty data-flow graph.
+     */
+    public DataFlowGraph() {
+    }
+
+    /**
+     * Declares a source node that consumes the graph argument directly.
+     *
+     * @param id        the node identifier (not null).
+     * @param pipe      the user algorithm of this node (not null).
+     * @param stateless true if the algorithm is a pure function of its argument (fusible).
+     * @param <T>       the type of the node result.
+     * @return the newly declared node as a data-pipe of the graph argument.
+     */
+    public <T> Node<T, A> source(Component.Id id, DataPipe<T, A> pipe, boolean stateless) {
+        return declare(id, pipe, stateless, new Component.Id[0]);
+    }
+
+    /**
+     * Declares a stage node that consumes the result of a single upstream node.
+     *
+     * @param id        the node identifier (not null).
+     * @param upstream  the identifier of a previously declared node (not null).
+     * @param pipe      the user algorithm of this node (not null).
+     * @param stateless true if the algorithm is a pure function of its argument (fusible).
+     * @param <T>       the type of the node result.
+     * @param <U>       the type of the upstream node result.
+     * @return the newly declared node as a data-pipe of the graph argument.
+     */
+    public <T, U> Node<T, A> stage(Component.Id id, Component.Id upstream, DataPipe<T, U> pipe, boolean stateless) {
+        return declare(id, pipe, stateless, new Component.Id[]{upstream});
+    }
+
+    /**
+     * Declares a join node that consumes the results of several upstream nodes;
+     * the results are passed in an array in the same order of the upstream identifiers.
+     *
+     * @param id        the node identifier (not null).
+     * @param upstreams the identifiers of previously declared nodes (not null).
+     * @param pipe      the user algorithm of this node (not null).
+     * @param stateless true if the algorithm is a pure function of its argument.
+     * @param <T>       the type of the node result.
+     * @return the newly declared node as a data-pipe of the graph argument.
+     */
+    public <T> Node<T, A> join(Component.Id id, Component.Id[] upstreams, DataPipe<T, Object[]> pipe, boolean stateless) {
+        return declare(id, pipe, stateless, Objects.requireNonNull(upstreams));
+    }
+
+    /**
+     * Retrieves a declared node by its identifier.
+     *
+     * @param id  the node identifier (not null).
+     * @param <T> the type of the node result.
+     * @return the node object, or null if not declared.
+     */
+    public <T> Node<T, A> getNode(Component.Id id) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        return (Node<T, A>) nodes.get(MemoryMap.LookupKey.of(id.longValue()));
+    }
+
+    /**
+     * Invalidates all the memoized results by moving the graph
+     * to the next tick; call once per update loop.
+     */
+    public void advance() {
+        tick++;
+    }
+
+    /**
+     * Retrieves the current tick of this graph.
+     *
+     * @return the current tick number.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Fuses the adjacent stateless stages into single calls; a stage
+     * is fused with its upstream if both are stateless and the upstream
+     * has no other consumers. Call after declaring the graph, the nodes declared
+     * later are not reflected in the already fused chains.
+     */
+    public void fuse() {
+        for (Node<?, A> node : order) {
+            node.fuse();
+        }
+    }
+
+    /**
+     * Registers all the nodes of this graph as data-pipes to an ecs-manager;
+     * so systems can pull them by their identifiers.
+     *
+     * @param entityComponentManager the ecs-manager to register to (not null).
+     */
+    public void register(EntityComponentManager<?> entityComponentManager) {
+        for (Node<?, A> node : order) {
+            entityComponentManager.registerDataPipe(node);
+        }
+    }
+
+    /**
+     * Unregisters all the nodes of this graph from an ecs-manager.
+     *
+     * @param entityComponentManager the ecs-manager to unregister from (not null).
+     */
+    public void unregister(EntityComponentManager<?> entityComponentManager) {
+        for (Node<?, A> node : order) {
+            entityComponentManager.unregisterDataPipe(node);
+        }
+    }
+
+    private <T> Node<T, A> declare(Component.Id id, DataPipe<T, ?> pipe, boolean stateless, Component.Id[] upstreams) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        Validator.validate(pipe, Validator.Message.INVALID_DATA_PIPE);
+        final Node<?, A>[] upstreamNodes = (Node<?, A>[]) new Node<?, ?>[upstreams.length];
+        for (int i = 0; i < upstreams.length; i++) {
+            upstreamNodes[i] = getNode(upstreams[i]);
+            Validator.validate(upstreamNodes[i], Validator.Message.INVALID_DATA_PIPE);
+            upstreamNodes[i].consumers++;
+        }
+        final Node<T, A> node = new Node<>(this, id, (DataPipe<T, Object>) pipe, stateless, upstreamNodes);
+        nodes.put(id.longValue(), node);
+        order.add(node);
+        return node;
+    }
+
+    /**
+     * Represents a graph node; a memoizing data-pipe evaluated on demand
+     * against the graph argument.
+     *
+     * @param <T> the type of the node result.
+     * @param <A> the type of the graph argument.
+     */
+    public static final class Node<T, A> implements DataPipe<T, A> {
+        private final DataFlowGraph<A> graph;
+        private final Component.Id id;
+        private final DataPipe<T, Object> pipe;
+        private final boolean stateless;
+        private final Node<?, A>[] upstreams;
+        private int consumers;
+        // the fused evaluation chain
+        private DataPipe<T, Object> evaluator;
+        private Node<?, A>[] evaluatorUpstreams;
+        // per-tick memoization
+        private long memoTick = -1;
+        private A memoArgument;
+        private T memo;
+
+        private Node(DataFlowGraph<A> graph, Component.Id id, DataPipe<T, Object> pipe,
+                     boolean stateless, Node<?, A>[] upstreams) {
+            this.graph = graph;
+            this.id = id;
+            this.pipe = pipe;
+            this.stateless = stateless;
+            this.upstreams = upstreams;
+            this.evaluator = pipe;
+            this.evaluatorUpstreams = upstreams;
+        }
+
+        @Override
+        public T getData(A argument) {
+            if (memoTick == graph.tick && Objects.equals(memoArgument, argument)) {
+                return memo;
+            }
+            final DataPipeEvaluationEvent event = DataPipeEvaluationEvent.start();
+            memo = evaluator.getData(pull(argument));
+            if (event != null) {
+                event.end(this);
+            }
+            memoArgument = argument;
+            memoTick = graph.tick;
+            return memo;
+        }
+
+        @Override
+        public Component.Id getId() {
+            return id;
+        }
+
+        /**
+         * A node memoizes its result per tick of its graph, so it is not shared by the forked worlds.
+         *
+         * @return false.
+         */
+        @Override
+        public boolean isShareable() {
+            return false;
+        }
+
+        /**
+         * Tests whether this node is a pure function of its input.
+         *
+         * @return true if the node is stateless, false otherwise.
+         */
+        public boolean isStateless() {
+            return stateless;
+        }
+
+        /**
+         * Tests whether this node has been fused with its upstream.
+         *
+         * @return true if the evaluation chain of this node is fused.
+         */
+        public boolean isFused() {
+            return evaluator != pipe;
+        }
+
+        private Object pull(A argument) {
+            switch (evaluatorUpstreams.length) {
+                case 0:
+                    return argument;
+                case 1:
+                    return evaluatorUpstreams[0].getData(argument);
+                default:
+                    final Object[] inputs = new Object[evaluatorUpstreams.length];
+                    for (int i = 0; i < inputs.length; i++) {
+                        inputs[i] = evaluatorUpstreams[i].getData(argument);
+                    }
+                    return inputs;
+            }
+        }
+
+        private void fuse() {
+            if (!stateless || upstreams.length != 1) {
+                return;
+            }
+            final Node<Object, A> upstream = (Node<Object, A>) upstreams[0];
+            if (!upstream.stateless || upstream.consumers != 1) {
+                return;
+            }
+            // the upstream is fused first (declaration order), so its chain is final
+            final DataPipe<Object, Object> inner = upstream.evaluator;
+            final DataPipe<T, Object> outer = pipe;
+            evaluator = new DataPipe<>() {
+                @Override
+                public T getData(Object argument) {
+                    return outer.getData(inner.getData(argument));
+                }
+
+                @Override
+                public Component.Id getId() {
+                    return id;
+                }
+            };
+            evaluatorUpstreams = upstream.evaluatorUpstreams;
+        }
+    }
+}
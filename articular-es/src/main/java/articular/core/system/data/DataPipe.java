@@ -52,4 +52,16 @@ public interface DataPipe<T, A> extends Identifiable<Component.Id> {
      * @return the value of user algorithm (nullable)
      */
     T getData(A argument);
+
+    /**
+     * Tests whether this pipe can be shared by several worlds; a pipe is shareable if it is
+     * an algorithm holding no state of its own (e.g. the enqueued elements, the reader cursors
+     * or the memoized results). The forked worlds inherit the shareable pipes only.
+     *
+     * @return true if this pipe can be shared by the forked worlds (default), false otherwise.
+     * @see articular.core.system.manager.EntityComponentManager#fork()
+     */
+    default boolean isShareable() {
+        return true;
+    }
 }
\ No newline at end of file
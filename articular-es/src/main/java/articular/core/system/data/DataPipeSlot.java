@@ -0,0 +1,163 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data;
+
+import articular.core.component.Component;
+import articular.core.system.metrics.DataPipeEvaluationEvent;
+import articular.util.Validator;
+import java.util.Objects;
+
+/**
+ * Provides a tick-scoped data-pipe; a reusable holder declared once to an ecs-manager,
+ * and rebound to new data each tick instead of allocating and registering a new
+ * capturing data-pipe per update.
+ *
+ * <p>
+ * The algorithm of the slot is a non-capturing function of the bound data and the
+ * pipe argument; the bound data is cleared at the end of each tick by the
+ * {@link articular.core.system.manager.EntityComponentManager#endTick()}, so consumers
+ * can only observe the data bound during the current tick.
+ * </p>
+ *
+ * @param <T> the type of the return value
+ * @param <D> the type of the bound data
+ * @param <A> the type of the argument value
+ * @author pavl_g
+ * @see articular.core.system.manager.EntityComponentManager#declareDataPipeSlot(DataPipeSlot)
+ */
+public class DataPipeSlot<T, D, A> implements DataPipe<T, A> {
+
+    protected final Component.Id id;
+    protected final Algorithm<T, D, A> algorithm;
+    protected volatile D data;
+
+    /**
+     * Instantiates a new tick-scoped data-pipe slot.
+     *
+     * @param id        the pipe identifier (not null).
+     * @param algorithm the algorithm to evaluate against the bound data (not null).
+     */
+    public DataPipeSlot(Component.Id id, Algorithm<T, D, A> algorithm) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        this.id = id;
+        this.algorithm = Objects.requireNonNull(algorithm);
+    }
+
+    /**
+     * Binds the data of the current tick to this slot.
+     *
+     * @param data the data to bind (nullable to unbind).
+     */
+    public void bind(D data) {
+        this.data = data;
+    }
+
+    /**
+     * Unbinds the data of this slot.
+     */
+    public void clear() {
+        this.data = null;
+    }
+
+    /**
+     * Tests whether data is bound to this slot during the current tick.
+     *
+     * @return true if data is bound, false otherwise.
+     */
+    public boolean hasData() {
+        return data != null;
+    }
+
+    /**
+     * Retrieves the bound data of the current tick.
+     *
+     * @return the bound data (nullable).
+     */
+    public D getBoundData() {
+        return data;
+    }
+
+    /**
+     * Evaluates the slot algorithm against the bound data.
+     *
+     * @param argument a parameter prerequisite (nullable)
+     * @return the value of user algorithm, or null if no data is bound.
+     */
+    @Override
+    public T getData(A argument) {
+        final D data = this.data;
+        if (data == null) {
+            return null;
+        }
+        final DataPipeEvaluationEvent event = DataPipeEvaluationEvent.start();
+        final T result = algorithm.apply(data, argument);
+        if (event != null) {
+            event.end(this);
+        }
+        return result;
+    }
+
+    @Override
+    public Component.Id getId() {
+        return id;
+    }
+
+    /**
+     * A slot holds the data bound during the current tick of its ecs-manager, so it is not shared by the forked worlds.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean isShareable() {
+        return false;
+    }
+
+    /**
+     * A user algorithm evaluated against the bound data of a slot.
+     *
+     * @param <T> the type of the return value
+     * @param <D> the type of the bound data
+     * @param <A> the type of the argument value
+     */
+    @FunctionalInterface
+    public interface Algorithm<T, D, A> {
+
+        /**
+         * Evaluates the algorithm.
+         *
+         * @param data     the bound data of the current tick (not null).
+         * @param argument a parameter prerequisite (nullable).
+         * @return the value of user algorithm (nullable).
+         */
+        T apply(D data, A argument);
+    }
+}
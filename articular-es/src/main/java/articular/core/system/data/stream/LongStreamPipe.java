@@ -0,0 +1,120 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data.stream;
+
+import articular.core.component.Component;
+import articular.core.system.data.DataPipe;
+
+/**
+ * A primitive-specialized streaming data-pipe of {@code long} samples; avoids
+ * boxing the streamed values (e.g. encoded HID events or timestamps).
+ *
+ * @author pavl_g
+ * @see SpscLongStreamPipe
+ * @see MpscLongStreamPipe
+ */
+public interface LongStreamPipe extends DataPipe<Integer, LongStreamPipe.Sink> {
+
+    /**
+     * Offers a sample to the pipe without blocking.
+     *
+     * @param sample the sample to stream.
+     * @return true if the sample is enqueued, false if the pipe is full.
+     */
+    boolean offer(long sample);
+
+    /**
+     * Drains up to a limit of the available samples into a sink
+     * (consumer thread only); a sample is consumed once it is handed to the sink.
+     *
+     * @param sink  the sink to accept the samples (not null).
+     * @param limit the maximum number of samples to drain.
+     * @return the number of the drained samples.
+     */
+    int drain(Sink sink, int limit);
+
+    /**
+     * Drains all the available samples into a sink (consumer thread only).
+     *
+     * @param sink the sink to accept the samples (not null).
+     * @return the number of the drained samples.
+     */
+    default int drain(Sink sink) {
+        return drain(sink, capacity());
+    }
+
+    @Override
+    default Integer getData(Sink sink) {
+        return drain(sink);
+    }
+
+    /**
+     * A stream pipe holds its enqueued elements, so it is not shared by the forked worlds.
+     *
+     * @return false.
+     */
+    @Override
+    default boolean isShareable() {
+        return false;
+    }
+
+    /**
+     * Retrieves an estimate of the number of the enqueued samples.
+     *
+     * @return the number of the enqueued samples.
+     */
+    int size();
+
+    /**
+     * Retrieves the capacity of this pipe.
+     *
+     * @return the maximum number of samples this pipe can hold.
+     */
+    int capacity();
+
+    @Override
+    Component.Id getId();
+
+    /**
+     * A consumer callback accepting the drained samples.
+     */
+    @FunctionalInterface
+    interface Sink {
+
+        /**
+         * Accepts a drained sample.
+         *
+         * @param sample the drained sample.
+         */
+        void accept(long sample);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data.stream;
+
+import articular.core.component.Component;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A multi-producer single-consumer bounded lock-free stream pipe
+ * of {@code long} samples.
+ *
+ * <p>
+ * Since a primitive slot has no empty marker, each slot carries a sequence
+ * number; a producer may claim a slot only if its sequence equals the producer
+ * sequence, and publishes the sample by advancing the slot sequence, while the
+ * consumer recycles the slot by advancing its sequence by the capacity.
+ * </p>
+ *
+ * @author pavl_g
+ * @see MpscStreamPipe
+ */
+public class MpscLongStreamPipe extends RingPipe implements LongStreamPipe {
+
+    private static final VarHandle PRODUCER_INDEX;
+    private static final VarHandle CONSUMER_INDEX;
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PRODUCER_INDEX = lookup.findVarHandle(MpscLongStreamPipe.class, "producerIndex", long.class);
+            CONSUMER_INDEX = lookup.findVarHandle(MpscLongStreamPipe.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] buffer;
+    private final long[] sequences;
+    private long producerIndex;
+    private long consumerIndex;
+
+    /**
+     * Instantiates a new multi-producer single-consumer stream pipe of samples.
+     *
+     * @param id       the pipe identifier (not null).
+     * @param capacity the capacity, rounded up to the next power of two.
+     */
+    public MpscLongStreamPipe(Component.Id id, int capacity) {
+        super(id, capacity);
+        this.buffer = new long[this.capacity];
+        this.sequences = new long[this.capacity];
+        for (int i = 0; i < this.capacity; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    @Override
+    public boolean offer(long sample) {
+        long index;
+        int slot;
+        while (true) {
+            index = (long) PRODUCER_INDEX.getVolatile(this);
+            slot = (int) index & mask;
+            final long difference = (long) SEQUENCES.getAcquire(sequences, slot) - index;
+            if (difference < 0) {
+                // the slot is not yet recycled by the consumer
+                return false;
+            }
+            if (difference == 0 && PRODUCER_INDEX.compareAndSet(this, index, index + 1)) {
+                break;
+            }
+        }
+        buffer[slot] = sample;
+        SEQUENCES.setRelease(sequences, slot, index + 1);
+        return true;
+    }
+
+    @Override
+    public int drain(Sink sink, int limit) {
+        final long consumer = consumerIndex;
+        int drained = 0;
+        try {
+            while (drained < limit) {
+                final long index = consumer + drained;
+                final int slot = (int) index & mask;
+                if ((long) SEQUENCES.getAcquire(sequences, slot) != index + 1) {
+                    break;
+                }
+                final long sample = buffer[slot];
+                SEQUENCES.setRelease(sequences, slot, index + capacity);
+                drained++;
+                sink.accept(sample);
+            }
+        } finally {
+            CONSUMER_INDEX.setRelease(this, consumer + drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        final long consumer = (long) CONSUMER_INDEX.getAcquire(this);
+        return size((long) PRODUCER_INDEX.getAcquire(this), consumer);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data.stream;
+
+import articular.core.component.Component;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * A multi-producer single-consumer bounded lock-free stream pipe.
+ *
+ * <p>
+ * Producers claim a slot by a CAS on the producer sequence, and publish the
+ * element by a release-store into the claimed slot; the consumer treats an empty
+ * slot as the end of the available batch (a claimed slot that is not yet published).
+ * </p>
+ *
+ * @param <E> the type of the streamed elements.
+ * @author pavl_g
+ */
+public class MpscStreamPipe<E> extends RingPipe implements StreamPipe<E> {
+
+    private static final VarHandle PRODUCER_INDEX;
+    private static final VarHandle PRODUCER_LIMIT;
+    private static final VarHandle CONSUMER_INDEX;
+    private static final VarHandle ELEMENTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PRODUCER_INDEX = lookup.findVarHandle(MpscStreamPipe.class, "producerIndex", long.class);
+            PRODUCER_LIMIT = lookup.findVarHandle(MpscStreamPipe.class, "producerLimit", long.class);
+            CONSUMER_INDEX = lookup.findVarHandle(MpscStreamPipe.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] buffer;
+    private long producerIndex;
+    private long producerLimit;
+    private long consumerIndex;
+
+    /**
+     * Instantiates a new multi-producer single-consumer stream pipe.
+     *
+     * @param id       the pipe identifier (not null).
+     * @param capacity the capacity, rounded up to the next power of two.
+     */
+    public MpscStreamPipe(Component.Id id, int capacity) {
+        super(id, capacity);
+        this.buffer = new Object[this.capacity];
+        this.producerLimit = this.capacity;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        long limit = (long) PRODUCER_LIMIT.getVolatile(this);
+        long index;
+        do {
+            index = (long) PRODUCER_INDEX.getVolatile(this);
+            if (index >= limit) {
+                limit = (long) CONSUMER_INDEX.getAcquire(this) + capacity;
+                if (index >= limit) {
+                    return false;
+                }
+                PRODUCER_LIMIT.setRelease(this, limit);
+            }
+        } while (!PRODUCER_INDEX.compareAndSet(this, index, index + 1));
+        ELEMENTS.setRelease(buffer, (int) index & mask, element);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(Sink<E> sink, int limit) {
+        final long consumer = consumerIndex;
+        int drained = 0;
+        try {
+            while (drained < limit) {
+                final int slot = (int) (consumer + drained) & mask;
+                final E element = (E) ELEMENTS.getAcquire(buffer, slot);
+                if (element == null) {
+                    break;
+                }
+                buffer[slot] = null;
+                drained++;
+                sink.accept(element);
+            }
+        } finally {
+            // a single acknowledgment for the whole batch
+            CONSUMER_INDEX.setRelease(this, consumer + drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        final long consumer = (long) CONSUMER_INDEX.getAcquire(this);
+        return size((long) PRODUCER_INDEX.getAcquire(this), consumer);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data.stream;
+
+import articular.core.component.Component;
+import articular.util.Validator;
+
+/**
+ * A base template for the bounded ring-buffer pipes; holds the pipe identifier
+ * and the power-of-two capacity used to wrap the sequence indices into the buffer.
+ *
+ * @author pavl_g
+ */
+abstract class RingPipe {
+
+    /**
+     * The maximum capacity of a ring-buffer (the largest power-of-two array length).
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    protected final Component.Id id;
+    protected final int capacity;
+    protected final int mask;
+
+    /**
+     * Instantiates a ring-buffer template.
+     *
+     * @param id       the pipe identifier (not null).
+     * @param capacity the requested capacity, rounded up to the next power of two (positive).
+     */
+    protected RingPipe(Component.Id id, int capacity) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity is out of range: " + capacity);
+        }
+        this.id = id;
+        this.capacity = 1 << -Integer.numberOfLeadingZeros(capacity - 1);
+        this.mask = this.capacity - 1;
+    }
+
+    public Component.Id getId() {
+        return id;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Clamps the difference between the producer and the consumer sequences
+     * read at different instants to the buffer bounds.
+     *
+     * @param producerIndex the producer sequence.
+     * @param consumerIndex the consumer sequence.
+     * @return the size estimate.
+     */
+    protected int size(long producerIndex, long consumerIndex) {
+        return (int) Math.max(0, Math.min(capacity, producerIndex - consumerIndex));
+    }
+}
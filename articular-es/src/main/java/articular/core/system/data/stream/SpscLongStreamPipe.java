@@ -0,0 +1,114 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data.stream;
+
+import articular.core.component.Component;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A single-producer single-consumer bounded lock-free stream pipe
+ * of {@code long} samples.
+ *
+ * @author pavl_g
+ * @see SpscStreamPipe
+ */
+public class SpscLongStreamPipe extends RingPipe implements LongStreamPipe {
+
+    private static final VarHandle PRODUCER_INDEX;
+    private static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PRODUCER_INDEX = lookup.findVarHandle(SpscLongStreamPipe.class, "producerIndex", long.class);
+            CONSUMER_INDEX = lookup.findVarHandle(SpscLongStreamPipe.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] buffer;
+    private long producerIndex;
+    private long producerLimit;
+    private long consumerIndex;
+
+    /**
+     * Instantiates a new single-producer single-consumer stream pipe of samples.
+     *
+     * @param id       the pipe identifier (not null).
+     * @param capacity the capacity, rounded up to the next power of two.
+     */
+    public SpscLongStreamPipe(Component.Id id, int capacity) {
+        super(id, capacity);
+        this.buffer = new long[this.capacity];
+        this.producerLimit = this.capacity;
+    }
+
+    @Override
+    public boolean offer(long sample) {
+        final long index = producerIndex;
+        if (index >= producerLimit) {
+            producerLimit = (long) CONSUMER_INDEX.getAcquire(this) + capacity;
+            if (index >= producerLimit) {
+                return false;
+            }
+        }
+        buffer[(int) index & mask] = sample;
+        PRODUCER_INDEX.setRelease(this, index + 1);
+        return true;
+    }
+
+    @Override
+    public int drain(Sink sink, int limit) {
+        final long consumer = consumerIndex;
+        final long available = (long) PRODUCER_INDEX.getAcquire(this) - consumer;
+        final int count = (int) Math.min(available, limit);
+        int drained = 0;
+        try {
+            while (drained < count) {
+                final long sample = buffer[(int) (consumer + drained) & mask];
+                drained++;
+                sink.accept(sample);
+            }
+        } finally {
+            CONSUMER_INDEX.setRelease(this, consumer + drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        final long consumer = (long) CONSUMER_INDEX.getAcquire(this);
+        return size((long) PRODUCER_INDEX.getAcquire(this), consumer);
+    }
+}
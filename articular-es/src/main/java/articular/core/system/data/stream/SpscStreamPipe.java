@@ -0,0 +1,126 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.data.stream;
+
+import articular.core.component.Component;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * A single-producer single-consumer bounded lock-free stream pipe.
+ *
+ * <p>
+ * The producer publishes the elements by a release-store of its sequence, and
+ * the consumer acknowledges a whole drained batch by a single release-store of its
+ * sequence; the producer re-reads the consumer sequence only when its cached
+ * limit is exhausted, so the steady-state offer doesn't touch the consumer cache-line.
+ * </p>
+ *
+ * @param <E> the type of the streamed elements.
+ * @author pavl_g
+ */
+public class SpscStreamPipe<E> extends RingPipe implements StreamPipe<E> {
+
+    private static final VarHandle PRODUCER_INDEX;
+    private static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PRODUCER_INDEX = lookup.findVarHandle(SpscStreamPipe.class, "producerIndex", long.class);
+            CONSUMER_INDEX = lookup.findVarHandle(SpscStreamPipe.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] buffer;
+    private long producerIndex;
+    private long producerLimit;
+    private long consumerIndex;
+
+    /**
+     * Instantiates a new single-producer single-consumer stream pipe.
+     *
+     * @param id       the pipe identifier (not null).
+     * @param capacity the capacity, rounded up to the next power of two.
+     */
+    public SpscStreamPipe(Component.Id id, int capacity) {
+        super(id, capacity);
+        this.buffer = new Object[this.capacity];
+        this.producerLimit = this.capacity;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        final long index = producerIndex;
+        if (index >= producerLimit) {
+            producerLimit = (long) CONSUMER_INDEX.getAcquire(this) + capacity;
+            if (index >= producerLimit) {
+                return false;
+            }
+        }
+        buffer[(int) index & mask] = element;
+        PRODUCER_INDEX.setRelease(this, index + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(Sink<E> sink, int limit) {
+        final long consumer = consumerIndex;
+        final long available = (long) PRODUCER_INDEX.getAcquire(this) - consumer;
+        final int count = (int) Math.min(available, limit);
+        int drained = 0;
+        try {
+            while (drained < count) {
+                final int slot = (int) (consumer + drained) & mask;
+                final E element = (E) buffer[slot];
+                buffer[slot] = null;
+                drained++;
+                sink.accept(element);
+            }
+        } finally {
+            // a single acknowledgment for the whole batch
+            CONSUMER_INDEX.setRelease(this, consumer + drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        final long consumer = (long) CONSUMER_INDEX.getAcquire(this);
+        return size((long) PRODUCER_INDEX.getAcquire(this), consumer);
+    }
+}
@@ -35,8 +35,10 @@ import articular.core.Entity;
 import articular.core.MemoryMap;
 import articular.core.component.Component;
 import articular.core.system.SystemController;
+import articular.core.system.metrics.CacheMissEvent;
 import articular.throwable.AssociatedObjectNotFoundException;
 import articular.util.Validator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A compensatory ecs-manager that caches data in an entity-first
@@ -63,6 +65,16 @@ public class CacheManager implements SystemManager<MemoryMap.CacheMap, MemoryMap
      */
     protected MemoryMap.CacheMap cacheMap = new MemoryMap.CacheMap();
 
+    /**
+     * Counts the entity lookups resolved from the cache.
+     */
+    protected final LongAdder hits = new LongAdder();
+
+    /**
+     * Counts the entity lookups missing from the cache.
+     */
+    protected final LongAdder misses = new LongAdder();
+
     /**
      * Instantiates a new cache-manager to provide
      * Entity-[System]-Component accessibility.
@@ -80,7 +92,7 @@ public class CacheManager implements SystemManager<MemoryMap.CacheMap, MemoryMap
     @Override
     public void unregister(Entity entity) {
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
-        cacheMap.remove(entity.getId().longValue());
+        cacheMap.remove(MemoryMap.LookupKey.of(entity.getId().longValue()));
     }
 
     @Override
@@ -93,6 +105,7 @@ public class CacheManager implements SystemManager<MemoryMap.CacheMap, MemoryMap
             Validator.validate(components, Validator.Message.INVALID_ASSOCIATED_SYSTEM_COMPONENT_MAP);
         } catch (AssociatedObjectNotFoundException ex) {
             // allocate a new memory-map and register it
+            CacheMissEvent.emit(entity.getId().longValue(), systemController.getId().getId());
             register(entity, (components = new MemoryMap.SystemComponentMap()));
         } finally {
             components.put(systemController.getId().getId(), component);
@@ -136,6 +149,37 @@ public class CacheManager implements SystemManager<MemoryMap.CacheMap, MemoryMap
     @Override
     public MemoryMap.SystemComponentMap getMemoryMap(Entity entity) {
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
-        return cacheMap.get(entity.getId().longValue());
+        final MemoryMap.SystemComponentMap components = cacheMap.get(MemoryMap.LookupKey.of(entity.getId().longValue()));
+        (components != null ? hits : misses).increment();
+        return components;
+    }
+
+    /**
+     * Retrieves the number of the entity lookups resolved from the cache.
+     *
+     * @return the cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of the entity lookups missing from the cache.
+     *
+     * @return the cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the ratio of the entity lookups resolved from the cache.
+     *
+     * @return the hit ratio in [0, 1], or 0 if no lookups are done.
+     */
+    public double getHitRatio() {
+        final long cacheHits = hits.sum();
+        final long lookups = cacheHits + misses.sum();
+        return lookups == 0 ? 0 : (double) cacheHits / lookups;
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the entity components modified through an ecs-manager (registered, replaced or removed)
+ * by their systems; a tracker is attached to the ecs-manager and drained by its consumer
+ * (e.g. once per tick).
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#attachChangeTracker(ChangeTracker)
+ */
+public final class ChangeTracker {
+
+    private final ConcurrentHashMap<String, Set<Long>> dirty = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates an empty change tracker.
+     */
+    public ChangeTracker() {
+    }
+
+    /**
+     * Marks an entity component as modified.
+     *
+     * @param system   the system name (not null).
+     * @param entityId the entity identifier.
+     */
+    public void markDirty(String system, long entityId) {
+        dirty.computeIfAbsent(system, key -> ConcurrentHashMap.newKeySet()).add(entityId);
+    }
+
+    /**
+     * Retrieves the modified entities by their systems; the consumer removes
+     * the entities from the sets as it processes them.
+     *
+     * @return the live map of the modified entities.
+     */
+    public Map<String, Set<Long>> getDirty() {
+        return dirty;
+    }
+
+    /**
+     * Tests whether no entity is marked as modified.
+     *
+     * @return true if no entity is marked, false otherwise.
+     */
+    public boolean isEmpty() {
+        for (Set<Long> entities : dirty.values()) {
+            if (!entities.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clears all the marked entities.
+     */
+    public void clear() {
+        dirty.clear();
+    }
+}
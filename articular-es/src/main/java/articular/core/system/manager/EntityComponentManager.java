@@ -34,13 +34,32 @@ package articular.core.system.manager;
 import articular.core.Entity;
 import articular.core.MemoryMap;
 import articular.core.component.Component;
+import articular.core.persistence.Checkpoint;
+import articular.core.persistence.ComponentCodecs;
+import articular.core.persistence.TickHistory;
+import articular.core.persistence.WorldJournal;
+import articular.core.persistence.WorldSnapshot;
 import articular.core.system.ComponentUpdater;
+import articular.core.system.EntityUpdater;
 import articular.core.system.SystemController;
 import articular.core.system.SystemEntitiesUpdater;
 import articular.core.system.SystemsUpdater;
 import articular.core.system.data.DataPipe;
+import articular.core.system.data.DataPipeSlot;
+import articular.core.system.data.stream.LongStreamPipe;
+import articular.core.system.data.stream.StreamPipe;
+import articular.core.system.metrics.Instrumentation;
+import articular.core.system.metrics.SystemDispatchEvent;
+import articular.core.system.metrics.SystemRegistrationEvent;
 import articular.util.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 /**
  * @param <I> the type of the input for the update loop
@@ -63,6 +82,69 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
      */
     protected MemoryMap.DataPipeMap dataPipeMap = new MemoryMap.DataPipeMap();
 
+    /**
+     * Provides the declared tick-scoped data-pipe slots; replaced
+     * by a new array on declaration (copy-on-write), so clearing
+     * the slots at the end of a tick iterates without allocations.
+     */
+    protected volatile DataPipeSlot<?, ?, ?>[] dataPipeSlots = new DataPipeSlot<?, ?, ?>[0];
+
+    /**
+     * Enables dispatching the {@link EntityUpdater}s through
+     * specialized iteration loops.
+     */
+    protected boolean specializedDispatch;
+
+    /**
+     * Enables the zero-allocation mode of the steady-state update paths.
+     */
+    protected boolean zeroAllocation;
+
+    /**
+     * Provides a reusable system-component map per updating thread
+     * for the zero-allocation mode.
+     */
+    protected final ThreadLocal<ScratchComponents> scratchComponents =
+            ThreadLocal.withInitial(ScratchComponents::new);
+
+    /**
+     * Keeps the lazy source of this world (a loaded snapshot, or the view of
+     * a parent world) until all its systems are materialized on their first access.
+     */
+    protected volatile MemoryMapSource source;
+
+    /**
+     * Tests whether some systems of this forked world still overlay
+     * the view of its parent world.
+     */
+    protected volatile boolean overlaid;
+
+    /**
+     * Journals the mutations of this manager, if attached.
+     */
+    protected volatile WorldJournal journal;
+
+    /**
+     * The current or last background checkpoint.
+     */
+    protected volatile Checkpoint checkpoint;
+
+    /**
+     * Captures the per-tick deltas of this world to rewind, if attached.
+     */
+    protected volatile TickHistory history;
+
+    /**
+     * Provides the attached change trackers; replaced by a new
+     * array on attachment (copy-on-write).
+     */
+    protected volatile ChangeTracker[] changeTrackers = new ChangeTracker[0];
+
+    /**
+     * Records the dispatches of the system updaters, if attached.
+     */
+    protected volatile Instrumentation instrumentation;
+
     /**
      * Instantiates a new basic system-first ecs-manager.
      */
@@ -71,6 +153,12 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
 
     @Override
     public <T extends Component> T allocateComponent(Entity entity, SystemController systemController, Component.Id id) {
+        if (zeroAllocation) {
+            final Component component = getComponent(entity, systemController);
+            if (component != null && component.getId() == id) {
+                return (T) component;
+            }
+        }
         final Component component = () -> id;
         register(entity, component, systemController);
         return (T) component;
@@ -108,33 +196,64 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
     @Override
     public <T extends Component> T getComponent(Entity entity, SystemController systemController) {
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
+        Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        final MemoryMapSource memoryMapSource = source;
+        final String system = systemController.getId().getId();
+        if (memoryMapSource != null && !systems.containsKey(system) && !memoryMapSource.isMaterialized(system)) {
+            // reads through the lazy source without materializing the system
+            return memoryMapSource.getComponent(system, entity.getId().longValue());
+        }
         MemoryMap.EntityComponentMap components = getMemoryMap(systemController);
         Validator.validate(components, Validator.Message.INVALID_ASSOCIATED_ENTITY_COMPONENT_MAP);
-        return (T) components.get(entity.getId().longValue());
+        return (T) components.get(MemoryMap.LookupKey.of(entity.getId().longValue()));
     }
 
     @Override
     public MemoryMap.SystemMap getMemoryMap() {
+        materializeSnapshot();
         return systems;
     }
 
     @Override
     public MemoryMap.EntityComponentMap getMemoryMap(SystemController systemController) {
         Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
-        return systems.get(systemController.getId().getId());
+        return getSystemComponents(systemController.getId().getId());
     }
 
     @Override
     public void register(SystemController systemController, MemoryMap.EntityComponentMap memoryMap) {
         Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
         Validator.validate(memoryMap, Validator.Message.INVALID_ASSOCIATED_ENTITY_COMPONENT_MAP);
+        final SystemRegistrationEvent event = new SystemRegistrationEvent();
+        event.begin();
+        final WorldJournal worldJournal = journal;
+        if (worldJournal != null && !(systemController instanceof WorldSnapshot.RestoredSystem)) {
+            // encodes the record first, so a missing codec leaves the memory-map unchanged
+            worldJournal.registerSystem(systemController.getId().getId(), memoryMap);
+        }
         systems.put(systemController.getId().getId(), memoryMap);
+        if (specializedDispatch && systemController instanceof EntityUpdater) {
+            // generate the specialized loop at the registration time
+            EntityLoops.specialized(systemController.getClass());
+        }
+        event.end(systemController.getId().getId(), memoryMap.size());
     }
 
     @Override
     public void unregister(SystemController systemController) {
         Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
-        systems.remove(systemController.getId().getId());
+        final String system = systemController.getId().getId();
+        // journals the removal first, so a failing journal leaves the manager unchanged
+        final WorldJournal worldJournal = journal;
+        if (worldJournal != null) {
+            worldJournal.unregisterSystem(system);
+        }
+        systems.remove(system);
+        final MemoryMapSource memoryMapSource = source;
+        if (memoryMapSource != null) {
+            memoryMapSource.discard(system);
+            releaseSource(memoryMapSource);
+        }
     }
 
     @Override
@@ -142,14 +261,63 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
         Validator.validate(component, Validator.Message.INVALID_COMPONENT);
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
         Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
-        getMemoryMap(systemController).put(entity.getId().longValue(), component);
+        restoreComponent(systemController.getId().getId(), entity.getId().longValue(), component);
     }
 
     @Override
     public void unregister(Entity entity, SystemController systemController) {
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
         Validator.validate(systemController, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
-        getMemoryMap(systemController).remove(entity.getId().longValue());
+        restoreComponent(systemController.getId().getId(), entity.getId().longValue(), null);
+    }
+
+    /**
+     * Registers or removes an entity component by the identifiers of its system and entity
+     * (e.g. restoring a previous state); the attached journal and change trackers observe the change.
+     *
+     * @param system    the system name (not null).
+     * @param entityId  the entity identifier.
+     * @param component the component to register, or null to remove the entity component.
+     * @throws IllegalArgumentException if a journal is attached and the component has no
+     *                                  registered codec; the manager is left unchanged.
+     */
+    public void restoreComponent(String system, long entityId, Component component) {
+        restoreComponent(system, entityId, component, true);
+    }
+
+    /**
+     * Registers or removes an entity component by the identifiers of its system and entity, optionally
+     * without journaling it (e.g. rewinding the captured ticks of a history); the attached change trackers
+     * observe the change.
+     *
+     * @param system    the system name (not null).
+     * @param entityId  the entity identifier.
+     * @param component the component to register, or null to remove the entity component.
+     * @param journaled true to record the change to the attached journal, false otherwise.
+     * @throws IllegalArgumentException if journaled, a journal is attached and the component has no
+     *                                  registered codec; the manager is left unchanged.
+     */
+    public void restoreComponent(String system, long entityId, Component component, boolean journaled) {
+        final MemoryMap.EntityComponentMap components = getSystemComponents(system);
+        Validator.validate(components, Validator.Message.INVALID_ASSOCIATED_ENTITY_COMPONENT_MAP);
+        // encodes the journal record first, so a missing codec fails before any mutation
+        final WorldJournal worldJournal = journaled ? journal : null;
+        if (worldJournal != null) {
+            if (component == null) {
+                worldJournal.unregister(system, entityId);
+            } else {
+                worldJournal.register(system, entityId, component);
+            }
+        }
+        for (ChangeTracker changeTracker : changeTrackers) {
+            changeTracker.markDirty(system, entityId);
+        }
+        if (component == null) {
+            components.remove(MemoryMap.LookupKey.of(entityId));
+        } else if (!zeroAllocation || components.replace(MemoryMap.LookupKey.of(entityId), component) == null) {
+            // replaces the existing entries without boxing their keys
+            components.put(entityId, component);
+        }
     }
 
     /**
@@ -196,7 +364,7 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
      * @param id the identifier to use.
      */
     public void unregisterDataPipe(Component.Id id) {
-        dataPipeMap.remove(id.longValue());
+        dataPipeMap.remove(MemoryMap.LookupKey.of(id.longValue()));
     }
 
     /**
@@ -209,7 +377,189 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
      */
     public <T, A> DataPipe<T, A> getDataPipe(Component.Id id) {
         Validator.validate(id, Validator.Message.INVALID_ID);
-        return (DataPipe<T, A>) dataPipeMap.get(id.longValue());
+        return (DataPipe<T, A>) dataPipeMap.get(MemoryMap.LookupKey.of(id.longValue()));
+    }
+
+    /**
+     * Retrieves a streaming data-pipe object using an external identifier.
+     *
+     * @param id the identifier to use.
+     * @param <E> the type of the streamed elements.
+     * @return the streaming data-pipe object (nullable).
+     * @throws ClassCastException if the registered data-pipe is not a stream pipe.
+     */
+    public <E> StreamPipe<E> getStreamPipe(Component.Id id) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        return (StreamPipe<E>) dataPipeMap.get(MemoryMap.LookupKey.of(id.longValue()));
+    }
+
+    /**
+     * Retrieves a primitive streaming data-pipe object using an external identifier.
+     *
+     * @param id the identifier to use.
+     * @return the streaming data-pipe object (nullable).
+     * @throws ClassCastException if the registered data-pipe is not a long stream pipe.
+     */
+    public LongStreamPipe getLongStreamPipe(Component.Id id) {
+        Validator.validate(id, Validator.Message.INVALID_ID);
+        return (LongStreamPipe) dataPipeMap.get(MemoryMap.LookupKey.of(id.longValue()));
+    }
+
+    /**
+     * Declares a tick-scoped data-pipe slot once; the slot is registered as a data-pipe
+     * and its bound data is cleared at the end of every tick.
+     *
+     * @param dataPipeSlot the data-pipe slot (not null).
+     * @param <T> the type of the algorithm return.
+     * @param <D> the type of the bound data.
+     * @param <A> the type of the algorithm parameter.
+     * @return the declared slot to bind the data of each tick.
+     * @see EntityComponentManager#endTick()
+     */
+    public synchronized <T, D, A> DataPipeSlot<T, D, A> declareDataPipeSlot(DataPipeSlot<T, D, A> dataPipeSlot) {
+        registerDataPipe(dataPipeSlot);
+        final DataPipeSlot<?, ?, ?>[] slots = Arrays.copyOf(dataPipeSlots, dataPipeSlots.length + 1);
+        slots[slots.length - 1] = dataPipeSlot;
+        dataPipeSlots = slots;
+        return dataPipeSlot;
+    }
+
+    /**
+     * Removes a tick-scoped data-pipe slot and unregisters it.
+     *
+     * @param dataPipeSlot the data-pipe slot (not null).
+     */
+    public synchronized void undeclareDataPipeSlot(DataPipeSlot<?, ?, ?> dataPipeSlot) {
+        unregisterDataPipe(dataPipeSlot);
+        final DataPipeSlot<?, ?, ?>[] slots = dataPipeSlots;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != dataPipeSlot) {
+                continue;
+            }
+            final DataPipeSlot<?, ?, ?>[] newSlots = new DataPipeSlot<?, ?, ?>[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, i);
+            System.arraycopy(slots, i + 1, newSlots, i, slots.length - i - 1);
+            dataPipeSlots = newSlots;
+            return;
+        }
+    }
+
+    /**
+     * Ends the current tick of this manager; clears the bound data of
+     * all the tick-scoped data-pipe slots, materializes the densely modified systems of a fork,
+     * commits the journaled mutations
+     * of the tick, and captures the tick delta, if a journal or a history is attached.
+     *
+     * @throws UncheckedIOException if committing the journal fails.
+     */
+    public void endTick() {
+        for (DataPipeSlot<?, ?, ?> dataPipeSlot : dataPipeSlots) {
+            dataPipeSlot.clear();
+        }
+        if (overlaid) {
+            compactOverlays();
+        }
+        final WorldJournal worldJournal = journal;
+        if (worldJournal != null) {
+            try {
+                worldJournal.endTick(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        final TickHistory tickHistory = history;
+        if (tickHistory != null) {
+            tickHistory.capture();
+        }
+        final Instrumentation systemsInstrumentation = instrumentation;
+        if (systemsInstrumentation != null) {
+            systemsInstrumentation.endTick();
+        }
+    }
+
+    /**
+     * Rolls this world back a number of ticks using the attached history; the restored
+     * components are not journaled.
+     *
+     * @param ticks the number of ticks to rewind.
+     * @throws IllegalStateException    if no history is attached.
+     * @throws IllegalArgumentException if the ticks exceed the captured ticks.
+     * @see TickHistory#rewind(int)
+     */
+    public void rewind(int ticks) {
+        final TickHistory tickHistory = history;
+        if (tickHistory == null) {
+            throw new IllegalStateException("No tick history is attached");
+        }
+        tickHistory.rewind(ticks);
+    }
+
+    /**
+     * Attaches a tick history to capture the deltas of this world on each tick end.
+     *
+     * @param history the history to attach, or null to detach.
+     */
+    public void setHistory(TickHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Attaches a change tracker to mark the entity components modified through this manager.
+     *
+     * @param changeTracker the change tracker (not null).
+     */
+    public synchronized void attachChangeTracker(ChangeTracker changeTracker) {
+        final ChangeTracker[] trackers = Arrays.copyOf(changeTrackers, changeTrackers.length + 1);
+        trackers[trackers.length - 1] = Objects.requireNonNull(changeTracker);
+        changeTrackers = trackers;
+    }
+
+    /**
+     * Detaches a change tracker.
+     *
+     * @param changeTracker the change tracker (not null).
+     */
+    public synchronized void detachChangeTracker(ChangeTracker changeTracker) {
+        final ChangeTracker[] trackers = changeTrackers;
+        for (int i = 0; i < trackers.length; i++) {
+            if (trackers[i] != changeTracker) {
+                continue;
+            }
+            final ChangeTracker[] newTrackers = new ChangeTracker[trackers.length - 1];
+            System.arraycopy(trackers, 0, newTrackers, 0, i);
+            System.arraycopy(trackers, i + 1, newTrackers, i, trackers.length - i - 1);
+            changeTrackers = newTrackers;
+            return;
+        }
+    }
+
+    /**
+     * Retrieves the attached tick history.
+     *
+     * @return the history object, or null if not attached.
+     */
+    public TickHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Attaches an instrumentation to record the calls, the wall time and the visited entities
+     * of each system updater dispatched by this manager; the metrics are published on the tick ends.
+     *
+     * @param instrumentation the instrumentation to attach, or null to detach.
+     * @see Instrumentation
+     */
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Retrieves the attached instrumentation.
+     *
+     * @return the instrumentation object, or null if not attached.
+     */
+    public Instrumentation getInstrumentation() {
+        return instrumentation;
     }
 
     public boolean hasDataPipe(Component.Id id) {
@@ -239,23 +589,475 @@ public class EntityComponentManager<I> implements SystemManager<MemoryMap.System
 
     public void updateSystems(SystemsUpdater<I> updater, I input) {
         Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
-        updater.update(systems, this, input);
+        final Instrumentation systemsInstrumentation = instrumentation;
+        final SystemDispatchEvent event = SystemDispatchEvent.start();
+        if (systemsInstrumentation == null && event == null) {
+            updater.update(getMemoryMap(), this, input);
+            return;
+        }
+        long entities = 0;
+        for (MemoryMap.EntityComponentMap components : systems.values()) {
+            entities += components.size();
+        }
+        final long allocatedBytes = systemsInstrumentation == null ? -1 : systemsInstrumentation.allocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            updater.update(getMemoryMap(), this, input);
+        } finally {
+            endDispatch(updater, systemsInstrumentation, event, start, allocatedBytes, entities);
+        }
     }
 
     public void updateSystemComponents(SystemEntitiesUpdater<I> updater, I input) {
         Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
-        MemoryMap.EntityComponentMap components = systems.get(updater.getId().getId());
+        MemoryMap.EntityComponentMap components = getSystemComponents(updater.getId().getId());
         Validator.validate(components, Validator.Message.INVALID_ASSOCIATED_ENTITY_COMPONENT_MAP);
-        updater.update(components, this, input);
+        final Instrumentation systemsInstrumentation = instrumentation;
+        final SystemDispatchEvent event = SystemDispatchEvent.start();
+        if (systemsInstrumentation == null && event == null) {
+            updater.update(components, this, input);
+            return;
+        }
+        final long allocatedBytes = systemsInstrumentation == null ? -1 : systemsInstrumentation.allocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            updater.update(components, this, input);
+        } finally {
+            endDispatch(updater, systemsInstrumentation, event, start, allocatedBytes, components.size());
+        }
+    }
+
+    /**
+     * Dispatches an updater for each entity component of its system.
+     *
+     * @param updater the per-entity updater (not null).
+     * @param input the input from the game loop.
+     * @see EntityComponentManager#setSpecializedDispatch(boolean)
+     */
+    public void updateEntities(EntityUpdater<I> updater, I input) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        MemoryMap.EntityComponentMap components = getSystemComponents(updater.getId().getId());
+        Validator.validate(components, Validator.Message.INVALID_ASSOCIATED_ENTITY_COMPONENT_MAP);
+        final EntityLoop<I> loop = specializedDispatch ? EntityLoops.specialized(updater.getClass())
+                                                       : EntityLoops.generic();
+        final Instrumentation systemsInstrumentation = instrumentation;
+        final SystemDispatchEvent event = SystemDispatchEvent.start();
+        if (systemsInstrumentation == null && event == null) {
+            loop.run(updater, components, this, input);
+            return;
+        }
+        final long allocatedBytes = systemsInstrumentation == null ? -1 : systemsInstrumentation.allocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            loop.run(updater, components, this, input);
+        } finally {
+            endDispatch(updater, systemsInstrumentation, event, start, allocatedBytes, components.size());
+        }
+    }
+
+    /**
+     * Dispatches an updater incrementally for the entity components of its system within a time budget;
+     * the dispatch resumes the pass of the cursor, and stops once the budget elapses (after the entity in progress)
+     * or the pass completes, so an expensive system spreads a pass over several ticks.
+     *
+     * <p>
+     * The clock is read after each entity; the incremental dispatch suits the updaters whose per-entity cost
+     * outweighs a {@link System#nanoTime()} call.
+     * </p>
+     *
+     * @param updater     the per-entity updater (not null).
+     * @param cursor      the pass position of the updater (not null).
+     * @param budgetNanos the time budget of this dispatch in nanoseconds.
+     * @param input       the input from the game loop.
+     * @return the number of the visited entities.
+     */
+    public int updateEntities(EntityUpdater<I> updater, EntityCursor cursor, long budgetNanos, I input) {
+        Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
+        Objects.requireNonNull(cursor);
+        MemoryMap.EntityComponentMap components = getSystemComponents(updater.getId().getId());
+        Validator.validate(components, Validator.Message.INVALID_ASSOCIATED_ENTITY_COMPONENT_MAP);
+        final Instrumentation systemsInstrumentation = instrumentation;
+        final SystemDispatchEvent event = SystemDispatchEvent.start();
+        final long allocatedBytes = systemsInstrumentation == null ? -1 : systemsInstrumentation.allocatedBytes();
+        final long start = System.nanoTime();
+        int visited = 0;
+        try {
+            visited = cursor.advance(updater, components, this, input, start + budgetNanos);
+        } finally {
+            if (systemsInstrumentation != null || event != null) {
+                endDispatch(updater, systemsInstrumentation, event, start, allocatedBytes, visited);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Tests whether the entity updaters are dispatched through specialized loops.
+     *
+     * @return true if the specialized dispatch is enabled, false otherwise.
+     */
+    public boolean isSpecializedDispatch() {
+        return specializedDispatch;
+    }
+
+    /**
+     * Enables/disables dispatching the {@link EntityUpdater}s through specialized
+     * iteration loops; a loop is generated per updater class (on registration of its system
+     * or on its first dispatch), so the JIT can inline each per-entity callback into its loop.
+     *
+     * @param specializedDispatch true to enable the specialized dispatch.
+     * @see EntityLoops
+     */
+    public void setSpecializedDispatch(boolean specializedDispatch) {
+        this.specializedDispatch = specializedDispatch;
+    }
+
+    /**
+     * Tests whether the zero-allocation mode is enabled.
+     *
+     * @return true if the zero-allocation mode is enabled, false otherwise.
+     */
+    public boolean isZeroAllocation() {
+        return zeroAllocation;
+    }
+
+    /**
+     * Enables/disables the zero-allocation mode; in this mode, the steady-state paths of a tick
+     * allocate no objects once compiled, so a world that only updates its components in place
+     * (or replaces the components of existing entities) produces no garbage.
+     *
+     * <p>
+     * The update methods, {@link EntityComponentManager#getComponent(Entity, SystemController)}, the lookups
+     * of the data-pipes, the cache and the modules look up the memory-maps by {@link MemoryMap.LookupKey}s
+     * regardless of this mode, and the {@link Entity} hashes its identifier once. In addition, this mode:
+     * </p>
+     * <ul>
+     * <li>reuses a system-component map per thread for the {@link ComponentUpdater}s, so the updaters
+     * must not retain the map passed to them.</li>
+     * <li>replaces the components of the existing entities without boxing their keys; only the insertions
+     * of new entities allocate (their keys and nodes).</li>
+     * <li>returns the registered component of an entity from
+     * {@link EntityComponentManager#allocateComponent(Entity, SystemController, Component.Id)}
+     * if it carries the same identifier object, instead of allocating a new one.</li>
+     * </ul>
+     *
+     * <p>
+     * Note: the attached journal, history, frozen views, change trackers, instrumentation and the recorded
+     * flight recorder events allocate to record the changes; detach them to keep the ticks allocation-free.
+     * </p>
+     *
+     * @param zeroAllocation true to enable the zero-allocation mode.
+     */
+    public void setZeroAllocation(boolean zeroAllocation) {
+        this.zeroAllocation = zeroAllocation;
     }
 
     public void updateEntityComponents(ComponentUpdater<I> updater, Entity entity, I input) {
         Validator.validate(updater, Validator.Message.INVALID_ASSOCIATED_SYSTEM);
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
         // do a realtime manipulation every time, Big-O notation of (n), linear CPU clock cycles
-        final MemoryMap.SystemComponentMap components = new MemoryMap.SystemComponentMap();
-        systems.forEach((associatedSystem, entityComponentMap) ->
-                components.put(associatedSystem, getComponent(entity, updater)));
-        updater.update(components, entity, this, input);
+        materializeSnapshot();
+        final MemoryMap.SystemComponentMap components;
+        if (zeroAllocation) {
+            // refills the map of the thread by replacing its values, which reuses its nodes
+            final ScratchComponents scratch = scratchComponents.get();
+            scratch.component = systems.isEmpty() ? null : getComponent(entity, updater);
+            systems.forEach(scratch);
+            if (scratch.components.size() != systems.size()) {
+                // drops the unregistered systems
+                scratch.components.clear();
+                systems.forEach(scratch);
+            }
+            scratch.component = null;
+            components = scratch.components;
+        } else {
+            components = new MemoryMap.SystemComponentMap();
+            systems.forEach((associatedSystem, entityComponentMap) ->
+                    components.put(associatedSystem, getComponent(entity, updater)));
+        }
+        final Instrumentation systemsInstrumentation = instrumentation;
+        final SystemDispatchEvent event = SystemDispatchEvent.start();
+        if (systemsInstrumentation == null && event == null) {
+            updater.update(components, entity, this, input);
+            return;
+        }
+        final long allocatedBytes = systemsInstrumentation == null ? -1 : systemsInstrumentation.allocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            updater.update(components, entity, this, input);
+        } finally {
+            endDispatch(updater, systemsInstrumentation, event, start, allocatedBytes, 1);
+        }
+    }
+
+    private static void endDispatch(SystemController updater, Instrumentation systemsInstrumentation,
+                                    SystemDispatchEvent event, long start, long allocatedBytes, long entities) {
+        if (event != null) {
+            event.end(updater, entities);
+        }
+        if (systemsInstrumentation != null) {
+            systemsInstrumentation.record(updater, start, allocatedBytes, entities);
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of all the systems of this manager to a file.
+     *
+     * @param path   the destination file (not null).
+     * @param codecs the codecs registry of the components (not null).
+     * @throws IOException if writing the file fails.
+     * @see WorldSnapshot#write(EntityComponentManager, ComponentCodecs, Path)
+     */
+    public void writeSnapshot(Path path, ComponentCodecs codecs) throws IOException {
+        WorldSnapshot.write(this, Objects.requireNonNull(codecs), Objects.requireNonNull(path));
+    }
+
+    /**
+     * Starts a background checkpoint of all the systems of this manager to a snapshot file;
+     * the updaters keep running while the checkpoint is written, and the checkpoint reflects
+     * the memory-maps at this call. Call on a tick boundary.
+     *
+     * @param path   the destination file (not null).
+     * @param codecs the codecs registry of the components (not null).
+     * @return a future completed with the snapshot path when the checkpoint is written.
+     * @throws IllegalStateException if a checkpoint is already in progress.
+     * @see Checkpoint
+     */
+    public synchronized CompletableFuture<Path> checkpoint(Path path, ComponentCodecs codecs) {
+        final Checkpoint currentCheckpoint = checkpoint;
+        if (currentCheckpoint != null && !currentCheckpoint.isDone()) {
+            throw new IllegalStateException("A checkpoint is already in progress: " + currentCheckpoint.getPath());
+        }
+        Objects.requireNonNull(codecs);
+        final Checkpoint newCheckpoint = new Checkpoint(new SystemMapView(systems, source),
+                Objects.requireNonNull(path));
+        checkpoint = newCheckpoint;
+        return newCheckpoint.start(codecs).getFuture();
+    }
+
+    /**
+     * Tests whether a background checkpoint is in progress.
+     *
+     * @return true if a checkpoint is in progress, false otherwise.
+     */
+    public boolean isCheckpointing() {
+        final Checkpoint currentCheckpoint = checkpoint;
+        return currentCheckpoint != null && !currentCheckpoint.isDone();
+    }
+
+    /**
+     * Maps a binary snapshot file as the initial state of this manager; the systems
+     * of the snapshot are decoded lazily on their first access, and a system registered
+     * before its first access shadows its snapshot data.
+     *
+     * @param path   the snapshot file (not null).
+     * @param codecs the codecs registry of the components (not null).
+     * @return the mapped snapshot.
+     * @throws IOException if the file cannot be mapped, or is not a valid snapshot.
+     */
+    public WorldSnapshot loadSnapshot(Path path, ComponentCodecs codecs) throws IOException {
+        final WorldSnapshot worldSnapshot = WorldSnapshot.map(Objects.requireNonNull(path),
+                Objects.requireNonNull(codecs));
+        setSource(worldSnapshot);
+        return worldSnapshot;
+    }
+
+    /**
+     * Attaches a journal to record the mutations of this manager.
+     *
+     * @param journal the journal to attach, or null to detach.
+     * @see WorldJournal#recover(EntityComponentManager)
+     */
+    public void setJournal(WorldJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Retrieves the attached journal.
+     *
+     * @return the journal object, or null if not attached.
+     */
+    public WorldJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Retrieves the loaded snapshot while some of its systems are not yet materialized.
+     *
+     * @return the pending snapshot, or null if none.
+     */
+    public WorldSnapshot getSnapshot() {
+        final MemoryMapSource memoryMapSource = source;
+        return memoryMapSource instanceof WorldSnapshot ? (WorldSnapshot) memoryMapSource : null;
+    }
+
+    /**
+     * Forks a logically independent world from this manager; the fork shares the storage
+     * of this world through a frozen {@link SystemMapView}, so forking costs the number of
+     * systems only; the entries mutated by this world meanwhile, either through this manager or
+     * directly on its memory-maps (e.g. by the system updaters), are preserved for the fork.
+     * A system of the fork is an overlay of the fork writes over the view, so the fork copies
+     * the entries it registers, replaces or removes only (a per-entry copy-on-write), and a tick
+     * of the fork costs its modified entries rather than the size of its systems. An overlaid
+     * system copies the remaining view entries once its modified entries reach half of them,
+     * on a tick end of the fork.
+     *
+     * <p>
+     * The fork inherits the shareable data-pipes (see {@link DataPipe#isShareable()}) and the
+     * dispatch settings, but not the stateful pipes (e.g. the stream and the broadcast pipes),
+     * the data-pipe slots, the journal or the checkpoints. Call on a tick boundary, and
+     * {@link EntityComponentManager#release()} the fork when discarding it, otherwise this
+     * world keeps preserving the mutated entries for it.
+     * </p>
+     *
+     * <p>
+     * Note: the components are shared by reference; update the forked world by registering
+     * new component objects rather than modifying the shared ones in-place.
+     * </p>
+     *
+     * @return a new forked ecs-manager.
+     */
+    public synchronized EntityComponentManager<I> fork() {
+        final EntityComponentManager<I> fork = newInstance();
+        fork.source = new SystemMapView(systems, source);
+        for (Map.Entry<Number, DataPipe<?, ?>> dataPipe : dataPipeMap.entrySet()) {
+            // the stateful pipes (e.g. the streams and the broadcasts) stay with this world
+            if (dataPipe.getValue().isShareable()) {
+                fork.dataPipeMap.put(dataPipe.getKey(), dataPipe.getValue());
+            }
+        }
+        fork.specializedDispatch = specializedDispatch;
+        fork.zeroAllocation = zeroAllocation;
+        return fork;
+    }
+
+    /**
+     * Releases the lazy source of this world (a parent world or a mapped snapshot);
+     * the systems not yet materialized, and the forked systems still overlaying the parent
+     * world, are dropped. Call when discarding a forked world.
+     */
+    public void release() {
+        if (overlaid) {
+            overlaid = false;
+            for (Map.Entry<String, MemoryMap.EntityComponentMap> system : systems.entrySet()) {
+                if (system.getValue().detach()) {
+                    systems.remove(system.getKey(), system.getValue());
+                }
+            }
+        }
+        dropSource();
+    }
+
+    private void dropSource() {
+        final MemoryMapSource memoryMapSource = source;
+        source = null;
+        if (memoryMapSource != null) {
+            memoryMapSource.release();
+        }
+    }
+
+    /**
+     * Retrieves the lazy source of this world while some of its systems are not yet materialized.
+     *
+     * @return the pending source, or null if none.
+     */
+    public MemoryMapSource getSource() {
+        return source;
+    }
+
+    /**
+     * Instantiates a new empty manager of the same kind of this manager; used by the forks.
+     *
+     * @return a new ecs-manager.
+     */
+    protected EntityComponentManager<I> newInstance() {
+        return new EntityComponentManager<>();
+    }
+
+    /**
+     * Replaces the lazy source of this world; the previous source is released.
+     *
+     * @param memoryMapSource the new source (nullable).
+     */
+    protected void setSource(MemoryMapSource memoryMapSource) {
+        final MemoryMapSource previous = source;
+        source = memoryMapSource;
+        if (previous != null && previous != memoryMapSource) {
+            previous.release();
+        }
+    }
+
+    /**
+     * Retrieves the memory-map of a system by its name; materializes
+     * the system from the lazy source on its first access.
+     *
+     * @param system the system name.
+     * @return the memory-map of the system, or null if not registered.
+     */
+    protected MemoryMap.EntityComponentMap getSystemComponents(String system) {
+        final MemoryMap.EntityComponentMap components = systems.get(system);
+        final MemoryMapSource memoryMapSource = source;
+        if (components != null || memoryMapSource == null) {
+            return components;
+        }
+        final MemoryMap.EntityComponentMap materialized = memoryMapSource.materialize(system);
+        if (materialized != null && materialized.isOverlay()) {
+            overlaid = true;
+        }
+        if (materialized != null) {
+            // registers through the controller path, so the sub-classes can layout their caches
+            register(WorldSnapshot.controllerOf(system), materialized);
+            releaseSource(memoryMapSource);
+        }
+        return systems.get(system);
+    }
+
+    /**
+     * Materializes all the remaining systems of the lazy source.
+     */
+    protected void materializeSnapshot() {
+        final MemoryMapSource memoryMapSource = source;
+        if (memoryMapSource == null) {
+            return;
+        }
+        for (String system : memoryMapSource.getSystems()) {
+            if (!systems.containsKey(system)) {
+                getSystemComponents(system);
+            }
+        }
+        if (source == memoryMapSource) {
+            // the remaining systems are shadowed by the registered ones
+            dropSource();
+        }
+    }
+
+    private void releaseSource(MemoryMapSource memoryMapSource) {
+        if (source == memoryMapSource && memoryMapSource.isMaterialized()) {
+            // drops the source once all the systems are copied or overlaid
+            dropSource();
+        }
+    }
+
+    private void compactOverlays() {
+        boolean remaining = false;
+        for (MemoryMap.EntityComponentMap components : systems.values()) {
+            if (components.compact()) {
+                remaining = true;
+            }
+        }
+        overlaid = remaining;
+    }
+
+    /**
+     * Fills a reusable system-component map of an updating thread.
+     */
+    protected static final class ScratchComponents implements BiConsumer<String, MemoryMap.EntityComponentMap> {
+        private final MemoryMap.SystemComponentMap components = new MemoryMap.SystemComponentMap();
+        private Component component;
+
+        @Override
+        public void accept(String system, MemoryMap.EntityComponentMap entityComponentMap) {
+            components.put(system, component);
+        }
     }
-}
\ No newline at end of file
+}
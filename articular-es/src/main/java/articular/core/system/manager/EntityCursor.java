@@ -0,0 +1,132 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.core.system.manager;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.EntityUpdater;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps the position of an incremental pass of an {@link EntityUpdater} over the components
+ * of its system, so a time-budgeted dispatch resumes where the previous dispatch has stopped.
+ *
+ * <p>
+ * A pass holds an entry iterator of the {@link MemoryMap.EntityComponentMap}; the iterator is weakly
+ * consistent, so the entities registered or removed between two dispatches of a pass are visited
+ * at most once, and a pass never fails on concurrent modifications. A new pass is started
+ * on the dispatch after the last entity is visited, or when the system map is replaced.
+ * </p>
+ *
+ * <p>
+ * Note: a cursor is bound to a single updater; it is not thread-safe.
+ * </p>
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#updateEntities(EntityUpdater, EntityCursor, long, Object)
+ */
+public final class EntityCursor {
+
+    private MemoryMap.EntityComponentMap components;
+    private Iterator<Map.Entry<Number, Component>> keys;
+    private long passes;
+
+    /**
+     * Instantiates a cursor at the start of a pass.
+     */
+    public EntityCursor() {
+    }
+
+    /**
+     * Retrieves the number of the passes completed by this cursor.
+     *
+     * @return the number of the completed passes.
+     */
+    public long getPasses() {
+        return passes;
+    }
+
+    /**
+     * Tests whether the next dispatch starts a new pass.
+     *
+     * @return true if no pass is in progress, false otherwise.
+     */
+    public boolean isAtStart() {
+        return keys == null;
+    }
+
+    /**
+     * Abandons the pass in progress; the next dispatch starts a new pass.
+     */
+    public void reset() {
+        components = null;
+        keys = null;
+    }
+
+    /**
+     * Dispatches an updater for the next entities of its pass until the deadline
+     * elapses or the pass completes; at least one entity is visited per call.
+     *
+     * @param updater                the per-entity updater.
+     * @param entityMap              the components of the updater system.
+     * @param entityComponentManager the dispatching manager.
+     * @param input                  the input from the game loop.
+     * @param deadline               the deadline of the dispatch on the {@link System#nanoTime()} clock.
+     * @param <I>                    the type of the game loop input.
+     * @return the number of the visited entities.
+     */
+    <I> int advance(EntityUpdater<I> updater, MemoryMap.EntityComponentMap entityMap,
+                    EntityComponentManager<I> entityComponentManager, I input, long deadline) {
+        if (keys == null || components != entityMap) {
+            components = entityMap;
+            // iterates the entries, so a forked system is iterated without materializing it
+            keys = entityMap.entrySet().iterator();
+        }
+        int visited = 0;
+        while (keys.hasNext()) {
+            final Number id = keys.next().getKey();
+            final Component component = entityMap.get(id);
+            if (component != null) {
+                updater.update(id.longValue(), component, entityComponentManager, input);
+                visited++;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return visited;
+            }
+        }
+        keys = null;
+        passes++;
+        return visited;
+    }
+}
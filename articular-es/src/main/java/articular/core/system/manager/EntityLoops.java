@@ -0,0 +1,111 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import articular.core.system.EntityUpdater;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Provides the iteration loops of the {@link EntityUpdater}s.
+ *
+ * <p>
+ * The generic loop is shared among all the updaters; once dozens of updater types
+ * are dispatched through it, its update call site becomes megamorphic, and the JIT
+ * can no longer inline the per-entity callbacks. A specialized loop is a private copy
+ * of the loop bytecode defined as a hidden class per updater class; the call site of
+ * each copy stays monomorphic, so the callback is inlined into its loop.
+ * </p>
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#setSpecializedDispatch(boolean)
+ */
+@SuppressWarnings("unchecked")
+public final class EntityLoops {
+
+    private static final EntityLoop<?> GENERIC = new EntityLoopTemplate();
+    private static final byte[] TEMPLATE = readTemplate();
+
+    private static final ClassValue<EntityLoop<?>> SPECIALIZED = new ClassValue<>() {
+        @Override
+        protected EntityLoop<?> computeValue(Class<?> updaterClass) {
+            if (TEMPLATE == null) {
+                return GENERIC;
+            }
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup()
+                        .defineHiddenClass(TEMPLATE, true);
+                return (EntityLoop<?>) lookup.findConstructor(lookup.lookupClass(),
+                        MethodType.methodType(void.class)).invoke();
+            } catch (Throwable e) {
+                // fall back to the shared loop, the dispatch remains correct
+                return GENERIC;
+            }
+        }
+    };
+
+    private EntityLoops() {
+    }
+
+    /**
+     * Retrieves the generic loop shared among all the updaters.
+     *
+     * @param <I> the type of the game loop input
+     * @return the generic loop.
+     */
+    public static <I> EntityLoop<I> generic() {
+        return (EntityLoop<I>) GENERIC;
+    }
+
+    /**
+     * Retrieves the specialized loop of an updater class; the loop is generated
+     * on the first request and cached with the updater class.
+     *
+     * @param updaterClass the updater class (not null)
+     * @param <I>          the type of the game loop input
+     * @return the specialized loop, or the generic loop if hidden classes cannot be defined.
+     */
+    public static <I> EntityLoop<I> specialized(Class<?> updaterClass) {
+        return (EntityLoop<I>) SPECIALIZED.get(updaterClass);
+    }
+
+    private static byte[] readTemplate() {
+        try (InputStream stream = EntityLoopTemplate.class
+                .getResourceAsStream(EntityLoopTemplate.class.getSimpleName() + ".class")) {
+            return stream == null ? null : stream.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
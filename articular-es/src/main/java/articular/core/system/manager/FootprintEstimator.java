@@ -0,0 +1,514 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.component.Module;
+import articular.util.ArticularManager;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Estimates the heap footprint of the memory-maps of an ecs-manager: the system memory-maps,
+ * the entity cache of an {@link ArticularManager}, and the nested memory-maps of the {@link Module}s.
+ *
+ * <p>
+ * The footprint of each memory-map is split into its shallow size (the map object, its table and
+ * its nodes), and its retained size (adding the boxed keys and the values); the values of a system
+ * memory-map are its components sized by a pluggable {@link ComponentSizer}, and the values of the
+ * cache are the nested maps of the cached entities (the cached components are shared with the systems,
+ * so they're not counted twice). The sizes are estimated from the object layouts of a 64-bit JVM with
+ * compressed references (12-byte headers, 4-byte references, 8-byte alignment).
+ * </p>
+ *
+ * <p>
+ * The estimator is incremental: it attaches a {@link ChangeTracker} to the ecs-manager, and each
+ * {@link FootprintEstimator#update()} resizes only the entities modified through the ecs-manager since
+ * the previous update; a memory-map is rescanned if it's replaced, or if its size diverges from the
+ * tracked entities (e.g. modified directly). The in-place modifications of the component objects are
+ * not observed; use {@link FootprintEstimator#rescan()} to resize all the entities. The estimator keeps
+ * the size of each entity in memory, so it's meant to diagnose (e.g. in benchmarks), not for production.
+ * </p>
+ *
+ * @author pavl_g
+ * @see FootprintEstimator#report()
+ */
+public final class FootprintEstimator implements AutoCloseable {
+
+    /**
+     * The name of the cache footprint of an {@link ArticularManager}.
+     */
+    public static final String CACHE = "<cache>";
+
+    static final long HEADER_BYTES = 12;
+    static final long REFERENCE_BYTES = 4;
+    static final long ALIGNMENT_BYTES = 8;
+    // the shallow sizes of a ConcurrentHashMap object and its node
+    static final long MAP_BYTES = 64;
+    static final long NODE_BYTES = 32;
+    static final long MIN_SLOTS = 16;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return layout(type);
+        }
+    };
+
+    // the size of a boxed long key
+    static final long KEY_BYTES = shallowSizeOf(Long.class);
+
+    private static final ComponentSizer SHALLOW_SIZER = new ComponentSizer() {
+        @Override
+        public long sizeOf(Component component) {
+            long bytes = shallowSizeOf(component.getClass());
+            if (component instanceof Module module) {
+                final MemoryMap.EntityComponentMap components = module.getComponents();
+                if (components != null) {
+                    bytes += estimateMap(components.mappingCount());
+                    for (Map.Entry<Number, Component> entry : components.entrySet()) {
+                        bytes += keySizeOf(entry.getKey()) + sizeOf(entry.getValue());
+                    }
+                }
+            }
+            return bytes;
+        }
+    };
+
+    private final EntityComponentManager<?> entityComponentManager;
+    private final ComponentSizer sizer;
+    private final ChangeTracker changeTracker = new ChangeTracker();
+    private final HashMap<String, TrackedMap> systems = new HashMap<>();
+    private final TrackedMap cache;
+    private List<MapFootprint> footprints = Collections.emptyList();
+    private boolean closed;
+
+    /**
+     * Instantiates an estimator of an ecs-manager using the {@link FootprintEstimator#shallowSizer()}.
+     *
+     * @param entityComponentManager the ecs-manager (not null).
+     */
+    public FootprintEstimator(EntityComponentManager<?> entityComponentManager) {
+        this(entityComponentManager, SHALLOW_SIZER);
+    }
+
+    /**
+     * Instantiates an estimator of an ecs-manager, and attaches its change tracker.
+     *
+     * @param entityComponentManager the ecs-manager (not null).
+     * @param sizer                  the sizer of the components (not null).
+     */
+    public FootprintEstimator(EntityComponentManager<?> entityComponentManager, ComponentSizer sizer) {
+        this.entityComponentManager = Objects.requireNonNull(entityComponentManager);
+        this.sizer = Objects.requireNonNull(sizer);
+        this.cache = new TrackedMap(CACHE, value -> {
+            final Map<?, ?> components = (Map<?, ?>) value;
+            return estimateMap(components.size());
+        });
+        entityComponentManager.attachChangeTracker(changeTracker);
+    }
+
+    /**
+     * Retrieves the default sizer of the components; it estimates the object layout of each component,
+     * including its owned {@link Component.Id} fields, and the nested memory-maps and components of
+     * the {@link Module}s. Use a custom sizer for the components owning other objects (e.g. arrays).
+     *
+     * @return the shallow sizer of the components.
+     */
+    public static ComponentSizer shallowSizer() {
+        return SHALLOW_SIZER;
+    }
+
+    /**
+     * Estimates the shallow size of the instances of a class (excluding the arrays).
+     *
+     * @param type the class (not null).
+     * @return the estimated bytes of an instance.
+     */
+    public static long shallowSizeOf(Class<?> type) {
+        return SHALLOW_SIZES.get(type);
+    }
+
+    /**
+     * Updates the footprints by resizing the entities modified since the previous update;
+     * the first update scans all the memory-maps.
+     *
+     * @return the footprints of the memory-maps, sorted by their retained sizes.
+     * @throws IllegalStateException if the estimator is closed.
+     */
+    public synchronized List<MapFootprint> update() {
+        if (closed) {
+            throw new IllegalStateException("The footprint estimator is closed");
+        }
+        final Map<String, Set<Long>> dirty = changeTracker.getDirty();
+        final MemoryMap.SystemMap systemMap = entityComponentManager.systems;
+        final boolean caching = entityComponentManager instanceof ArticularManager<?> articularManager
+                && articularManager.isEnableCaching();
+        final Set<Long> dirtyEntities = caching ? new HashSet<>() : null;
+        systems.keySet().retainAll(systemMap.keySet());
+        dirty.keySet().retainAll(systemMap.keySet());
+        final ArrayList<MapFootprint> updated = new ArrayList<>(systemMap.size() + 1);
+        for (Map.Entry<String, MemoryMap.EntityComponentMap> system : systemMap.entrySet()) {
+            final TrackedMap trackedMap = systems.computeIfAbsent(system.getKey(),
+                    name -> new TrackedMap(name, value -> sizer.sizeOf((Component) value)));
+            trackedMap.update(system.getValue(), dirty.get(system.getKey()), dirtyEntities);
+            updated.add(trackedMap.toFootprint());
+        }
+        if (caching) {
+            final MemoryMap.CacheMap cacheMap = ((ArticularManager<?>) entityComponentManager)
+                    .getCacheManager().getMemoryMap();
+            cache.update(cacheMap, dirtyEntities, null);
+            updated.add(cache.toFootprint());
+        }
+        updated.sort(Comparator.comparingLong(MapFootprint::getRetainedBytes).reversed());
+        return footprints = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * Rescans all the memory-maps, and resizes all their entities.
+     *
+     * @return the footprints of the memory-maps, sorted by their retained sizes.
+     * @throws IllegalStateException if the estimator is closed.
+     */
+    public synchronized List<MapFootprint> rescan() {
+        systems.clear();
+        cache.reset();
+        changeTracker.clear();
+        return update();
+    }
+
+    /**
+     * Retrieves the footprints of the last update.
+     *
+     * @return the footprints of the memory-maps, sorted by their retained sizes.
+     */
+    public synchronized List<MapFootprint> getFootprints() {
+        return footprints;
+    }
+
+    /**
+     * Generates a text report of the footprints of the last update; a row per memory-map
+     * followed by the totals.
+     *
+     * @return the report text.
+     */
+    public synchronized String report() {
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("%-32s %12s %14s %14s %14s %14s %10s%n",
+                "memory-map", "entries", "shallow", "keys", "values", "retained", "B/entry"));
+        long entries = 0;
+        long shallow = 0;
+        long keys = 0;
+        long values = 0;
+        for (MapFootprint footprint : footprints) {
+            report.append(String.format("%-32s %,12d %,14d %,14d %,14d %,14d %10.1f%n",
+                    footprint.getName(), footprint.getEntries(), footprint.getShallowBytes(),
+                    footprint.getKeyBytes(), footprint.getValueBytes(), footprint.getRetainedBytes(),
+                    footprint.getEntries() == 0 ? 0d : (double) footprint.getRetainedBytes() / footprint.getEntries()));
+            entries += footprint.getEntries();
+            shallow += footprint.getShallowBytes();
+            keys += footprint.getKeyBytes();
+            values += footprint.getValueBytes();
+        }
+        report.append(String.format("%-32s %,12d %,14d %,14d %,14d %,14d%n",
+                "total", entries, shallow, keys, values, shallow + keys + values));
+        return report.toString();
+    }
+
+    /**
+     * Detaches the change tracker of this estimator from the ecs-manager.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        entityComponentManager.detachChangeTracker(changeTracker);
+    }
+
+    /**
+     * Estimates the shallow size of a {@link java.util.concurrent.ConcurrentHashMap}; the map
+     * object, its table and its nodes.
+     *
+     * @param entries the number of the map entries.
+     * @return the estimated bytes.
+     */
+    static long estimateMap(long entries) {
+        // the table is allocated on the first insertion, and doubled on a load factor of 0.75
+        long slots = 0;
+        if (entries > 0) {
+            slots = MIN_SLOTS;
+            while (slots - (slots >>> 2) < entries) {
+                slots <<= 1;
+            }
+        }
+        return MAP_BYTES + align(HEADER_BYTES + REFERENCE_BYTES + slots * REFERENCE_BYTES) + entries * NODE_BYTES;
+    }
+
+    private static long keySizeOf(Number key) {
+        // the small boxed longs are shared from the Long cache
+        if (key instanceof Long && key.longValue() >= -128 && key.longValue() <= 127) {
+            return 0;
+        }
+        return shallowSizeOf(key.getClass());
+    }
+
+    private static long keySizeOf(long key) {
+        return key >= -128 && key <= 127 ? 0 : KEY_BYTES;
+    }
+
+    private static long layout(Class<?> type) {
+        long bytes = HEADER_BYTES;
+        long narrowBytes = 0;
+        boolean wide = false;
+        long ownedBytes = 0;
+        for (Class<?> declaring = type; declaring != null; declaring = declaring.getSuperclass()) {
+            for (Field field : declaring.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                final Class<?> fieldType = field.getType();
+                final long fieldBytes = fieldType == long.class || fieldType == double.class ? 8
+                        : fieldType == int.class || fieldType == float.class ? 4
+                        : fieldType == short.class || fieldType == char.class ? 2
+                        : fieldType == byte.class || fieldType == boolean.class ? 1
+                        : REFERENCE_BYTES;
+                if (fieldBytes == 8) {
+                    wide = true;
+                } else {
+                    narrowBytes += fieldBytes;
+                }
+                bytes += fieldBytes;
+                if (fieldType == Component.Id.class) {
+                    ownedBytes += shallowSizeOf(Component.Id.class);
+                }
+            }
+        }
+        // the 8-byte fields are aligned after the header, the gap is filled by the narrow fields
+        if (wide && narrowBytes < REFERENCE_BYTES) {
+            bytes += REFERENCE_BYTES - narrowBytes;
+        }
+        return align(bytes) + ownedBytes;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT_BYTES - 1) & -ALIGNMENT_BYTES;
+    }
+
+    /**
+     * Estimates the retained size of a component object.
+     */
+    @FunctionalInterface
+    public interface ComponentSizer {
+
+        /**
+         * Estimates the size of a component and the objects it owns.
+         *
+         * @param component the component object (not null).
+         * @return the estimated bytes.
+         */
+        long sizeOf(Component component);
+    }
+
+    /**
+     * Represents the estimated footprint of a memory-map at an update.
+     */
+    public static final class MapFootprint {
+        private final String name;
+        private final long entries;
+        private final long shallowBytes;
+        private final long keyBytes;
+        private final long valueBytes;
+
+        private MapFootprint(String name, long entries, long shallowBytes, long keyBytes, long valueBytes) {
+            this.name = name;
+            this.entries = entries;
+            this.shallowBytes = shallowBytes;
+            this.keyBytes = keyBytes;
+            this.valueBytes = valueBytes;
+        }
+
+        /**
+         * Retrieves the name of the memory-map; the system name, or {@link FootprintEstimator#CACHE}.
+         *
+         * @return the memory-map name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the number of the entries of the memory-map.
+         *
+         * @return the number of the entries.
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Retrieves the shallow size of the memory-map; the map object, its table and its nodes.
+         *
+         * @return the estimated bytes.
+         */
+        public long getShallowBytes() {
+            return shallowBytes;
+        }
+
+        /**
+         * Retrieves the size of the boxed keys of the memory-map.
+         *
+         * @return the estimated bytes.
+         */
+        public long getKeyBytes() {
+            return keyBytes;
+        }
+
+        /**
+         * Retrieves the size of the values of the memory-map; the components of a system,
+         * or the nested maps of the cache.
+         *
+         * @return the estimated bytes.
+         */
+        public long getValueBytes() {
+            return valueBytes;
+        }
+
+        /**
+         * Retrieves the retained size of the memory-map; the shallow size, the keys and the values.
+         *
+         * @return the estimated bytes.
+         */
+        public long getRetainedBytes() {
+            return shallowBytes + keyBytes + valueBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": entries=" + entries + ", shallow=" + shallowBytes + "B, retained=" + getRetainedBytes() + "B";
+        }
+    }
+
+    /**
+     * Tracks the sizes of the entries of a memory-map between the updates.
+     */
+    private static final class TrackedMap {
+        private final String name;
+        private final ToLongFunction<Object> valueSizer;
+        private final HashMap<Long, Long> sizes = new HashMap<>();
+        private Map<Number, ?> map;
+        private long entries;
+        private long keyBytes;
+        private long valueBytes;
+
+        private TrackedMap(String name, ToLongFunction<Object> valueSizer) {
+            this.name = name;
+            this.valueSizer = valueSizer;
+        }
+
+        private void update(Map<Number, ?> current, Set<Long> dirty, Set<Long> dirtyEntities) {
+            if (current != map) {
+                scan(current);
+                if (dirty != null) {
+                    if (dirtyEntities != null) {
+                        dirtyEntities.addAll(dirty);
+                    }
+                    dirty.clear();
+                }
+            } else if (dirty != null) {
+                for (Iterator<Long> iterator = dirty.iterator(); iterator.hasNext(); ) {
+                    final long entityId = iterator.next();
+                    iterator.remove();
+                    if (dirtyEntities != null) {
+                        dirtyEntities.add(entityId);
+                    }
+                    resize(entityId, current.get(entityId));
+                }
+            }
+            entries = current.size();
+            if (entries != sizes.size()) {
+                // modified directly, without marking the changes
+                scan(current);
+            }
+        }
+
+        private void resize(long entityId, Object value) {
+            final Long previous = value == null ? sizes.remove(entityId)
+                    : sizes.put(entityId, valueSizer.applyAsLong(value));
+            if (previous != null) {
+                valueBytes -= previous;
+                keyBytes -= keySizeOf(entityId);
+            }
+            if (value != null) {
+                valueBytes += sizes.get(entityId);
+                keyBytes += keySizeOf(entityId);
+            }
+        }
+
+        private void scan(Map<Number, ?> current) {
+            reset();
+            map = current;
+            for (Map.Entry<Number, ?> entry : current.entrySet()) {
+                final long size = valueSizer.applyAsLong(entry.getValue());
+                sizes.put(entry.getKey().longValue(), size);
+                keyBytes += keySizeOf(entry.getKey());
+                valueBytes += size;
+            }
+            entries = sizes.size();
+        }
+
+        private void reset() {
+            map = null;
+            sizes.clear();
+            entries = 0;
+            keyBytes = 0;
+            valueBytes = 0;
+        }
+
+        private MapFootprint toFootprint() {
+            return new MapFootprint(name, entries, estimateMap(entries), keyBytes, valueBytes);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import java.util.Set;
+
+/**
+ * Provides the system memory-maps of a world lazily; an ecs-manager materializes each system
+ * of its source on the first access of that system (e.g. a mapped snapshot file, or the frozen
+ * view of a parent world).
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#getSource()
+ */
+public interface MemoryMapSource {
+
+    /**
+     * Retrieves the names of the systems provided by this source.
+     *
+     * @return a set of the system names.
+     */
+    Set<String> getSystems();
+
+    /**
+     * Retrieves a single entity component without materializing its system; the repeated reads
+     * of an entity, and its materialized system, return the same component object.
+     *
+     * @param system   the system name (not null).
+     * @param entityId the entity identifier.
+     * @param <T>      the type of the component.
+     * @return the component, or null if not provided by this source.
+     */
+    <T extends Component> T getComponent(String system, long entityId);
+
+    /**
+     * Copies the components of a system into a new memory-map; a system
+     * can be copied multiple times.
+     *
+     * @param system the system name (not null).
+     * @return a new memory-map of the components, or null if the system is not provided by this source.
+     */
+    MemoryMap.EntityComponentMap copy(String system);
+
+    /**
+     * Copies the components of a system into a new memory-map once; the system
+     * is considered materialized afterwards.
+     *
+     * @param system the system name (not null).
+     * @return a new memory-map of the components, or null if the system is not provided
+     * by this source or has been already materialized.
+     */
+    MemoryMap.EntityComponentMap materialize(String system);
+
+    /**
+     * Discards a system without copying it; the system is considered materialized afterwards.
+     *
+     * @param system the system name (not null).
+     */
+    void discard(String system);
+
+    /**
+     * Tests whether a system has been materialized or discarded.
+     *
+     * @param system the system name (not null).
+     * @return true if the system has been materialized, false otherwise.
+     */
+    boolean isMaterialized(String system);
+
+    /**
+     * Tests whether all the systems of this source have been materialized or discarded.
+     *
+     * @return true if no system is left to be materialized.
+     */
+    boolean isMaterialized();
+
+    /**
+     * Releases this source once it is no longer used by its ecs-manager.
+     */
+    default void release() {
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents a frozen view of the system memory-maps of an ecs-manager at a point in time;
+ * the view shares the live memory-maps with its ecs-manager without copying them.
+ *
+ * <p>
+ * The view freezes each system memory-map ({@link MemoryMap.EntityComponentMap#freeze()}) at its
+ * creation, so the memory-maps preserve the previous component of each entry on its first modification
+ * (a copy-on-write of the modified entries only), whoever modifies them: the ecs-manager, the system
+ * updaters writing the memory-maps directly, or their iterators. The systems that were not yet materialized
+ * by the ecs-manager at the view creation are resolved from its pending source.
+ * </p>
+ *
+ * <p>
+ * A forked world materializes each system of its view as an overlay of its own writes
+ * over the view, so the fork copies the entries it modifies only.
+ * </p>
+ *
+ * <p>
+ * Note: the components are shared by reference, so the in-place modifications of the component
+ * objects are visible through the view; register new component objects instead.
+ * </p>
+ *
+ * @author pavl_g
+ * @see EntityComponentManager#fork()
+ * @see articular.core.persistence.Checkpoint
+ */
+public final class SystemMapView implements MemoryMapSource {
+
+    private final HashMap<String, MemoryMap.EntityComponentMap.Frozen> frozen = new HashMap<>();
+    private final MemoryMapSource pending;
+    private final Set<String> pendingSystems = new HashSet<>();
+    private final Set<String> materialized = new HashSet<>();
+    private int references = 1;
+    private volatile boolean released;
+
+    /**
+     * Instantiates a view of the systems memory-map of an ecs-manager, and freezes its memory-maps
+     * until the view is released; instantiate it on a tick boundary.
+     *
+     * @param systemMap the materialized system memory-maps (not null).
+     * @param pending   the pending source of the systems not yet materialized (nullable).
+     */
+    public SystemMapView(MemoryMap.SystemMap systemMap, MemoryMapSource pending) {
+        for (Map.Entry<String, MemoryMap.EntityComponentMap> system : systemMap.entrySet()) {
+            frozen.put(system.getKey(), system.getValue().freeze());
+        }
+        this.pending = pending;
+        if (pending == null) {
+            return;
+        }
+        for (String system : pending.getSystems()) {
+            if (!frozen.containsKey(system) && !pending.isMaterialized(system)) {
+                pendingSystems.add(system);
+            }
+        }
+        if (pending instanceof SystemMapView) {
+            ((SystemMapView) pending).retain();
+        }
+    }
+
+    @Override
+    public Set<String> getSystems() {
+        final Set<String> systems = new HashSet<>(frozen.keySet());
+        systems.addAll(pendingSystems);
+        return Collections.unmodifiableSet(systems);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Component> T getComponent(String system, long entityId) {
+        final MemoryMap.EntityComponentMap.Frozen components = frozen.get(system);
+        if (components == null) {
+            return pendingSystems.contains(system) ? pending.getComponent(system, entityId) : null;
+        }
+        return (T) components.get(entityId);
+    }
+
+    @Override
+    public MemoryMap.EntityComponentMap copy(String system) {
+        final MemoryMap.EntityComponentMap.Frozen components = frozen.get(system);
+        if (components == null) {
+            return pendingSystems.contains(system) ? pending.copy(system) : null;
+        }
+        return components.copy();
+    }
+
+    /**
+     * Materializes a system once; a system of the view is materialized as an overlay
+     * memory-map that keeps the writes of its forked world over this view, without copying
+     * the view entries. The overlay retains the frozen system until it detaches from it.
+     *
+     * @param system the system name (not null).
+     * @return a new overlay memory-map, a copy of a pending system, or null if the system is
+     * not provided by this view or has been already materialized.
+     */
+    @Override
+    public synchronized MemoryMap.EntityComponentMap materialize(String system) {
+        if (!isProvided(system) || !materialized.add(system)) {
+            return null;
+        }
+        if (!frozen.containsKey(system)) {
+            return pending.copy(system);
+        }
+        return frozen.get(system).overlay();
+    }
+
+    @Override
+    public synchronized void discard(String system) {
+        if (isProvided(system)) {
+            materialized.add(system);
+        }
+    }
+
+    @Override
+    public synchronized boolean isMaterialized(String system) {
+        return materialized.contains(system);
+    }
+
+    @Override
+    public synchronized boolean isMaterialized() {
+        return materialized.size() == frozen.size() + pendingSystems.size();
+    }
+
+    /**
+     * Releases a reference of this view; the view releases its frozen memory-maps when all its
+     * references are released, the memory-maps still overlaid by a forked world stay frozen until
+     * the overlays detach.
+     */
+    @Override
+    public void release() {
+        synchronized (this) {
+            if (released || --references > 0) {
+                return;
+            }
+            released = true;
+        }
+        for (MemoryMap.EntityComponentMap.Frozen components : frozen.values()) {
+            components.release();
+        }
+        if (pending != null) {
+            pending.release();
+        }
+    }
+
+    /**
+     * Tests whether this view has been released.
+     *
+     * @return true if released, false otherwise.
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Retrieves the number of the entries preserved so far (copied on write).
+     *
+     * @return the number of the preserved entries.
+     */
+    public int getPreservedCount() {
+        int count = 0;
+        for (MemoryMap.EntityComponentMap.Frozen components : frozen.values()) {
+            count += components.getPreservedCount();
+        }
+        return count;
+    }
+
+    synchronized void retain() {
+        if (released) {
+            throw new IllegalStateException("The view has been released");
+        }
+        references++;
+    }
+
+    private boolean isProvided(String system) {
+        return frozen.containsKey(system) || pendingSystems.contains(system);
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import articular.core.MemoryMap;
+import articular.core.system.metrics.Instrumentation;
+import articular.core.system.metrics.LatencyHistogram;
+import articular.core.system.metrics.SystemMetrics;
+import articular.util.ArticularManager;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the live statistics of an ecs-manager as a JMX MXBean; registered optionally
+ * by {@link WorldStatistics#register(EntityComponentManager, String)} under the
+ * {@code articular:type=World,name=<name>} object name.
+ *
+ * <p>
+ * A poll reads a sample of the ecs-manager that is retaken only if older than the maximum
+ * sample age (1 second by default); taking a sample visits each registered system once, and reads
+ * the size counters of the memory-maps without iterating their entries. The systems pending in the
+ * source of a lazy fork are sampled once materialized; the sampling never materializes them.
+ * </p>
+ *
+ * @author pavl_g
+ * @see WorldStatisticsMXBean
+ */
+public final class WorldStatistics implements WorldStatisticsMXBean, AutoCloseable {
+
+    /**
+     * The key of the cache footprint in {@link WorldStatistics#getEstimatedFootprints()}.
+     */
+    public static final String CACHE = FootprintEstimator.CACHE;
+
+    private final EntityComponentManager<?> entityComponentManager;
+    private volatile ObjectName objectName;
+    private volatile long maxSampleAge = 1000;
+    private volatile Sample sample;
+
+    /**
+     * Instantiates the statistics of an ecs-manager without registering them.
+     *
+     * @param entityComponentManager the ecs-manager (not null).
+     */
+    public WorldStatistics(EntityComponentManager<?> entityComponentManager) {
+        this.entityComponentManager = Objects.requireNonNull(entityComponentManager);
+    }
+
+    /**
+     * Registers the statistics of an ecs-manager to the platform MBean server.
+     *
+     * @param entityComponentManager the ecs-manager (not null).
+     * @param name                   the name of the world in the object name (not null).
+     * @return the registered statistics; close to unregister them.
+     * @throws IllegalStateException if the registration fails (e.g. the name is already registered).
+     */
+    public static WorldStatistics register(EntityComponentManager<?> entityComponentManager, String name) {
+        final WorldStatistics statistics = new WorldStatistics(entityComponentManager);
+        try {
+            final ObjectName objectName = new ObjectName("articular:type=World,name="
+                    + ObjectName.quote(Objects.requireNonNull(name)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, objectName);
+            statistics.objectName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the world statistics: " + name, e);
+        }
+        return statistics;
+    }
+
+    /**
+     * Retrieves the object name of the registered statistics.
+     *
+     * @return the object name, or null if not registered.
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Unregisters the statistics from the platform MBean server, if registered.
+     */
+    @Override
+    public void close() {
+        final ObjectName name = objectName;
+        if (name == null) {
+            return;
+        }
+        objectName = null;
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister the world statistics: " + name, e);
+        }
+    }
+
+    @Override
+    public int getSystemCount() {
+        return sample().entityCounts.size();
+    }
+
+    @Override
+    public long getEntityCount() {
+        return sample().entityCount;
+    }
+
+    @Override
+    public Map<String, Long> getEntityCounts() {
+        return sample().entityCounts;
+    }
+
+    @Override
+    public long getCachedEntityCount() {
+        return sample().cachedEntityCount;
+    }
+
+    @Override
+    public long getCacheHits() {
+        return sample().cacheHits;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return sample().cacheMisses;
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        final Sample current = sample();
+        final long lookups = current.cacheHits + current.cacheMisses;
+        return lookups == 0 ? 0 : (double) current.cacheHits / lookups;
+    }
+
+    @Override
+    public int getDataPipeCount() {
+        return sample().dataPipeCount;
+    }
+
+    @Override
+    public int getDataPipeSlotCount() {
+        return sample().dataPipeSlotCount;
+    }
+
+    @Override
+    public Map<String, Long> getEstimatedFootprints() {
+        return sample().footprints;
+    }
+
+    @Override
+    public Map<String, Long> getDispatchLatencyP50() {
+        return sample().latencyP50;
+    }
+
+    @Override
+    public Map<String, Long> getDispatchLatencyP99() {
+        return sample().latencyP99;
+    }
+
+    @Override
+    public Map<String, Long> getDispatchLatencyMax() {
+        return sample().latencyMax;
+    }
+
+    @Override
+    public long getSampleTime() {
+        return sample().time;
+    }
+
+    @Override
+    public long getMaxSampleAge() {
+        return maxSampleAge;
+    }
+
+    @Override
+    public void setMaxSampleAge(long maxSampleAge) {
+        if (maxSampleAge < 0) {
+            throw new IllegalArgumentException("Invalid sample age: " + maxSampleAge);
+        }
+        this.maxSampleAge = maxSampleAge;
+    }
+
+    private Sample sample() {
+        final Sample current = sample;
+        if (current != null && System.currentTimeMillis() - current.time <= maxSampleAge) {
+            return current;
+        }
+        synchronized (this) {
+            // another poller may have retaken the sample
+            if (sample != current) {
+                return sample;
+            }
+            return sample = takeSample();
+        }
+    }
+
+    private Sample takeSample() {
+        final Sample next = new Sample();
+        next.time = System.currentTimeMillis();
+        final Map<String, Long> entityCounts = new HashMap<>();
+        final Map<String, Long> footprints = new HashMap<>();
+        for (Map.Entry<String, MemoryMap.EntityComponentMap> system : entityComponentManager.systems.entrySet()) {
+            final long entities = system.getValue().mappingCount();
+            entityCounts.put(system.getKey(), entities);
+            footprints.put(system.getKey(), estimateFootprint(entities));
+            next.entityCount += entities;
+        }
+        if (entityComponentManager instanceof ArticularManager<?> articularManager) {
+            final CacheManager cacheManager = articularManager.getCacheManager();
+            next.cachedEntityCount = cacheManager.getMemoryMap().mappingCount();
+            // each cached entity holds a nested map of its components keyed by the shared system names
+            footprints.put(CACHE, estimateFootprint(next.cachedEntityCount)
+                    + next.cachedEntityCount * FootprintEstimator.estimateMap(1)
+                    + Math.max(0, next.entityCount - next.cachedEntityCount) * FootprintEstimator.NODE_BYTES);
+            next.cacheHits = cacheManager.getHits();
+            next.cacheMisses = cacheManager.getMisses();
+        }
+        next.dataPipeCount = entityComponentManager.dataPipeMap.size();
+        next.dataPipeSlotCount = entityComponentManager.dataPipeSlots.length;
+        final Map<String, Long> latencyP50 = new HashMap<>();
+        final Map<String, Long> latencyP99 = new HashMap<>();
+        final Map<String, Long> latencyMax = new HashMap<>();
+        final Instrumentation instrumentation = entityComponentManager.getInstrumentation();
+        if (instrumentation != null) {
+            for (SystemMetrics metrics : instrumentation.getMetrics()) {
+                final LatencyHistogram latency = metrics.getLatency();
+                latencyP50.put(metrics.getName(), latency.getValueAtPercentile(50));
+                latencyP99.put(metrics.getName(), latency.getValueAtPercentile(99));
+                latencyMax.put(metrics.getName(), latency.getMax());
+            }
+        }
+        next.entityCounts = Collections.unmodifiableMap(entityCounts);
+        next.footprints = Collections.unmodifiableMap(footprints);
+        next.latencyP50 = Collections.unmodifiableMap(latencyP50);
+        next.latencyP99 = Collections.unmodifiableMap(latencyP99);
+        next.latencyMax = Collections.unmodifiableMap(latencyMax);
+        return next;
+    }
+
+    private static long estimateFootprint(long entries) {
+        return FootprintEstimator.estimateMap(entries) + entries * FootprintEstimator.KEY_BYTES;
+    }
+
+    private static final class Sample {
+        private long time;
+        private long entityCount;
+        private long cachedEntityCount;
+        private long cacheHits;
+        private long cacheMisses;
+        private int dataPipeCount;
+        private int dataPipeSlotCount;
+        private Map<String, Long> entityCounts;
+        private Map<String, Long> footprints;
+        private Map<String, Long> latencyP50;
+        private Map<String, Long> latencyP99;
+        private Map<String, Long> latencyMax;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.manager;
+
+import java.util.Map;
+
+/**
+ * The management interface of the live statistics of an ecs-manager.
+ *
+ * <p>
+ * The attributes are read from a sample of the ecs-manager taken at most once per the
+ * {@link WorldStatisticsMXBean#getMaxSampleAge()}; so the pollers never iterate the entries of
+ * the memory-maps, the sizes are read from the map counters, and the latencies from the
+ * histograms of the attached {@link articular.core.system.metrics.Instrumentation}.
+ * </p>
+ *
+ * @author pavl_g
+ * @see WorldStatistics
+ */
+public interface WorldStatisticsMXBean {
+
+    /**
+     * Retrieves the number of the registered systems.
+     *
+     * @return the number of the systems.
+     */
+    int getSystemCount();
+
+    /**
+     * Retrieves the number of the entity components of all the registered systems.
+     *
+     * @return the total number of the entity components.
+     */
+    long getEntityCount();
+
+    /**
+     * Retrieves the number of the entity components of each registered system.
+     *
+     * @return the number of the entity components by the system names.
+     */
+    Map<String, Long> getEntityCounts();
+
+    /**
+     * Retrieves the number of the cached entities of an {@code ArticularManager}.
+     *
+     * @return the number of the cached entities, or 0 if the ecs-manager doesn't cache.
+     */
+    long getCachedEntityCount();
+
+    /**
+     * Retrieves the number of the entity lookups resolved from the cache.
+     *
+     * @return the cache hits.
+     */
+    long getCacheHits();
+
+    /**
+     * Retrieves the number of the entity lookups missing from the cache.
+     *
+     * @return the cache misses.
+     */
+    long getCacheMisses();
+
+    /**
+     * Retrieves the ratio of the entity lookups resolved from the cache.
+     *
+     * @return the hit ratio in [0, 1].
+     */
+    double getCacheHitRatio();
+
+    /**
+     * Retrieves the number of the registered data-pipes.
+     *
+     * @return the number of the data-pipes.
+     */
+    int getDataPipeCount();
+
+    /**
+     * Retrieves the number of the declared data-pipe slots.
+     *
+     * @return the number of the data-pipe slots.
+     */
+    int getDataPipeSlotCount();
+
+    /**
+     * Estimates the heap footprint of the structure of each memory-map (the tables, the nodes
+     * and the boxed keys, excluding the components); the cache is reported as {@code <cache>}.
+     *
+     * @return the estimated bytes by the system names.
+     * @see FootprintEstimator for the retained sizes
+     */
+    Map<String, Long> getEstimatedFootprints();
+
+    /**
+     * Retrieves the median dispatch latency of each instrumented system controller.
+     *
+     * @return the latencies in nanoseconds by the metrics names.
+     */
+    Map<String, Long> getDispatchLatencyP50();
+
+    /**
+     * Retrieves the 99th percentile dispatch latency of each instrumented system controller.
+     *
+     * @return the latencies in nanoseconds by the metrics names.
+     */
+    Map<String, Long> getDispatchLatencyP99();
+
+    /**
+     * Retrieves the maximum dispatch latency of each instrumented system controller.
+     *
+     * @return the latencies in nanoseconds by the metrics names.
+     */
+    Map<String, Long> getDispatchLatencyMax();
+
+    /**
+     * Retrieves the time of the current sample.
+     *
+     * @return the sample time in milliseconds since the epoch.
+     */
+    long getSampleTime();
+
+    /**
+     * Retrieves the maximum age of a sample before it is retaken on a poll.
+     *
+     * @return the maximum age in milliseconds.
+     */
+    long getMaxSampleAge();
+
+    /**
+     * Sets the maximum age of a sample before it is retaken on a poll.
+     *
+     * @param maxSampleAge the maximum age in milliseconds.
+     */
+    void setMaxSampleAge(long maxSampleAge);
+}
@@ -0,0 +1,87 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event of laying out the entity cache of a registered system memory-map
+ * (the [entity][system](component) layout of the {@code ArticularManager}); disabled by default.
+ *
+ * @author pavl_g
+ */
+@Name("articular.CacheRebuild")
+@Label("Cache Rebuild")
+@Category({"Articular-ES", "Cache"})
+@Description("The entity cache laid out for a registered system memory-map")
+@Enabled(false)
+public final class CacheRebuildEvent extends Event {
+
+    @Label("System")
+    private String system;
+
+    @Label("Entities")
+    @Description("The number of the cached entity components")
+    private long entities;
+
+    @Label("Parallel")
+    @Description("Whether the cache is laid out in parallel")
+    private boolean parallel;
+
+    /**
+     * Instantiates a new event; call {@link Event#begin()} before the layout.
+     */
+    public CacheRebuildEvent() {
+    }
+
+    /**
+     * Ends the event after a cache layout, and commits it if it passes the recording settings.
+     *
+     * @param system   the cached system name.
+     * @param entities the number of the cached entity components.
+     * @param parallel true if laid out in parallel.
+     */
+    public void end(String system, long entities, boolean parallel) {
+        end();
+        if (shouldCommit()) {
+            this.system = system;
+            this.entities = entities;
+            this.parallel = parallel;
+            commit();
+        }
+    }
+}
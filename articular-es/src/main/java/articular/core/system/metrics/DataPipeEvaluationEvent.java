@@ -0,0 +1,101 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.metrics;
+
+import articular.core.system.data.DataPipe;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of evaluating a data-pipe algorithm (e.g. a bound data-pipe slot,
+ * or a non-memoized data-flow graph node); disabled by default.
+ *
+ * @author pavl_g
+ */
+@Name("articular.DataPipeEvaluation")
+@Label("Data-Pipe Evaluation")
+@Category({"Articular-ES", "Data-Pipes"})
+@Description("A data-pipe algorithm evaluated")
+@Enabled(false)
+@StackTrace(false)
+public final class DataPipeEvaluationEvent extends Event {
+
+    @Label("Data-Pipe")
+    @Description("The identifier of the data-pipe")
+    private long dataPipe;
+
+    @Label("Data-Pipe Class")
+    private Class<?> dataPipeClass;
+
+    /**
+     * Instantiates a new event; call {@link Event#begin()} before the evaluation.
+     */
+    public DataPipeEvaluationEvent() {
+    }
+
+    /**
+     * Begins a new event if the flight recorder is initialized, and the event is enabled.
+     *
+     * @return the begun event, or null if not recorded.
+     */
+    public static DataPipeEvaluationEvent start() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        final DataPipeEvaluationEvent event = new DataPipeEvaluationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event after an evaluation, and commits it if it passes the recording settings.
+     *
+     * @param dataPipe the evaluated data-pipe.
+     */
+    public void end(DataPipe<?, ?> dataPipe) {
+        end();
+        if (shouldCommit()) {
+            this.dataPipe = dataPipe.getId().longValue();
+            this.dataPipeClass = dataPipe.getClass();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.metrics;
+
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instruments the system dispatches of an ecs-manager; attached by
+ * {@link EntityComponentManager#setInstrumentation(Instrumentation)}.
+ *
+ * <p>
+ * Each dispatch through the ecs-manager's update methods is timed and recorded into the {@link SystemMetrics}
+ * of its controller; a dispatch costs two clock reads, a map lookup and a few uncontended atomic additions,
+ * so the instrumentation can be left enabled. The allocated bytes are measured by reading the thread allocation
+ * counter of the JVM (if supported), which is disabled by default.
+ * </p>
+ *
+ * <p>
+ * The metrics are published to a {@link MetricsSink} on every interval of ticks, from the thread
+ * ending the ticks; or by {@link Instrumentation#publish()} on demand.
+ * </p>
+ *
+ * @author pavl_g
+ * @see SystemMetrics
+ */
+public final class Instrumentation {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final ConcurrentHashMap<SystemController, SystemMetrics> metrics = new ConcurrentHashMap<>();
+    private final Collection<SystemMetrics> view = Collections.unmodifiableCollection(metrics.values());
+    private volatile boolean allocationTracking;
+    private volatile MetricsSink sink;
+    private volatile int publishInterval;
+    private long tick;
+
+    /**
+     * Instantiates a new instrumentation without a sink.
+     */
+    public Instrumentation() {
+    }
+
+    /**
+     * Tests whether the JVM supports measuring the allocated bytes of the threads.
+     *
+     * @return true if the allocation tracking is supported.
+     */
+    public static boolean isAllocationTrackingSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Enables/disables measuring the bytes allocated by each dispatch.
+     *
+     * @param allocationTracking true to track the allocations.
+     * @return this instrumentation for chaining.
+     * @throws UnsupportedOperationException if enabled on a JVM without the support.
+     */
+    public Instrumentation setAllocationTracking(boolean allocationTracking) {
+        if (allocationTracking && THREADS == null) {
+            throw new UnsupportedOperationException("Thread allocation tracking is not supported by this JVM");
+        }
+        this.allocationTracking = allocationTracking;
+        return this;
+    }
+
+    /**
+     * Tests whether the allocations of the dispatches are measured.
+     *
+     * @return true if the allocation tracking is enabled.
+     */
+    public boolean isAllocationTracking() {
+        return allocationTracking;
+    }
+
+    /**
+     * Sets the sink to publish the metrics to on every interval of ticks.
+     *
+     * @param sink            the metrics sink, or null to disable the publication.
+     * @param publishInterval the number of the ticks between two publications.
+     * @return this instrumentation for chaining.
+     */
+    public Instrumentation setSink(MetricsSink sink, int publishInterval) {
+        if (publishInterval <= 0) {
+            throw new IllegalArgumentException("Invalid publish interval: " + publishInterval);
+        }
+        this.publishInterval = publishInterval;
+        this.sink = sink;
+        return this;
+    }
+
+    /**
+     * Retrieves the metrics of a system controller, or creates them on the first call.
+     *
+     * @param systemController the system controller (not null).
+     * @return the metrics of the controller.
+     */
+    public SystemMetrics getMetrics(SystemController systemController) {
+        final SystemMetrics systemMetrics = metrics.get(systemController);
+        if (systemMetrics != null) {
+            return systemMetrics;
+        }
+        return metrics.computeIfAbsent(systemController, SystemMetrics::new);
+    }
+
+    /**
+     * Retrieves the metrics of all the dispatched system controllers.
+     *
+     * @return a live read-only collection of the metrics.
+     */
+    public Collection<SystemMetrics> getMetrics() {
+        return view;
+    }
+
+    /**
+     * Reads the allocation counter of the calling thread before a dispatch.
+     *
+     * @return the allocated bytes of the thread, or -1 if the allocations are not tracked.
+     */
+    public long allocatedBytes() {
+        return allocationTracking ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Records a dispatch started by the calling thread.
+     *
+     * @param systemController the dispatched controller (not null).
+     * @param startNanos       the {@link System#nanoTime()} at the dispatch start.
+     * @param allocatedBytes   the {@link Instrumentation#allocatedBytes()} at the dispatch start.
+     * @param entities         the number of the visited entities.
+     */
+    public void record(SystemController systemController, long startNanos, long allocatedBytes, long entities) {
+        final long nanos = System.nanoTime() - startNanos;
+        final long allocated = allocatedBytes < 0 || !allocationTracking ? -1
+                : THREADS.getCurrentThreadAllocatedBytes() - allocatedBytes;
+        getMetrics(systemController).record(nanos, entities, allocated);
+    }
+
+    /**
+     * Advances the instrumentation tick, and publishes the metrics on the end of an interval;
+     * called by the ecs-manager on each tick end.
+     */
+    public void endTick() {
+        tick++;
+        final MetricsSink metricsSink = sink;
+        if (metricsSink != null && tick % publishInterval == 0) {
+            metricsSink.publish(tick, view);
+        }
+    }
+
+    /**
+     * Publishes the metrics to the sink now.
+     */
+    public void publish() {
+        final MetricsSink metricsSink = sink;
+        if (metricsSink != null) {
+            metricsSink.publish(tick, view);
+        }
+    }
+
+    /**
+     * Clears the metrics of all the system controllers.
+     */
+    public void reset() {
+        for (SystemMetrics systemMetrics : metrics.values()) {
+            systemMetrics.reset();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean allocations
+                    && allocations.isThreadAllocatedMemorySupported()) {
+                allocations.setThreadAllocatedMemoryEnabled(true);
+                return allocations;
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // the JVM doesn't provide the management extensions
+        }
+        return null;
+    }
+}
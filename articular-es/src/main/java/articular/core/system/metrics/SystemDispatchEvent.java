@@ -0,0 +1,112 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.metrics;
+
+import articular.core.system.SystemController;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event of a system updater dispatched by an ecs-manager; disabled by default,
+ * enable it in a recording by its name (e.g. {@code jfr configure articular.SystemDispatch#enabled=true}).
+ *
+ * <p>
+ * The event is allocated only if the flight recorder is initialized; otherwise, a dispatch
+ * costs nothing but a test. If the event is not enabled in a running recording, its allocation
+ * is eliminated by the JIT and its methods are no-ops.
+ * </p>
+ *
+ * @author pavl_g
+ */
+@Name("articular.SystemDispatch")
+@Label("System Dispatch")
+@Category({"Articular-ES", "Systems"})
+@Description("A system updater dispatched by an ecs-manager")
+@Enabled(false)
+@StackTrace(false)
+public final class SystemDispatchEvent extends Event {
+
+    @Label("System")
+    private String system;
+
+    @Label("Controller Class")
+    private Class<?> controller;
+
+    @Label("Entities")
+    @Description("The number of the entities visited by the dispatch")
+    private long entities;
+
+    /**
+     * Instantiates a new event; call {@link Event#begin()} before the dispatch.
+     */
+    public SystemDispatchEvent() {
+    }
+
+    /**
+     * Begins a new event if the flight recorder is initialized, and the event is enabled.
+     *
+     * @return the begun event, or null if not recorded.
+     */
+    public static SystemDispatchEvent start() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        final SystemDispatchEvent event = new SystemDispatchEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event after a dispatch, and commits it if it passes the recording settings.
+     *
+     * @param systemController the dispatched system controller.
+     * @param entities         the number of the visited entities.
+     */
+    public void end(SystemController systemController, long entities) {
+        end();
+        if (shouldCommit()) {
+            this.system = systemController.getId().getId();
+            this.controller = systemController.getClass();
+            this.entities = entities;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.metrics;
+
+import articular.core.system.SystemController;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates the dispatches of a system controller: the number of the calls, their wall
+ * time, the entities visited and (if tracked) the bytes allocated by the calling thread.
+ *
+ * @author pavl_g
+ * @see Instrumentation
+ */
+public final class SystemMetrics {
+
+    private final SystemController systemController;
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong entities = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    SystemMetrics(SystemController systemController) {
+        this.systemController = systemController;
+        final Class<?> controllerClass = systemController.getClass();
+        final String system = systemController.getId().getId();
+        // names the controllers by their systems, and their named classes (e.g. several updaters of a system)
+        this.name = controllerClass.isHidden() || controllerClass.isAnonymousClass()
+                ? system : system + "/" + controllerClass.getSimpleName();
+    }
+
+    /**
+     * Records a dispatch.
+     *
+     * @param nanos          the wall time of the call.
+     * @param entities       the number of the visited entities.
+     * @param allocatedBytes the allocated bytes of the call, or a negative value if not tracked.
+     */
+    void record(long nanos, long entities, long allocatedBytes) {
+        latency.record(nanos);
+        this.entities.getAndAdd(entities);
+        if (allocatedBytes > 0) {
+            this.allocatedBytes.getAndAdd(allocatedBytes);
+        }
+    }
+
+    /**
+     * Retrieves the instrumented system controller.
+     *
+     * @return the system controller.
+     */
+    public SystemController getSystemController() {
+        return systemController;
+    }
+
+    /**
+     * Retrieves the name of the metrics; the system name, followed by the
+     * controller class name for the named controller classes.
+     *
+     * @return the metrics name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieves the number of the dispatches.
+     *
+     * @return the number of the calls.
+     */
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    /**
+     * Retrieves the total wall time of the dispatches.
+     *
+     * @return the total time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return latency.getSum();
+    }
+
+    /**
+     * Retrieves the total number of the entities visited by the dispatches.
+     *
+     * @return the number of the visited entities.
+     */
+    public long getEntities() {
+        return entities.get();
+    }
+
+    /**
+     * Retrieves the throughput of the dispatches.
+     *
+     * @return the visited entities per second of the dispatch time.
+     */
+    public double getEntitiesPerSecond() {
+        final long nanos = latency.getSum();
+        return nanos == 0 ? 0 : entities.get() * 1e9 / nanos;
+    }
+
+    /**
+     * Retrieves the total bytes allocated by the dispatching threads through the dispatches.
+     *
+     * @return the allocated bytes, or 0 if the allocations are not tracked.
+     * @see Instrumentation#setAllocationTracking(boolean)
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Retrieves the histogram of the dispatch latencies in nanoseconds.
+     *
+     * @return the latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Clears the aggregated metrics.
+     */
+    public void reset() {
+        latency.reset();
+        entities.set(0);
+        allocatedBytes.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d, mean=%.0fns, p99=%dns, max=%dns, entities/s=%.0f, allocated=%dB",
+                name, getCalls(), latency.getMean(), latency.getValueAtPercentile(99), latency.getMax(),
+                getEntitiesPerSecond(), getAllocatedBytes());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.core.system.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event of registering the memory-map of a system in bulk (e.g. a loaded,
+ * restored or allocated system) to an ecs-manager, including laying out its cache; disabled by default.
+ *
+ * @author pavl_g
+ */
+@Name("articular.SystemRegistration")
+@Label("System Registration")
+@Category({"Articular-ES", "Systems"})
+@Description("The memory-map of a system registered to an ecs-manager")
+@Enabled(false)
+public final class SystemRegistrationEvent extends Event {
+
+    @Label("System")
+    private String system;
+
+    @Label("Entities")
+    @Description("The number of the entity components of the registered memory-map")
+    private long entities;
+
+    /**
+     * Instantiates a new event; call {@link Event#begin()} before the registration.
+     */
+    public SystemRegistrationEvent() {
+    }
+
+    /**
+     * Ends the event after a registration, and commits it if it passes the recording settings.
+     *
+     * @param system   the registered system name.
+     * @param entities the number of the registered entity components.
+     */
+    public void end(String system, long entities) {
+        end();
+        if (shouldCommit()) {
+            this.system = system;
+            this.entities = entities;
+            commit();
+        }
+    }
+}
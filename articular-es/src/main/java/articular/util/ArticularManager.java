@@ -38,6 +38,9 @@ import articular.core.system.ComponentUpdater;
 import articular.core.system.SystemController;
 import articular.core.system.manager.CacheManager;
 import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.manager.MemoryMapSource;
+import articular.core.system.metrics.CacheMissEvent;
+import articular.core.system.metrics.CacheRebuildEvent;
 
 /**
  * TODO
@@ -48,6 +51,12 @@ import articular.core.system.manager.EntityComponentManager;
 @SuppressWarnings("unchecked")
 public class ArticularManager<I> extends EntityComponentManager<I> {
 
+    /**
+     * The number of the components of a registered memory-map above which
+     * its cache layout is built in parallel.
+     */
+    protected static final long PARALLELISM_THRESHOLD = 1 << 16;
+
     /**
      * TODO
      */
@@ -60,6 +69,12 @@ public class ArticularManager<I> extends EntityComponentManager<I> {
 
     @Override
     public <T extends Component> T allocateComponent(Entity entity, SystemController systemController, Component.Id id) {
+        if (isZeroAllocation()) {
+            final Component component = getComponent(entity, systemController);
+            if (component != null && component.getId() == id) {
+                return (T) component;
+            }
+        }
         final Component component = () -> id;
         register(entity, component, systemController);
 
@@ -72,14 +87,35 @@ public class ArticularManager<I> extends EntityComponentManager<I> {
     }
 
     @Override
-    public void register(Entity entity, Component component, SystemController systemController) {
-        super.register(entity, component, systemController);
+    public void restoreComponent(String system, long entityId, Component component, boolean journaled) {
+        super.restoreComponent(system, entityId, component, journaled);
 
         if (!isEnableCaching()) {
             return;
         }
         // cache to the [entity][system](component) layout
-        cacheManager.register(entity, component, systemController);
+        if (component == null) {
+            final MemoryMap.SystemComponentMap systemComponentMap = cacheManager.getMemoryMap()
+                    .get(MemoryMap.LookupKey.of(entityId));
+            if (systemComponentMap != null) {
+                systemComponentMap.remove(system);
+            }
+            return;
+        }
+        if (isZeroAllocation()) {
+            // updates the cached entities without boxing their keys
+            final MemoryMap.SystemComponentMap systemComponentMap = cacheManager.getMemoryMap()
+                    .get(MemoryMap.LookupKey.of(entityId));
+            if (systemComponentMap != null) {
+                systemComponentMap.put(system, component);
+                return;
+            }
+        }
+        cacheManager.getMemoryMap().computeIfAbsent(entityId, id -> {
+                        CacheMissEvent.emit(id.longValue(), system);
+                        return new MemoryMap.SystemComponentMap();
+                    })
+                    .put(system, component);
     }
 
     @Override
@@ -90,19 +126,19 @@ public class ArticularManager<I> extends EntityComponentManager<I> {
             return;
         }
         // cache to the [entity][system](component) layout is not supported by this method!
-        memoryMap.forEach((number, component) -> {
+        // the large maps (e.g. bulk loaded or restored) are laid out in parallel
+        final String system = systemController.getId().getId();
+        final CacheRebuildEvent event = new CacheRebuildEvent();
+        event.begin();
+        memoryMap.forEach(PARALLELISM_THRESHOLD, (number, component) -> {
             // 1) build a memory map
-            MemoryMap.SystemComponentMap systemComponentMap;
-            if (cacheManager.getMemoryMap().get(number) == null) {
-                systemComponentMap = new MemoryMap.SystemComponentMap();
-                cacheManager.getMemoryMap().put(number, systemComponentMap);
-            } else {
-                systemComponentMap = cacheManager.getMemoryMap().get(number);
-            }
+            final MemoryMap.SystemComponentMap systemComponentMap = cacheManager.getMemoryMap()
+                    .computeIfAbsent(number, key -> new MemoryMap.SystemComponentMap());
             // 2) copy data
-            systemComponentMap.put(systemController.getId().getId(),
-                    component);
+            systemComponentMap.put(system, component);
         });
+        final long entities = memoryMap.mappingCount();
+        event.end(system, entities, entities >= PARALLELISM_THRESHOLD);
     }
 
     @Override
@@ -115,7 +151,49 @@ public class ArticularManager<I> extends EntityComponentManager<I> {
         Validator.validate(entity, Validator.Message.INVALID_ENTITY);
         // do a manipulation from the cache, constant omega notation, single CPU clock cycles
         // manipulate cache of the [entity][system](component) layout
-        updater.update(cacheManager.getMemoryMap(entity), entity, this, input);
+        updater.update(getCachedComponents(entity), entity, this, input);
+    }
+
+    /**
+     * Retrieves the cached components of an entity. While this world has a lazy source (e.g. the view
+     * of its parent world after a fork), the cache of an entity is filled from the systems of the source
+     * not yet materialized on the access of the entity, rather than rebuilding the cache of the whole world;
+     * a materialized system is cached on its registration.
+     *
+     * @param entity the entity (not null).
+     * @return the cached components of the entity, or null if the entity has no components.
+     */
+    protected MemoryMap.SystemComponentMap getCachedComponents(Entity entity) {
+        final MemoryMapSource memoryMapSource = getSource();
+        if (memoryMapSource == null) {
+            return cacheManager.getMemoryMap(entity);
+        }
+        final long entityId = entity.getId().longValue();
+        for (String system : memoryMapSource.getSystems()) {
+            if (getMemoryMap().containsKey(system) || memoryMapSource.isMaterialized(system)) {
+                // the materialized systems are cached on their registration, the discarded ones are dropped
+                continue;
+            }
+            final Component component = memoryMapSource.getComponent(system, entityId);
+            if (component != null) {
+                // keeps the cached writes of the entity
+                cacheManager.getMemoryMap().computeIfAbsent(entityId, id -> new MemoryMap.SystemComponentMap())
+                            .putIfAbsent(system, component);
+            }
+        }
+        return cacheManager.getMemoryMap(entity);
+    }
+
+    @Override
+    public ArticularManager<I> fork() {
+        return (ArticularManager<I>) super.fork();
+    }
+
+    @Override
+    protected EntityComponentManager<I> newInstance() {
+        final ArticularManager<I> articularManager = new ArticularManager<>();
+        articularManager.setEnableCaching(enableCaching);
+        return articularManager;
     }
 
     /**
@@ -0,0 +1,118 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides executors backed by virtual threads when the running JVM supports
+ * them, and falls back to cached pools of daemon platform threads otherwise.
+ *
+ * <p>
+ * The virtual-thread factory is resolved reflectively; so the framework keeps compiling
+ * against its baseline JDK, and the preview virtual threads of older runtimes are used only
+ * when the preview features are enabled.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle NEW_VIRTUAL_EXECUTOR = resolve();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Tests whether the running JVM provides virtual threads.
+     *
+     * @return true if virtual threads are available, false otherwise.
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Instantiates a new executor starting a new virtual thread per task,
+     * or a cached pool of daemon platform threads if virtual threads are unavailable.
+     *
+     * @param name the name prefix of the fallback platform threads (not null).
+     * @return a new executor service.
+     */
+    public static ExecutorService newExecutor(String name) {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invokeExact();
+            } catch (Throwable ignored) {
+                // fall through to the platform threads
+            }
+        }
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Retrieves the shared default executor of the framework.
+     *
+     * @return a shared executor service (not null).
+     */
+    public static ExecutorService getDefaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    private static MethodHandle resolve() {
+        try {
+            final MethodHandle factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            // probe once, preview runtimes throw if the preview features are disabled
+            ((ExecutorService) factory.invokeExact()).shutdown();
+            return factory;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static final class DefaultExecutor {
+        private static final ExecutorService INSTANCE = newExecutor("articular-worker");
+    }
+}
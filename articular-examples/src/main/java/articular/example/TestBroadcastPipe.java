@@ -0,0 +1,224 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.data.BroadcastPipe;
+import articular.core.system.data.DataPipe;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.ArticularManager;
+import java.util.List;
+
+/**
+ * Examines the broadcast data-pipe {@link BroadcastPipe}; a sensor-fusion system publishes
+ * one fused value per tick, and five consumer systems read it through their own cursors without
+ * unregistering the pipe. Then, the consistency of the reads is verified while another thread
+ * publishes concurrently, so the readers retry the slots overwritten under them.
+ *
+ * @author pavl_g
+ */
+public final class TestBroadcastPipe {
+
+    private static final EntityComponentManager<Integer> ecsManager = new ArticularManager<>();
+    private static final Component.Id FUSED_SENSOR = new Component.Id(1);
+    private static final int TICKS = 64;
+    private static final int HISTORY = 4;
+    private static final long CONCURRENT_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        final BroadcastPipe<Fused> broadcastPipe = new BroadcastPipe<>(FUSED_SENSOR, HISTORY);
+        ecsManager.registerDataPipe(broadcastPipe);
+
+        final SystemEntitiesUpdater<Integer> sensorFusion = system("Sensor-fusion", (entityComponentManager, tick) -> {
+            final BroadcastPipe<Fused> pipe = broadcast(entityComponentManager);
+            pipe.publish(new Fused(tick, Math.sin(tick * 0.1)));
+        });
+        // three consumers read the latest value on each tick
+        final Consumer[] latest = new Consumer[3];
+        for (int i = 0; i < latest.length; i++) {
+            latest[i] = new Consumer(broadcastPipe.subscribe());
+            final Consumer consumer = latest[i];
+            consumer.system = system("Latest-reader-" + i, (entityComponentManager, tick) -> {
+                final DataPipe<Fused, BroadcastPipe.Cursor> pipe = entityComponentManager.getDataPipe(FUSED_SENSOR);
+                final Fused fused = pipe.getData(consumer.cursor);
+                expect(fused.tick() == tick, "A latest reader has read the value of tick " + fused.tick() + " at " + tick);
+                expect(!broadcast(entityComponentManager).hasUpdate(consumer.cursor), "The read value is not the latest");
+                consumer.reads++;
+                consumer.sum += fused.value();
+            });
+        }
+        // a telemetry consumer polls every published value on every other tick
+        final Consumer telemetry = new Consumer(broadcastPipe.subscribe());
+        telemetry.system = system("Telemetry", (entityComponentManager, tick) -> {
+            if (tick % 2 == 0) {
+                return;
+            }
+            Fused fused;
+            while ((fused = broadcast(entityComponentManager).poll(telemetry.cursor)) != null) {
+                expect(fused.tick() == telemetry.reads, "Telemetry has polled tick " + fused.tick() + " out of order");
+                telemetry.reads++;
+                telemetry.sum += fused.value();
+            }
+        });
+        // a logger consumer lags behind the retained history, and skips the overwritten values
+        final Consumer logger = new Consumer(broadcastPipe.subscribe());
+        logger.system = system("Logger", (entityComponentManager, tick) -> {
+            if (tick % (HISTORY * 2) != HISTORY * 2 - 1) {
+                return;
+            }
+            while (broadcast(entityComponentManager).poll(logger.cursor) != null) {
+                logger.reads++;
+            }
+        });
+
+        final List<SystemEntitiesUpdater<Integer>> consumers =
+                List.of(latest[0].system, latest[1].system, latest[2].system, telemetry.system, logger.system);
+        ecsManager.allocateMemoryMap(sensorFusion);
+        for (SystemEntitiesUpdater<Integer> consumer : consumers) {
+            ecsManager.allocateMemoryMap(consumer);
+        }
+        for (int tick = 0; tick < TICKS; tick++) {
+            ecsManager.updateSystemComponents(sensorFusion, tick);
+            for (SystemEntitiesUpdater<Integer> consumer : consumers) {
+                ecsManager.updateSystemComponents(consumer, tick);
+            }
+        }
+
+        expect(broadcast(ecsManager) == broadcastPipe, "The broadcast pipe is unregistered");
+        for (Consumer consumer : latest) {
+            expect(consumer.reads == TICKS && consumer.sum == latest[0].sum, "A latest reader lost values");
+        }
+        expect(telemetry.reads == TICKS && telemetry.cursor.getMissed() == 0, "Telemetry lost values");
+        expect(Math.abs(telemetry.sum - latest[0].sum) < 1e-9, "Telemetry has read different values");
+        expect(logger.reads + logger.cursor.getMissed() == TICKS && logger.cursor.getMissed() > 0,
+                "The logger cursor has not skipped the overwritten values");
+        System.out.printf("%d ticks: latest readers = %d reads, telemetry = %d reads, logger = %d reads + %d missed%n",
+                TICKS, latest[0].reads, telemetry.reads, logger.reads, logger.cursor.getMissed());
+
+        concurrentPublish(new BroadcastPipe<>(FUSED_SENSOR), 1);
+        concurrentPublish(new BroadcastPipe<>(FUSED_SENSOR, HISTORY), HISTORY);
+    }
+
+    /**
+     * Reads a broadcast pipe while another thread publishes to it; a slot overwritten during
+     * a read is detected by its stamp and the read is retried, so a read value must always
+     * belong to the sequence reported by the cursor.
+     */
+    private static void concurrentPublish(BroadcastPipe<Fused> pipe, int history) throws InterruptedException {
+        final Thread publisher = new Thread(() -> {
+            for (int tick = 0; !Thread.currentThread().isInterrupted(); tick++) {
+                pipe.publish(new Fused(tick, tick));
+            }
+        }, "Sensor-fusion-publisher");
+        publisher.start();
+        final BroadcastPipe.Cursor latest = pipe.subscribe();
+        final BroadcastPipe.Cursor polling = pipe.subscribe();
+        long reads = 0;
+        long polls = 0;
+        long lastTick = -1;
+        final long deadline = System.nanoTime() + CONCURRENT_NANOS;
+        try {
+            while (System.nanoTime() - deadline < 0) {
+                final Fused fused = pipe.getData(latest);
+                if (fused != null) {
+                    expect(fused.tick() == latest.getSequence() - 1, "Read a torn value of tick " + fused.tick()
+                            + " at sequence " + latest.getSequence());
+                    expect(fused.tick() >= lastTick, "Read tick " + fused.tick() + " after " + lastTick);
+                    lastTick = fused.tick();
+                    reads++;
+                }
+                final Fused polled = pipe.poll(polling);
+                if (polled != null) {
+                    expect(polled.tick() == polling.getSequence() - 1, "Polled a torn value of tick " + polled.tick()
+                            + " at sequence " + polling.getSequence());
+                    polls++;
+                }
+            }
+        } finally {
+            publisher.interrupt();
+            publisher.join();
+        }
+        System.out.printf("Concurrent publish (history %d): %d published, %d reads, %d polls, %d missed%n",
+                history, pipe.getSequence(), reads, polls, polling.getMissed());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BroadcastPipe<Fused> broadcast(EntityComponentManager<Integer> entityComponentManager) {
+        return (BroadcastPipe<Fused>) entityComponentManager.<Fused, BroadcastPipe.Cursor>getDataPipe(FUSED_SENSOR);
+    }
+
+    private static SystemEntitiesUpdater<Integer> system(String name, Step step) {
+        return new SystemEntitiesUpdater<>() {
+            @Override
+            public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Integer> entityComponentManager, Integer input) {
+                step.update(entityComponentManager, input);
+            }
+
+            @Override
+            public ArticularSystem getId() {
+                return () -> name;
+            }
+        };
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void update(EntityComponentManager<Integer> entityComponentManager, int tick);
+    }
+
+    private static final class Consumer {
+        private final BroadcastPipe.Cursor cursor;
+        private SystemEntitiesUpdater<Integer> system;
+        private long reads;
+        private double sum;
+
+        private Consumer(BroadcastPipe.Cursor cursor) {
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * The fused sensor value of a tick.
+     */
+    private record Fused(long tick, double value) {
+    }
+}
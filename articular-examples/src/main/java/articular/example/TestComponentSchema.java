@@ -0,0 +1,81 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example;
+
+import articular.core.component.Component;
+import articular.core.component.schema.ComponentSchema;
+import articular.core.component.schema.Schema;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Examines the compile-time generated component schemas {@link ComponentSchema}; sensor
+ * components are packed into a dense off-heap buffer, read through the generated typed
+ * accessors without reflection, and materialized back.
+ *
+ * @author pavl_g
+ */
+public final class TestComponentSchema {
+
+    public static void main(String[] args) {
+        final ComponentSchema<SensorSample> schema = ComponentSchema.of(SensorSample.class);
+        System.out.println("Layout = " + String.join(", ", schema.getFieldNames())
+                + " in " + schema.getSize() + " bytes");
+
+        // 1) pack the components into a dense off-heap column
+        final int count = 4;
+        final ByteBuffer dense = ByteBuffer.allocateDirect(count * schema.getSize())
+                                           .order(ByteOrder.nativeOrder());
+        for (int i = 0; i < count; i++) {
+            schema.write(new SensorSample(i, i * 0.5f, i % 2 == 0, (short) (i * 10)), dense, i * schema.getSize());
+        }
+
+        // 2) zero-reflection access to a single field of each record
+        for (int i = 0; i < count; i++) {
+            System.out.println("Signal[" + i + "] = "
+                    + TestComponentSchema_SensorSampleSchema.getSignal(dense, i * TestComponentSchema_SensorSampleSchema.SIZE));
+        }
+
+        // 3) copy a record, and materialize it back
+        schema.copy(dense, 0, dense, 3 * schema.getSize());
+        System.out.println("Copied = " + schema.read(dense, 3 * schema.getSize()));
+    }
+
+    @Schema
+    public record SensorSample(long timestamp, float signal, boolean saturated, short channel) implements Component {
+
+        @Override
+        public Id getId() {
+            return new Id(timestamp);
+        }
+    }
+}
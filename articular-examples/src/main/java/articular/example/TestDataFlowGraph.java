@@ -0,0 +1,214 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.data.DataFlowGraph;
+import articular.core.system.data.DataPipe;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.ArticularManager;
+
+/**
+ * Examines the data-flow graph {@link DataFlowGraph} with a 12-stage sensor pipeline
+ * pulled by two systems on each tick; every stage must be evaluated once per tick, and
+ * the fused pipeline must produce the same values of the unfused one.
+ *
+ * @author pavl_g
+ */
+public final class TestDataFlowGraph {
+
+    private static final int STAGES = 12;
+    private static final int SMOOTH = 4;
+    private static final int OUTPUT = STAGES - 1;
+    private static final int TICKS = 100;
+
+    public static void main(String[] args) {
+        final Pipeline unfused = new Pipeline(100);
+        final Pipeline fused = new Pipeline(200);
+        fused.graph.fuse();
+        for (int stage = 1; stage < STAGES; stage++) {
+            // the smoothing stage is stateful, it splits the pipeline into two fused chains
+            final boolean fusible = stage != SMOOTH && stage != SMOOTH + 1;
+            expect(fused.graph.getNode(fused.ids[stage]).isFused() == fusible, "Unexpected fusion of stage " + stage);
+            expect(!unfused.graph.getNode(unfused.ids[stage]).isFused(), "Unfused stage " + stage + " is fused");
+        }
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            final String input = "TICK-" + tick;
+            unfused.update(input);
+            fused.update(input);
+            for (int stage = 0; stage < STAGES; stage++) {
+                expect(unfused.evaluations[stage] == tick + 1,
+                        "Unfused stage " + stage + " is evaluated " + unfused.evaluations[stage] + " times by tick " + tick);
+                expect(fused.evaluations[stage] == tick + 1,
+                        "Fused stage " + stage + " is evaluated " + fused.evaluations[stage] + " times by tick " + tick);
+            }
+            expect(Float.compare(unfused.smoothed, fused.smoothed) == 0, "Smoothed values differ at tick " + tick);
+            expect(Float.compare(unfused.output, fused.output) == 0, "Output values differ at tick " + tick);
+            if (tick % 25 == 0) {
+                System.out.println(input + " : smoothed = " + fused.smoothed + ", output = " + fused.output);
+            }
+        }
+        System.out.println("The " + STAGES + " stages are evaluated once per tick, and the fused pipeline matches the unfused one");
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    /**
+     * A 12-stage sensor pipeline registered to its own ecs-manager, and pulled by
+     * a filter system (the smoothed signal) and a controller system (the output signal).
+     */
+    private static final class Pipeline {
+        private final EntityComponentManager<String> ecsManager = new ArticularManager<>();
+        private final DataFlowGraph<Float> graph = new DataFlowGraph<>();
+        private final Component.Id[] ids = new Component.Id[STAGES];
+        private final int[] evaluations = new int[STAGES];
+        private final SystemEntitiesUpdater<String> filter;
+        private final SystemEntitiesUpdater<String> controller;
+        private float smoothed;
+        private float output;
+
+        private Pipeline(long firstId) {
+            for (int stage = 0; stage < STAGES; stage++) {
+                ids[stage] = new Component.Id(firstId + stage);
+            }
+            graph.source(ids[0], counted(0, signal -> signal * 0.005f), true);
+            graph.stage(ids[1], ids[0], counted(1, value -> value - 0.1f), true);
+            graph.stage(ids[2], ids[1], counted(2, value -> value * 2.5f), true);
+            graph.stage(ids[3], ids[2], counted(3, value -> Math.max(-1f, Math.min(1f, value))), true);
+            graph.stage(ids[SMOOTH], ids[3], counted(SMOOTH, new DataPipe<>() {
+                private float average;
+
+                @Override
+                public Float getData(Float value) {
+                    average += (value - average) * 0.25f;
+                    return average;
+                }
+
+                @Override
+                public Component.Id getId() {
+                    return ids[SMOOTH];
+                }
+            }), false);
+            graph.stage(ids[5], ids[SMOOTH], counted(5, value -> Math.abs(value) < 0.01f ? 0f : value), true);
+            graph.stage(ids[6], ids[5], counted(6, value -> value * Math.abs(value)), true);
+            graph.stage(ids[7], ids[6], counted(7, value -> value * 100f), true);
+            graph.stage(ids[8], ids[7], counted(8, value -> value + 0.5f), true);
+            graph.stage(ids[9], ids[8], counted(9, value -> Math.round(value * 1000f) / 1000f), true);
+            graph.stage(ids[10], ids[9], counted(10, value -> Math.min(value, 90f)), true);
+            graph.stage(ids[OUTPUT], ids[10], counted(OUTPUT, value -> value * 0.01f), true);
+            graph.register(ecsManager);
+
+            filter = new SystemEntitiesUpdater<>() {
+                @Override
+                public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<String> entityComponentManager, String input) {
+                    final DataPipe<Float, Float> pipe = entityComponentManager.getDataPipe(ids[SMOOTH]);
+                    smoothed = pipe.getData(signal(input));
+                }
+
+                @Override
+                public ArticularSystem getId() {
+                    return () -> "Sensor-filter";
+                }
+            };
+            controller = new SystemEntitiesUpdater<>() {
+                @Override
+                public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<String> entityComponentManager, String input) {
+                    // pulls the output twice, the second pull is memoized
+                    final DataPipe<Float, Float> pipe = entityComponentManager.getDataPipe(ids[OUTPUT]);
+                    output = pipe.getData(signal(input));
+                    expect(Float.compare(output, pipe.getData(signal(input))) == 0, "Unstable output in " + input);
+                }
+
+                @Override
+                public ArticularSystem getId() {
+                    return () -> "Sensor-controller";
+                }
+            };
+            ecsManager.allocateMemoryMap(filter);
+            ecsManager.allocateMemoryMap(controller);
+        }
+
+        private void update(String input) {
+            ecsManager.updateSystemComponents(filter, input);
+            ecsManager.updateSystemComponents(controller, input);
+            graph.advance();
+        }
+
+        private DataPipe<Float, Float> counted(int stage, Stage function) {
+            return counted(stage, new DataPipe<>() {
+                @Override
+                public Float getData(Float argument) {
+                    return function.apply(argument);
+                }
+
+                @Override
+                public Component.Id getId() {
+                    return ids[stage];
+                }
+            });
+        }
+
+        private DataPipe<Float, Float> counted(int stage, DataPipe<Float, Float> pipe) {
+            return new DataPipe<>() {
+                @Override
+                public Float getData(Float argument) {
+                    evaluations[stage]++;
+                    return pipe.getData(argument);
+                }
+
+                @Override
+                public Component.Id getId() {
+                    return ids[stage];
+                }
+            };
+        }
+
+        private static float signal(String input) {
+            final int tick = Integer.parseInt(input.substring(input.indexOf('-') + 1));
+            return (float) (Math.sin(tick * 0.1) * 300 + 40);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        float apply(float value);
+    }
+}
@@ -38,11 +38,13 @@ import articular.core.component.Module;
 import articular.core.system.ArticularSystem;
 import articular.core.system.SystemEntitiesUpdater;
 import articular.core.system.data.DataPipe;
+import articular.core.system.data.DataPipeSlot;
 import articular.core.system.manager.EntityComponentManager;
 import articular.util.ArticularManager;
 
 /**
- * Examines the data pipe interface {@link articular.core.system.data.DataPipe}.
+ * Examines the data pipe interface {@link articular.core.system.data.DataPipe}, through a tick-scoped
+ * data-pipe slot {@link DataPipeSlot} declared once and rebound to the collected data on each tick.
  *
  * @author pavl_g
  */
@@ -51,10 +53,16 @@ public final class TestDataPipes {
     private static final EntityComponentManager<String> ecsManager = new ArticularManager<>();
     private static final Entity sensors = new Entity("Sensors");
     private static final Module sensorModule = new SensorModule();
-    private static DataPipe<Float, Float> dataPipe;
+    private static final int TICKS = 2;
 
     public static void main(String[] args) {
 
+        // declare the pipe once; the collector rebinds it to new data on each tick,
+        // instead of allocating and registering a new data pipe
+        final DataPipeSlot<Float, SensorModule.AccelerometerData, Float> dataPipe = ecsManager.declareDataPipeSlot(
+                new DataPipeSlot<>(sensorModule.getId(), // shared id with the sensor module
+                        (data, argument) -> (argument * 0.005f) * data.x()));
+
         final SystemEntitiesUpdater<String> dataCollector = new SystemEntitiesUpdater<>() {
             @Override
             public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<String> entityComponentManager, String input) {
@@ -66,23 +74,11 @@ public final class TestDataPipes {
                 final SensorModule.AccelerometerData data = new SensorModule.AccelerometerData(2, 3, 5);
                 sensorModule1.register(SensorModule.Entities.ACCELEROMETER.getEntity().getId(), data);
 
-                // process some data (e.g.: vector maths) and pass it through a data pipe
-                // for other systems to act on
-                dataPipe = new DataPipe<>() {
-                    @Override
-                    public Float getData(Float argument) {
-                        return (argument * 0.005f) * data.x();
-                    }
-
-                    @Override
-                    public Component.Id getId() {
-                        return sensorModule.getId(); // shared id with the sensor module
-                    }
-                };
+                // process some data (e.g.: vector maths) and pass it through the data pipe
+                // for other systems to act on during this tick
+                dataPipe.bind(data);
 
                 System.out.println("Raw Data in-processing = " + dataPipe.getData(1f));
-
-                entityComponentManager.registerDataPipe(dataPipe);
             }
 
             @Override
@@ -104,7 +100,6 @@ public final class TestDataPipes {
                 final float raw = dataPipe1.getData(data.signal);
 
                 System.out.println("Raw Data post processing = " + raw);
-                entityComponentManager.unregisterDataPipe(dataPipe1.getId());
             }
 
             @Override
@@ -121,8 +116,13 @@ public final class TestDataPipes {
         ecsManager.register(sensors, sensorModule, dataCollector);
         ecsManager.register(sensors, sensorModule, dataPostProcessing);
 
-        ecsManager.updateSystemComponents(dataCollector, "DISPATCH_COLLECTOR");
-        ecsManager.updateSystemComponents(dataPostProcessing, "DISPATCH_POST_PROCESSOR");
+        for (int tick = 0; tick < TICKS; tick++) {
+            ecsManager.updateSystemComponents(dataCollector, "DISPATCH_COLLECTOR-" + tick);
+            ecsManager.updateSystemComponents(dataPostProcessing, "DISPATCH_POST_PROCESSOR-" + tick);
+            // clears the data bound during this tick
+            ecsManager.endTick();
+            System.out.println("Data bound after the tick end = " + dataPipe.hasData());
+        }
     }
 
     private static final class SensorModule implements Module {
@@ -0,0 +1,198 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example;
+
+import articular.core.Entity;
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.ComponentUpdater;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.ArticularManager;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Examines the isolation of a forked world {@link EntityComponentManager#fork()} from its parent world;
+ * the system updaters of both worlds write their memory-maps directly (put, replaceAll, removals, iterator
+ * removals and entry updates), and each world must not observe the writes of the other. A caching fork
+ * {@link ArticularManager} must resolve the cached components of the entities registered before the fork.
+ *
+ * @author pavl_g
+ */
+public final class TestWorldFork {
+
+    private static final int ENTITIES = 1_000;
+    private static final ArticularSystem movers = () -> "Movers";
+
+    public static void main(String[] args) {
+        final EntityComponentManager<Float> world = new EntityComponentManager<>();
+        final MemoryMap.EntityComponentMap bodies = world.allocateMemoryMap(() -> movers);
+        for (long id = 0; id < ENTITIES; id++) {
+            bodies.put(id, new Body(id, 0f));
+        }
+        world.endTick();
+
+        final EntityComponentManager<Float> fork = world.fork();
+
+        // the parent writes its memory-map directly after the fork
+        world.updateSystemComponents(new Mover(), 1f);
+        world.updateSystemComponents(new Spawner(), 0f);
+        world.endTick();
+        expect(bodies.size() == ENTITIES, "The parent world lost entities: " + bodies.size());
+        expect(!bodies.containsKey(0L) && !bodies.containsKey(1L), "The parent world kept its removed entities");
+        expect(((Body) bodies.get(2L)).position() == 100f, "The parent world lost its entry update");
+        expect(((Body) bodies.get(3L)).position() == 1f, "The parent world lost its replacement");
+
+        // the fork still observes the world as it was at the fork
+        final MemoryMap.EntityComponentMap forked = fork.getMemoryMap(() -> movers);
+        expectUnchanged(forked, 0f, "The fork observed the writes of its parent world");
+
+        // the fork writes its memory-map directly, the parent doesn't observe its writes
+        fork.updateSystemComponents(new Mover(), 10f);
+        fork.endTick();
+        expect(((Body) forked.get(3L)).position() == 10f, "The fork lost its replacement");
+        expect(((Body) bodies.get(3L)).position() == 1f, "The parent world observed the writes of its fork");
+        expect(!bodies.containsKey(0L), "The parent world observed the entities of its fork");
+
+        // a fork of the fork is isolated from both worlds
+        final EntityComponentManager<Float> nested = fork.fork();
+        fork.updateSystemComponents(new Spawner(), 0f);
+        final MemoryMap.EntityComponentMap nestedBodies = nested.getMemoryMap(() -> movers);
+        expectUnchanged(nestedBodies, 10f, "The nested fork observed the writes of its parent fork");
+
+        nested.release();
+        fork.release();
+        world.updateSystemComponents(new Mover(), 1f);
+        expect(((Body) bodies.get(3L)).position() == 2f, "The parent world lost its writes after the release");
+
+        // a caching fork fills the cache of the entities registered before the fork
+        final ArticularManager<Float> cachingWorld = new ArticularManager<>();
+        final Entity player = new Entity("player");
+        cachingWorld.allocateMemoryMap(() -> movers);
+        cachingWorld.register(player, new Body(player.getId().longValue(), 5f), () -> movers);
+        final ArticularManager<Float> cachingFork = cachingWorld.fork();
+        final Inspector inspector = new Inspector();
+        cachingFork.updateEntityComponents(inspector, player, 0f);
+        expect(inspector.body != null && inspector.body.position() == 5f, "The caching fork lost a cached entity");
+        cachingFork.release();
+        System.out.println("Fork isolation of the direct memory-map writes passed");
+    }
+
+    private static void expectUnchanged(MemoryMap.EntityComponentMap components, float position, String message) {
+        expect(components.size() == ENTITIES, message + ": size " + components.size());
+        int count = 0;
+        for (Map.Entry<Number, Component> entry : components.entrySet()) {
+            expect(entry.getKey().longValue() < ENTITIES, message + ": spawned " + entry.getKey());
+            expect(((Body) entry.getValue()).position() == position, message + ": moved " + entry.getKey());
+            count++;
+        }
+        expect(count == ENTITIES, message + ": iterated " + count);
+        for (long id = 0; id < ENTITIES; id++) {
+            expect(((Body) components.get(id)).position() == position, message + ": entity " + id);
+        }
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    /**
+     * Moves all the entities in one pass by replacing their components.
+     */
+    private static final class Mover implements SystemEntitiesUpdater<Float> {
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Float> entityComponentManager, Float input) {
+            entityMap.replaceAll((id, body) -> new Body(id.longValue(), ((Body) body).position() + input));
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return movers;
+        }
+    }
+
+    /**
+     * Removes and spawns entities, and updates an entry through the iteration of its memory-map.
+     */
+    private static final class Spawner implements SystemEntitiesUpdater<Float> {
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Float> entityComponentManager, Float input) {
+            entityMap.remove(0L);
+            entityMap.put((long) ENTITIES, new Body(ENTITIES, 0f));
+            entityMap.put((long) ENTITIES + 1, new Body(ENTITIES + 1, 0f));
+            final Iterator<Map.Entry<Number, Component>> iterator = entityMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Number, Component> entry = iterator.next();
+                if (entry.getKey().longValue() == 1L) {
+                    iterator.remove();
+                } else if (entry.getKey().longValue() == 2L) {
+                    entry.setValue(new Body(2L, 100f));
+                }
+            }
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return movers;
+        }
+    }
+
+    /**
+     * Reads the cached component of an entity.
+     */
+    private static final class Inspector implements ComponentUpdater<Float> {
+        private Body body;
+
+        @Override
+        public void update(MemoryMap.SystemComponentMap components, Entity entity,
+                           EntityComponentManager<Float> entityComponentManager, Float input) {
+            body = components == null ? null : (Body) components.get(movers.getId());
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return movers;
+        }
+    }
+
+    private record Body(long id, float position) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example;
+
+import articular.core.Entity;
+import articular.core.component.Component;
+import articular.core.persistence.ComponentCodec;
+import articular.core.persistence.ComponentCodecs;
+import articular.core.persistence.SnapshotInput;
+import articular.core.persistence.SnapshotOutput;
+import articular.core.persistence.WorldSnapshot;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.ArticularManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Examines the write and map round-trip of the world snapshots {@link WorldSnapshot},
+ * for an empty world, a world of empty systems, and a populated world; and the identity
+ * of the components read from a lazily loaded world.
+ *
+ * @author pavl_g
+ */
+public final class TestWorldSnapshot {
+
+    private static final ComponentCodecs codecs = new ComponentCodecs().register(new PositionCodec());
+    private static final SystemController physics = () -> () -> "Physics";
+    private static final SystemController renderer = () -> () -> "Renderer";
+
+    public static void main(String[] args) throws IOException {
+        final Path directory = Files.createTempDirectory("articular-snapshot");
+        final Path path = directory.resolve("world.bin");
+        try {
+            // an empty world: the header is written with an empty data section
+            final EntityComponentManager<String> emptyWorld = new ArticularManager<>();
+            WorldSnapshot.write(emptyWorld, codecs, path);
+            check(WorldSnapshot.map(path, codecs), path, 0);
+
+            // a world of allocated but empty systems
+            final EntityComponentManager<String> emptySystems = new ArticularManager<>();
+            emptySystems.allocateMemoryMap(physics);
+            emptySystems.allocateMemoryMap(renderer);
+            WorldSnapshot.write(emptySystems, codecs, path);
+            final WorldSnapshot emptySnapshot = check(WorldSnapshot.map(path, codecs), path, 2);
+            expect(emptySnapshot.getEntityCount("Physics") == 0, "Physics is not empty");
+            expect(emptySnapshot.getEntityCount("Renderer") == 0, "Renderer is not empty");
+            expect(emptySnapshot.materialize("Physics").isEmpty(), "Physics materialized entities");
+
+            // a populated world next to an empty system
+            final EntityComponentManager<String> world = new ArticularManager<>();
+            world.allocateMemoryMap(physics);
+            world.allocateMemoryMap(renderer);
+            final Entity[] entities = new Entity[8];
+            for (int i = 0; i < entities.length; i++) {
+                entities[i] = new Entity("Particle-" + i);
+                world.register(entities[i], new Position(entities[i].getId().longValue(), i, -i), physics);
+            }
+            WorldSnapshot.write(world, codecs, path);
+            final WorldSnapshot snapshot = check(WorldSnapshot.map(path, codecs), path, 2);
+            expect(snapshot.getEntityCount("Physics") == entities.length, "Physics lost entities");
+            expect(snapshot.getEntityCount("Renderer") == 0, "Renderer is not empty");
+            for (int i = 0; i < entities.length; i++) {
+                final Position position = snapshot.getComponent("Physics", entities[i].getId().longValue());
+                expect(position != null && position.x() == i && position.y() == -i,
+                        "Corrupted component of Particle-" + i);
+            }
+
+            // restores the populated snapshot into a new world
+            final EntityComponentManager<String> restored = new ArticularManager<>();
+            WorldSnapshot.map(path, codecs).restore(restored);
+            expect(restored.getMemoryMap().get("Physics").size() == entities.length, "Restored world lost entities");
+
+            // a lazily loaded world resolves the same component object before and after materializing its system
+            final EntityComponentManager<String> loaded = new ArticularManager<>();
+            loaded.loadSnapshot(path, codecs);
+            final Position first = loaded.getComponent(entities[3], physics);
+            expect(loaded.hasSameComponent(physics, entities[3], first), "A lazy read decoded a new component");
+            expect(loaded.getMemoryMap(physics).get(entities[3].getId().longValue()) == first,
+                    "The materialized system decoded a new component");
+            System.out.println("Snapshot round-trips of the empty world, the empty systems and the populated world passed");
+        } finally {
+            Files.deleteIfExists(path);
+            Files.delete(directory);
+        }
+    }
+
+    private static WorldSnapshot check(WorldSnapshot snapshot, Path path, int systems) throws IOException {
+        System.out.println(path.getFileName() + " : " + Files.size(path) + " bytes, systems = " + snapshot.getSystems());
+        expect(snapshot.getSystems().size() == systems, "Expected " + systems + " systems");
+        return snapshot;
+    }
+
+    private static void expect(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private record Position(long id, float x, float y) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class PositionCodec implements ComponentCodec<Position> {
+        @Override
+        public Class<Position> getComponentClass() {
+            return Position.class;
+        }
+
+        @Override
+        public void encode(Position component, SnapshotOutput output) {
+            output.writeLong(component.id());
+            output.writeFloat(component.x());
+            output.writeFloat(component.y());
+        }
+
+        @Override
+        public Position decode(SnapshotInput input) {
+            return new Position(input.readLong(), input.readFloat(), input.readFloat());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.BlockingDispatcher;
+import articular.core.system.BlockingUpdater;
+import articular.core.system.WorldRuntime;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.metrics.LatencyHistogram;
+import articular.util.VirtualThreads;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmarks a {@link BlockingDispatcher} reading simulated serial devices; each device blocks
+ * for a few milliseconds per reading on its own reader thread, while a {@link WorldRuntime} applies
+ * the handed-off readings at the sync point of its input stage, then half of the devices are removed.
+ *
+ * @author pavl_g
+ */
+public final class BlockingDevicesBenchmark {
+
+    private static final int DEVICES = 1_000;
+    private static final long SECONDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        final EntityComponentManager<Double> ecsManager = new EntityComponentManager<>();
+        final SerialDevices serialDevices = new SerialDevices();
+        final MemoryMap.EntityComponentMap devices = ecsManager.allocateMemoryMap(serialDevices);
+        for (long id = 0; id < DEVICES; id++) {
+            devices.put(id, new Device(id, 20 + ThreadLocalRandom.current().nextInt(31), 0, 0));
+        }
+        try (BlockingDispatcher<Double, Reading> dispatcher = new BlockingDispatcher<>(serialDevices)) {
+            final WorldRuntime<Double> runtime = new WorldRuntime<>(ecsManager, 1 / 60d)
+                    .addSystemComponents(WorldRuntime.Stage.INPUT, dispatcher);
+            System.out.printf("%d devices on %s threads%n", DEVICES, VirtualThreads.isSupported() ? "virtual" : "platform");
+            run(runtime, dispatcher, serialDevices);
+            for (long id = 0; id < DEVICES; id += 2) {
+                devices.remove(id);
+            }
+            run(runtime, dispatcher, serialDevices);
+            final LatencyHistogram latency = runtime.getLatency(WorldRuntime.Stage.INPUT);
+            System.out.printf("Sync points: %d, p50: %d us, p99: %d us, max: %d us%n", latency.getCount(),
+                    latency.getValueAtPercentile(50) / 1000, latency.getValueAtPercentile(99) / 1000,
+                    latency.getMax() / 1000);
+        }
+    }
+
+    private static void run(WorldRuntime<Double> runtime, BlockingDispatcher<Double, Reading> dispatcher,
+                            SerialDevices serialDevices) throws InterruptedException {
+        final long applied = serialDevices.applied;
+        final long start = System.nanoTime();
+        long last = start;
+        while (System.nanoTime() - start < SECONDS * 1_000_000_000L) {
+            Thread.sleep(16);
+            final long now = System.nanoTime();
+            runtime.update((now - last) / 1e9, (now - start) / 1e9);
+            last = now;
+        }
+        System.out.printf("Readers: %5d, readings/s: %8.0f, pending: %5d, dropped: %d, failures: %d%n",
+                dispatcher.getReaders(), (serialDevices.applied - applied) / (double) SECONDS,
+                dispatcher.getPending(), dispatcher.getDropped(), dispatcher.getFailures());
+    }
+
+    private record Device(long id, int periodMillis, long readings, int lastValue) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private record Reading(int value) {
+    }
+
+    private static final class SerialDevices implements BlockingUpdater<Double, Reading> {
+        private final ArticularSystem system = () -> "serial-devices";
+        private long applied;
+
+        @Override
+        public Reading read(long id, Component component) throws InterruptedException {
+            // simulates a blocking read of a serial port
+            Thread.sleep(((Device) component).periodMillis());
+            return new Reading(ThreadLocalRandom.current().nextInt(1024));
+        }
+
+        @Override
+        public void apply(long id, Reading result, EntityComponentManager<Double> entityComponentManager, Double input) {
+            final Device device = entityComponentManager.getMemoryMap(this).get(id) instanceof Device current
+                                  ? current : null;
+            if (device != null) {
+                entityComponentManager.restoreComponent(system.getId(), id,
+                        new Device(id, device.periodMillis(), device.readings() + 1, result.value()));
+            }
+            applied++;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+}
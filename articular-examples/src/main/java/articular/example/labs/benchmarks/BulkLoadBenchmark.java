@@ -0,0 +1,193 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.persistence.BulkLoader;
+import articular.core.persistence.RowFormat;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Benchmarks loading a world of a million components from a CSV file and a binary file, by
+ * the per-row registration through the ecs-manager and by a {@link BulkLoader}; compared against
+ * the plain read bandwidth of the same files (served from the page cache after the first run).
+ *
+ * @author pavl_g
+ */
+public final class BulkLoadBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int RECORD_BYTES = Long.BYTES + 3 * Float.BYTES + Integer.BYTES;
+
+    private static final SystemController UNITS = () -> () -> "units";
+
+    private static long lastNanos;
+
+    public static void main(String[] args) throws IOException {
+        final Path directory = Files.createTempDirectory("articular-bulk-load");
+        final Path csv = directory.resolve("units.csv");
+        final Path binary = directory.resolve("units.bin");
+        try {
+            final double expected = generate(csv, binary);
+            for (int run = 0; run < 3; run++) {
+                final String phase = run == 0 ? "warm-up" : "measure";
+                report(phase, "read only,    csv   ", csv, readOnly(csv), Double.NaN, expected);
+                report(phase, "per-row,      csv   ", csv, 0, perRow(csv), expected);
+                report(phase, "bulk loader,  csv   ", csv, 0, bulk(csv, RowFormat.csv(',', true), BulkLoadBenchmark::decodeText), expected);
+                report(phase, "read only,    binary", binary, readOnly(binary), Double.NaN, expected);
+                report(phase, "bulk loader,  binary", binary, 0, bulk(binary, RowFormat.fixed(RECORD_BYTES), BulkLoadBenchmark::decodeBinary), expected);
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static double generate(Path csv, Path binary) throws IOException {
+        double checksum = 0;
+        try (BufferedWriter text = Files.newBufferedWriter(csv);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(binary), 1 << 16))) {
+            text.write("id,x,y,z,health\n");
+            for (int id = 0; id < ROWS; id++) {
+                final float x = id % 1000 * 0.25f;
+                final float y = id / 1000 * 0.5f;
+                final float z = id % 7 * 0.125f;
+                final int health = id % 100;
+                text.write(id + "," + x + "," + y + "," + z + "," + health + "\n");
+                data.writeLong(id);
+                data.writeFloat(x);
+                data.writeFloat(y);
+                data.writeFloat(z);
+                data.writeInt(health);
+                checksum += x + y + z + health;
+            }
+        }
+        return checksum;
+    }
+
+    private static void report(String phase, String label, Path path, long readNanos, double loadedChecksum,
+                               double expected) throws IOException {
+        final double megabytes = Files.size(path) / 1e6;
+        if (readNanos > 0) {
+            System.out.printf("[%s] %s : %8.1f MB/s%n", phase, label, megabytes / (readNanos / 1e9));
+            return;
+        }
+        if (Math.abs(loadedChecksum - expected) > 1e-6 * Math.abs(expected)) {
+            throw new IllegalStateException(label + " loaded a corrupted world: " + loadedChecksum + " != " + expected);
+        }
+        System.out.printf("[%s] %s : %8.1f MB/s, %6.2f M rows/s%n", phase, label,
+                megabytes / (lastNanos / 1e9), ROWS / (lastNanos / 1e9) / 1e6);
+    }
+
+    private static long readOnly(Path path) throws IOException {
+        final long start = System.nanoTime();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(4 << 20);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.clear();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double perRow(Path csv) throws IOException {
+        final EntityComponentManager<Integer> ecsManager = new EntityComponentManager<>();
+        ecsManager.allocateMemoryMap(UNITS);
+        final long start = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(csv)) {
+            reader.readLine();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                final String[] fields = line.split(",");
+                final long id = Long.parseLong(fields[0]);
+                ecsManager.restoreComponent("units", id, new Unit(id, Float.parseFloat(fields[1]),
+                        Float.parseFloat(fields[2]), Float.parseFloat(fields[3]), Integer.parseInt(fields[4])));
+            }
+        }
+        lastNanos = System.nanoTime() - start;
+        return checksum(ecsManager.getMemoryMap(UNITS));
+    }
+
+    private static double bulk(Path path, RowFormat format, BulkLoader.RowDecoder decoder) throws IOException {
+        final EntityComponentManager<Integer> ecsManager = new EntityComponentManager<>();
+        final long start = System.nanoTime();
+        final long rows = new BulkLoader(ecsManager).load(path, UNITS, format, decoder);
+        lastNanos = System.nanoTime() - start;
+        if (rows != ROWS) {
+            throw new IllegalStateException("Loaded " + rows + " rows, expected " + ROWS);
+        }
+        return checksum(ecsManager.getMemoryMap(UNITS));
+    }
+
+    private static void decodeText(BulkLoader.Row row, BulkLoader.RowSink sink) {
+        final long id = row.getLong(0);
+        sink.accept(id, new Unit(id, row.getFloat(1), row.getFloat(2), row.getFloat(3), row.getInt(4)));
+    }
+
+    private static void decodeBinary(BulkLoader.Row row, BulkLoader.RowSink sink) {
+        final ByteBuffer buffer = row.getBuffer();
+        final long id = buffer.getLong();
+        sink.accept(id, new Unit(id, buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getInt()));
+    }
+
+    private static double checksum(MemoryMap.EntityComponentMap components) {
+        if (components.size() != ROWS) {
+            throw new IllegalStateException("Loaded " + components.size() + " components, expected " + ROWS);
+        }
+        double sum = 0;
+        for (Map.Entry<Number, Component> entry : components.entrySet()) {
+            final Unit unit = (Unit) entry.getValue();
+            sum += unit.x() + unit.y() + unit.z() + unit.health();
+        }
+        return sum;
+    }
+
+    private record Unit(long id, float x, float y, float z, int health) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+}
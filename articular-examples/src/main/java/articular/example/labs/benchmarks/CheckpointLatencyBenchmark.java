@@ -0,0 +1,190 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.Entity;
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.persistence.ComponentCodec;
+import articular.core.persistence.ComponentCodecs;
+import articular.core.persistence.SnapshotInput;
+import articular.core.persistence.SnapshotOutput;
+import articular.core.persistence.WorldSnapshot;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Benchmarks the tick latency of a mutating world while it is persisted periodically,
+ * either by an inline snapshot that stalls the tick ({@link EntityComponentManager#writeSnapshot(Path, ComponentCodecs)}),
+ * or by a background copy-on-write checkpoint ({@link EntityComponentManager#checkpoint(Path, ComponentCodecs)}).
+ *
+ * <p>
+ * The ticks are paced at a fixed period like a game loop; half of the mutations are registered through
+ * the ecs-manager, and the other half are written directly to the memory-map like a system updater does.
+ * The consistency of each background checkpoint is verified against the sum of the world at the checkpoint start.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class CheckpointLatencyBenchmark {
+
+    private static final int ENTITIES = 100_000;
+    private static final int MUTATIONS_PER_TICK = 1_000;
+    private static final int TICKS = 400;
+    private static final int CHECKPOINT_INTERVAL = 100;
+    private static final long TICK_PERIOD_NANOS = 4_000_000L;
+
+    private static final SystemController WORLD = () -> () -> "world";
+    private static final ComponentCodecs CODECS = new ComponentCodecs().register(new SampleCodec());
+
+    public static void main(String[] args) throws Exception {
+        final Path directory = Files.createTempDirectory("articular-checkpoint");
+        try {
+            for (int run = 0; run < 2; run++) {
+                final String phase = run == 0 ? "warm-up" : "measure";
+                report(phase, "inline snapshot     ", measure(directory, false));
+                report(phase, "background checkpoint", measure(directory, true));
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static long[] measure(Path directory, boolean background) throws Exception {
+        final EntityComponentManager<Object> ecsManager = new EntityComponentManager<>();
+        final MemoryMap.EntityComponentMap components = ecsManager.allocateMemoryMap(WORLD);
+        final Entity[] entities = new Entity[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            entities[i] = new Entity("entity-" + i);
+            components.put(entities[i].getId().longValue(), new Sample(entities[i].getId().longValue(), 0));
+        }
+        final long[] latencies = new long[TICKS];
+        final Path path = directory.resolve(background ? "checkpoint.bin" : "snapshot.bin");
+        CompletableFuture<Path> pending = null;
+        long expectedSum = 0;
+        int cursor = 0;
+        for (int tick = 1; tick <= TICKS; tick++) {
+            final long start = System.nanoTime();
+            if (tick % CHECKPOINT_INTERVAL == 0) {
+                if (background && pending == null) {
+                    expectedSum = sum(components);
+                    pending = ecsManager.checkpoint(path, CODECS);
+                } else if (!background) {
+                    ecsManager.writeSnapshot(path, CODECS);
+                }
+            }
+            for (int i = 0; i < MUTATIONS_PER_TICK; i++) {
+                final Entity entity = entities[cursor];
+                cursor = (cursor + 1) % ENTITIES;
+                final Sample sample = new Sample(entity.getId().longValue(), tick);
+                if (i % 2 == 0) {
+                    ecsManager.register(entity, sample, WORLD);
+                } else {
+                    components.put(entity.getId().longValue(), sample);
+                }
+            }
+            ecsManager.endTick();
+            latencies[tick - 1] = System.nanoTime() - start;
+            if (pending != null && pending.isDone()) {
+                verify(pending.join(), expectedSum);
+                pending = null;
+            }
+            // paces the ticks like a game loop, the checkpoint runs in the idle time
+            while (System.nanoTime() - start < TICK_PERIOD_NANOS) {
+                Thread.sleep(0, 100_000);
+            }
+        }
+        if (pending != null) {
+            verify(pending.join(), expectedSum);
+        }
+        return latencies;
+    }
+
+    private static void verify(Path path, long expectedSum) throws Exception {
+        final WorldSnapshot snapshot = WorldSnapshot.map(path, CODECS);
+        final MemoryMap.EntityComponentMap components = snapshot.materialize("world");
+        if (components.size() != ENTITIES || sum(components) != expectedSum) {
+            throw new IllegalStateException("Inconsistent checkpoint: " + path);
+        }
+    }
+
+    private static long sum(MemoryMap.EntityComponentMap components) {
+        long sum = 0;
+        for (Map.Entry<Number, Component> entry : components.entrySet()) {
+            sum += ((Sample) entry.getValue()).tick();
+        }
+        return sum;
+    }
+
+    private static void report(String phase, String mode, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("[%s] %s : p50 %8.3f ms, p99 %8.3f ms, max %8.3f ms%n", phase, mode,
+                latencies[latencies.length / 2] / 1e6,
+                latencies[(int) (latencies.length * 0.99)] / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private record Sample(long id, long tick) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class SampleCodec implements ComponentCodec<Sample> {
+        @Override
+        public Class<Sample> getComponentClass() {
+            return Sample.class;
+        }
+
+        @Override
+        public void encode(Sample component, SnapshotOutput output) {
+            output.writeLong(component.id());
+            output.writeLong(component.tick());
+        }
+
+        @Override
+        public Sample decode(SnapshotInput input) {
+            return new Sample(input.readLong(), input.readLong());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.component.Component;
+import articular.core.component.ComponentAccessor;
+import java.lang.reflect.Field;
+
+/**
+ * Benchmarks the component data-field access paths: the original per-call reflection,
+ * the cached {@link Component#getData(String)}, and a held {@link ComponentAccessor}; then reads
+ * a primitive field through the boxing and the typed getters of an accessor.
+ *
+ * @author pavl_g
+ */
+public final class ComponentAccessBenchmark {
+
+    private static final int COMPONENTS = 1024;
+    private static final int ROUNDS = 2_000;
+    private static final ComponentAccessor<Float> SIGNAL;
+    private static final ComponentAccessor<Float> LEVEL;
+
+    static {
+        try {
+            SIGNAL = ComponentAccessor.of(Sensor.class, "signal");
+            LEVEL = ComponentAccessor.of(Sensor.class, "level");
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static float sink;
+
+    public static void main(String[] args) throws Exception {
+        final Component[] components = new Component[COMPONENTS];
+        for (int i = 0; i < components.length; i++) {
+            components[i] = new Sensor(i, i * 0.5f);
+        }
+        for (int run = 0; run < 2; run++) {
+            final String phase = run == 0 ? "warm-up" : "measure";
+            System.out.printf("[%s] reflection       : %8.2f ns/read%n", phase, reflection(components));
+            System.out.printf("[%s] cached getData   : %8.2f ns/read%n", phase, cachedGetData(components));
+            System.out.printf("[%s] held accessor    : %8.2f ns/read%n", phase, heldAccessor(components));
+            System.out.printf("[%s] boxed primitive  : %8.2f ns/read%n", phase, boxedPrimitive(components));
+            System.out.printf("[%s] typed primitive  : %8.2f ns/read%n", phase, typedPrimitive(components));
+        }
+        System.out.println("Checksum = " + sink);
+    }
+
+    private static double reflection(Component[] components) throws Exception {
+        float sum = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Component component : components) {
+                // the original Component#getData(String) path
+                final Field data = component.getClass().getDeclaredField("signal");
+                data.setAccessible(true);
+                sum += (Float) data.get(component);
+            }
+        }
+        return elapsed(start, sum);
+    }
+
+    private static double cachedGetData(Component[] components) throws Exception {
+        float sum = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Component component : components) {
+                final Float signal = component.getData("signal");
+                sum += signal;
+            }
+        }
+        return elapsed(start, sum);
+    }
+
+    private static double heldAccessor(Component[] components) {
+        float sum = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Component component : components) {
+                sum += SIGNAL.get(component);
+            }
+        }
+        return elapsed(start, sum);
+    }
+
+    private static double boxedPrimitive(Component[] components) {
+        float sum = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Component component : components) {
+                sum += LEVEL.get(component);
+            }
+        }
+        return elapsed(start, sum);
+    }
+
+    private static double typedPrimitive(Component[] components) {
+        float sum = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Component component : components) {
+                sum += LEVEL.getFloat(component);
+            }
+        }
+        return elapsed(start, sum);
+    }
+
+    private static double elapsed(long start, float sum) {
+        final long elapsed = System.nanoTime() - start;
+        sink += sum;
+        return (double) elapsed / ((long) ROUNDS * COMPONENTS);
+    }
+
+    private static final class Sensor implements Component {
+        private final int id;
+        private final Float signal;
+        private final float level;
+
+        private Sensor(int id, float signal) {
+            this.id = id;
+            this.signal = signal;
+            this.level = signal * 2f;
+        }
+
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.EntityUpdater;
+import articular.core.system.manager.EntityComponentManager;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks the per-entity dispatch of many distinct {@link EntityUpdater} types through
+ * the shared generic loop against the specialized loops
+ * ({@link EntityComponentManager#setSpecializedDispatch(boolean)}).
+ *
+ * <p>
+ * The distinct updater types are produced by defining the bytecode of a single updater
+ * class as a hidden class multiple times; every copy is a new class to the JVM.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class EntityDispatchBenchmark {
+
+    private static final int UPDATER_TYPES = 64;
+    private static final int ENTITIES = 256;
+    private static final int ROUNDS = 2_000;
+
+    public static void main(String[] args) throws Throwable {
+        final List<EntityUpdater<Integer>> updaters = defineUpdaters();
+        for (int run = 0; run < 4; run++) {
+            final String phase = run < 2 ? "warm-up" : "measure";
+            System.out.printf("[%s] generic loop     : %8.2f ns/entity%n", phase, measure(updaters, false));
+            System.out.printf("[%s] specialized loop : %8.2f ns/entity%n", phase, measure(updaters, true));
+        }
+    }
+
+    private static double measure(List<EntityUpdater<Integer>> updaters, boolean specialized) {
+        final EntityComponentManager<Integer> ecsManager = new EntityComponentManager<>();
+        ecsManager.setSpecializedDispatch(specialized);
+        for (EntityUpdater<Integer> updater : updaters) {
+            final MemoryMap.EntityComponentMap components = ecsManager.allocateMemoryMap(updater);
+            for (int i = 0; i < ENTITIES; i++) {
+                components.put((long) i, new Sample(i));
+            }
+        }
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (EntityUpdater<Integer> updater : updaters) {
+                ecsManager.updateEntities(updater, round);
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        return (double) elapsed / ((long) ROUNDS * UPDATER_TYPES * ENTITIES);
+    }
+
+    private static List<EntityUpdater<Integer>> defineUpdaters() throws Throwable {
+        final byte[] bytecode;
+        try (InputStream stream = EntityDispatchBenchmark.class
+                .getResourceAsStream(SampleIntegrator.class.getName()
+                        .substring(EntityDispatchBenchmark.class.getPackageName().length() + 1) + ".class")) {
+            bytecode = stream.readAllBytes();
+        }
+        final List<EntityUpdater<Integer>> updaters = new ArrayList<>(UPDATER_TYPES);
+        for (int i = 0; i < UPDATER_TYPES; i++) {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytecode, true);
+            final String name = "Integrator-" + i;
+            final ArticularSystem system = () -> name;
+            // a hidden copy of the SampleIntegrator
+            @SuppressWarnings("unchecked")
+            final EntityUpdater<Integer> updater = (EntityUpdater<Integer>) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, ArticularSystem.class)).invoke(system);
+            updaters.add(updater);
+        }
+        return updaters;
+    }
+
+    private record Sample(long value) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(value);
+        }
+    }
+
+    private static final class SampleIntegrator implements EntityUpdater<Integer> {
+        private final ArticularSystem system;
+        private long integral;
+
+        SampleIntegrator(ArticularSystem system) {
+            this.system = system;
+        }
+
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Integer> entityComponentManager, Integer input) {
+            integral += ((Sample) component).value() * input;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.component.Module;
+import articular.core.system.SystemController;
+import articular.core.system.manager.FootprintEstimator;
+import articular.util.ArticularManager;
+
+/**
+ * Reports the estimated heap footprint of the memory-maps of an {@link ArticularManager}
+ * (records, lambda components and modules with nested maps), and benchmarks the incremental
+ * updates of the {@link FootprintEstimator} against full rescans.
+ *
+ * @author pavl_g
+ */
+public final class FootprintReportBenchmark {
+
+    private static final SystemController POSITIONS = () -> () -> "positions";
+    private static final SystemController TAGS = () -> () -> "tags";
+    private static final SystemController INVENTORIES = () -> () -> "inventories";
+    private static final int ENTITIES = 200_000;
+    private static final int INVENTORY_ITEMS = 8;
+    private static final int CHANGES = ENTITIES / 100;
+
+    public static void main(String[] args) {
+        final ArticularManager<Void> ecsManager = new ArticularManager<>();
+        final MemoryMap.EntityComponentMap positions = new MemoryMap.EntityComponentMap(ENTITIES);
+        final MemoryMap.EntityComponentMap tags = new MemoryMap.EntityComponentMap(ENTITIES / 4);
+        final MemoryMap.EntityComponentMap inventories = new MemoryMap.EntityComponentMap(ENTITIES / 40);
+        for (long id = 0; id < ENTITIES; id++) {
+            positions.put(id, new Position(id, id, 0, -id));
+            if (id % 4 == 0) {
+                final Component.Id tag = new Component.Id(id);
+                tags.put(id, () -> tag);
+            }
+            if (id % 40 == 0) {
+                inventories.put(id, new Inventory(id));
+            }
+        }
+        ecsManager.register(POSITIONS, positions);
+        ecsManager.register(TAGS, tags);
+        ecsManager.register(INVENTORIES, inventories);
+
+        try (FootprintEstimator estimator = new FootprintEstimator(ecsManager)) {
+            long start = System.nanoTime();
+            estimator.update();
+            System.out.printf("Initial scan: %.2f ms%n%n", (System.nanoTime() - start) / 1e6);
+            System.out.print(estimator.report());
+            for (int round = 0; round < 5; round++) {
+                for (long id = round; id < (long) CHANGES * 100; id += 100) {
+                    ecsManager.restoreComponent("positions", id, new Position(id, round, round, round));
+                    ecsManager.restoreComponent("positions", ENTITIES + id, new Position(id, round, round, round));
+                }
+                start = System.nanoTime();
+                estimator.update();
+                final double incremental = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                estimator.rescan();
+                final double rescan = (System.nanoTime() - start) / 1e6;
+                System.out.printf("%nRound %d: %d changes, incremental update: %.2f ms, full rescan: %.2f ms%n",
+                        round, CHANGES * 2, incremental, rescan);
+            }
+            System.out.println();
+            System.out.print(estimator.report());
+        }
+    }
+
+    private record Position(long id, float x, float y, float z) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class Inventory implements Module {
+        private final MemoryMap.EntityComponentMap items = new MemoryMap.EntityComponentMap();
+        private final Component.Id id;
+
+        Inventory(long id) {
+            this.id = new Component.Id(id);
+            for (long item = 0; item < INVENTORY_ITEMS; item++) {
+                items.put(item + 1000, new Item(item + 1000, (int) item));
+            }
+        }
+
+        @Override
+        public Id getId() {
+            return id;
+        }
+
+        @Override
+        public MemoryMap.EntityComponentMap getComponents() {
+            return items;
+        }
+    }
+
+    private record Item(long id, int count) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.manager.SystemMapView;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks a speculative tick of a forked world: a fork is taken, a system of the fork
+ * moves a fixed number of entities, the fork ends its tick and is discarded; the cost should
+ * follow the number of the modified entities rather than the size of the world.
+ *
+ * <p>
+ * The fork ticks are compared against a full copy of the system through its frozen view,
+ * which is the cost of materializing a whole system on its first access; and the state of
+ * the parent world is verified to be untouched by the forks.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class ForkTickBenchmark {
+
+    private static final int[] WORLD_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int MOVES_PER_TICK = 100;
+    private static final int FORKS = 200;
+
+    public static void main(String[] args) {
+        for (int run = 0; run < 2; run++) {
+            final String phase = run == 0 ? "warm-up" : "measure";
+            for (int size : WORLD_SIZES) {
+                measure(phase, size);
+            }
+        }
+    }
+
+    private static void measure(String phase, int size) {
+        final EntityComponentManager<Float> world = new EntityComponentManager<>();
+        final Mover mover = new Mover(size);
+        final MemoryMap.EntityComponentMap bodies = world.allocateMemoryMap(mover);
+        for (long id = 0; id < size; id++) {
+            bodies.put(id, new Body(id, 0f));
+        }
+        world.endTick();
+
+        long forkNanos = 0;
+        for (int i = 0; i < FORKS; i++) {
+            final long start = System.nanoTime();
+            final EntityComponentManager<Float> fork = world.fork();
+            fork.updateSystemComponents(mover, 1f);
+            fork.endTick();
+            fork.release();
+            forkNanos += System.nanoTime() - start;
+        }
+
+        long copyNanos = 0;
+        final int copies = Math.max(1, FORKS / 20);
+        for (int i = 0; i < copies; i++) {
+            final long start = System.nanoTime();
+            final SystemMapView view = new SystemMapView(world.getMemoryMap(), null);
+            final MemoryMap.EntityComponentMap copy = view.copy(mover.getId().getId());
+            view.release();
+            copyNanos += System.nanoTime() - start;
+            if (copy.size() != size) {
+                throw new IllegalStateException("Incomplete copy: " + copy.size());
+            }
+        }
+
+        for (Component component : bodies.values()) {
+            if (((Body) component).position() != 0f) {
+                throw new IllegalStateException("A fork has modified its parent world");
+            }
+        }
+        System.out.printf("[%s] %9d entities : fork tick %9.2f us, full system copy %10.2f us%n", phase, size,
+                forkNanos / 1e3 / FORKS, copyNanos / 1e3 / copies);
+    }
+
+    /**
+     * Moves a few random entities of its system per tick, by registering new components.
+     */
+    private static final class Mover implements SystemEntitiesUpdater<Float> {
+        private final ArticularSystem system = () -> "movers";
+        private final SplittableRandom random = new SplittableRandom(7);
+        private final int size;
+
+        private Mover(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Float> entityComponentManager, Float input) {
+            for (int i = 0; i < MOVES_PER_TICK; i++) {
+                final long id = random.nextInt(size);
+                final Body body = (Body) entityMap.get(id);
+                entityMap.put(id, new Body(id, body.position() + input));
+            }
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+
+    private record Body(long id, float position) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.metrics.Instrumentation;
+import articular.core.system.metrics.SystemMetrics;
+
+/**
+ * Benchmarks the per-dispatch overhead of the {@link Instrumentation} by dispatching
+ * trivial {@link SystemEntitiesUpdater}s with and without an attached instrumentation,
+ * and prints the collected metrics through a sink.
+ *
+ * @author pavl_g
+ */
+public final class InstrumentationOverheadBenchmark {
+
+    private static final int SYSTEMS = 16;
+    private static final int ROUNDS = 200_000;
+
+    public static void main(String[] args) {
+        final EntityComponentManager<Integer> ecsManager = new EntityComponentManager<>();
+        final Counter[] counters = new Counter[SYSTEMS];
+        for (int i = 0; i < counters.length; i++) {
+            final String name = "Counter-" + i;
+            counters[i] = new Counter(() -> name);
+            final MemoryMap.EntityComponentMap components = ecsManager.allocateMemoryMap(counters[i]);
+            for (int entity = 0; entity <= i; entity++) {
+                components.put((long) entity, new Sample(entity));
+            }
+        }
+        final Instrumentation instrumentation = new Instrumentation();
+        final boolean allocations = Instrumentation.isAllocationTrackingSupported();
+        for (int run = 0; run < 4; run++) {
+            final String phase = run < 2 ? "warm-up" : "measure";
+            ecsManager.setInstrumentation(null);
+            final double bare = measure(ecsManager, counters);
+            ecsManager.setInstrumentation(instrumentation.setAllocationTracking(false));
+            final double timed = measure(ecsManager, counters);
+            System.out.printf("[%s] bare: %6.1f ns/dispatch, instrumented: %6.1f ns/dispatch (+%.1f)%n",
+                    phase, bare, timed, timed - bare);
+            if (allocations) {
+                instrumentation.setAllocationTracking(true);
+                final double tracked = measure(ecsManager, counters);
+                System.out.printf("[%s] with allocation tracking: %6.1f ns/dispatch (+%.1f)%n",
+                        phase, tracked, tracked - bare);
+            }
+        }
+        instrumentation.reset();
+        instrumentation.setSink((tick, metrics) -> {
+            System.out.println("Metrics at tick " + tick + ":");
+            for (SystemMetrics systemMetrics : metrics) {
+                System.out.println("  " + systemMetrics);
+            }
+        }, ROUNDS / 100);
+        ecsManager.setInstrumentation(instrumentation);
+        measure(ecsManager, counters);
+        ecsManager.setInstrumentation(null);
+    }
+
+    private static double measure(EntityComponentManager<Integer> ecsManager, Counter[] counters) {
+        final long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS / 100; round++) {
+            for (int tick = 0; tick < 100; tick++) {
+                for (Counter counter : counters) {
+                    ecsManager.updateSystemComponents(counter, tick);
+                }
+            }
+            ecsManager.endTick();
+        }
+        return (double) (System.nanoTime() - start) / ((long) ROUNDS * SYSTEMS);
+    }
+
+    private record Sample(long value) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(value);
+        }
+    }
+
+    private static final class Counter implements SystemEntitiesUpdater<Integer> {
+        private final ArticularSystem system;
+        private long visited;
+
+        Counter(ArticularSystem system) {
+            this.system = system;
+        }
+
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Integer> entityComponentManager, Integer input) {
+            visited += entityMap.size();
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+}
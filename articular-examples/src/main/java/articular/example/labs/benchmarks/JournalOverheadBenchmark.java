@@ -0,0 +1,183 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.Entity;
+import articular.core.component.Component;
+import articular.core.persistence.ComponentCodec;
+import articular.core.persistence.ComponentCodecs;
+import articular.core.persistence.SnapshotInput;
+import articular.core.persistence.SnapshotOutput;
+import articular.core.persistence.WorldJournal;
+import articular.core.system.ArticularSystem;
+import articular.core.system.EntityUpdater;
+import articular.core.system.manager.EntityComponentManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Benchmarks the overhead of an attached {@link WorldJournal} on the tick time of a
+ * world that integrates its entities and re-registers a slice of them each tick.
+ *
+ * <p>
+ * The journal encodes the registrations on the mutating thread and appends them once per
+ * tick on {@link EntityComponentManager#endTick()}; the target is an overhead under a few
+ * percent of the tick time with the asynchronous commits, the synchronous commits add the
+ * latency of the storage device on each tick end.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class JournalOverheadBenchmark {
+
+    private static final int ENTITIES = 100_000;
+    private static final int MUTATIONS_PER_TICK = 1_000;
+    private static final int TICKS = 500;
+
+    private static final ComponentCodecs CODECS = new ComponentCodecs().register(new BodyCodec());
+
+    public static void main(String[] args) throws Exception {
+        for (int run = 0; run < 2; run++) {
+            final String phase = run == 0 ? "warm-up" : "measure";
+            final long[] baseline = measure(null);
+            report(phase, "no journal        ", baseline, baseline);
+            report(phase, "journal, no force ", measure(false), baseline);
+            report(phase, "journal, forced   ", measure(true), baseline);
+        }
+    }
+
+    private static long[] measure(Boolean sync) throws IOException {
+        final Integrator integrator = new Integrator();
+        final EntityComponentManager<Float> ecsManager = new EntityComponentManager<>();
+        final Path directory = sync == null ? null : Files.createTempDirectory("articular-journal");
+        final WorldJournal journal = directory == null ? null : WorldJournal.open(directory, CODECS);
+        try {
+            if (journal != null) {
+                journal.setSync(sync);
+                journal.recover(ecsManager);
+            }
+            ecsManager.allocateMemoryMap(integrator);
+            final Entity[] entities = new Entity[ENTITIES];
+            for (int i = 0; i < ENTITIES; i++) {
+                entities[i] = new Entity("body-" + i);
+                ecsManager.register(entities[i], new Body(i, 0f), integrator);
+            }
+            ecsManager.endTick();
+
+            final long[] latencies = new long[TICKS];
+            int cursor = 0;
+            for (int tick = 0; tick < TICKS; tick++) {
+                final long start = System.nanoTime();
+                ecsManager.updateEntities(integrator, 1f / 60f);
+                for (int i = 0; i < MUTATIONS_PER_TICK; i++) {
+                    final Entity entity = entities[cursor];
+                    cursor = (cursor + 1) % ENTITIES;
+                    // replaces a body, e.g. respawning it
+                    ecsManager.register(entity, new Body(tick, 0f), integrator);
+                }
+                ecsManager.endTick();
+                latencies[tick] = System.nanoTime() - start;
+            }
+            return latencies;
+        } finally {
+            if (journal != null) {
+                journal.close();
+                try (var files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    private static void report(String phase, String mode, long[] latencies, long[] baseline) {
+        final double mean = Arrays.stream(latencies).average().orElse(0);
+        final double baselineMean = Arrays.stream(baseline).average().orElse(0);
+        Arrays.sort(latencies);
+        System.out.printf("[%s] %s : mean %7.3f ms, p99 %7.3f ms, overhead %+6.2f %%%n", phase, mode,
+                mean / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+                (mean - baselineMean) * 100 / baselineMean);
+    }
+
+    private static final class Integrator implements EntityUpdater<Float> {
+        private final ArticularSystem system = () -> "integrator";
+
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Float> entityComponentManager, Float input) {
+            final Body body = (Body) component;
+            body.velocity += 9.8f * input;
+            body.position += body.velocity * input;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+
+    private static final class Body implements Component {
+        private float position;
+        private float velocity;
+
+        private Body(float position, float velocity) {
+            this.position = position;
+            this.velocity = velocity;
+        }
+
+        @Override
+        public Id getId() {
+            return new Id(0);
+        }
+    }
+
+    private static final class BodyCodec implements ComponentCodec<Body> {
+        @Override
+        public Class<Body> getComponentClass() {
+            return Body.class;
+        }
+
+        @Override
+        public void encode(Body component, SnapshotOutput output) {
+            output.writeFloat(component.position);
+            output.writeFloat(component.velocity);
+        }
+
+        @Override
+        public Body decode(SnapshotInput input) {
+            return new Body(input.readFloat(), input.readFloat());
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.replication.FieldDeltaCodec;
+import articular.core.replication.LoopbackTransport;
+import articular.core.replication.Replica;
+import articular.core.replication.ReplicationTransport;
+import articular.core.replication.Replicator;
+import articular.core.replication.SocketTransport;
+import articular.core.system.SystemController;
+import articular.core.system.data.stream.SpscStreamPipe;
+import articular.util.ArticularManager;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmarks the bandwidth and the encoding time of replicating a moving world of record
+ * components to a viewer world, with raw and quantized floating-point fields, over an in-process
+ * loopback transport and a local unix-domain socket; and verifies the viewer world mirrors the
+ * simulation world within the quantization precision.
+ *
+ * @author pavl_g
+ */
+public final class ReplicationBenchmark {
+
+    private static final int ENTITIES = 20_000;
+    private static final int MOVES_PER_TICK = 2_000;
+    private static final int SPAWNS_PER_TICK = 10;
+    private static final int TICKS = 300;
+    private static final float POSITION_PRECISION = 0.01f;
+    private static final float YAW_PRECISION = 0.001f;
+    // the size of a naive full-state message: an identifier and the fields of each entity
+    private static final int FULL_STATE_BYTES = Long.BYTES + 4 * Float.BYTES + Integer.BYTES;
+
+    private static final SystemController TRANSFORMS = () -> () -> "transforms";
+
+    public static void main(String[] args) throws Exception {
+        final Path directory = Files.createTempDirectory("articular-replication");
+        try {
+            for (int run = 0; run < 2; run++) {
+                final String phase = run == 0 ? "warm-up" : "measure";
+                measure(phase, "raw,       loopback", false, null);
+                measure(phase, "quantized, loopback", true, null);
+                measure(phase, "raw,       socket  ", false, directory.resolve("raw-" + run + ".sock"));
+                measure(phase, "quantized, socket  ", true, directory.resolve("quantized-" + run + ".sock"));
+            }
+            System.out.printf("naive full state: %d bytes/tick%n", (long) ENTITIES * FULL_STATE_BYTES);
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void measure(String phase, String label, boolean quantized, Path socket) throws Exception {
+        final ArticularManager<Integer> server = new ArticularManager<>();
+        final ArticularManager<Integer> viewer = new ArticularManager<>();
+        final MemoryMap.EntityComponentMap transforms = server.allocateMemoryMap(TRANSFORMS);
+        for (long id = 0; id < ENTITIES; id++) {
+            transforms.put(id, new Transform(id, id % 100, id / 100f, 0f, 0f, 0));
+        }
+        final Replicator replicator = new Replicator(server).register(codec(quantized)).setIncremental(true);
+        final Replica replica = new Replica(viewer).register(codec(quantized));
+
+        final ReplicationTransport serverSide;
+        final ReplicationTransport viewerSide;
+        ServerSocketChannel listener = null;
+        if (socket == null) {
+            serverSide = viewerSide = new LoopbackTransport(new SpscStreamPipe<ByteBuffer>(new Component.Id(0), 1024));
+        } else {
+            listener = SocketTransport.bind(socket);
+            viewerSide = SocketTransport.connect(socket);
+            serverSide = SocketTransport.accept(listener);
+        }
+        replicator.addTransport(serverSide);
+
+        // the viewer applies the messages on its own thread
+        final AtomicReference<Throwable> viewerFailure = new AtomicReference<>();
+        final Thread viewerThread = new Thread(() -> {
+            try {
+                while (replica.getTick() < TICKS + 1) {
+                    if (replica.poll(viewerSide) == 0) {
+                        LockSupport.parkNanos(100_000L);
+                    }
+                }
+            } catch (Throwable e) {
+                viewerFailure.set(e);
+            }
+        }, "viewer");
+        viewerThread.start();
+
+        final SplittableRandom random = new SplittableRandom(42);
+        replicator.replicate();
+        long encodeNanos = 0;
+        long bytes = 0;
+        long spawned = ENTITIES;
+        for (int tick = 1; tick <= TICKS; tick++) {
+            simulate(server, transforms, random, spawned);
+            spawned += SPAWNS_PER_TICK;
+            server.endTick();
+            replicator.replicate();
+            encodeNanos += replicator.getLastEncodeNanos();
+            bytes += replicator.getLastMessageSize();
+        }
+        viewerThread.join(30_000);
+        replicator.close();
+        viewerSide.close();
+        if (listener != null) {
+            listener.close();
+        }
+        if (viewerFailure.get() != null) {
+            throw new IllegalStateException("Viewer failed", viewerFailure.get());
+        }
+        verify(transforms, viewer.getMemoryMap(TRANSFORMS), quantized);
+        System.out.printf("[%s] %s : %8d bytes/tick, %6.1f bytes/change, encode %7.3f ms/tick%n",
+                phase, label, bytes / TICKS, (double) bytes / (TICKS * (MOVES_PER_TICK + 2 * SPAWNS_PER_TICK)),
+                encodeNanos / 1e6 / TICKS);
+    }
+
+    private static FieldDeltaCodec<Transform> codec(boolean quantized) {
+        final FieldDeltaCodec<Transform> codec = FieldDeltaCodec.of(Transform.class);
+        if (quantized) {
+            codec.quantize("x", POSITION_PRECISION)
+                    .quantize("y", POSITION_PRECISION)
+                    .quantize("z", POSITION_PRECISION)
+                    .quantize("yaw", YAW_PRECISION);
+        }
+        return codec;
+    }
+
+    private static void simulate(ArticularManager<Integer> server, MemoryMap.EntityComponentMap transforms,
+                                 SplittableRandom random, long spawned) {
+        for (int i = 0; i < MOVES_PER_TICK; i++) {
+            final long id = spawned - 1 - random.nextInt(ENTITIES);
+            final Transform transform = (Transform) transforms.get(id);
+            if (transform == null) {
+                continue;
+            }
+            final float speed = 0.05f + random.nextInt(10) * 0.01f;
+            final float yaw = transform.yaw() + (random.nextInt(3) - 1) * 0.01f;
+            server.restoreComponent("transforms", id, new Transform(id,
+                    transform.x() + speed * (float) Math.cos(yaw), transform.y() + speed * (float) Math.sin(yaw),
+                    transform.z(), yaw, random.nextInt(16) == 0 ? transform.state() + 1 : transform.state()));
+        }
+        // spawns new entities and despawns the oldest ones
+        for (int i = 0; i < SPAWNS_PER_TICK; i++) {
+            final long id = spawned + i;
+            server.restoreComponent("transforms", id, new Transform(id, random.nextInt(1000), random.nextInt(1000), 0f, 0f, 0));
+            server.restoreComponent("transforms", id - ENTITIES, null);
+        }
+    }
+
+    private static void verify(MemoryMap.EntityComponentMap expected, MemoryMap.EntityComponentMap actual, boolean quantized) {
+        if (actual == null || expected.size() != actual.size()) {
+            throw new IllegalStateException("Viewer world has " + (actual == null ? 0 : actual.size()) +
+                    " entities, expected " + expected.size());
+        }
+        final double tolerance = quantized ? POSITION_PRECISION : 0;
+        for (Map.Entry<Number, Component> entry : expected.entrySet()) {
+            final Transform source = (Transform) entry.getValue();
+            final Transform mirror = (Transform) actual.get(entry.getKey());
+            if (mirror == null || mirror.id() != source.id() || mirror.state() != source.state()
+                    || Math.abs(mirror.x() - source.x()) > tolerance
+                    || Math.abs(mirror.y() - source.y()) > tolerance
+                    || Math.abs(mirror.yaw() - source.yaw()) > (quantized ? YAW_PRECISION : 0)) {
+                throw new IllegalStateException("Viewer entity " + entry.getKey() + " diverged: " + mirror + " != " + source);
+            }
+        }
+    }
+
+    private record Transform(long id, float x, float y, float z, float yaw, int state) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.EntityUpdater;
+import articular.core.system.SchedulingPolicy;
+import articular.core.system.WorldRuntime;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.metrics.LatencyHistogram;
+
+/**
+ * Benchmarks the scheduling policies of a {@link WorldRuntime} on an expensive calibration
+ * system; the system runs every tick, every N ticks, at a fixed rate and incrementally within
+ * a time budget, and the tick latencies and the completed passes are printed per schedule.
+ *
+ * @author pavl_g
+ */
+public final class ScheduledSystemsBenchmark {
+
+    private static final int ENTITIES = 500;
+    private static final long ENTITY_NANOS = 10_000;
+    private static final int TICKS = 240;
+    private static final double TIMESTEP = 1 / 60d;
+
+    public static void main(String[] args) {
+        System.out.printf("Calibrating %d entities at %d us each, %d ticks of %.1f ms%n",
+                ENTITIES, ENTITY_NANOS / 1000, TICKS, TIMESTEP * 1000);
+        for (int run = 0; run < 2; run++) {
+            final String phase = run == 0 ? "warm-up" : "measure";
+            measure(phase, "every tick", (runtime, calibration) ->
+                    runtime.addEntities(WorldRuntime.Stage.SIMULATE, calibration));
+            measure(phase, "every 30 ticks", (runtime, calibration) ->
+                    runtime.addEntities(WorldRuntime.Stage.SIMULATE, calibration, SchedulingPolicy.everyRuns(30)));
+            measure(phase, "at 4 Hz", (runtime, calibration) ->
+                    runtime.addEntities(WorldRuntime.Stage.SIMULATE, calibration, SchedulingPolicy.atRate(4)));
+            measure(phase, "budget 1 ms", (runtime, calibration) ->
+                    runtime.addIncremental(WorldRuntime.Stage.SIMULATE, calibration, 0.001));
+        }
+    }
+
+    private static void measure(String phase, String schedule, Schedule registration) {
+        final EntityComponentManager<Double> ecsManager = new EntityComponentManager<>();
+        final Calibration calibration = new Calibration();
+        final MemoryMap.EntityComponentMap sensors = ecsManager.allocateMemoryMap(calibration);
+        for (long entity = 0; entity < ENTITIES; entity++) {
+            sensors.put(entity, new Sensor(entity));
+        }
+        final WorldRuntime<Double> runtime = new WorldRuntime<>(ecsManager, TIMESTEP);
+        registration.register(runtime, calibration);
+        for (int tick = 0; tick < TICKS; tick++) {
+            runtime.update(TIMESTEP, TIMESTEP);
+        }
+        final LatencyHistogram latency = runtime.getLatency(WorldRuntime.Stage.SIMULATE);
+        System.out.printf("[%s] %-15s passes: %5.1f, tick p50: %7.3f ms, p99: %7.3f ms, max: %7.3f ms%n",
+                phase, schedule, (double) calibration.visited / ENTITIES, latency.getValueAtPercentile(50) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6, latency.getMax() / 1e6);
+    }
+
+    @FunctionalInterface
+    private interface Schedule {
+        void register(WorldRuntime<Double> runtime, Calibration calibration);
+    }
+
+    private record Sensor(long id) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class Calibration implements EntityUpdater<Double> {
+        private final ArticularSystem system = () -> "calibration";
+        private long visited;
+
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Double> entityComponentManager, Double input) {
+            // simulates an expensive per-sensor fit
+            final long deadline = System.nanoTime() + ENTITY_NANOS;
+            while (System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            visited++;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.component.Component;
+import articular.core.system.data.stream.LongStreamPipe;
+import articular.core.system.data.stream.MpscLongStreamPipe;
+import articular.core.system.data.stream.MpscStreamPipe;
+import articular.core.system.data.stream.SpscLongStreamPipe;
+import articular.core.system.data.stream.SpscStreamPipe;
+import articular.core.system.data.stream.StreamPipe;
+import articular.core.system.manager.EntityComponentManager;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Benchmarks the throughput and the allocations of the stream pipes ({@link SpscStreamPipe},
+ * {@link MpscStreamPipe}, {@link SpscLongStreamPipe} and {@link MpscLongStreamPipe}) registered to an
+ * {@link EntityComponentManager}; reader threads stream input events while the tick thread drains
+ * them in batches, the target is 1M events/s with no allocation per event.
+ *
+ * <p>
+ * The object pipes stream pooled immutable events, so neither side allocates an event;
+ * the drained checksum is verified against the streamed events after each run.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code StreamPipeBenchmark [events] [producers]}; the producers apply to the mpsc pipes.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class StreamPipeBenchmark {
+
+    private static final int CAPACITY = 4096;
+    private static final int BATCH = 512;
+    private static final int POOL = 1 << 14;
+    private static final double TARGET = 1_000_000;
+    private static final HidEvent[] EVENTS = new HidEvent[POOL];
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws InterruptedException {
+        final int events = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final int producers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        for (int i = 0; i < POOL; i++) {
+            EVENTS[i] = new HidEvent(i);
+        }
+
+        final EntityComponentManager<Integer> ecsManager = new EntityComponentManager<>();
+        final Component.Id spsc = new Component.Id(1);
+        final Component.Id mpsc = new Component.Id(2);
+        final Component.Id spscLong = new Component.Id(3);
+        final Component.Id mpscLong = new Component.Id(4);
+        ecsManager.registerDataPipe(new SpscStreamPipe<HidEvent>(spsc, CAPACITY));
+        ecsManager.registerDataPipe(new MpscStreamPipe<HidEvent>(mpsc, CAPACITY));
+        ecsManager.registerDataPipe(new SpscLongStreamPipe(spscLong, CAPACITY));
+        ecsManager.registerDataPipe(new MpscLongStreamPipe(mpscLong, CAPACITY));
+
+        final Stream[] streams = {
+                new EventStream("SpscStreamPipe", ecsManager.getStreamPipe(spsc), 1),
+                new EventStream("MpscStreamPipe", ecsManager.getStreamPipe(mpsc), producers),
+                new SampleStream("SpscLongStreamPipe", ecsManager.getLongStreamPipe(spscLong), 1),
+                new SampleStream("MpscLongStreamPipe", ecsManager.getLongStreamPipe(mpscLong), producers)
+        };
+        System.out.printf("Streaming %d events through %d-slot pipes, drained in batches of %d on %d cpus%n",
+                events, CAPACITY, BATCH, Runtime.getRuntime().availableProcessors());
+        for (Stream stream : streams) {
+            // warm-up
+            run(stream, events / 4);
+        }
+        System.out.printf("%-20s %9s %12s %14s %14s %10s %s%n", "pipe", "producers", "events/s",
+                "producer B/ev", "consumer B/ev", "avg batch", "target");
+        for (Stream stream : streams) {
+            final Result result = run(stream, events);
+            final double throughput = events / (result.nanos / 1e9);
+            System.out.printf("%-20s %9d %12.0f %14.3f %14.3f %10.1f %s%n", stream.name, stream.producers, throughput,
+                    (double) result.producerBytes / events, (double) result.consumerBytes / events,
+                    (double) events / result.batches, throughput >= TARGET ? "ok" : "below");
+        }
+    }
+
+    private static Result run(Stream stream, int events) throws InterruptedException {
+        final int perProducer = events / stream.producers;
+        final int total = perProducer * stream.producers;
+        final long[] producerBytes = new long[stream.producers];
+        final Thread[] threads = new Thread[stream.producers];
+        final boolean[] go = new boolean[1];
+        for (int p = 0; p < threads.length; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                synchronized (go) {
+                    while (!go[0]) {
+                        try {
+                            go.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                final long start = THREADS.getCurrentThreadAllocatedBytes();
+                final long first = (long) producer * perProducer;
+                for (long sequence = first; sequence < first + perProducer; sequence++) {
+                    while (!stream.offer(sequence)) {
+                        // the pipe is full; let the tick thread drain
+                        Thread.yield();
+                    }
+                }
+                producerBytes[producer] = THREADS.getCurrentThreadAllocatedBytes() - start;
+            }, stream.name + "-reader-" + p);
+            threads[p].start();
+        }
+        stream.reset();
+        final long startBytes = THREADS.getCurrentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        synchronized (go) {
+            go[0] = true;
+            go.notifyAll();
+        }
+        long batches = 0;
+        while (stream.count < total) {
+            if (stream.drain(BATCH) == 0) {
+                Thread.yield();
+            } else {
+                batches++;
+            }
+        }
+        final long nanos = System.nanoTime() - start;
+        final long consumerBytes = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+        long allProducerBytes = 0;
+        for (int p = 0; p < threads.length; p++) {
+            threads[p].join();
+            allProducerBytes += producerBytes[p];
+        }
+        if (stream.checksum != stream.expected(total)) {
+            throw new IllegalStateException(stream.name + " lost or duplicated events");
+        }
+        return new Result(nanos, batches, allProducerBytes, consumerBytes);
+    }
+
+    private record Result(long nanos, long batches, long producerBytes, long consumerBytes) {
+    }
+
+    /**
+     * An input event of a human-interface device, pooled by the readers.
+     */
+    private record HidEvent(long code) {
+    }
+
+    /**
+     * Streams the events of a benchmark run through a pipe.
+     */
+    private abstract static class Stream {
+        protected final String name;
+        protected final int producers;
+        protected long count;
+        protected long checksum;
+
+        protected Stream(String name, int producers) {
+            this.name = name;
+            this.producers = producers;
+        }
+
+        protected abstract boolean offer(long sequence);
+
+        protected abstract int drain(int limit);
+
+        protected abstract long expected(int total);
+
+        protected void reset() {
+            count = 0;
+            checksum = 0;
+        }
+    }
+
+    private static final class EventStream extends Stream {
+        private final StreamPipe<HidEvent> pipe;
+        private final StreamPipe.Sink<HidEvent> sink = event -> {
+            count++;
+            checksum += event.code();
+        };
+
+        private EventStream(String name, StreamPipe<HidEvent> pipe, int producers) {
+            super(name, producers);
+            this.pipe = pipe;
+        }
+
+        @Override
+        protected boolean offer(long sequence) {
+            return pipe.offer(EVENTS[(int) sequence & (POOL - 1)]);
+        }
+
+        @Override
+        protected int drain(int limit) {
+            return pipe.drain(sink, limit);
+        }
+
+        @Override
+        protected long expected(int total) {
+            long sum = 0;
+            for (int sequence = 0; sequence < total; sequence++) {
+                sum += sequence & (POOL - 1);
+            }
+            return sum;
+        }
+    }
+
+    private static final class SampleStream extends Stream {
+        private final LongStreamPipe pipe;
+        private final LongStreamPipe.Sink sink = sample -> {
+            count++;
+            checksum += sample;
+        };
+
+        private SampleStream(String name, LongStreamPipe pipe, int producers) {
+            super(name, producers);
+            this.pipe = pipe;
+        }
+
+        @Override
+        protected boolean offer(long sequence) {
+            return pipe.offer(sequence);
+        }
+
+        @Override
+        protected int drain(int limit) {
+            return pipe.drain(sink, limit);
+        }
+
+        @Override
+        protected long expected(int total) {
+            return (long) total * (total - 1) / 2;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.persistence.ComponentCodec;
+import articular.core.persistence.ComponentCodecs;
+import articular.core.persistence.SnapshotInput;
+import articular.core.persistence.SnapshotOutput;
+import articular.core.persistence.TickHistory;
+import articular.core.system.SystemController;
+import articular.core.system.manager.EntityComponentManager;
+import java.util.Map;
+
+/**
+ * Benchmarks the per-tick capture of a {@link TickHistory} for immutable record components
+ * (replaced through the ecs-manager or directly in the memory-map), and for mutable components
+ * (modified in-place, and either marked dirty or captured by a full scan); and verifies that
+ * rewinding and re-simulating reproduces the same world.
+ *
+ * @author pavl_g
+ */
+public final class TickHistoryBenchmark {
+
+    private static final int ENTITIES = 50_000;
+    private static final int UPDATES_PER_TICK = 500;
+    private static final int TICKS = 600;
+    private static final int REWIND = 30;
+
+    private static final SystemController RECORDS = () -> () -> "records";
+    private static final SystemController BODIES = () -> () -> "bodies";
+
+    public static void main(String[] args) {
+        for (int run = 0; run < 3; run++) {
+            final String phase = run == 0 ? "warm-up" : "measure";
+            System.out.printf("[%s] record components, modified : %8.3f ms/capture%n", phase, measure(RECORDS, false));
+            System.out.printf("[%s] mutable components, marked  : %8.3f ms/capture%n", phase, measure(BODIES, false));
+            System.out.printf("[%s] mutable components, scan    : %8.3f ms/capture%n", phase, measure(BODIES, true));
+        }
+    }
+
+    private static double measure(SystemController system, boolean fullScan) {
+        final EntityComponentManager<Integer> ecsManager = new EntityComponentManager<>();
+        final MemoryMap.EntityComponentMap components = ecsManager.allocateMemoryMap(system);
+        for (long id = 0; id < ENTITIES; id++) {
+            components.put(id, system == RECORDS ? new Particle(id, 0f) : new Body(id));
+        }
+        final ComponentCodecs codecs = new ComponentCodecs().register(new ParticleCodec()).register(new BodyCodec());
+        final TickHistory history = new TickHistory(ecsManager, codecs, 64).setFullScan(fullScan);
+        ecsManager.setHistory(history);
+        ecsManager.endTick();
+
+        long captureNanos = 0;
+        for (int tick = 1; tick <= TICKS; tick++) {
+            simulate(ecsManager, components, history, tick);
+            final long start = System.nanoTime();
+            ecsManager.endTick();
+            captureNanos += System.nanoTime() - start;
+        }
+        // rolls back and re-simulates the same inputs
+        final double expected = checksum(ecsManager.getMemoryMap(system));
+        ecsManager.rewind(REWIND);
+        for (int tick = TICKS - REWIND + 1; tick <= TICKS; tick++) {
+            simulate(ecsManager, ecsManager.getMemoryMap(system), history, tick);
+            ecsManager.endTick();
+        }
+        if (checksum(ecsManager.getMemoryMap(system)) != expected) {
+            throw new IllegalStateException("Re-simulation diverged after rewinding " + REWIND + " ticks");
+        }
+        return captureNanos / 1e6 / TICKS;
+    }
+
+    private static void simulate(EntityComponentManager<Integer> ecsManager, MemoryMap.EntityComponentMap components,
+                                 TickHistory history, int tick) {
+        for (int i = 0; i < UPDATES_PER_TICK; i++) {
+            final long id = ((long) tick * UPDATES_PER_TICK + i) * 7919 % ENTITIES;
+            final Component component = components.get(id);
+            if (component instanceof Particle particle) {
+                final Particle moved = new Particle(id, particle.x() + tick);
+                if (i % 2 == 0) {
+                    ecsManager.restoreComponent("records", id, moved);
+                } else {
+                    // a direct write of a system updater
+                    components.put(id, moved);
+                }
+            } else {
+                ((Body) component).x += tick;
+                if (!history.isFullScan()) {
+                    history.markDirty("bodies", id);
+                }
+            }
+        }
+    }
+
+    private static double checksum(MemoryMap.EntityComponentMap components) {
+        double sum = 0;
+        for (Map.Entry<Number, Component> entry : components.entrySet()) {
+            final Component component = entry.getValue();
+            sum += component instanceof Particle particle ? particle.x() : ((Body) component).x;
+        }
+        return sum;
+    }
+
+    private record Particle(long id, float x) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class Body implements Component {
+        private final long id;
+        private float x;
+
+        private Body(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class ParticleCodec implements ComponentCodec<Particle> {
+        @Override
+        public Class<Particle> getComponentClass() {
+            return Particle.class;
+        }
+
+        @Override
+        public void encode(Particle component, SnapshotOutput output) {
+            output.writeLong(component.id());
+            output.writeFloat(component.x());
+        }
+
+        @Override
+        public Particle decode(SnapshotInput input) {
+            return new Particle(input.readLong(), input.readFloat());
+        }
+    }
+
+    private static final class BodyCodec implements ComponentCodec<Body> {
+        @Override
+        public Class<Body> getComponentClass() {
+            return Body.class;
+        }
+
+        @Override
+        public void encode(Body component, SnapshotOutput output) {
+            output.writeLong(component.id);
+            output.writeFloat(component.x);
+        }
+
+        @Override
+        public Body decode(SnapshotInput input) {
+            final Body body = new Body(input.readLong());
+            body.x = input.readFloat();
+            return body;
+        }
+    }
+}
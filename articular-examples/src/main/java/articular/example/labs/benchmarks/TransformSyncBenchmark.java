@@ -0,0 +1,143 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.system.manager.EntityComponentManager;
+import articular.jme.TransformColumns;
+import articular.jme.TransformSync;
+import com.jme3.app.SimpleApplication;
+import com.jme3.material.Material;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.AppSettings;
+import com.jme3.system.JmeContext;
+
+/**
+ * Benchmarks the {@link TransformSync} headlessly on the null renderer of jMonkeyEngine; the update times
+ * of writing all the spatials each frame are compared with synchronizing the transform columns when all
+ * the entities move and when a few of them move. The update time of a frame spans the marshal pass and
+ * the logical and geometric updates of the scene graph, up to its rendering.
+ *
+ * @author pavl_g
+ */
+public final class TransformSyncBenchmark extends SimpleApplication {
+
+    private static final int ENTITIES = 20_000;
+    private static final int FRAMES = 300;
+    private static final String[] MODES = {"write all spatials", "sync all moved", "sync 5% moved"};
+
+    private final TransformSync<Float> transformSync =
+            new TransformSync<>(new EntityComponentManager<>(), () -> "transforms",
+                    new TransformColumns(ENTITIES));
+    private final Geometry[] geometries = new Geometry[ENTITIES];
+    private final float[] angles = new float[ENTITIES];
+    private final Quaternion rotation = new Quaternion();
+    private int frame;
+    private int run;
+    private long marshalStart;
+    private long updateNanos;
+    private long marshalNanos;
+    private long synced;
+
+    public static void main(String[] args) {
+        final TransformSyncBenchmark app = new TransformSyncBenchmark();
+        final AppSettings settings = new AppSettings(true);
+        settings.setFrameRate(-1);
+        settings.setAudioRenderer(null);
+        app.setSettings(settings);
+        app.setShowSettings(false);
+        app.start(JmeContext.Type.Headless);
+    }
+
+    @Override
+    public void simpleInitApp() {
+        final Box mesh = new Box(0.1f, 0.1f, 0.1f);
+        final Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        for (int id = 0; id < ENTITIES; id++) {
+            geometries[id] = new Geometry("Entity-" + id, mesh);
+            geometries[id].setMaterial(material);
+            geometries[id].setLocalTranslation(id % 200, 0, id / 200f);
+            rootNode.attachChild(geometries[id]);
+            transformSync.bind(id, geometries[id]);
+        }
+        System.out.printf("%d entities, %d frames per run%n", ENTITIES, FRAMES);
+    }
+
+    @Override
+    public void simpleUpdate(float tpf) {
+        final int mode = run % MODES.length;
+        marshalStart = System.nanoTime();
+        if (mode == 0) {
+            for (int id = 0; id < ENTITIES; id++) {
+                angles[id] += 0.01f;
+                geometries[id].setLocalTranslation(id % 200, FastMath.sin(angles[id]), id / 200f);
+                geometries[id].setLocalRotation(rotation.fromAngles(0f, angles[id], 0f));
+            }
+            synced += ENTITIES;
+        } else {
+            // the simulation writes the columns, then the output stage synchronizes them
+            final TransformColumns columns = transformSync.getColumns();
+            final int moving = mode == 1 ? ENTITIES : ENTITIES / 20;
+            final int first = mode == 1 ? 0 : (frame * moving) % ENTITIES;
+            for (int i = 0; i < moving; i++) {
+                final int id = (first + i) % ENTITIES;
+                angles[id] += 0.01f;
+                rotation.fromAngles(0f, angles[id], 0f);
+                columns.setTranslation(id, id % 200, FastMath.sin(angles[id]), id / 200f);
+                columns.setRotation(id, rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW());
+            }
+            synced += transformSync.sync();
+        }
+        marshalNanos += System.nanoTime() - marshalStart;
+    }
+
+    @Override
+    public void simpleRender(RenderManager renderManager) {
+        updateNanos += System.nanoTime() - marshalStart;
+        if (++frame == FRAMES) {
+            System.out.printf("[%s] %-19s update: %7.3f ms, marshal: %7.3f ms, spatials/frame: %6d%n",
+                    run < MODES.length ? "warm-up" : "measure", MODES[run % MODES.length],
+                    updateNanos / (FRAMES * 1e6), marshalNanos / (FRAMES * 1e6), synced / FRAMES);
+            frame = 0;
+            updateNanos = 0;
+            marshalNanos = 0;
+            synced = 0;
+            if (++run == MODES.length * 2) {
+                stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.EntityUpdater;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.WorldRuntime;
+import articular.core.system.manager.EntityComponentManager;
+import articular.core.system.metrics.LatencyHistogram;
+
+/**
+ * Benchmarks the per-tick overhead of a {@link WorldRuntime} against hand-sequenced
+ * update calls of the same systems, then replays a frame trace with a stall to show
+ * the fixed-timestep catch-up and the per-stage latencies.
+ *
+ * @author pavl_g
+ */
+public final class WorldRuntimeBenchmark {
+
+    private static final int ENTITIES = 1_000;
+    private static final int TICKS = 10_000;
+    private static final double TIMESTEP = 1 / 60d;
+
+    public static void main(String[] args) {
+        final EntityComponentManager<Double> ecsManager = new EntityComponentManager<>();
+        final Integrator integrator = new Integrator();
+        final Bounds bounds = new Bounds();
+        final Counter counter = new Counter();
+        final MemoryMap.EntityComponentMap particles = ecsManager.allocateMemoryMap(integrator);
+        for (long entity = 0; entity < ENTITIES; entity++) {
+            particles.put(entity, new Particle(entity, 0, 1));
+        }
+        ecsManager.register(bounds, particles);
+        ecsManager.register(counter, particles);
+
+        final WorldRuntime<Double> runtime = new WorldRuntime<>(ecsManager, TIMESTEP)
+                .addEntities(WorldRuntime.Stage.SIMULATE, integrator)
+                .addSystemComponents(WorldRuntime.Stage.POST_PROCESS, bounds)
+                .addSystemComponents(WorldRuntime.Stage.OUTPUT, counter);
+
+        for (int run = 0; run < 4; run++) {
+            final String phase = run < 2 ? "warm-up" : "measure";
+            long start = System.nanoTime();
+            for (int tick = 0; tick < TICKS; tick++) {
+                ecsManager.updateEntities(integrator, TIMESTEP);
+                ecsManager.updateSystemComponents(bounds, TIMESTEP);
+                ecsManager.updateSystemComponents(counter, TIMESTEP);
+                ecsManager.endTick();
+            }
+            final double manual = (double) (System.nanoTime() - start) / TICKS;
+            start = System.nanoTime();
+            for (int tick = 0; tick < TICKS; tick++) {
+                runtime.update(TIMESTEP, TIMESTEP);
+            }
+            final double driven = (double) (System.nanoTime() - start) / TICKS;
+            System.out.printf("[%s] hand-sequenced: %8.1f ns/tick, runtime: %8.1f ns/tick (%+.1f)%n",
+                    phase, manual, driven, driven - manual);
+        }
+
+        // a 60 Hz trace with a 1 second stall every 120 frames
+        final long ticks = runtime.getTick();
+        final long dropped = runtime.getDroppedTicks();
+        final double[] trace = new double[600];
+        for (int frame = 0; frame < trace.length; frame++) {
+            trace[frame] = frame % 120 == 119 ? 1 : TIMESTEP;
+        }
+        int maxTicks = 0;
+        for (double frameSeconds : trace) {
+            maxTicks = Math.max(maxTicks, runtime.update(frameSeconds, TIMESTEP));
+        }
+        System.out.printf("Trace: %d frames, %d ticks, %d dropped, at most %d ticks per frame%n",
+                trace.length, runtime.getTick() - ticks, runtime.getDroppedTicks() - dropped, maxTicks);
+        for (WorldRuntime.Stage stage : WorldRuntime.Stage.values()) {
+            final LatencyHistogram latency = runtime.getLatency(stage);
+            System.out.printf("  %-12s runs: %8d, p50: %8d ns, p99: %8d ns, max: %8d ns%n", stage, latency.getCount(),
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(99), latency.getMax());
+        }
+    }
+
+    private record Particle(long id, double position, double velocity) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class Integrator implements EntityUpdater<Double> {
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Double> entityComponentManager, Double input) {
+            final Particle particle = (Particle) component;
+            entityComponentManager.restoreComponent(getId().getId(), id,
+                    new Particle(id, particle.position() + particle.velocity() * input, particle.velocity()));
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return () -> "integrator";
+        }
+    }
+
+    private static final class Bounds implements SystemEntitiesUpdater<Double> {
+        private long bounced;
+
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Double> entityComponentManager, Double input) {
+            for (Component component : entityMap.values()) {
+                if (Math.abs(((Particle) component).position()) > 100) {
+                    bounced++;
+                }
+            }
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return () -> "bounds";
+        }
+    }
+
+    private static final class Counter implements SystemEntitiesUpdater<Double> {
+        private long frames;
+
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Double> entityComponentManager, Double input) {
+            frames++;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return () -> "counter";
+        }
+    }
+}
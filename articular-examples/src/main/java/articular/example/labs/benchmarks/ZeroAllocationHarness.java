@@ -0,0 +1,239 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.benchmarks;
+
+import articular.core.Entity;
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.component.Module;
+import articular.core.system.ArticularSystem;
+import articular.core.system.ComponentUpdater;
+import articular.core.system.EntityUpdater;
+import articular.core.system.SystemEntitiesUpdater;
+import articular.core.system.SystemsUpdater;
+import articular.core.system.data.DataPipeSlot;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.ArticularManager;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the zero-allocation mode ({@link EntityComponentManager#setZeroAllocation(boolean)}) by
+ * measuring the bytes allocated by the calling thread through the steady-state ticks of an
+ * {@link EntityComponentManager} and an {@link ArticularManager}; exits with a non-zero status
+ * if any tick step allocates, so it can be run as an allocation regression test.
+ *
+ * <p>
+ * Usage: {@code ZeroAllocationHarness [ticks]}; the steps are warmed up first, so the
+ * measured ticks run the compiled code (the interpreter doesn't eliminate the allocations).
+ * </p>
+ *
+ * @author pavl_g
+ */
+public final class ZeroAllocationHarness {
+
+    private static final int ENTITIES = 64;
+    private static final int WARM_UP_TICKS = 40_000;
+    private static final Component.Id SLOT = new Component.Id(1);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long checksum;
+
+    public static void main(String[] args) {
+        final int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("Thread allocation tracking is not supported by this JVM");
+            System.exit(2);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        final List<Step> steps = new ArrayList<>();
+        steps.addAll(steps("ecs", new EntityComponentManager<>()));
+        steps.addAll(steps("articular", new ArticularManager<>()));
+
+        System.out.printf("Warming up %d ticks...%n", WARM_UP_TICKS);
+        for (int tick = 0; tick < WARM_UP_TICKS; tick++) {
+            for (Step step : steps) {
+                step.tick.run();
+            }
+        }
+        boolean allocated = false;
+        for (Step step : steps) {
+            final long start = THREADS.getCurrentThreadAllocatedBytes();
+            for (int tick = 0; tick < ticks; tick++) {
+                step.tick.run();
+            }
+            final long bytes = THREADS.getCurrentThreadAllocatedBytes() - start;
+            allocated |= bytes != 0;
+            System.out.printf("%-40s %12d B %10.2f B/tick %s%n", step.name, bytes, (double) bytes / ticks,
+                    bytes == 0 ? "ok" : "ALLOCATES");
+        }
+        System.out.println("checksum: " + checksum);
+        if (allocated) {
+            System.err.println("FAILED: the steady-state ticks allocate");
+            System.exit(1);
+        }
+        System.out.println("PASSED: " + ticks + " ticks allocated no bytes");
+    }
+
+    private static List<Step> steps(String name, EntityComponentManager<Integer> ecsManager) {
+        ecsManager.setZeroAllocation(true);
+        final Integrator integrator = new Integrator();
+        ecsManager.allocateMemoryMap(integrator);
+        final Entity[] entities = new Entity[ENTITIES];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new Entity(name + "-" + i);
+            ecsManager.register(entities[i], new Position(entities[i].getId()), integrator);
+        }
+        final Inventory inventory = new Inventory();
+        for (Entity entity : entities) {
+            inventory.register(entity, new Position(entity.getId()));
+        }
+        final DataPipeSlot<Long, Position, Long> slot = ecsManager.declareDataPipeSlot(
+                new DataPipeSlot<>(SLOT, (position, scale) -> position.x * scale));
+        final Integer input = 1;
+        final Long scale = 2L;
+        final List<Step> steps = new ArrayList<>();
+        steps.add(new Step(name + " updateSystems", () -> ecsManager.updateSystems(integrator, input)));
+        steps.add(new Step(name + " updateSystemComponents", () -> ecsManager.updateSystemComponents(integrator, input)));
+        steps.add(new Step(name + " updateEntities", () -> ecsManager.updateEntities(integrator, input)));
+        steps.add(new Step(name + " updateEntityComponents", () -> {
+            for (Entity entity : entities) {
+                ecsManager.updateEntityComponents(integrator, entity, input);
+            }
+        }));
+        steps.add(new Step(name + " getComponent", () -> {
+            for (Entity entity : entities) {
+                checksum += ecsManager.<Position>getComponent(entity, integrator).x;
+            }
+        }));
+        steps.add(new Step(name + " replace components", () -> {
+            for (Entity entity : entities) {
+                ecsManager.register(entity, ecsManager.getComponent(entity, integrator), integrator);
+            }
+        }));
+        steps.add(new Step(name + " allocateComponent (existing)", () -> {
+            for (Entity entity : entities) {
+                checksum += ecsManager.allocateComponent(entity, integrator, entity.getId()).hashCode() & 1;
+            }
+        }));
+        steps.add(new Step(name + " module getComponent", () -> {
+            for (Entity entity : entities) {
+                checksum += inventory.<Position>getComponent(entity).x;
+            }
+        }));
+        steps.add(new Step(name + " data-pipe slot", () -> {
+            slot.bind(ecsManager.getComponent(entities[0], integrator));
+            checksum += ecsManager.<Long, Long>getDataPipe(SLOT).getData(scale);
+        }));
+        if (ecsManager instanceof ArticularManager<Integer> articularManager) {
+            steps.add(new Step(name + " cache getMemoryMap", () -> {
+                for (Entity entity : entities) {
+                    checksum += articularManager.getCacheManager().getMemoryMap(entity).size();
+                }
+            }));
+        }
+        steps.add(new Step(name + " endTick", ecsManager::endTick));
+        return steps;
+    }
+
+    private record Step(String name, Runnable tick) {
+    }
+
+    /**
+     * A mutable component updated in place.
+     */
+    private static final class Position implements Component {
+        private final Id id;
+        private long x;
+
+        Position(Id id) {
+            this.id = id;
+        }
+
+        @Override
+        public Id getId() {
+            return id;
+        }
+    }
+
+    private static final class Inventory implements Module {
+        private final MemoryMap.EntityComponentMap components = new MemoryMap.EntityComponentMap();
+
+        @Override
+        public Id getId() {
+            return SLOT;
+        }
+
+        @Override
+        public MemoryMap.EntityComponentMap getComponents() {
+            return components;
+        }
+    }
+
+    private static final class Integrator implements SystemsUpdater<Integer>, SystemEntitiesUpdater<Integer>,
+            EntityUpdater<Integer>, ComponentUpdater<Integer> {
+
+        private static final ArticularSystem SYSTEM = () -> "positions";
+
+        @Override
+        public void update(MemoryMap.SystemMap systemMap, EntityComponentManager<Integer> entityComponentManager, Integer input) {
+            checksum += systemMap.size();
+        }
+
+        @Override
+        public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<Integer> entityComponentManager, Integer input) {
+            checksum += entityMap.size();
+        }
+
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Integer> entityComponentManager, Integer input) {
+            ((Position) component).x += input;
+        }
+
+        @Override
+        public void update(MemoryMap.SystemComponentMap components, Entity entity,
+                           EntityComponentManager<Integer> entityComponentManager, Integer input) {
+            final Position position = (Position) components.get(SYSTEM.getId());
+            position.x -= input;
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return SYSTEM;
+        }
+    }
+}
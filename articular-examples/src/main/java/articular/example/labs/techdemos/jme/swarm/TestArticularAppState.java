@@ -0,0 +1,178 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.example.labs.techdemos.jme.swarm;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.EntityUpdater;
+import articular.core.system.ParallelSystems;
+import articular.core.system.WorldRuntime;
+import articular.core.system.manager.EntityComponentManager;
+import articular.jme.ArticularAppState;
+import articular.jme.TransformColumns;
+import articular.jme.TransformSync;
+import articular.util.ArticularManager;
+import com.jme3.app.SimpleApplication;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.AppSettings;
+
+/**
+ * Animates a swarm of boxes through an {@link ArticularAppState}; the orbits and the spins
+ * are simulated in parallel off the render thread at a fixed 60 Hz timestep into transform
+ * columns, and a {@link TransformSync} in the output stage marshals the moved boxes
+ * to their geometries before each frame is rendered.
+ *
+ * @author pavl_g
+ */
+public class TestArticularAppState extends SimpleApplication {
+
+    private static final int BOXES = 4_000;
+
+    private final ArticularManager<Float> ecsManager = new ArticularManager<>();
+    private final ArticularAppState articularState = new ArticularAppState(ecsManager, 1 / 60d);
+    private final TransformSync<Float> transformSync =
+            new TransformSync<>(ecsManager, () -> "transforms", new TransformColumns(BOXES));
+
+    public static void main(String... argv) {
+        final TestArticularAppState app = new TestArticularAppState();
+        final AppSettings settings = new AppSettings(true);
+        settings.setResizable(true);
+        app.setSettings(settings);
+        app.start();
+    }
+
+    @Override
+    public void simpleInitApp() {
+        flyCam.setMoveSpeed(30f);
+        cam.setLocation(new Vector3f(0, 40, 80));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+
+        final TransformColumns columns = transformSync.getColumns();
+        final Orbiter orbiter = new Orbiter(columns);
+        final Spinner spinner = new Spinner(columns);
+        final MemoryMap.EntityComponentMap bodies = ecsManager.allocateMemoryMap(orbiter);
+        final MemoryMap.EntityComponentMap spins = ecsManager.allocateMemoryMap(spinner);
+
+        final Box mesh = new Box(0.25f, 0.25f, 0.25f);
+        for (int id = 0; id < BOXES; id++) {
+            final float radius = 5f + 35f * FastMath.nextRandomFloat();
+            bodies.put((long) id, new Body(id, radius, 2f / radius, FastMath.TWO_PI * FastMath.nextRandomFloat(),
+                    10f * (FastMath.nextRandomFloat() - 0.5f)));
+            spins.put((long) id, new Spin(id, 0f, FastMath.TWO_PI * FastMath.nextRandomFloat()));
+
+            final Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            material.setColor("Color", ColorRGBA.randomColor());
+            final Geometry box = new Geometry("Box-" + id, mesh);
+            box.setMaterial(material);
+            rootNode.attachChild(box);
+            transformSync.bind(id, box);
+        }
+
+        // the orbits and the spins are independent, so they are simulated concurrently
+        articularState.getRuntime()
+                .addSystems(WorldRuntime.Stage.SIMULATE, new ParallelSystems<Float>(() -> "motion")
+                        .addEntities(orbiter)
+                        .addEntities(spinner))
+                .addSystems(WorldRuntime.Stage.OUTPUT, transformSync);
+        stateManager.attach(articularState);
+    }
+
+    private record Body(long id, float radius, float speed, float angle, float height) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private record Spin(long id, float angle, float rate) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(id);
+        }
+    }
+
+    private static final class Orbiter implements EntityUpdater<Float> {
+        private final ArticularSystem system = () -> "bodies";
+        private final TransformColumns columns;
+
+        Orbiter(TransformColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Float> entityComponentManager, Float input) {
+            final Body body = (Body) component;
+            final float angle = (body.angle() + body.speed() * input) % FastMath.TWO_PI;
+            entityComponentManager.restoreComponent(system.getId(), id,
+                    new Body(id, body.radius(), body.speed(), angle, body.height()));
+            columns.setTranslation(columns.slotOf(id), body.radius() * FastMath.cos(angle), body.height(),
+                    body.radius() * FastMath.sin(angle));
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+
+    private static final class Spinner implements EntityUpdater<Float> {
+        private final ArticularSystem system = () -> "spins";
+        private final TransformColumns columns;
+        private final Quaternion rotation = new Quaternion();
+
+        Spinner(TransformColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public void update(long id, Component component, EntityComponentManager<Float> entityComponentManager, Float input) {
+            final Spin spin = (Spin) component;
+            final float angle = (spin.angle() + spin.rate() * input) % FastMath.TWO_PI;
+            entityComponentManager.restoreComponent(system.getId(), id, new Spin(id, angle, spin.rate()));
+            rotation.fromAngles(0f, angle, angle * 0.5f);
+            columns.setRotation(columns.slotOf(id), rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW());
+        }
+
+        @Override
+        public ArticularSystem getId() {
+            return system;
+        }
+    }
+}
@@ -33,11 +33,13 @@ package articular.example.labs.techdemos.jme.testjaime.systems;
 
 import articular.core.MemoryMap;
 import articular.core.component.Component;
+import articular.core.component.ComponentAccessor;
 import articular.core.component.Module;
 import articular.core.system.ArticularSystem;
 import articular.core.system.SystemEntitiesUpdater;
 import articular.core.system.manager.EntityComponentManager;
 import articular.example.labs.techdemos.jme.testjaime.components.GameComponents;
+import articular.example.labs.techdemos.jme.testjaime.components.Jaime;
 import com.jme3.anim.util.AnimMigrationUtils;
 import com.jme3.app.SimpleApplication;
 import com.jme3.light.AmbientLight;
@@ -54,6 +56,22 @@ import com.jme3.scene.Node;
  */
 public class JaimeBuilder implements SystemEntitiesUpdater<SimpleApplication> {
 
+    private static final ComponentAccessor<Vector3f> WORLD_POSITION;
+    private static final ComponentAccessor<Node> JAIME;
+    private static final ComponentAccessor<AmbientLight> AMBIENT_LIGHT;
+    private static final ComponentAccessor<PointLight> POINT_LIGHT;
+
+    static {
+        try {
+            WORLD_POSITION = ComponentAccessor.of(Jaime.class, "worldPosition");
+            JAIME = ComponentAccessor.of(Jaime.class, "jaime");
+            AMBIENT_LIGHT = ComponentAccessor.of(Jaime.class, "ambientLight");
+            POINT_LIGHT = ComponentAccessor.of(Jaime.class, "pointLight");
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @Override
     public ArticularSystem getId() {
         return Systems.ENV_SYSTEM;
@@ -63,21 +81,15 @@ public class JaimeBuilder implements SystemEntitiesUpdater<SimpleApplication> {
     public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<SimpleApplication> entityComponentManager, SimpleApplication input) {
         final Module env =
                 entityComponentManager.getComponent(GameComponents.JAIME.getEntity(), this);
-        env.getComponents().forEach((number, component) -> {
-            try {
-                setup(input, component);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        env.getComponents().forEach((number, component) -> setup(input, component));
     }
 
-    private void setup(SimpleApplication app, Component env) throws NoSuchFieldException, IllegalAccessException {
+    private void setup(SimpleApplication app, Component env) {
         // Get involved components
-        final Vector3f worldPosition = env.getData("worldPosition");
-        final Node jaime = env.getData("jaime");
-        final AmbientLight al = env.getData("ambientLight");
-        final PointLight pl = env.getData("pointLight");
+        final Vector3f worldPosition = WORLD_POSITION.get(env);
+        final Node jaime = JAIME.get(env);
+        final AmbientLight al = AMBIENT_LIGHT.get(env);
+        final PointLight pl = POINT_LIGHT.get(env);
 
         final Vector3f max3f = new Vector3f(Math.max(1, worldPosition.getX()),
                 Math.max(1, worldPosition.getY()), Math.max(1, worldPosition.getZ()));
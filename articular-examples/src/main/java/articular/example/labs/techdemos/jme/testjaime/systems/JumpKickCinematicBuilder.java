@@ -33,11 +33,14 @@ package articular.example.labs.techdemos.jme.testjaime.systems;
 
 import articular.core.MemoryMap;
 import articular.core.component.Component;
+import articular.core.component.ComponentAccessor;
 import articular.core.component.Module;
 import articular.core.system.ArticularSystem;
 import articular.core.system.SystemEntitiesUpdater;
 import articular.core.system.manager.EntityComponentManager;
 import articular.example.labs.techdemos.jme.testjaime.components.GameComponents;
+import articular.example.labs.techdemos.jme.testjaime.components.Jaime;
+import articular.example.labs.techdemos.jme.testjaime.components.JumpKickCinematic;
 import com.jme3.anim.AnimClip;
 import com.jme3.anim.AnimComposer;
 import com.jme3.anim.AnimFactory;
@@ -55,6 +58,22 @@ import com.jme3.scene.Node;
  */
 public class JumpKickCinematicBuilder implements SystemEntitiesUpdater<SimpleApplication> {
 
+    private static final ComponentAccessor<Cinematic> CINEMATIC;
+    private static final ComponentAccessor<AnimFactory> JUMP_FORWARD;
+    private static final ComponentAccessor<AnimFactory> STARTING_POSITION;
+    private static final ComponentAccessor<Node> JAIME;
+
+    static {
+        try {
+            CINEMATIC = ComponentAccessor.of(JumpKickCinematic.class, "cinematic");
+            JUMP_FORWARD = ComponentAccessor.of(JumpKickCinematic.class, "jumpForward");
+            STARTING_POSITION = ComponentAccessor.of(JumpKickCinematic.class, "startingPosition");
+            JAIME = ComponentAccessor.of(Jaime.class, "jaime");
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @Override
     public ArticularSystem getId() {
         return Systems.CINEMATIC_SYSTEM;
@@ -64,80 +83,70 @@ public class JumpKickCinematicBuilder implements SystemEntitiesUpdater<SimpleApp
     public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<SimpleApplication> entityComponentManager, SimpleApplication input) {
         final Module cinematics =
                 entityComponentManager.getComponent(GameComponents.CINEMATIC_COMPONENTS.getEntity(), this);
-        try {
-            setup(input, entityComponentManager, cinematics);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        setup(input, entityComponentManager, cinematics);
     }
 
-    private void setup(SimpleApplication app, EntityComponentManager<SimpleApplication> ecsManager, Module module)
-            throws NoSuchFieldException, IllegalAccessException {
+    private void setup(SimpleApplication app, EntityComponentManager<SimpleApplication> ecsManager, Module module) {
 
         // attach cinematic objects to their jaime
         final MemoryMap.EntityComponentMap map = ecsManager.getMemoryMap().get(Systems.ENV_SYSTEM.getId());
         final Module jaimes = (Module) map.get(GameComponents.JAIME.getEntity().getId().longValue());
         jaimes.getComponents().forEach((id, jaimeComponent) -> {
-            try {
-
-                if (!module.hasComponent(jaimeComponent.getId())) {
-                    return;
-                }
-
-                final Component component = module.getComponents().get(id);
-
-                final Cinematic cinematic = component.getData("cinematic");
-                final AnimFactory jumpForward = component.getData("jumpForward");
-                final AnimFactory startingPosition = component.getData("startingPosition");
-
-                final Node jaime = jaimeComponent.getData("jaime");
-                app.getStateManager().attach(cinematic);
-
-                final AnimClip forwardClip = jumpForward.buildAnimation(jaime);
-                final AnimComposer composer = jaime.getControl(AnimComposer.class);
-
-                composer.addAnimClip(forwardClip);
-                /*
-                 * Add a clip that warps the model to its starting position.
-                 */
-                startingPosition.addTimeTranslation(0f, new Vector3f(0f, 0f, -3f));
-
-                final AnimClip startClip = startingPosition.buildAnimation(jaime);
-                composer.addAnimClip(startClip);
-
-                composer.makeLayer("SpatialLayer", null);
-                String boneLayer = AnimComposer.DEFAULT_LAYER;
-
-                cinematic.addCinematicEvent(0f,
-                        new AnimEvent(composer, "StartingPosition", "SpatialLayer"));
-                cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "Idle", boneLayer));
-
-                final float jumpStart = cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "JumpStart", boneLayer));
-                cinematic.addCinematicEvent(jumpStart + 0.2f,
-                        new AnimEvent(composer, "JumpForward", "SpatialLayer"));
-                cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "JumpEnd", boneLayer));
-                cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "Punches", boneLayer));
-                cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "SideKick", boneLayer));
-
-                final AnimEvent idleOneSecond = new AnimEvent(composer, "Idle", boneLayer);
-                idleOneSecond.setInitialDuration(1f);
-
-                cinematic.enqueueCinematicEvent(idleOneSecond);
-                cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "Wave", boneLayer));
-                cinematic.enqueueCinematicEvent(
-                        new AnimEvent(composer, "Idle", boneLayer));
-
-                cinematic.fitDuration();
-                cinematic.play();
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new RuntimeException(e);
+            if (!module.hasComponent(jaimeComponent.getId())) {
+                return;
             }
+
+            final Component component = module.getComponents().get(id);
+
+            final Cinematic cinematic = CINEMATIC.get(component);
+            final AnimFactory jumpForward = JUMP_FORWARD.get(component);
+            final AnimFactory startingPosition = STARTING_POSITION.get(component);
+
+            final Node jaime = JAIME.get(jaimeComponent);
+            app.getStateManager().attach(cinematic);
+
+            final AnimClip forwardClip = jumpForward.buildAnimation(jaime);
+            final AnimComposer composer = jaime.getControl(AnimComposer.class);
+
+            composer.addAnimClip(forwardClip);
+            /*
+             * Add a clip that warps the model to its starting position.
+             */
+            startingPosition.addTimeTranslation(0f, new Vector3f(0f, 0f, -3f));
+
+            final AnimClip startClip = startingPosition.buildAnimation(jaime);
+            composer.addAnimClip(startClip);
+
+            composer.makeLayer("SpatialLayer", null);
+            String boneLayer = AnimComposer.DEFAULT_LAYER;
+
+            cinematic.addCinematicEvent(0f,
+                    new AnimEvent(composer, "StartingPosition", "SpatialLayer"));
+            cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "Idle", boneLayer));
+
+            final float jumpStart = cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "JumpStart", boneLayer));
+            cinematic.addCinematicEvent(jumpStart + 0.2f,
+                    new AnimEvent(composer, "JumpForward", "SpatialLayer"));
+            cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "JumpEnd", boneLayer));
+            cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "Punches", boneLayer));
+            cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "SideKick", boneLayer));
+
+            final AnimEvent idleOneSecond = new AnimEvent(composer, "Idle", boneLayer);
+            idleOneSecond.setInitialDuration(1f);
+
+            cinematic.enqueueCinematicEvent(idleOneSecond);
+            cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "Wave", boneLayer));
+            cinematic.enqueueCinematicEvent(
+                    new AnimEvent(composer, "Idle", boneLayer));
+
+            cinematic.fitDuration();
+            cinematic.play();
         });
     }
 }
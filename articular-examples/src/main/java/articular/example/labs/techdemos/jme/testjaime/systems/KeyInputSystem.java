@@ -32,11 +32,14 @@
 package articular.example.labs.techdemos.jme.testjaime.systems;
 
 import articular.core.MemoryMap;
+import articular.core.component.ComponentAccessor;
 import articular.core.component.Module;
 import articular.core.system.ArticularSystem;
 import articular.core.system.SystemEntitiesUpdater;
 import articular.core.system.manager.EntityComponentManager;
 import articular.example.labs.techdemos.jme.testjaime.components.GameComponents;
+import articular.example.labs.techdemos.jme.testjaime.components.InputComponent;
+import articular.example.labs.techdemos.jme.testjaime.components.JumpKickCinematic;
 import com.jme3.app.SimpleApplication;
 import com.jme3.cinematic.Cinematic;
 import com.jme3.cinematic.PlayState;
@@ -60,18 +63,25 @@ public class KeyInputSystem implements SystemEntitiesUpdater<SimpleApplication>
     public void update(MemoryMap.EntityComponentMap entityMap, EntityComponentManager<SimpleApplication> entityComponentManager, SimpleApplication input) {
         final Module inputs =
                 entityComponentManager.getComponent(GameComponents.INPUT_COMPONENTS.getEntity(), this);
+        // resolve the data accessors once, the listener reads the cinematics on every input event
+        final ComponentAccessor<String> mappingAccessor;
+        final ComponentAccessor<KeyTrigger> keyAccessor;
+        final ComponentAccessor<Cinematic> cinematicAccessor;
+        try {
+            mappingAccessor = ComponentAccessor.of(InputComponent.class, "mapping");
+            keyAccessor = ComponentAccessor.of(InputComponent.class, "key");
+            cinematicAccessor = ComponentAccessor.of(JumpKickCinematic.class, "cinematic");
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
         // collect the data from the components
         final ArrayList<String> mappings = new ArrayList<>();
         inputs.getComponents().forEach((number, component) -> {
-            try {
-                final String mapping = component.getData("mapping");
-                final KeyTrigger key = component.getData("key");
-                input.getInputManager().addMapping(mapping, key);
+            final String mapping = mappingAccessor.get(component);
+            final KeyTrigger key = keyAccessor.get(component);
+            input.getInputManager().addMapping(mapping, key);
 
-                mappings.add(mapping);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
+            mappings.add(mapping);
         });
 
         // perform operational code upon them
@@ -82,16 +92,11 @@ public class KeyInputSystem implements SystemEntitiesUpdater<SimpleApplication>
                 final Module cinematics = (Module) map.get(GameComponents.CINEMATIC_COMPONENTS.getEntity().getId().longValue());
 
                 cinematics.getComponents().forEach((number, component) -> {
-                    final Cinematic cinematic;
-                    try {
-                        cinematic = component.getData("cinematic");
-                        if(cinematic.getPlayState() != PlayState.Playing){
-                            cinematic.play();
-                        }else{
-                            cinematic.pause();
-                        }
-                    } catch (NoSuchFieldException | IllegalAccessException e) {
-                        throw new RuntimeException(e);
+                    final Cinematic cinematic = cinematicAccessor.get(component);
+                    if(cinematic.getPlayState() != PlayState.Playing){
+                        cinematic.play();
+                    }else{
+                        cinematic.pause();
                     }
                 });
             } else if (name.equals("exit") && isPressed) {
@@ -0,0 +1,245 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.jme;
+
+import articular.core.system.ParallelSystems;
+import articular.core.system.WorldRuntime;
+import articular.core.system.manager.EntityComponentManager;
+import articular.util.ArticularManager;
+import com.jme3.app.Application;
+import com.jme3.app.state.BaseAppState;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Drives an ecs-manager from the jMonkeyEngine game loop; each frame is run by
+ * a {@link WorldRuntime} with the time per frame ({@code tpf}) as the input of the per-frame systems,
+ * and the timestep of the runtime as the input of the fixed systems.
+ *
+ * <p>
+ * A frame is split in two halves: the {@link WorldRuntime.Stage#INPUT} systems and the fixed ticks
+ * are advanced off the render thread on an executor, while the {@link WorldRuntime.Stage#OUTPUT} systems
+ * and the scene-graph mutations posted by {@link ArticularAppState#enqueue(Runnable)} are applied on the
+ * render thread in a single marshal pass of {@link ArticularAppState#update(float)}, before the
+ * scene graph is updated and rendered. The independent systems of a stage can be grouped in
+ * {@link ParallelSystems} to run concurrently.
+ * </p>
+ *
+ * <p>
+ * In the pipelined mode (default), the world is advanced while the previous frame is rendered, and
+ * each update presents the world advanced by the previous update; so the scene lags the simulation by
+ * a frame. Otherwise, each update advances the world on the executor and joins it before presenting,
+ * so the world is advanced off the render thread in both modes.
+ * </p>
+ *
+ * <p>
+ * Note: the systems outside the output stage must not touch the scene graph; they write their components,
+ * and the output systems (or the enqueued mutations) marshal them to the spatials.
+ * </p>
+ *
+ * @author pavl_g
+ */
+public class ArticularAppState extends BaseAppState {
+
+    /**
+     * The runtime driving the ecs-manager.
+     */
+    protected final WorldRuntime<Float> runtime;
+
+    /**
+     * The timestep of the runtime in seconds; the input of the fixed systems.
+     */
+    protected final Float timestep;
+
+    /**
+     * The executor advancing the world off the render thread.
+     */
+    protected final Executor executor;
+
+    /**
+     * The scene-graph mutations posted since the last marshal pass.
+     */
+    protected final ConcurrentLinkedQueue<Runnable> sceneUpdates = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True to advance the world while the previous frame is rendered.
+     */
+    protected boolean pipelined = true;
+
+    /**
+     * The frame being advanced off the render thread, if any; accessed from the render thread.
+     */
+    protected CompletableFuture<Integer> pending;
+
+    /**
+     * Instantiates a state driving an ecs-manager with a fixed timestep on the common fork-join pool.
+     *
+     * @param ecsManager      the ecs-manager to drive (not null).
+     * @param timestepSeconds the fixed duration of a tick in seconds (positive).
+     */
+    public ArticularAppState(ArticularManager<Float> ecsManager, double timestepSeconds) {
+        this(new WorldRuntime<>(ecsManager, timestepSeconds), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a state driving a runtime on an executor.
+     *
+     * @param runtime  the runtime of the world (not null).
+     * @param executor the executor advancing the world (not null).
+     */
+    public ArticularAppState(WorldRuntime<Float> runtime, Executor executor) {
+        this.runtime = Objects.requireNonNull(runtime);
+        this.executor = Objects.requireNonNull(executor);
+        this.timestep = (float) runtime.getTimestep();
+    }
+
+    /**
+     * Retrieves the runtime of the world; the systems are registered to its stages.
+     *
+     * @return the runtime object.
+     */
+    public WorldRuntime<Float> getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Retrieves the driven ecs-manager.
+     *
+     * @return the ecs-manager object.
+     */
+    public EntityComponentManager<Float> getEntityComponentManager() {
+        return runtime.getEntityComponentManager();
+    }
+
+    /**
+     * Posts a scene-graph mutation from any thread; the mutations are applied in their
+     * posting order in the next marshal pass on the render thread.
+     *
+     * @param sceneUpdate the mutation to apply (not null).
+     */
+    public void enqueue(Runnable sceneUpdate) {
+        sceneUpdates.add(Objects.requireNonNull(sceneUpdate));
+    }
+
+    /**
+     * Tests whether the world is advanced while the previous frame is rendered.
+     *
+     * @return true if the pipelined mode is enabled, false otherwise.
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * Enables/disables the pipelined mode; the frame in progress is completed first.
+     *
+     * @param pipelined true to advance the world while the previous frame is rendered.
+     */
+    public void setPipelined(boolean pipelined) {
+        await();
+        this.pipelined = pipelined;
+    }
+
+    @Override
+    public void update(float tpf) {
+        await();
+        final Float input = tpf;
+        if (pipelined) {
+            marshal(tpf);
+            pending = CompletableFuture.supplyAsync(() -> runtime.advance(tpf, input, timestep), executor);
+        } else {
+            // advances off the render thread as well, and joins before presenting
+            pending = CompletableFuture.supplyAsync(() -> runtime.advance(tpf, input, timestep), executor);
+            await();
+            marshal(tpf);
+        }
+    }
+
+    @Override
+    protected void initialize(Application app) {
+    }
+
+    @Override
+    protected void cleanup(Application app) {
+        await();
+        sceneUpdates.clear();
+    }
+
+    @Override
+    protected void onEnable() {
+    }
+
+    @Override
+    protected void onDisable() {
+        await();
+    }
+
+    /**
+     * Applies the advanced world to the scene graph on the render thread; runs the
+     * output systems, then the posted scene-graph mutations.
+     *
+     * @param tpf the time per frame.
+     */
+    protected void marshal(float tpf) {
+        runtime.present(tpf);
+        Runnable sceneUpdate;
+        while ((sceneUpdate = sceneUpdates.poll()) != null) {
+            sceneUpdate.run();
+        }
+    }
+
+    /**
+     * Waits for the frame being advanced off the render thread, if any; rethrows its failure.
+     */
+    protected void await() {
+        final CompletableFuture<Integer> frame = pending;
+        if (frame == null) {
+            return;
+        }
+        pending = null;
+        try {
+            frame.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
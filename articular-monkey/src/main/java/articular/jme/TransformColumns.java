@@ -0,0 +1,330 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package articular.jme;
+
+import articular.core.MemoryMap;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stores the translations and the rotations of entities in dense columns of floats indexed
+ * by slots, and tracks the slots modified since the last drain in a bit-set; so the transforms
+ * are written by the systems without allocating, and read back in a single pass over the
+ * modified slots only.
+ *
+ * <p>
+ * A write that leaves the stored value unchanged does not mark its slot; the slots can be written
+ * concurrently (e.g. the translations and the rotations by parallel systems), and the marks are
+ * drained by a single consumer thread.
+ * </p>
+ *
+ * <p>
+ * Note: the slots are allocated and released by a single thread while no system writes the columns
+ * (e.g. on the render thread between the frames); the columns grow on allocation.
+ * </p>
+ *
+ * @author pavl_g
+ * @see TransformSync
+ */
+public final class TransformColumns {
+
+    /**
+     * Consumes the modified slots of a drain.
+     */
+    @FunctionalInterface
+    public interface SlotConsumer {
+
+        /**
+         * Consumes a modified slot.
+         *
+         * @param slot the modified slot.
+         */
+        void accept(int slot);
+    }
+
+    private final ConcurrentHashMap<Number, Integer> slots = new ConcurrentHashMap<>();
+    private long[] entities;
+    private float[] translations;
+    private float[] rotations;
+    private volatile AtomicLongArray dirty;
+    private int[] released;
+    private int releasedCount;
+    private int size;
+
+    /**
+     * Instantiates empty columns with an initial capacity.
+     *
+     * @param capacity the initial number of slots.
+     */
+    public TransformColumns(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        entities = new long[capacity];
+        translations = new float[capacity * 3];
+        rotations = new float[capacity * 4];
+        dirty = new AtomicLongArray((capacity + Long.SIZE - 1) / Long.SIZE);
+        released = new int[0];
+    }
+
+    /**
+     * Allocates a slot for an entity, with an identity transform; a released slot is reused first.
+     *
+     * @param entityId the entity identifier.
+     * @return the slot of the entity.
+     * @throws IllegalStateException if the entity already has a slot.
+     */
+    public int allocate(long entityId) {
+        if (slots.containsKey(MemoryMap.LookupKey.of(entityId))) {
+            throw new IllegalStateException("Entity already has a slot: " + entityId);
+        }
+        final int slot;
+        if (releasedCount > 0) {
+            slot = released[--releasedCount];
+        } else {
+            slot = size++;
+            if (slot == entities.length) {
+                grow(Math.max(16, slot * 2));
+            }
+        }
+        entities[slot] = entityId;
+        Arrays.fill(translations, slot * 3, slot * 3 + 3, 0f);
+        Arrays.fill(rotations, slot * 4, slot * 4 + 3, 0f);
+        rotations[slot * 4 + 3] = 1f;
+        slots.put(entityId, slot);
+        return slot;
+    }
+
+    /**
+     * Releases the slot of an entity; the slot is unmarked and reused by the next allocation.
+     *
+     * @param entityId the entity identifier.
+     * @return the released slot, or -1 if the entity has no slot.
+     */
+    public int release(long entityId) {
+        final Integer slot = slots.remove(MemoryMap.LookupKey.of(entityId));
+        if (slot == null) {
+            return -1;
+        }
+        clearMark(slot);
+        if (releasedCount == released.length) {
+            released = Arrays.copyOf(released, Math.max(16, releasedCount * 2));
+        }
+        released[releasedCount++] = slot;
+        return slot;
+    }
+
+    /**
+     * Retrieves the slot of an entity.
+     *
+     * @param entityId the entity identifier.
+     * @return the slot of the entity, or -1 if the entity has no slot.
+     */
+    public int slotOf(long entityId) {
+        final Integer slot = slots.get(MemoryMap.LookupKey.of(entityId));
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Retrieves the entity of an allocated slot.
+     *
+     * @param slot the allocated slot.
+     * @return the entity identifier.
+     */
+    public long getEntity(int slot) {
+        return entities[slot];
+    }
+
+    /**
+     * Tests whether a slot is allocated to an entity.
+     *
+     * @param slot the slot.
+     * @return true if the slot is allocated, false otherwise.
+     */
+    public boolean isAllocated(int slot) {
+        if (slot < 0 || slot >= size) {
+            return false;
+        }
+        final Integer allocated = slots.get(MemoryMap.LookupKey.of(entities[slot]));
+        return allocated != null && allocated == slot;
+    }
+
+    /**
+     * Visits the allocated slots; the visited slot can be released by the consumer.
+     *
+     * @param consumer the consumer of the allocated slots (not null).
+     */
+    public void forEach(SlotConsumer consumer) {
+        for (Integer slot : slots.values()) {
+            consumer.accept(slot);
+        }
+    }
+
+    /**
+     * Retrieves the number of the allocated slots.
+     *
+     * @return the number of the entities with slots.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Writes the translation of a slot; the slot is marked if the translation changes.
+     *
+     * @param slot the allocated slot.
+     * @param x    the x-component of the translation.
+     * @param y    the y-component of the translation.
+     * @param z    the z-component of the translation.
+     */
+    public void setTranslation(int slot, float x, float y, float z) {
+        final int index = slot * 3;
+        final float[] column = translations;
+        if (column[index] == x && column[index + 1] == y && column[index + 2] == z) {
+            return;
+        }
+        column[index] = x;
+        column[index + 1] = y;
+        column[index + 2] = z;
+        mark(slot);
+    }
+
+    /**
+     * Writes the rotation quaternion of a slot; the slot is marked if the rotation changes.
+     *
+     * @param slot the allocated slot.
+     * @param x    the x-component of the quaternion.
+     * @param y    the y-component of the quaternion.
+     * @param z    the z-component of the quaternion.
+     * @param w    the w-component of the quaternion.
+     */
+    public void setRotation(int slot, float x, float y, float z, float w) {
+        final int index = slot * 4;
+        final float[] column = rotations;
+        if (column[index] == x && column[index + 1] == y && column[index + 2] == z && column[index + 3] == w) {
+            return;
+        }
+        column[index] = x;
+        column[index + 1] = y;
+        column[index + 2] = z;
+        column[index + 3] = w;
+        mark(slot);
+    }
+
+    /**
+     * Retrieves a component of the translation of a slot.
+     *
+     * @param slot the allocated slot.
+     * @param axis the axis of the component (0 for x, 1 for y and 2 for z).
+     * @return the translation component.
+     */
+    public float getTranslation(int slot, int axis) {
+        return translations[slot * 3 + axis];
+    }
+
+    /**
+     * Retrieves a component of the rotation quaternion of a slot.
+     *
+     * @param slot the allocated slot.
+     * @param axis the axis of the component (0 for x, 1 for y, 2 for z and 3 for w).
+     * @return the quaternion component.
+     */
+    public float getRotation(int slot, int axis) {
+        return rotations[slot * 4 + axis];
+    }
+
+    /**
+     * Marks a slot as modified, e.g. to force its next synchronization.
+     *
+     * @param slot the allocated slot.
+     */
+    public void mark(int slot) {
+        final AtomicLongArray marks = dirty;
+        final int word = slot >>> 6;
+        final long bit = 1L << slot;
+        long bits;
+        do {
+            bits = marks.get(word);
+            if ((bits & bit) != 0) {
+                return;
+            }
+        } while (!marks.compareAndSet(word, bits, bits | bit));
+    }
+
+    /**
+     * Drains the modified slots in their ascending order; each slot is unmarked before
+     * it is consumed, so a write during the drain marks its slot for the next drain.
+     *
+     * @param consumer the consumer of the modified slots (not null).
+     * @return the number of the drained slots.
+     */
+    public int drain(SlotConsumer consumer) {
+        final AtomicLongArray marks = dirty;
+        int drained = 0;
+        for (int word = 0; word < marks.length(); word++) {
+            if (marks.get(word) == 0) {
+                continue;
+            }
+            long bits = marks.getAndSet(word, 0);
+            while (bits != 0) {
+                consumer.accept((word << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+                drained++;
+            }
+        }
+        return drained;
+    }
+
+    private void clearMark(int slot) {
+        final AtomicLongArray marks = dirty;
+        final int word = slot >>> 6;
+        final long bit = 1L << slot;
+        long bits;
+        do {
+            bits = marks.get(word);
+        } while ((bits & bit) != 0 && !marks.compareAndSet(word, bits, bits & ~bit));
+    }
+
+    private void grow(int capacity) {
+        entities = Arrays.copyOf(entities, capacity);
+        translations = Arrays.copyOf(translations, capacity * 3);
+        rotations = Arrays.copyOf(rotations, capacity * 4);
+        final AtomicLongArray marks = dirty;
+        final AtomicLongArray grown = new AtomicLongArray((capacity + Long.SIZE - 1) / Long.SIZE);
+        for (int word = 0; word < marks.length(); word++) {
+            grown.set(word, marks.get(word));
+        }
+        dirty = grown;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.jme;
+
+import articular.core.MemoryMap;
+import articular.core.component.Component;
+import articular.core.system.ArticularSystem;
+import articular.core.system.SystemsUpdater;
+import articular.core.system.manager.EntityComponentManager;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import java.util.Objects;
+
+/**
+ * Synchronizes the transforms of {@link TransformColumns} to their bound {@link Spatial}s in a single
+ * batched pass; only the spatials of the slots modified since the last pass are written, so the untouched
+ * nodes keep their cached world transforms and are skipped by the geometric update of the scene graph.
+ *
+ * <p>
+ * The bindings are the components of this system in the world: binding a spatial registers a
+ * {@link Binding} of the entity (its slot and spatial) with the ecs-manager, and the columns hold
+ * the transform data of these components. A pass reads the bindings from the memory map it is dispatched
+ * with, so an entity component removed from the world (e.g. unregistered or rewound) is no longer synchronized,
+ * and its slot is released by the next pass.
+ * </p>
+ *
+ * <p>
+ * The simulation systems write the transforms into the columns from any thread, while this system is
+ * registered in the output stage of an {@link ArticularAppState} (or dispatched on the render thread by
+ * other means), e.g.:
+ * </p>
+ * <pre>
+ * final TransformSync&lt;Float&gt; transformSync =
+ *         new TransformSync&lt;&gt;(ecsManager, () -&gt; "transforms", new TransformColumns(1024));
+ * final int slot = transformSync.bind(entity.getId(), geometry);
+ * articularState.getRuntime().addSystems(WorldRuntime.Stage.OUTPUT, transformSync);
+ * </pre>
+ *
+ * @param <I> the type of the game loop input.
+ * @author pavl_g
+ */
+public class TransformSync<I> implements SystemsUpdater<I> {
+
+    /**
+     * Binds a spatial to the transform slot of an entity; the component of
+     * the entity in the system of a {@link TransformSync}.
+     *
+     * @param entityId the entity identifier.
+     * @param slot     the slot of the entity in the columns.
+     * @param spatial  the bound spatial.
+     */
+    public record Binding(long entityId, int slot, Spatial spatial) implements Component {
+        @Override
+        public Id getId() {
+            return new Id(entityId);
+        }
+    }
+
+    /**
+     * The ecs-manager holding the bindings.
+     */
+    protected final EntityComponentManager<I> entityComponentManager;
+
+    /**
+     * The identifier of this system.
+     */
+    protected final ArticularSystem system;
+
+    /**
+     * The synchronized transforms.
+     */
+    protected final TransformColumns columns;
+
+    private final Quaternion rotation = new Quaternion();
+    private final TransformColumns.SlotConsumer applier = this::apply;
+    private final TransformColumns.SlotConsumer pruner = this::prune;
+    // the bindings of the pass in progress
+    private MemoryMap.EntityComponentMap bindings;
+    private int synced;
+
+    /**
+     * Instantiates a transform-sync system of some columns; allocates the memory map
+     * of the system in the ecs-manager if absent.
+     *
+     * @param entityComponentManager the ecs-manager holding the bindings (not null).
+     * @param system                 the identifier of this system (not null).
+     * @param columns                the transforms to synchronize (not null).
+     */
+    public TransformSync(EntityComponentManager<I> entityComponentManager, ArticularSystem system,
+                         TransformColumns columns) {
+        this.entityComponentManager = Objects.requireNonNull(entityComponentManager);
+        this.system = Objects.requireNonNull(system);
+        this.columns = Objects.requireNonNull(columns);
+        if (!entityComponentManager.hasSystemComponents(this)) {
+            entityComponentManager.allocateMemoryMap(this);
+        }
+    }
+
+    /**
+     * Binds a spatial to an entity; allocates a slot of the entity seeded with the local
+     * transform of the spatial, and registers the binding with the ecs-manager. Call on the render thread.
+     *
+     * @param entityId the entity identifier.
+     * @param spatial  the spatial to bind (not null).
+     * @return the slot of the entity in the columns.
+     */
+    public int bind(long entityId, Spatial spatial) {
+        Objects.requireNonNull(spatial);
+        final int slot = allocate(entityId, spatial);
+        // the bindings reference the scene graph, so they are not journaled
+        entityComponentManager.restoreComponent(system.getId(), entityId, new Binding(entityId, slot, spatial), false);
+        return slot;
+    }
+
+    /**
+     * Unbinds the spatial of an entity; unregisters its binding and releases its slot. Call on the render thread.
+     *
+     * @param entityId the entity identifier.
+     * @return the unbound spatial, or null if the entity is not bound.
+     */
+    public Spatial unbind(long entityId) {
+        final Binding binding = getBinding(entityComponentManager.getMemoryMap(this), entityId);
+        if (binding != null) {
+            entityComponentManager.restoreComponent(system.getId(), entityId, null, false);
+        }
+        columns.release(entityId);
+        return binding == null ? null : binding.spatial();
+    }
+
+    /**
+     * Writes the transforms of the modified slots to the spatials bound in the ecs-manager;
+     * call on the render thread.
+     *
+     * @return the number of the synchronized spatials.
+     */
+    public int sync() {
+        return sync(entityComponentManager.getMemoryMap());
+    }
+
+    /**
+     * Writes the transforms of the modified slots to the spatials bound in a memory map;
+     * call on the render thread.
+     *
+     * @param systemMap the memory map holding the bindings of this system (not null).
+     * @return the number of the synchronized spatials; the modified slots are kept
+     * if the memory map holds no system of the bindings.
+     */
+    public int sync(MemoryMap.SystemMap systemMap) {
+        final MemoryMap.EntityComponentMap components = systemMap.get(system.getId());
+        if (components == null) {
+            synced = 0;
+            return synced;
+        }
+        bindings = components;
+        try {
+            if (components.size() != columns.size()) {
+                reconcile(components);
+            }
+            synced = columns.drain(applier);
+        } finally {
+            bindings = null;
+        }
+        return synced;
+    }
+
+    @Override
+    public void update(MemoryMap.SystemMap systemMap, EntityComponentManager<I> entityComponentManager, I input) {
+        sync(systemMap);
+    }
+
+    @Override
+    public ArticularSystem getId() {
+        return system;
+    }
+
+    /**
+     * Retrieves the synchronized transforms.
+     *
+     * @return the transform columns.
+     */
+    public TransformColumns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Retrieves the spatial bound to a slot in the ecs-manager.
+     *
+     * @param slot the slot.
+     * @return the bound spatial, or null if the slot is not bound.
+     */
+    public Spatial getSpatial(int slot) {
+        if (!columns.isAllocated(slot)) {
+            return null;
+        }
+        final Binding binding = getSlotBinding(entityComponentManager.getMemoryMap(this), slot);
+        return binding == null ? null : binding.spatial();
+    }
+
+    /**
+     * Retrieves the number of the spatials synchronized by the last pass.
+     *
+     * @return the number of the synchronized spatials.
+     */
+    public int getSynced() {
+        return synced;
+    }
+
+    private Binding getSlotBinding(MemoryMap.EntityComponentMap components, int slot) {
+        final Binding binding = getBinding(components, columns.getEntity(slot));
+        // a stale binding (e.g. restored by a rewind) may name a reused slot
+        return binding != null && binding.slot() == slot ? binding : null;
+    }
+
+    private static Binding getBinding(MemoryMap.EntityComponentMap components, long entityId) {
+        if (components == null) {
+            return null;
+        }
+        final Component component = components.get(MemoryMap.LookupKey.of(entityId));
+        return component instanceof Binding ? (Binding) component : null;
+    }
+
+    private void apply(int slot) {
+        final Binding binding = getSlotBinding(bindings, slot);
+        if (binding == null) {
+            return;
+        }
+        final Spatial spatial = binding.spatial();
+        spatial.setLocalTranslation(columns.getTranslation(slot, 0), columns.getTranslation(slot, 1),
+                columns.getTranslation(slot, 2));
+        rotation.set(columns.getRotation(slot, 0), columns.getRotation(slot, 1), columns.getRotation(slot, 2),
+                columns.getRotation(slot, 3));
+        spatial.setLocalRotation(rotation);
+    }
+
+    private int allocate(long entityId, Spatial spatial) {
+        final int slot = columns.allocate(entityId);
+        final Vector3f translation = spatial.getLocalTranslation();
+        final Quaternion localRotation = spatial.getLocalRotation();
+        columns.setTranslation(slot, translation.x, translation.y, translation.z);
+        columns.setRotation(slot, localRotation.getX(), localRotation.getY(), localRotation.getZ(), localRotation.getW());
+        return slot;
+    }
+
+    private void reconcile(MemoryMap.EntityComponentMap components) {
+        // releases the slots of the bindings removed from the world
+        columns.forEach(pruner);
+        // rebinds the bindings restored to the world (e.g. by a rewind) to the slots of their entities
+        for (Component component : components.values()) {
+            if (!(component instanceof Binding)) {
+                continue;
+            }
+            final Binding binding = (Binding) component;
+            int slot = columns.slotOf(binding.entityId());
+            if (slot == binding.slot()) {
+                continue;
+            }
+            if (slot < 0) {
+                slot = allocate(binding.entityId(), binding.spatial());
+            }
+            components.put(binding.entityId(), new Binding(binding.entityId(), slot, binding.spatial()));
+        }
+    }
+
+    private void prune(int slot) {
+        if (getSlotBinding(bindings, slot) == null) {
+            columns.release(columns.getEntity(slot));
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * BSD 3-Clause License
+ *
+ * Copyright (c) 2023-2024, Articular-ES, The AvrSandbox Project
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package articular.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code ComponentSchema} implementation for every component annotated by
+ * {@code articular.core.component.schema.Schema}.
+ *
+ * <p>
+ * The generated schema (e.g. {@code SensorDataSchema} for {@code SensorData}) lays the
+ * primitive fields out in a fixed-size record sorted by their sizes (natural alignment),
+ * and provides the layout constants, static typed accessors reading and writing the fields
+ * of a record in a {@link java.nio.ByteBuffer}, and the routines serializing a component
+ * into a record and deserializing it back.
+ * </p>
+ *
+ * @author pavl_g
+ */
+@SupportedAnnotationTypes(SchemaProcessor.SCHEMA_ANNOTATION)
+public class SchemaProcessor extends AbstractProcessor {
+
+    /**
+     * The qualified name of the schema annotation.
+     */
+    static final String SCHEMA_ANNOTATION = "articular.core.component.schema.Schema";
+
+    private static final String COMPONENT = "articular.core.component.Component";
+    private static final String COMPONENT_SCHEMA = "articular.core.component.schema.ComponentSchema";
+
+    /**
+     * Instantiates the schema processor (instantiated by the compiler).
+     */
+    public SchemaProcessor() {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (!element.getKind().isClass()) {
+                    error(element, "@Schema is applicable only to component classes and records");
+                    continue;
+                }
+                final TypeElement component = (TypeElement) element;
+                final List<SchemaField> fields = collectFields(component);
+                if (fields != null) {
+                    generate(component, fields);
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<SchemaField> collectFields(TypeElement component) {
+        final TypeMirror componentType = processingEnv.getElementUtils().getTypeElement(COMPONENT).asType();
+        if (!processingEnv.getTypeUtils().isAssignable(component.asType(), componentType)) {
+            error(component, "@Schema component must implement " + COMPONENT);
+            return null;
+        }
+        if (component.getModifiers().contains(Modifier.PRIVATE) || !component.getTypeParameters().isEmpty()
+                || (component.getNestingKind() == NestingKind.MEMBER && !component.getModifiers().contains(Modifier.STATIC)
+                && component.getKind() != ElementKind.RECORD)) {
+            error(component, "@Schema component must be a non-private, non-generic, top-level or static class");
+            return null;
+        }
+        final boolean record = component.getKind() == ElementKind.RECORD;
+        final List<SchemaField> fields = new ArrayList<>();
+        // the generated members named after the fields, by the fields naming them
+        final Map<String, String> members = new HashMap<>();
+        boolean valid = true;
+        for (VariableElement field : ElementFilter.fieldsIn(component.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            final TypeKind kind = field.asType().getKind();
+            if (!kind.isPrimitive()) {
+                error(field, "@Schema component fields must be primitives");
+                valid = false;
+                continue;
+            }
+            if (!record && field.getModifiers().contains(Modifier.PRIVATE)) {
+                error(field, "@Schema component fields must be accessible from the package (non-private)");
+                valid = false;
+                continue;
+            }
+            final String name = field.getSimpleName().toString();
+            for (String member : new String[]{"OFFSET_" + constantName(name), "get" + accessorName(name)}) {
+                final String other = members.putIfAbsent(member, name);
+                if (other != null) {
+                    error(field, "@Schema component field \"" + name + "\" collides with the field \"" + other
+                            + "\" in the generated member " + member + "; rename one of them");
+                    valid = false;
+                    break;
+                }
+            }
+            fields.add(new SchemaField(name, kind, record));
+        }
+        if (!valid) {
+            return null;
+        }
+        if (fields.isEmpty()) {
+            error(component, "@Schema component declares no primitive fields");
+            return null;
+        }
+        if (!hasCanonicalConstructor(component, fields)) {
+            error(component, "@Schema component must declare a non-private constructor accepting all its fields"
+                    + " in their declaration order");
+            return null;
+        }
+        return fields;
+    }
+
+    private void generate(TypeElement component, List<SchemaField> declared) {
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(component);
+        final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        final String componentName = component.getQualifiedName().toString();
+        final String schemaName = flatName(component) + "Schema";
+
+        // lay out the fields by their sizes (descending) for natural alignment
+        final List<SchemaField> layout = new ArrayList<>(declared);
+        layout.sort(Comparator.comparingInt((SchemaField field) -> field.size).reversed());
+        int offset = 0;
+        for (SchemaField field : layout) {
+            field.offset = offset;
+            offset += field.size;
+        }
+        final int alignment = layout.get(0).size;
+        final int size = (offset + alignment - 1) / alignment * alignment;
+
+        final StringBuilder source = new StringBuilder("// Generated by ")
+                .append(getClass().getName()).append(", do not edit.\n\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import java.nio.ByteBuffer;\n\n")
+                .append("/**\n * The generated schema of {@link ").append(componentName).append("}.\n */\n")
+                .append("public final class ").append(schemaName).append(" implements ")
+                .append(COMPONENT_SCHEMA).append('<').append(componentName).append("> {\n\n")
+                .append("    /**\n     * The schema instance.\n     */\n")
+                .append("    public static final ").append(schemaName).append(" INSTANCE = new ")
+                .append(schemaName).append("();\n\n")
+                .append("    /**\n     * The record size in bytes.\n     */\n")
+                .append("    public static final int SIZE = ").append(size).append(";\n");
+        for (SchemaField field : layout) {
+            source.append("\n    /**\n     * The offset of the {@code ").append(field.name)
+                    .append("} field in bytes.\n     */\n")
+                    .append("    public static final int OFFSET_").append(constantName(field.name))
+                    .append(" = ").append(field.offset).append(";\n");
+        }
+        source.append("\n    private static final String[] FIELD_NAMES = {");
+        join(source, layout, field -> "\"" + field.name + "\"");
+        source.append("};\n    private static final int[] FIELD_OFFSETS = {");
+        join(source, layout, field -> String.valueOf(field.offset));
+        source.append("};\n    private static final int[] FIELD_SIZES = {");
+        join(source, layout, field -> String.valueOf(field.size));
+        source.append("};\n\n    private ").append(schemaName).append("() {\n    }\n");
+
+        // typed record accessors
+        for (SchemaField field : layout) {
+            final String capitalized = accessorName(field.name);
+            source.append("\n    /**\n     * Reads the {@code ").append(field.name).append("} field of a record.\n")
+                    .append("     *\n     * @param buffer the buffer holding the record.\n")
+                    .append("     * @param offset the absolute offset of the record.\n")
+                    .append("     * @return the field value.\n     */\n")
+                    .append("    public static ").append(field.type).append(" get").append(capitalized)
+                    .append("(ByteBuffer buffer, int offset) {\n        return ")
+                    .append(field.read("buffer", "offset + OFFSET_" + constantName(field.name)))
+                    .append(";\n    }\n");
+            source.append("\n    /**\n     * Writes the {@code ").append(field.name).append("} field of a record.\n")
+                    .append("     *\n     * @param buffer the buffer holding the record.\n")
+                    .append("     * @param offset the absolute offset of the record.\n")
+                    .append("     * @param value the field value.\n     */\n")
+                    .append("    public static void set").append(capitalized)
+                    .append("(ByteBuffer buffer, int offset, ").append(field.type).append(" value) {\n        ")
+                    .append(field.write("buffer", "offset + OFFSET_" + constantName(field.name), "value"))
+                    .append(";\n    }\n");
+        }
+
+        source.append("\n    @Override\n    public Class<").append(componentName).append("> getComponentClass() {\n")
+                .append("        return ").append(componentName).append(".class;\n    }\n")
+                .append("\n    @Override\n    public int getSize() {\n        return SIZE;\n    }\n")
+                .append("\n    @Override\n    public String[] getFieldNames() {\n        return FIELD_NAMES.clone();\n    }\n")
+                .append("\n    @Override\n    public int[] getFieldOffsets() {\n        return FIELD_OFFSETS.clone();\n    }\n")
+                .append("\n    @Override\n    public int[] getFieldSizes() {\n        return FIELD_SIZES.clone();\n    }\n");
+
+        source.append("\n    @Override\n    public void write(").append(componentName)
+                .append(" component, ByteBuffer buffer, int offset) {\n");
+        for (SchemaField field : layout) {
+            source.append("        ").append(field.write("buffer", "offset + OFFSET_" + constantName(field.name),
+                    field.access("component"))).append(";\n");
+        }
+        source.append("    }\n");
+
+        source.append("\n    @Override\n    public ").append(componentName)
+                .append(" read(ByteBuffer buffer, int offset) {\n");
+        source.append("        return new ").append(componentName).append('(');
+        for (int i = 0; i < declared.size(); i++) {
+            final SchemaField field = declared.get(i);
+            if (i > 0) {
+                source.append(",\n                ");
+            }
+            source.append(field.read("buffer", "offset + OFFSET_" + constantName(field.name)));
+        }
+        source.append(");\n    }\n}\n");
+
+        final String qualifiedSchemaName = packageName.isEmpty() ? schemaName : packageName + "." + schemaName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedSchemaName, component).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(component, "Failed to generate " + qualifiedSchemaName + ": " + e.getMessage());
+        }
+    }
+
+    private boolean hasCanonicalConstructor(TypeElement component, List<SchemaField> fields) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(component.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)
+                    || constructor.getParameters().size() != fields.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < fields.size() && matches; i++) {
+                matches = constructor.getParameters().get(i).asType().getKind() == fields.get(i).kind;
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String flatName(TypeElement component) {
+        final StringBuilder name = new StringBuilder(component.getSimpleName());
+        Element enclosing = component.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, ((TypeElement) enclosing).getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    private static String constantName(String fieldName) {
+        return fieldName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+    }
+
+    private static String accessorName(String fieldName) {
+        return Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    private static void join(StringBuilder source, List<SchemaField> fields,
+                             java.util.function.Function<SchemaField, String> mapper) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append(mapper.apply(fields.get(i)));
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Describes a primitive schema field and its layout.
+     */
+    private static final class SchemaField {
+        private final String name;
+        private final TypeKind kind;
+        private final String type;
+        private final int size;
+        private final boolean record;
+        private int offset;
+
+        private SchemaField(String name, TypeKind kind, boolean record) {
+            this.name = name;
+            this.kind = kind;
+            this.record = record;
+            this.type = kind.name().toLowerCase();
+            switch (kind) {
+                case LONG:
+                case DOUBLE:
+                    size = Long.BYTES;
+                    break;
+                case INT:
+                case FLOAT:
+                    size = Integer.BYTES;
+                    break;
+                case SHORT:
+                case CHAR:
+                    size = Short.BYTES;
+                    break;
+                default:
+                    size = Byte.BYTES;
+                    break;
+            }
+        }
+
+        private String access(String component) {
+            return record ? component + "." + name + "()" : component + "." + name;
+        }
+
+        private String read(String buffer, String index) {
+            switch (kind) {
+                case BOOLEAN:
+                    return "(" + buffer + ".get(" + index + ") != 0)";
+                case BYTE:
+                    return buffer + ".get(" + index + ")";
+                default:
+                    return buffer + ".get" + suffix() + "(" + index + ")";
+            }
+        }
+
+        private String write(String buffer, String index, String value) {
+            switch (kind) {
+                case BOOLEAN:
+                    return buffer + ".put(" + index + ", (byte) (" + value + " ? 1 : 0))";
+                case BYTE:
+                    return buffer + ".put(" + index + ", " + value + ")";
+                default:
+                    return buffer + ".put" + suffix() + "(" + index + ", " + value + ")";
+            }
+        }
+
+        private String suffix() {
+            return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        }
+    }
+}